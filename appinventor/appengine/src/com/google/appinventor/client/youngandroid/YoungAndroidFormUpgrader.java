@@ -311,6 +311,9 @@ public final class YoungAndroidFormUpgrader {
       } else if (componentType.equals("Player")) {
         srcCompVersion = upgradePlayerProperties(componentProperties, srcCompVersion);
 
+      } else if (componentType.equals("LdpCoapClient")) {
+        srcCompVersion = upgradeLdpCoapClientProperties(componentProperties, srcCompVersion);
+
       } else if (componentType.equals("LinkedData")) {
         srcCompVersion = upgradeLinkedDataProperties(componentProperties, srcCompVersion);
 
@@ -320,6 +323,10 @@ public final class YoungAndroidFormUpgrader {
       } else if (componentType.equals("LinkedDataListPicker")) {
         srcCompVersion = upgradeLinkedDataListProperties(componentProperties, srcCompVersion);
 
+      } else if (componentType.equals("LinkedDataStreamingClient")) {
+        srcCompVersion = upgradeLinkedDataStreamingClientProperties(componentProperties,
+            srcCompVersion);
+
       } else if (componentType.equals("SemanticWebListPicker")) {
         srcCompVersion = upgradeSemanticWebListPickerProperties(componentProperties, srcCompVersion);
 
@@ -384,6 +391,8 @@ public final class YoungAndroidFormUpgrader {
         srcCompVersion = upgradeFeatureCollection(componentProperties, srcCompVersion);
       } else if (componentType.equals("YandexTranslate")) {
         srcCompVersion = upgradeYandexTranslateProperties(componentProperties, srcCompVersion);
+      } else if (componentType.equals("Reasoner")) {
+        srcCompVersion = upgradeReasonerProperties(componentProperties, srcCompVersion);
       }
 
       if (srcCompVersion < sysCompVersion) {
@@ -1372,6 +1381,19 @@ public final class YoungAndroidFormUpgrader {
     return srcCompVersion;
   }
 
+  private static int upgradeLdpCoapClientProperties(Map<String, JSONValue> componentProperties,
+      int srcCompVersion) {
+    if (srcCompVersion < 2) {
+      // The BlockSize and MaxOutstandingRequests properties, the GetAsync, DeleteAsync,
+      // DiscoverResourcesAsync, GetBlockwise, Observe, StopObserving and CancelRequests methods
+      // and the ResponseReceived, BlockReceived, ResourceChanged and RequestFailed events were
+      // added.
+      // No properties need to be modified to upgrade to version 2.
+      srcCompVersion = 2;
+    }
+    return srcCompVersion;
+  }
+
   private static int upgradeLinkedDataProperties(Map<String, JSONValue> componentProperties,
       int srcCompVersion) {
     if ( srcCompVersion < 3 ) {
@@ -1379,6 +1401,60 @@ public final class YoungAndroidFormUpgrader {
       componentProperties.remove("BaseURL");
       srcCompVersion = 3;
     }
+    if (srcCompVersion < 4) {
+      // The StoreDirectory property was added.
+      // No properties need to be modified to upgrade to version 4.
+      srcCompVersion = 4;
+    }
+    if (srcCompVersion < 5) {
+      // The LoadBatchSize property was added.
+      // No properties need to be modified to upgrade to version 5.
+      srcCompVersion = 5;
+    }
+    if (srcCompVersion < 6) {
+      // The UpdateBatchSize and UpdateRetries properties were added.
+      // No properties need to be modified to upgrade to version 6.
+      srcCompVersion = 6;
+    }
+    if (srcCompVersion < 7) {
+      // The ChangelogFile property was added.
+      // No properties need to be modified to upgrade to version 7.
+      srcCompVersion = 7;
+    }
+    if (srcCompVersion < 8) {
+      // The OutboxFile property was added.
+      // No properties need to be modified to upgrade to version 8.
+      srcCompVersion = 8;
+    }
+    if (srcCompVersion < 9) {
+      // The QueryCacheTTL and QueryCacheOnDisk properties were added.
+      // No properties need to be modified to upgrade to version 9.
+      srcCompVersion = 9;
+    }
+    if (srcCompVersion < 10) {
+      // The FederatedQueryParallelism and FederatedQueryTimeout properties were added.
+      // The ExecuteFederatedQuery method and RetrievedFederatedResults event were added.
+      // No properties need to be modified to upgrade to version 10.
+      srcCompVersion = 10;
+    }
+    if (srcCompVersion < 11) {
+      // The DefineQueryTemplate and ExecuteQueryTemplate methods were added.
+      // No properties need to be modified to upgrade to version 11.
+      srcCompVersion = 11;
+    }
+    if (srcCompVersion < 12) {
+      // The ResultPageSize property and RetrievedResultsPage event were added.
+      // No properties need to be modified to upgrade to version 12.
+      srcCompVersion = 12;
+    }
+    if (srcCompVersion < 13) {
+      // QueryCacheOnDisk is no longer a designer property, since the cache is shared by all
+      // components. It can still be set from the blocks.
+      if (componentProperties.containsKey("QueryCacheOnDisk")) {
+        componentProperties.remove("QueryCacheOnDisk");
+      }
+      srcCompVersion = 13;
+    }
     return srcCompVersion;
   }
 
@@ -1407,10 +1483,32 @@ public final class YoungAndroidFormUpgrader {
     if (srcCompVersion < 3) {
       srcCompVersion = 3;
     }
+    if (srcCompVersion < 4) {
+      // The PageSize property was added.
+      // No properties need to be modified to upgrade to version 4.
+      srcCompVersion = 4;
+    }
 
     return srcCompVersion;
   }
 
+  private static int upgradeLinkedDataStreamingClientProperties(
+      Map<String, JSONValue> componentProperties, int srcCompVersion) {
+    if (srcCompVersion < 2) {
+      // The StartLocalQuery, StopLocalQuery, AddStreamData and StreamFromLinkedData methods and
+      // the LocalStreamingResultsReceived event were added.
+      // No properties need to be modified to upgrade to version 2.
+      srcCompVersion = 2;
+    }
+    if (srcCompVersion < 3) {
+      // The BatchSize, FlushInterval, MessageQueueCapacity and CompressMessages properties, the
+      // FlushMessages method and the MessageQueueFull and MessagesSent events were added.
+      // No properties need to be modified to upgrade to version 3.
+      srcCompVersion = 3;
+    }
+    return srcCompVersion;
+  }
+
   private static int upgradeSemanticWebListPickerProperties(Map<String, JSONValue> componentProperties,
       int srcCompVersion) {
     if ( srcCompVersion < 2 ) {
@@ -1838,6 +1936,26 @@ public final class YoungAndroidFormUpgrader {
     return srcCompVersion;
   }
 
+  private static int upgradeReasonerProperties(Map<String, JSONValue> componentProperties,
+      int srcCompVersion) {
+    if (srcCompVersion < 2) {
+      // The Incremental property and InferencesUpdated event were added.
+      // No properties need to be modified to upgrade to version 2.
+      srcCompVersion = 2;
+    }
+    if (srcCompVersion < 3) {
+      // The QueryTimeout, QueryLimit and ResultPageSize properties were added.
+      // No properties need to be modified to upgrade to version 3.
+      srcCompVersion = 3;
+    }
+    if (srcCompVersion < 4) {
+      // The DefineQueryTemplate, RunQueryTemplate and RunQueryTemplateAsync methods were added.
+      // No properties need to be modified to upgrade to version 4.
+      srcCompVersion = 4;
+    }
+    return srcCompVersion;
+  }
+
   private static void handlePropertyRename(Map<String, JSONValue> componentProperties,
       String oldPropName, String newPropName) {
     if (componentProperties.containsKey(oldPropName)) {
@@ -5,24 +5,47 @@
 
 package com.google.appinventor.server;
 
+import com.google.appengine.api.appidentity.AppIdentityServiceFactory;
+import com.google.appengine.api.appidentity.AppIdentityServiceFailureException;
+import com.google.appengine.tools.cloudstorage.GcsFileMetadata;
+import com.google.appengine.tools.cloudstorage.GcsFileOptions;
+import com.google.appengine.tools.cloudstorage.GcsFilename;
+import com.google.appengine.tools.cloudstorage.GcsInputChannel;
+import com.google.appengine.tools.cloudstorage.GcsOutputChannel;
+import com.google.appengine.tools.cloudstorage.GcsService;
+import com.google.appengine.tools.cloudstorage.GcsServiceFactory;
+import com.google.appengine.tools.cloudstorage.RetryParams;
+import com.google.appinventor.server.flags.Flag;
+import com.google.appinventor.server.semweb.LabelIndex;
+import com.google.appinventor.server.semweb.OntologySnapshot;
+import com.google.appinventor.server.semweb.PropertyCache;
 import com.google.appinventor.shared.rpc.semweb.SemWebConstants;
 import com.google.appinventor.shared.rpc.semweb.SemWebService;
 import com.hp.hpl.jena.ontology.OntClass;
 import com.hp.hpl.jena.ontology.OntModel;
+import com.hp.hpl.jena.ontology.OntModelSpec;
 import com.hp.hpl.jena.ontology.OntProperty;
 import com.hp.hpl.jena.query.Query;
 import com.hp.hpl.jena.query.QueryExecution;
 import com.hp.hpl.jena.query.QueryExecutionFactory;
 import com.hp.hpl.jena.query.QueryFactory;
 import com.hp.hpl.jena.query.QuerySolution;
+import com.hp.hpl.jena.query.ResultSet;
 import com.hp.hpl.jena.query.ResultSetFactory;
 import com.hp.hpl.jena.query.ResultSetRewindable;
 import com.hp.hpl.jena.rdf.model.Model;
 import com.hp.hpl.jena.rdf.model.ModelFactory;
 import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+import com.hp.hpl.jena.vocabulary.RDF;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -51,27 +74,103 @@ public class SemWebServiceImpl extends OdeRemoteServiceServlet implements
 
   private static final String INDEX_TIME = "Lucene initialization completed in %d ms.";
 
+  private static final String SNAPSHOT_TIME = "Ontology snapshot loaded in %d ms.";
+
+  private static final String SNAPSHOT_FILE = "ontology.snapshot";
+
+  /**
+   * Directory holding the local copy of the ontology snapshot. If empty, a directory in
+   * java.io.tmpdir is used.
+   */
+  private static final Flag<String> snapshotDir = Flag.createFlag("semweb.snapshot.dir", "");
+
+  /**
+   * Name of the Cloud Storage object holding the ontology snapshot, so that it outlives the
+   * instance that built it. If empty, the snapshot is only kept in {@link #snapshotDir}.
+   */
+  private static final Flag<String> snapshotObject =
+      Flag.createFlag("semweb.snapshot.object", "semweb/ontology.snapshot");
+
+  /**
+   * Cloud Storage bucket holding the snapshot object, the same one used for project files.
+   */
+  private static final Flag<String> gcsBucket = Flag.createFlag("gcs.bucket", "");
+
+  /**
+   * Age, in hours, after which the ontologies are downloaded again to refresh the snapshot.
+   */
+  private static final Flag<Integer> snapshotMaxAge =
+      Flag.createFlag("semweb.snapshot.maxage.hours", 24);
+
+  /**
+   * Stores all ontology information. Replaced as a whole when the ontologies are reloaded.
+   */
+  private static volatile Model ontologyModel = ModelFactory.createDefaultModel();
+
+  private static final String LABELS_QUERY = "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#> "
+      + "PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> "
+      + "PREFIX skos: <http://www.w3.org/2004/02/skos/core#> "
+      + "PREFIX owl: <http://www.w3.org/2002/07/owl#> "
+      + "SELECT DISTINCT ?uri ?lbl WHERE { %s "
+      + "{ ?uri rdfs:label ?lbl } UNION { ?uri skos:prefLabel ?lbl } "
+      + "FILTER(lang(?lbl) = \"\" || langMatches(lang(?lbl), \"EN\")) }";
+
+  private static final String CLASS_PATTERN = "{ ?uri a owl:Class } UNION { ?uri a rdfs:Class }";
+
+  private static final String PROPERTY_PATTERN = "{ ?uri a owl:ObjectProperty } "
+      + "UNION { ?uri a owl:DatatypeProperty } UNION { ?uri a rdf:Property }";
+
+  /**
+   * Label index of the classes in the ontology model, or null until the ontologies are loaded.
+   */
+  private static volatile LabelIndex classIndex = null;
+
+  /**
+   * Label index of the properties in the ontology model, or null until the ontologies are loaded.
+   */
+  private static volatile LabelIndex propertyIndex = null;
+
   /**
-   * Stores all ontology information.
+   * Timeout, in milliseconds, for fetching a concept that is not in the loaded ontologies.
    */
-  private static final transient Model ontologyModel = ModelFactory.createDefaultModel();
+  private static final int CONCEPT_TIMEOUT_MS = 10000;
+
+  /**
+   * Caches the declared properties of the concepts requested by {@link #getProperties(String)}.
+   */
+  private static final PropertyCache propertyCache = new PropertyCache(
+      new PropertyCache.Loader() {
+        @Override
+        public List<String> load(String concept) throws IOException {
+          return loadProperties(concept);
+        }
+      }, PropertyCache.DEFAULT_CAPACITY, PropertyCache.DEFAULT_TTL_MS);
 
   /**
    * Sets up the ontology model and performs lucene indexing.
    */
   private static class OntologyLoader implements Runnable {
+    private final File snapshotFile;
+    private final boolean haveSnapshot;
+
+    /**
+     * @param snapshotFile the file to save the loaded ontologies to
+     * @param haveSnapshot true if a snapshot is already serving searches, in which case it is
+     *     only replaced if every ontology loads
+     */
+    OntologyLoader(File snapshotFile, boolean haveSnapshot) {
+      this.snapshotFile = snapshotFile;
+      this.haveSnapshot = haveSnapshot;
+    }
+
     @Override
     public void run() {
       final long start = System.currentTimeMillis();
       LOG.info("Initializing Lucene index for OWL ontologies...");
-      Properties props = new Properties();
-      try {
-        props.load(SemWebConstants.class.getResourceAsStream("SemWebConstants.properties"));
-      } catch (IOException e1) {
-        e1.printStackTrace();
-      }
-      String ontologiesList = props.getProperty("ontologies", "");
+      final Model model = ModelFactory.createDefaultModel();
+      String ontologiesList = getOntologiesList();
       String[] ontologies = ontologiesList.split(",");
+      int failures = 0;
       for (String ontology : ontologies) {
         LOG.debug("Reading <" + ontology + "> ...");
         try {
@@ -103,40 +202,261 @@ public class SemWebServiceImpl extends OdeRemoteServiceServlet implements
               if (ontology.endsWith(".owl")) {
                 ontology = ontology.replace(".owl", ".ttl");
               }
-              RDFDataMgr.read(ontologyModel, conn.getInputStream(), ontology, Lang.TURTLE);
+              RDFDataMgr.read(model, conn.getInputStream(), ontology, Lang.TURTLE);
             } else if (contentType.equals("application/rdf+xml")
                 || contentType.equals("application/xml")) {
-              ontologyModel.read(conn.getInputStream(), ontology);
+              model.read(conn.getInputStream(), ontology);
             } else if (contentType.equals("text/turtle")) {
-              ontologyModel.read(conn.getInputStream(), ontology, "TTL");
+              model.read(conn.getInputStream(), ontology, "TTL");
             } else if (contentType.equals("text/n3")) {
-              ontologyModel.read(conn.getInputStream(), ontology, "N3");
+              model.read(conn.getInputStream(), ontology, "N3");
             } else if (contentType.equals("text/plain")
                 || contentType.equals("application/octet-stream")) {
               // for non-compliant servers that return turtle as plain text
               try {
-                ontologyModel.read(conn.getInputStream(), ontology, "TTL");
+                model.read(conn.getInputStream(), ontology, "TTL");
               } catch (Exception e) {
                 LOG.warn("Unexpected content type 'text/plain' returned by server.");
+                failures++;
               }
             } else {
               LOG.warn("Unexpected content type '" + contentType + "' returned by server.");
+              failures++;
             }
             break;
           }
         } catch (Exception e) {
           Logger.getRootLogger().warn("Unable to read ontology " + ontology, e);
+          failures++;
         }
       }
+      model.removeNsPrefix("");
+      if (haveSnapshot && failures > 0) {
+        LOG.warn("Keeping the ontology snapshot since " + failures + " ontologies failed to load");
+        return;
+      }
+      OntologySnapshot snapshot = new OntologySnapshot(model,
+          buildIndex(model, CLASS_PATTERN), buildIndex(model, PROPERTY_PATTERN),
+          ontologiesList, System.currentTimeMillis());
+      install(snapshot);
       LOG.info(String.format(INDEX_TIME, System.currentTimeMillis() - start));
-      ontologyModel.removeNsPrefix("");
+      if (failures == 0) {
+        try {
+          snapshot.write(snapshotFile);
+          storeSnapshot(snapshotFile);
+        } catch (IOException e) {
+          LOG.warn("Unable to save ontology snapshot to " + snapshotFile, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Makes the model and indexes of a snapshot the ones used to answer requests.
+   */
+  private static void install(OntologySnapshot snapshot) {
+    ontologyModel = snapshot.getModel();
+    classIndex = snapshot.getClassIndex();
+    propertyIndex = snapshot.getPropertyIndex();
+    propertyCache.clear();
+  }
+
+  /**
+   * Returns the comma-separated list of ontologies configured in SemWebConstants.properties.
+   */
+  private static String getOntologiesList() {
+    Properties props = new Properties();
+    try {
+      props.load(SemWebConstants.class.getResourceAsStream("SemWebConstants.properties"));
+    } catch (IOException e1) {
+      e1.printStackTrace();
+    }
+    return props.getProperty("ontologies", "");
+  }
+
+  private static File getSnapshotFile() {
+    String dir = snapshotDir.get();
+    if (dir.isEmpty()) {
+      return new File(new File(System.getProperty("java.io.tmpdir"), "appinventor-semweb"),
+          SNAPSHOT_FILE);
+    }
+    return new File(dir, SNAPSHOT_FILE);
+  }
+
+  /**
+   * Returns the Cloud Storage object holding the snapshot, or null if there is none configured.
+   */
+  private static GcsFilename getSnapshotObject() {
+    String name = snapshotObject.get();
+    if (name.isEmpty()) {
+      return null;
+    }
+    String bucket = gcsBucket.get();
+    if (bucket.isEmpty()) {
+      try {
+        bucket = AppIdentityServiceFactory.getAppIdentityService().getDefaultGcsBucketName();
+      } catch (AppIdentityServiceFailureException e) {
+        LOG.warn("No GCS bucket to keep the ontology snapshot in", e);
+        return null;
+      }
+    }
+    return new GcsFilename(bucket, name);
+  }
+
+  private static GcsService createGcsService() {
+    return GcsServiceFactory.createGcsService(new RetryParams.Builder()
+        .initialRetryDelayMillis(100)
+        .retryMaxAttempts(10)
+        .totalRetryPeriodMillis(10000).build());
+  }
+
+  /**
+   * Copies the snapshot saved in Cloud Storage to the given file, which is replaced in a single
+   * rename so that a snapshot being read is never overwritten.
+   *
+   * @return true if there was a snapshot to copy
+   */
+  private static boolean fetchSnapshot(File file) throws IOException {
+    GcsFilename object = getSnapshotObject();
+    if (object == null) {
+      return false;
+    }
+    GcsService gcsService = createGcsService();
+    GcsFileMetadata metadata = gcsService.getMetadata(object);
+    if (metadata == null) {
+      return false;
+    }
+    File dir = file.getParentFile();
+    if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Unable to create " + dir);
+    }
+    File tmp = new File(file.getPath() + ".tmp");
+    GcsInputChannel in = gcsService.openReadChannel(object, 0);
+    FileOutputStream out = new FileOutputStream(tmp);
+    try {
+      FileChannel channel = out.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+      while (in.read(buffer) >= 0) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        buffer.clear();
+      }
+      out.getFD().sync();
+    } finally {
+      out.close();
+      in.close();
+    }
+    if (!tmp.renameTo(file)) {
+      throw new IOException("Unable to replace " + file);
     }
+    return true;
   }
 
+  /**
+   * Saves the snapshot in the given file to Cloud Storage, so that instances started later can
+   * load it instead of downloading the ontologies again.
+   */
+  private static void storeSnapshot(File file) throws IOException {
+    GcsFilename object = getSnapshotObject();
+    if (object == null) {
+      return;
+    }
+    GcsOutputChannel out = createGcsService().createOrReplace(object,
+        GcsFileOptions.getDefaultInstance());
+    FileInputStream in = new FileInputStream(file);
+    try {
+      FileChannel channel = in.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          out.write(buffer);
+        }
+        buffer.clear();
+      }
+    } finally {
+      in.close();
+    }
+    // Only closing the channel makes the object visible, so a failed upload leaves the previous
+    // snapshot in place.
+    out.close();
+  }
+
+  /**
+   * Builds a label index of the terms matching the given type pattern.
+   *
+   * @param model the ontology model
+   * @param typePattern SPARQL pattern binding ?uri to the terms to index
+   * @return the label index
+   */
+  static LabelIndex buildIndex(Model model, String typePattern) {
+    LabelIndex.Builder builder = new LabelIndex.Builder();
+    QueryExecution qe = QueryExecutionFactory.create(String.format(LABELS_QUERY, typePattern),
+        model);
+    try {
+      ResultSet rs = qe.execSelect();
+      while (rs.hasNext()) {
+        QuerySolution qs = rs.nextSolution();
+        if (!qs.get("uri").isURIResource() || !qs.get("lbl").isLiteral()) {
+          continue;
+        }
+        String uri = qs.getResource("uri").getURI();
+        builder.add(uri, qs.getLiteral("lbl").getString(), model.qnameFor(uri));
+      }
+    } finally {
+      qe.close();
+    }
+    return builder.build();
+  }
+
+  /**
+   * Loads the ontology snapshot, if there is one, so that searches can be answered right away.
+   * The local copy is used if it is fresh, otherwise the one kept in Cloud Storage. The
+   * ontologies are downloaded in the background if neither is there or fresh.
+   */
   @Override
   public void init(ServletConfig config) throws ServletException {
     super.init(config);
-    new Thread(new OntologyLoader()).start();
+    File snapshotFile = getSnapshotFile();
+    final long start = System.currentTimeMillis();
+    OntologySnapshot snapshot = readSnapshot(snapshotFile);
+    if (snapshot == null || isStale(snapshot)) {
+      try {
+        if (fetchSnapshot(snapshotFile)) {
+          OntologySnapshot stored = readSnapshot(snapshotFile);
+          if (stored != null) {
+            snapshot = stored;
+          }
+        }
+      } catch (IOException e) {
+        LOG.warn("Unable to fetch ontology snapshot from Cloud Storage", e);
+      }
+    }
+    if (snapshot != null) {
+      install(snapshot);
+      LOG.info(String.format(SNAPSHOT_TIME, System.currentTimeMillis() - start));
+    }
+    if (snapshot == null || isStale(snapshot)) {
+      new Thread(new OntologyLoader(snapshotFile, snapshot != null)).start();
+    }
+  }
+
+  /**
+   * Reads the snapshot in the given file, returning null if there is none that can be used.
+   */
+  private static OntologySnapshot readSnapshot(File file) {
+    try {
+      return OntologySnapshot.read(file, getOntologiesList());
+    } catch (IOException e) {
+      LOG.warn("Unable to read ontology snapshot " + file, e);
+      return null;
+    }
+  }
+
+  private static boolean isStale(OntologySnapshot snapshot) {
+    return snapshot.isStale(snapshotMaxAge.get() * 3600000L, System.currentTimeMillis());
   }
 
   /**
@@ -192,12 +512,7 @@ public class SemWebServiceImpl extends OdeRemoteServiceServlet implements
         log.info(label + "," + value + "," + prefix);
         pairs.add(createEntry(label, value, prefix));
       }
-      if (pairs.size() == 0) {
-        Map<String, String> nullPair = new HashMap<>();
-        nullPair.put("label", "No results found");
-        nullPair.put("value", "");
-        pairs.add(nullPair);
-      }
+      addNoResults(pairs);
       log.info("Finished query");
     } else {
       log.warn("Unexpected query type");
@@ -205,8 +520,40 @@ public class SemWebServiceImpl extends OdeRemoteServiceServlet implements
     return pairs;
   }
 
+  /**
+   * Adds an entry telling the user that nothing matched if there are no results.
+   */
+  private static void addNoResults(List<Map<String, String>> pairs) {
+    if (pairs.size() == 0) {
+      Map<String, String> nullPair = new HashMap<>();
+      nullPair.put("label", "No results found");
+      nullPair.put("value", "");
+      pairs.add(nullPair);
+    }
+  }
+
+  /**
+   * Searches a label index and generates objects to be sent back to the client.
+   *
+   * @param index the label index to search
+   * @param text the text to search for
+   * @return list of mappings modeling the label and uri for matching rdf:Resources
+   */
+  private List<Map<String, String>> searchIndex(LabelIndex index, String text) {
+    final List<Map<String, String>> pairs = new ArrayList<>();
+    for (LabelIndex.Match match : index.search(text, LabelIndex.DEFAULT_LIMIT)) {
+      pairs.add(createEntry(match.getLabel(), match.getUri(), match.getQName()));
+    }
+    addNoResults(pairs);
+    return pairs;
+  }
+
   @Override
   public List<Map<String, String>> searchClasses(String text) {
+    LabelIndex index = classIndex;
+    if (index != null) {
+      return searchIndex(index, text);
+    }
     // TODO: Escape the incoming text
     String queryText = "PREFIX pf: <http://jena.hpl.hp.com/ARQ/property#> "
         + "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#> "
@@ -223,6 +570,10 @@ public class SemWebServiceImpl extends OdeRemoteServiceServlet implements
 
   @Override
   public List<Map<String, String>> searchProperties(String text) {
+    LabelIndex index = propertyIndex;
+    if (index != null) {
+      return searchIndex(index, text);
+    }
     // TODO: Escape the incoming text
     String queryText = "PREFIX pf: <http://jena.hpl.hp.com/ARQ/property#> "
         + "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#> "
@@ -241,26 +592,58 @@ public class SemWebServiceImpl extends OdeRemoteServiceServlet implements
 
   @Override
   public List<String> getProperties(String concept) {
-    final Logger log = Logger.getRootLogger();
-    List<String> propertyList = new ArrayList<>();
     try {
+      return new ArrayList<>(propertyCache.get(concept));
+    } catch (Exception e) {
+      Logger.getRootLogger().warn("Unable to read ontology " + concept, e);
+      return new ArrayList<>();
+    }
+  }
+
+  /**
+   * Lists the properties declared for a class. The class is looked up in the loaded ontologies
+   * first, and only fetched from its URI if it is not described there.
+   *
+   * @param concept the URI of the class
+   * @return the URIs of the declared properties
+   * @throws IOException if the class has to be fetched and cannot be
+   */
+  static List<String> loadProperties(String concept) throws IOException {
+    Model base = ontologyModel;
+    OntModel model;
+    if (base.contains(base.createResource(concept), RDF.type)) {
+      model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM, base);
+    } else {
+      model = ModelFactory.createOntologyModel();
       HttpURLConnection conn = (HttpURLConnection) new URL(concept).openConnection();
       conn.addRequestProperty("Accept", "application/rdf+xml,text/turtle,text/n3");
+      conn.setConnectTimeout(CONCEPT_TIMEOUT_MS);
+      conn.setReadTimeout(CONCEPT_TIMEOUT_MS);
       conn.setDoInput(true);
       conn.connect();
-      OntModel model = (OntModel) ModelFactory.createOntologyModel();
-      model.read(conn.getInputStream(), concept, "RDF/XML");
-      OntClass ontClass = model.getOntClass(concept);
-      ExtendedIterator<OntProperty> propIt = ontClass.listDeclaredProperties();
-      log.info("The list of properties is: ");
+      InputStream in = conn.getInputStream();
+      try {
+        model.read(in, concept, "RDF/XML");
+      } finally {
+        in.close();
+        conn.disconnect();
+      }
+    }
+    List<String> propertyList = new ArrayList<>();
+    OntClass ontClass = model.getOntClass(concept);
+    if (ontClass == null) {
+      return propertyList;
+    }
+    ExtendedIterator<OntProperty> propIt = ontClass.listDeclaredProperties();
+    try {
       while (propIt.hasNext()) {
-        if (propIt.next() != null) {
-          propertyList.add(propIt.next().getURI());
-          log.info(propIt.next().getURI());
+        OntProperty property = propIt.next();
+        if (property != null && property.isURIResource()) {
+          propertyList.add(property.getURI());
         }
       }
-    } catch (Exception e) {
-      Logger.getRootLogger().warn("Unable to read ontology " + concept, e);
+    } finally {
+      propIt.close();
     }
     return propertyList;
   }
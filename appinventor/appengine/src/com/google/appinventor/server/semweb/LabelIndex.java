@@ -0,0 +1,334 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.semweb;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An in-memory index of the labels of ontology terms, used to answer the designer's
+ * autocomplete searches without running a SPARQL query over the whole ontology model.
+ *
+ * <p>Labels are case folded and broken into overlapping trigrams. A search intersects the
+ * posting lists of the trigrams of the search text, starting with the shortest, and then checks
+ * the remaining candidates with a substring test, so results are the same as a case-insensitive
+ * substring match. Searches shorter than a trigram scan all labels.</p>
+ *
+ * <p>Results are ranked: labels equal to the search text come first, then labels starting with
+ * it, then labels with a word starting with it, then any other match. Within a rank shorter
+ * labels come first, and ties are broken alphabetically. Each term appears at most once, under
+ * its best-ranked label.</p>
+ *
+ * <p>Instances are immutable and safe to share between threads.</p>
+ */
+public final class LabelIndex {
+
+  /** The default maximum number of results returned by a search. */
+  public static final int DEFAULT_LIMIT = 50;
+
+  /** Labels and URIs longer than this are not indexed. */
+  static final int MAX_LENGTH = 4096;
+
+  private static final int GRAM = 3;
+
+  private static final int EXACT = 0;
+  private static final int PREFIX = 1;
+  private static final int WORD_PREFIX = 2;
+  private static final int SUBSTRING = 3;
+
+  private static final int[] NO_POSTINGS = new int[0];
+
+  /**
+   * A search result.
+   */
+  public static final class Match {
+    private final String uri;
+    private final String label;
+    private final String qname;
+
+    private Match(String uri, String label, String qname) {
+      this.uri = uri;
+      this.label = label;
+      this.qname = qname;
+    }
+
+    public String getUri() {
+      return uri;
+    }
+
+    public String getLabel() {
+      return label;
+    }
+
+    /**
+     * @return the prefixed name of the term, or null if it has none
+     */
+    public String getQName() {
+      return qname;
+    }
+  }
+
+  /**
+   * Collects the labels of an index.
+   */
+  public static final class Builder {
+    private final List<String> uris = new ArrayList<>();
+    private final List<String> labels = new ArrayList<>();
+    private final List<String> qnames = new ArrayList<>();
+
+    /**
+     * Adds a label for a term. A term may have several labels. Labels or URIs longer than
+     * {@value LabelIndex#MAX_LENGTH} characters are ignored.
+     *
+     * @param uri the URI of the term
+     * @param label the label
+     * @param qname the prefixed name of the term, or null
+     * @return this builder
+     */
+    public Builder add(String uri, String label, String qname) {
+      if (uri.length() > MAX_LENGTH || label.length() > MAX_LENGTH
+          || (qname != null && qname.length() > MAX_LENGTH)) {
+        return this;
+      }
+      uris.add(uri);
+      labels.add(label);
+      qnames.add(qname);
+      return this;
+    }
+
+    public LabelIndex build() {
+      return new LabelIndex(uris.toArray(new String[0]), labels.toArray(new String[0]),
+          qnames.toArray(new String[0]));
+    }
+  }
+
+  private final String[] uris;
+  private final String[] labels;
+  private final String[] qnames;
+  private final String[] folded;
+  private final Map<String, int[]> postings;
+
+  LabelIndex(String[] uris, String[] labels, String[] qnames) {
+    this.uris = uris;
+    this.labels = labels;
+    this.qnames = qnames;
+    this.folded = new String[labels.length];
+    Map<String, List<Integer>> lists = new HashMap<>();
+    for (int i = 0; i < labels.length; i++) {
+      folded[i] = fold(labels[i]);
+      String previous = null;
+      for (String gram : grams(folded[i])) {
+        // grams() returns sorted trigrams, so duplicates are adjacent.
+        if (gram.equals(previous)) {
+          continue;
+        }
+        previous = gram;
+        List<Integer> list = lists.get(gram);
+        if (list == null) {
+          list = new ArrayList<>();
+          lists.put(gram, list);
+        }
+        list.add(i);
+      }
+    }
+    postings = new HashMap<>(lists.size() * 4 / 3 + 1);
+    for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+      List<Integer> list = entry.getValue();
+      int[] ids = new int[list.size()];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = list.get(i);
+      }
+      postings.put(entry.getKey(), ids);
+    }
+  }
+
+  /**
+   * @return the number of labels in the index
+   */
+  public int size() {
+    return labels.length;
+  }
+
+  /**
+   * Writes the labels of the index. The trigram postings are rebuilt when the index is read.
+   */
+  void write(DataOutput out) throws IOException {
+    out.writeInt(labels.length);
+    for (int i = 0; i < labels.length; i++) {
+      out.writeUTF(uris[i]);
+      out.writeUTF(labels[i]);
+      out.writeBoolean(qnames[i] != null);
+      if (qnames[i] != null) {
+        out.writeUTF(qnames[i]);
+      }
+    }
+  }
+
+  /**
+   * Reads an index written by {@link #write(DataOutput)}.
+   */
+  static LabelIndex read(DataInput in) throws IOException {
+    int size = in.readInt();
+    if (size < 0) {
+      throw new IOException("Invalid label count " + size);
+    }
+    Builder builder = new Builder();
+    for (int i = 0; i < size; i++) {
+      String uri = in.readUTF();
+      String label = in.readUTF();
+      builder.add(uri, label, in.readBoolean() ? in.readUTF() : null);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Finds the terms with a label containing the given text, ignoring case.
+   *
+   * @param text the text to search for
+   * @param limit the maximum number of results
+   * @return the best-ranked matches, best first
+   */
+  public List<Match> search(String text, int limit) {
+    final String query = fold(text.trim());
+    if (query.isEmpty() || limit <= 0) {
+      return Collections.emptyList();
+    }
+    int[] candidates = candidates(query);
+    // The best-ranked label of each matching term.
+    Map<String, Hit> best = new HashMap<>();
+    int count = candidates == null ? folded.length : candidates.length;
+    for (int c = 0; c < count; c++) {
+      int id = candidates == null ? c : candidates[c];
+      int rank = rank(folded[id], query);
+      if (rank < 0) {
+        continue;
+      }
+      Hit hit = new Hit(id, rank);
+      Hit previous = best.get(uris[id]);
+      if (previous == null || order.compare(hit, previous) < 0) {
+        best.put(uris[id], hit);
+      }
+    }
+    List<Hit> hits = new ArrayList<>(best.values());
+    Collections.sort(hits, order);
+    List<Match> matches = new ArrayList<>(Math.min(limit, hits.size()));
+    for (int i = 0; i < hits.size() && i < limit; i++) {
+      int id = hits.get(i).id;
+      matches.add(new Match(uris[id], labels[id], qnames[id]));
+    }
+    return matches;
+  }
+
+  /**
+   * Returns the labels containing every trigram of the query, or null if the query is too short
+   * to use the trigram postings.
+   */
+  private int[] candidates(String query) {
+    if (query.length() < GRAM) {
+      return null;
+    }
+    List<String> grams = grams(query);
+    int[][] lists = new int[grams.size()][];
+    for (int i = 0; i < lists.length; i++) {
+      int[] list = postings.get(grams.get(i));
+      if (list == null) {
+        return NO_POSTINGS;
+      }
+      lists[i] = list;
+    }
+    Arrays.sort(lists, new Comparator<int[]>() {
+      @Override
+      public int compare(int[] a, int[] b) {
+        return a.length - b.length;
+      }
+    });
+    int[] result = lists[0];
+    for (int i = 1; i < lists.length && result.length > 0; i++) {
+      result = intersect(result, lists[i]);
+    }
+    return result;
+  }
+
+  private static int[] intersect(int[] a, int[] b) {
+    int[] out = new int[Math.min(a.length, b.length)];
+    int n = 0;
+    int j = 0;
+    for (int i = 0; i < a.length && j < b.length; i++) {
+      while (j < b.length && b[j] < a[i]) {
+        j++;
+      }
+      if (j < b.length && b[j] == a[i]) {
+        out[n++] = a[i];
+      }
+    }
+    return Arrays.copyOf(out, n);
+  }
+
+  private static final class Hit {
+    private final int id;
+    private final int rank;
+
+    private Hit(int id, int rank) {
+      this.id = id;
+      this.rank = rank;
+    }
+  }
+
+  private final Comparator<Hit> order = new Comparator<Hit>() {
+    @Override
+    public int compare(Hit a, Hit b) {
+      if (a.rank != b.rank) {
+        return a.rank - b.rank;
+      }
+      if (labels[a.id].length() != labels[b.id].length()) {
+        return labels[a.id].length() - labels[b.id].length();
+      }
+      int result = folded[a.id].compareTo(folded[b.id]);
+      return result != 0 ? result : uris[a.id].compareTo(uris[b.id]);
+    }
+  };
+
+  private static int rank(String label, String query) {
+    int index = label.indexOf(query);
+    if (index < 0) {
+      return -1;
+    } else if (index == 0) {
+      return label.length() == query.length() ? EXACT : PREFIX;
+    }
+    while (index > 0) {
+      if (!Character.isLetterOrDigit(label.charAt(index - 1))) {
+        return WORD_PREFIX;
+      }
+      index = label.indexOf(query, index + 1);
+    }
+    return SUBSTRING;
+  }
+
+  static String fold(String text) {
+    return text.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Returns the trigrams of the text in sorted order.
+   */
+  private static List<String> grams(String text) {
+    List<String> grams = new ArrayList<>(Math.max(0, text.length() - GRAM + 1));
+    for (int i = 0; i + GRAM <= text.length(); i++) {
+      grams.add(text.substring(i, i + GRAM));
+    }
+    Collections.sort(grams);
+    return grams;
+  }
+}
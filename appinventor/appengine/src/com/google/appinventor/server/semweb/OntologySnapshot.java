@@ -0,0 +1,228 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.semweb;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+
+/**
+ * A saved copy of the ontology model and its label indexes, so that the semantic web service
+ * can answer searches as soon as it starts instead of after downloading every ontology.
+ *
+ * <p>The file starts with a header giving the format version, the time the snapshot was taken
+ * and the list of ontologies it was built from. A snapshot with a different format version or
+ * ontology list is ignored. The header is followed by the namespace prefixes, the model as
+ * N-Triples, and the class and property labels. The file is memory-mapped for reading and
+ * replaced atomically when written, so a reader never sees a partial snapshot.</p>
+ */
+public final class OntologySnapshot {
+
+  /** The version of the file format. Increment it whenever the format changes. */
+  public static final int FORMAT_VERSION = 1;
+
+  private static final int MAGIC = 0x41495357;  // "AISW"
+
+  private final Model model;
+  private final LabelIndex classIndex;
+  private final LabelIndex propertyIndex;
+  private final String source;
+  private final long created;
+
+  /**
+   * Creates a snapshot.
+   *
+   * @param model the ontology model
+   * @param classIndex the label index of the classes in the model
+   * @param propertyIndex the label index of the properties in the model
+   * @param source the list of ontologies the model was loaded from
+   * @param created the time the model was loaded, in milliseconds since the epoch
+   */
+  public OntologySnapshot(Model model, LabelIndex classIndex, LabelIndex propertyIndex,
+      String source, long created) {
+    this.model = model;
+    this.classIndex = classIndex;
+    this.propertyIndex = propertyIndex;
+    this.source = source;
+    this.created = created;
+  }
+
+  public Model getModel() {
+    return model;
+  }
+
+  public LabelIndex getClassIndex() {
+    return classIndex;
+  }
+
+  public LabelIndex getPropertyIndex() {
+    return propertyIndex;
+  }
+
+  /**
+   * @return the time the model was loaded, in milliseconds since the epoch
+   */
+  public long getCreated() {
+    return created;
+  }
+
+  /**
+   * Returns whether the snapshot is older than the given age.
+   *
+   * @param maxAge the maximum age, in milliseconds
+   * @param now the current time, in milliseconds since the epoch
+   * @return true if the ontologies should be loaded again
+   */
+  public boolean isStale(long maxAge, long now) {
+    return now - created > maxAge || created > now;
+  }
+
+  /**
+   * Writes the snapshot to a file, replacing any previous snapshot.
+   *
+   * @param file the snapshot file
+   * @throws IOException if the snapshot cannot be written
+   */
+  public void write(File file) throws IOException {
+    File dir = file.getAbsoluteFile().getParentFile();
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Unable to create " + dir);
+    }
+    File temp = File.createTempFile(file.getName(), ".tmp", dir);
+    try {
+      FileOutputStream fos = new FileOutputStream(temp);
+      try {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(created);
+        out.writeUTF(source);
+        Map<String, String> prefixes = model.getNsPrefixMap();
+        out.writeInt(prefixes.size());
+        for (Map.Entry<String, String> prefix : prefixes.entrySet()) {
+          out.writeUTF(prefix.getKey());
+          out.writeUTF(prefix.getValue());
+        }
+        ByteArrayOutputStream triples = new ByteArrayOutputStream();
+        model.write(triples, "N-TRIPLE");
+        out.writeInt(triples.size());
+        triples.writeTo(out);
+        classIndex.write(out);
+        propertyIndex.write(out);
+        out.flush();
+        fos.getFD().sync();
+      } finally {
+        fos.close();
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      if (temp.exists() && !temp.delete()) {
+        temp.deleteOnExit();
+      }
+    }
+  }
+
+  /**
+   * Reads a snapshot.
+   *
+   * @param file the snapshot file
+   * @param source the list of ontologies the snapshot must have been built from
+   * @return the snapshot, or null if there is no snapshot for the current format version and
+   *     ontology list
+   * @throws IOException if the snapshot cannot be read
+   */
+  public static OntologySnapshot read(File file, String source) throws IOException {
+    if (!file.isFile()) {
+      return null;
+    }
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      DataInputStream in = new DataInputStream(new ByteBufferInputStream(buffer));
+      if (buffer.remaining() < 8 || in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        return null;
+      }
+      long created = in.readLong();
+      if (!source.equals(in.readUTF())) {
+        return null;
+      }
+      Model model = ModelFactory.createDefaultModel();
+      int prefixCount = in.readInt();
+      for (int i = 0; i < prefixCount; i++) {
+        String prefix = in.readUTF();
+        model.setNsPrefix(prefix, in.readUTF());
+      }
+      int length = in.readInt();
+      if (length < 0 || length > buffer.remaining()) {
+        throw new IOException("Truncated snapshot " + file);
+      }
+      ByteBuffer triples = buffer.slice();
+      triples.limit(length);
+      RDFDataMgr.read(model, new ByteBufferInputStream(triples), Lang.NTRIPLES);
+      buffer.position(buffer.position() + length);
+      LabelIndex classIndex = LabelIndex.read(in);
+      LabelIndex propertyIndex = LabelIndex.read(in);
+      return new OntologySnapshot(model, classIndex, propertyIndex, source, created);
+    } catch (RuntimeException e) {
+      // Underflow of the mapped buffer or a parse error in the triples.
+      throw new IOException("Corrupt snapshot " + file, e);
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Reads from a buffer, advancing its position.
+   */
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      len = Math.min(len, buffer.remaining());
+      buffer.get(b, off, len);
+      return len;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
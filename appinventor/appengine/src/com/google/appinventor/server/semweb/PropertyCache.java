@@ -0,0 +1,155 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.semweb;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A bounded, least-recently-used cache of the properties declared for ontology classes.
+ *
+ * <p>Lookups for different concepts run concurrently on the calling threads. Concurrent lookups
+ * of the same concept that is not cached share a single load: the first caller runs the loader
+ * and the others wait for its result. Failed loads are not cached.</p>
+ */
+public final class PropertyCache {
+
+  /** The default number of concepts kept. */
+  public static final int DEFAULT_CAPACITY = 256;
+
+  /** The default time, in milliseconds, a concept's properties are kept. */
+  public static final long DEFAULT_TTL_MS = 60 * 60 * 1000L;
+
+  /**
+   * Loads the properties of a concept.
+   */
+  public interface Loader {
+    /**
+     * @param concept the URI of the class
+     * @return the URIs of the properties declared for the class
+     * @throws Exception if the properties cannot be loaded
+     */
+    List<String> load(String concept) throws Exception;
+  }
+
+  private static final class Entry {
+    private final List<String> properties;
+    private final long loaded;
+
+    private Entry(List<String> properties, long loaded) {
+      this.properties = properties;
+      this.loaded = loaded;
+    }
+  }
+
+  private final Loader loader;
+  private final long ttl;
+  private final Map<String, Entry> entries;
+  private final ConcurrentMap<String, FutureTask<List<String>>> inflight =
+      new ConcurrentHashMap<>();
+  private int generation = 0;
+  private int loads = 0;
+
+  /**
+   * Creates a cache.
+   *
+   * @param loader loads the properties of concepts that are not cached
+   * @param capacity the maximum number of concepts kept
+   * @param ttl how long, in milliseconds, a concept's properties are kept
+   */
+  public PropertyCache(Loader loader, final int capacity, long ttl) {
+    this.loader = loader;
+    this.ttl = ttl;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the properties declared for a concept, loading them if they are not cached.
+   *
+   * @param concept the URI of the class
+   * @return an unmodifiable list of property URIs
+   * @throws Exception if the properties had to be loaded and the load failed
+   */
+  public List<String> get(final String concept) throws Exception {
+    final int loadGeneration;
+    synchronized (this) {
+      Entry entry = entries.get(concept);
+      if (entry != null && System.currentTimeMillis() - entry.loaded < ttl) {
+        return entry.properties;
+      }
+      loadGeneration = generation;
+    }
+    FutureTask<List<String>> task = new FutureTask<>(new Callable<List<String>>() {
+      @Override
+      public List<String> call() throws Exception {
+        synchronized (PropertyCache.this) {
+          loads++;
+        }
+        List<String> properties = Collections.unmodifiableList(loader.load(concept));
+        synchronized (PropertyCache.this) {
+          if (loadGeneration == generation) {
+            entries.put(concept, new Entry(properties, System.currentTimeMillis()));
+          }
+        }
+        return properties;
+      }
+    });
+    FutureTask<List<String>> existing = inflight.putIfAbsent(concept, task);
+    if (existing == null) {
+      try {
+        task.run();
+      } finally {
+        inflight.remove(concept, task);
+      }
+    } else {
+      task = existing;
+    }
+    try {
+      return task.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Discards all cached properties, for example after the ontologies are reloaded. Loads in
+   * progress still complete, but their results are not cached.
+   */
+  public synchronized void clear() {
+    generation++;
+    entries.clear();
+  }
+
+  /**
+   * @return the number of concepts currently cached
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return the number of times the loader has been called
+   */
+  public synchronized int getLoadCount() {
+    return loads;
+  }
+}
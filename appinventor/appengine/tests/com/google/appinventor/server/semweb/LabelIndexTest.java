@@ -0,0 +1,98 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.semweb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link LabelIndex}.
+ */
+public class LabelIndexTest {
+
+  private static final String NS = "http://example.com/";
+
+  private LabelIndex index;
+
+  @Before
+  public void setUp() {
+    index = new LabelIndex.Builder()
+        .add(NS + "Person", "Person", "ex:Person")
+        .add(NS + "PersonalProfile", "Personal Profile Document", "ex:PersonalProfile")
+        .add(NS + "ContactPerson", "Contact person", "ex:ContactPerson")
+        .add(NS + "Salesperson", "Salesperson", null)
+        .add(NS + "Agent", "Agent", "ex:Agent")
+        .add(NS + "Agent", "Person or organization", "ex:Agent")
+        .build();
+  }
+
+  private static List<String> uris(List<LabelIndex.Match> matches) {
+    List<String> uris = new ArrayList<>();
+    for (LabelIndex.Match match : matches) {
+      uris.add(match.getUri().substring(NS.length()));
+    }
+    return uris;
+  }
+
+  @Test
+  public void testResultsAreRanked() {
+    List<String> expected = new ArrayList<>();
+    expected.add("Person");           // exact
+    expected.add("Agent");            // prefix, shorter label
+    expected.add("PersonalProfile");  // prefix
+    expected.add("ContactPerson");    // word prefix
+    expected.add("Salesperson");      // substring
+    assertEquals(expected, uris(index.search("PERSON", LabelIndex.DEFAULT_LIMIT)));
+  }
+
+  @Test
+  public void testTermsAppearOnceUnderBestLabel() {
+    List<LabelIndex.Match> matches = index.search("or", LabelIndex.DEFAULT_LIMIT);
+    assertEquals(1, matches.size());
+    assertEquals("Person or organization", matches.get(0).getLabel());
+    assertEquals("ex:Agent", matches.get(0).getQName());
+    assertEquals("Agent", index.search("agent", 10).get(0).getLabel());
+  }
+
+  @Test
+  public void testSubstringAcrossWords() {
+    assertEquals(1, index.search("l profile", 10).size());
+    assertEquals(0, index.search("profile personal", 10).size());
+    assertEquals(0, index.search("xyz", 10).size());
+    assertEquals(0, index.search("  ", 10).size());
+  }
+
+  @Test
+  public void testLimit() {
+    assertEquals(2, index.search("person", 2).size());
+    assertNull(index.search("salesperson", 1).get(0).getQName());
+  }
+
+  @Test
+  public void testLargeIndex() {
+    LabelIndex.Builder builder = new LabelIndex.Builder();
+    for (int i = 0; i < 50000; i++) {
+      builder.add(NS + i, "term number " + i, null);
+    }
+    LabelIndex large = builder.build();
+    assertEquals(50000, large.size());
+    List<LabelIndex.Match> matches = large.search("number 4999", 5);
+    assertEquals("term number 4999", matches.get(0).getLabel());
+    assertEquals(5, matches.size());
+    long start = System.nanoTime();
+    for (int i = 0; i < 100; i++) {
+      large.search("number 123" + (i % 10), LabelIndex.DEFAULT_LIMIT);
+    }
+    // Generous bound; a full scan with a regular expression takes far longer.
+    assertTrue((System.nanoTime() - start) / 100 < 50000000L);
+  }
+}
@@ -0,0 +1,112 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.semweb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.vocabulary.OWL;
+import com.hp.hpl.jena.vocabulary.RDF;
+import com.hp.hpl.jena.vocabulary.RDFS;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link OntologySnapshot}.
+ */
+public class OntologySnapshotTest {
+
+  private static final String NS = "http://example.com/ns#";
+  private static final String SOURCE = "http://example.com/ns";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File file;
+  private OntologySnapshot snapshot;
+
+  @Before
+  public void setUp() {
+    file = new File(folder.getRoot(), "snapshots/ontology.snapshot");
+    Model model = ModelFactory.createDefaultModel();
+    model.setNsPrefix("ex", NS);
+    Resource person = model.createResource(NS + "Person", OWL.Class);
+    person.addProperty(RDFS.label, "Person", "en");
+    Resource name = model.createResource(NS + "name", RDF.Property);
+    name.addProperty(RDFS.label, "name \u00e9t\u00e9");
+    LabelIndex classes = new LabelIndex.Builder().add(NS + "Person", "Person", "ex:Person")
+        .build();
+    LabelIndex properties = new LabelIndex.Builder().add(NS + "name", "name \u00e9t\u00e9", null)
+        .build();
+    snapshot = new OntologySnapshot(model, classes, properties, SOURCE, 1000);
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    snapshot.write(file);
+    OntologySnapshot read = OntologySnapshot.read(file, SOURCE);
+    assertTrue(read.getModel().isIsomorphicWith(snapshot.getModel()));
+    assertEquals(NS, read.getModel().getNsPrefixURI("ex"));
+    assertEquals(1000, read.getCreated());
+    assertEquals("ex:Person", read.getClassIndex().search("pers", 10).get(0).getQName());
+    LabelIndex.Match name = read.getPropertyIndex().search("\u00c9T\u00c9", 10).get(0);
+    assertEquals("name \u00e9t\u00e9", name.getLabel());
+    assertNull(name.getQName());
+  }
+
+  @Test
+  public void testOtherSourceIsIgnored() throws IOException {
+    assertNull(OntologySnapshot.read(file, SOURCE));
+    snapshot.write(file);
+    assertNull(OntologySnapshot.read(file, SOURCE + ",http://example.com/other"));
+  }
+
+  @Test
+  public void testWriteReplacesSnapshot() throws IOException {
+    snapshot.write(file);
+    new OntologySnapshot(ModelFactory.createDefaultModel(), snapshot.getClassIndex(),
+        snapshot.getPropertyIndex(), SOURCE, 2000).write(file);
+    OntologySnapshot read = OntologySnapshot.read(file, SOURCE);
+    assertEquals(2000, read.getCreated());
+    assertTrue(read.getModel().isEmpty());
+    assertEquals(1, file.getParentFile().listFiles().length);
+  }
+
+  @Test
+  public void testTruncatedSnapshotFails() throws IOException {
+    snapshot.write(file);
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.setLength(raf.length() - 10);
+    } finally {
+      raf.close();
+    }
+    try {
+      OntologySnapshot.read(file, SOURCE);
+      fail("Expected a truncated snapshot to be rejected");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testIsStale() {
+    assertFalse(snapshot.isStale(5000, 3000));
+    assertTrue(snapshot.isStale(5000, 7000));
+    assertTrue(snapshot.isStale(5000, 500));
+  }
+}
@@ -0,0 +1,128 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.semweb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Tests {@link PropertyCache}.
+ */
+public class PropertyCacheTest {
+
+  /**
+   * Returns one property named after the concept, optionally blocking until released.
+   */
+  private static class CountingLoader implements PropertyCache.Loader {
+    private final AtomicInteger calls = new AtomicInteger(0);
+    private final CountDownLatch release;
+    private volatile boolean fail = false;
+
+    private CountingLoader(CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Override
+    public List<String> load(String concept) throws Exception {
+      calls.incrementAndGet();
+      if (release != null) {
+        assertTrue(release.await(10, TimeUnit.SECONDS));
+      }
+      if (fail) {
+        throw new IOException("unreachable");
+      }
+      return Collections.singletonList(concept + "#name");
+    }
+  }
+
+  @Test
+  public void testConcurrentRequestsShareOneLoad() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountingLoader loader = new CountingLoader(release);
+    final PropertyCache cache = new PropertyCache(loader, 10, 60000);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      @SuppressWarnings("unchecked")
+      Future<List<String>>[] results = new Future[8];
+      for (int i = 0; i < results.length; i++) {
+        results[i] = pool.submit(new Callable<List<String>>() {
+          @Override
+          public List<String> call() throws Exception {
+            return cache.get("http://example.com/Person");
+          }
+        });
+      }
+      Thread.sleep(200);
+      release.countDown();
+      for (Future<List<String>> result : results) {
+        assertEquals("http://example.com/Person#name", result.get().get(0));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(1, loader.calls.get());
+    cache.get("http://example.com/Person");
+    assertEquals(1, cache.getLoadCount());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedConceptIsEvicted() throws Exception {
+    CountingLoader loader = new CountingLoader(null);
+    PropertyCache cache = new PropertyCache(loader, 2, 60000);
+    cache.get("a");
+    cache.get("b");
+    cache.get("a");
+    cache.get("c");
+    assertEquals(2, cache.size());
+    cache.get("a");
+    assertEquals(3, loader.calls.get());
+    cache.get("b");
+    assertEquals(4, loader.calls.get());
+  }
+
+  @Test
+  public void testFailuresAreNotCached() throws Exception {
+    CountingLoader loader = new CountingLoader(null);
+    PropertyCache cache = new PropertyCache(loader, 10, 60000);
+    loader.fail = true;
+    try {
+      cache.get("a");
+      fail("Expected the load to fail");
+    } catch (IOException e) {
+      // expected
+    }
+    loader.fail = false;
+    assertEquals(1, cache.get("a").size());
+    assertEquals(2, loader.calls.get());
+  }
+
+  @Test
+  public void testExpiryAndClear() throws Exception {
+    CountingLoader loader = new CountingLoader(null);
+    PropertyCache cache = new PropertyCache(loader, 10, 50);
+    cache.get("a");
+    Thread.sleep(100);
+    cache.get("a");
+    assertEquals(2, loader.calls.get());
+    cache.clear();
+    assertEquals(0, cache.size());
+    cache.get("a");
+    assertEquals(3, loader.calls.get());
+  }
+}
@@ -285,6 +285,7 @@ Blockly.ReplMgr.resetYail = function(partial) {
     if (!partial) {
         this.putYail.reset();
         top.ReplState.phoneState = { "phoneQueue" : [], "assetQueue" : []};
+        this.profiling = false;
     }
 };
 
@@ -1117,12 +1118,96 @@ Blockly.ReplMgr.processRetvals = function(responses) {
         case "error":
             console.log("processRetVals: Error value = " + r.value);
             runtimeerr(escapeHTML(r.value) + Blockly.Msg.REPL_NO_ERROR_FIVE_SECONDS);
+            break;
+        case "profile":
+            this.showProfile(JSON.parse(r.value));
+            break;
         }
     }
     var handler = Blockly.getMainWorkspace().getWarningHandler();
     handler && handler.checkAllBlocksForWarningsAndErrors();
 };
 
+// The block profiler in the Companion times each event handler and
+// procedure of the app and sends us the totals every few seconds.
+// These are shown in a dialog with the blocks that took the most time
+// first, so that users can see where their app is slow.
+
+Blockly.ReplMgr.profiling = false;
+
+Blockly.ReplMgr.startProfiler = function(periodMillis) {
+    this.profiling = true;
+    this.putYail("(start-block-profiler " + (periodMillis || 2000) + ")");
+};
+
+Blockly.ReplMgr.stopProfiler = function() {
+    this.profiling = false;
+    this.putYail("(stop-block-profiler)");
+};
+
+Blockly.ReplMgr.showProfile = function(profile) {
+    var context = this;
+    var escapeHTML = function (str) {
+      var div = document.createElement('div');
+      var text = document.createTextNode(str);
+      div.appendChild(text);
+      return div.innerHTML;
+    };
+    var blockTitle = function(block) {
+        if (block.kind == "procedure") {
+            return Blockly.Msg.LANG_PROCEDURES_CALLNORETURN_CALL + block.name;
+        }
+        var title = block.kind == "genericEvent" ?
+            Blockly.Msg.LANG_COMPONENT_BLOCK_GENERIC_EVENT_TITLE :
+            Blockly.Msg.LANG_COMPONENT_BLOCK_TITLE_WHEN;
+        return title + block.name.replace("$", ".");
+    };
+    if (!this.profileDialog) {
+        this.profileDialog = new goog.ui.Dialog(null, false, new goog.dom.DomHelper(top.document));
+        var dialogElement = this.profileDialog.getDialogElement();
+        var dialogClass = dialogElement.getAttribute("class");
+        // Scroll the table when it gets long (see blocklyRuntimeErrorDialog above)
+        dialogElement.setAttribute("class", dialogClass + " " + "blocklyRuntimeErrorDialog");
+        this.profileDialog.setTitle(Blockly.Msg.REPL_BLOCK_PROFILE);
+        // Closing the dialog stops the profiler, which sends the final profile.
+        goog.events.listen(this.profileDialog, goog.ui.Dialog.EventType.AFTER_HIDE, function() {
+            if (context.profiling) {
+                context.stopProfiler();
+            }
+        });
+    }
+    this.profileDialog.setButtonSet(new goog.ui.Dialog.ButtonSet().
+                                    addButton({caption:this.profiling ?
+                                               Blockly.Msg.STOP_BLOCK_PROFILER :
+                                               Blockly.Msg.REPL_DISMISS}, false, true));
+    var html;
+    if (profile.blocks.length == 0) {
+        html = escapeHTML(Blockly.Msg.REPL_BLOCK_PROFILE_EMPTY);
+    } else {
+        html = '<table><tr><th style="text-align:left">' +
+            escapeHTML(Blockly.Msg.REPL_BLOCK_PROFILE_BLOCK) + '</th><th>' +
+            escapeHTML(Blockly.Msg.REPL_BLOCK_PROFILE_CALLS) + '</th><th>' +
+            escapeHTML(Blockly.Msg.REPL_BLOCK_PROFILE_TOTAL_MS) + '</th><th>' +
+            escapeHTML(Blockly.Msg.REPL_BLOCK_PROFILE_MAX_MS) + '</th><th>' +
+            escapeHTML(Blockly.Msg.REPL_BLOCK_PROFILE_ALLOCATED_KB) + '</th></tr>';
+        for (var i = 0; i < profile.blocks.length; i++) {
+            var block = profile.blocks[i];
+            html += '<tr><td>' + escapeHTML(blockTitle(block)) + '</td>' +
+                '<td style="text-align:right">' + block.calls + '</td>' +
+                '<td style="text-align:right">' + block.totalMs.toFixed(1) + '</td>' +
+                '<td style="text-align:right">' + block.maxMs.toFixed(1) + '</td>' +
+                '<td style="text-align:right">' + (block.allocatedBytes / 1024).toFixed(1) +
+                '</td></tr>';
+        }
+        html += '</table>';
+    }
+    // As for runtime errors, the names in the table have already been escaped.
+    this.profileDialog.getContentElement().innerHTML = html;
+    if (!this.profileDialog.isVisible()) {
+        this.profileDialog.setVisible(true);
+    }
+};
+
 Blockly.ReplMgr.setDoitResult = function(block, value) {
     var oldPatt = /Do It Result:.*?\n---\n/m;
     var patt = new RegExp(Blockly.Msg.DO_IT_RESULT + '.*?\n---\n');
@@ -2736,10 +2736,89 @@ Blockly.Versioning.AllUpgradeMaps =
 
   }, // End YandexTranslate upgraders
 
+  "LdpCoapClient" : {
+    1: "noUpgrade",
+
+    // AI2: Added BlockSize and MaxOutstandingRequests properties, GetAsync, DeleteAsync,
+    // DiscoverResourcesAsync, GetBlockwise, Observe, StopObserving and CancelRequests methods
+    // and ResponseReceived, BlockReceived, ResourceChanged and RequestFailed events
+    2: "noUpgrade"
+  }, // End LdpCoapClient upgraders
+
+  "LinkedData" : {
+    1: "noUpgrade",
+    2: "noUpgrade",
+    3: "noUpgrade",
+
+    // AI2: Added StoreDirectory property
+    4: "noUpgrade",
+
+    // AI2: Added streaming reads with StreamDataFromWeb, StreamDataFromLocal,
+    // CancelLoadingData, LoadBatchSize and the LoadingData events
+    5: "noUpgrade",
+
+    // AI2: Added UpdateBatchSize and UpdateRetries properties and the
+    // WritingDataToWebProgress and AddingDataToWebProgress events
+    6: "noUpgrade",
+
+    // AI2: Added ChangelogFile property
+    7: "noUpgrade",
+
+    // AI2: Added the outbox for form submissions: SubmitLinkedDataForm, FlushOutbox,
+    // OutboxFile and the Outbox statistics properties and events
+    8: "noUpgrade",
+
+    // AI2: Added the query result cache: QueryCacheTTL, QueryCacheOnDisk, QueryCacheHits,
+    // QueryCacheMisses and ClearQueryCache
+    9: "noUpgrade",
+
+    // AI2: Added FederatedQueryParallelism and FederatedQueryTimeout properties
+    // AI2: Added ExecuteFederatedQuery method and RetrievedFederatedResults event
+    10: "noUpgrade",
+
+    // AI2: Added DefineQueryTemplate and ExecuteQueryTemplate methods
+    11: "noUpgrade",
+
+    // AI2: Added ResultPageSize property and RetrievedResultsPage event
+    12: "noUpgrade",
+
+    // AI2: QueryCacheOnDisk is no longer a designer property
+    13: "noUpgrade"
+  }, // End LinkedData upgraders
+
   "LinkedDataListPicker" : {
     1: "noUpgrade",
     2: "noUpgrade",
+    3: "noUpgrade",
+
+    // AI2: Added PageSize property
+    4: "noUpgrade"
+  }, // End LinkedDataListPicker upgraders
+
+  "LinkedDataStreamingClient" : {
+    1: "noUpgrade",
+
+    // AI2: Added StartLocalQuery, StopLocalQuery, AddStreamData and StreamFromLinkedData methods
+    // and the LocalStreamingResultsReceived event
+    2: "noUpgrade",
+
+    // AI2: Added BatchSize, FlushInterval, MessageQueueCapacity and CompressMessages properties,
+    // the FlushMessages method and the MessageQueueFull and MessagesSent events
     3: "noUpgrade"
-  }
+  }, // End LinkedDataStreamingClient upgraders
+
+  "Reasoner" : {
+    1: "noUpgrade",
+
+    // AI2: Added Incremental property and InferencesUpdated event
+    2: "noUpgrade",
+
+    // AI2: Added QueryAsync and CancelQuery methods, QueryTimeout, QueryLimit and
+    // ResultPageSize properties, and QueryResultsReceived and QueryCancelled events
+    3: "noUpgrade",
+
+    // AI2: Added DefineQueryTemplate, RunQueryTemplate and RunQueryTemplateAsync methods
+    4: "noUpgrade"
+  } // End Reasoner upgraders
 
 };
@@ -1012,6 +1012,19 @@ Blockly.WorkspaceSvg.prototype.customContextMenu = function(menuOptions) {
   };
   menuOptions.push(backpackRetrieve);
 
+  // Profile the blocks running in the companion
+  var profileOption = {enabled: Blockly.ReplMgr.isConnected()};
+  profileOption.text = Blockly.ReplMgr.profiling ? Blockly.Msg.STOP_BLOCK_PROFILER :
+    Blockly.Msg.START_BLOCK_PROFILER;
+  profileOption.callback = function() {
+    if (Blockly.ReplMgr.profiling) {
+      Blockly.ReplMgr.stopProfiler();
+    } else {
+      Blockly.ReplMgr.startProfiler();
+    }
+  };
+  menuOptions.push(profileOption);
+
   // Enable grid
   var gridOption = {enabled: true};
   gridOption.text = this.options.gridOptions['enabled'] ? Blockly.Msg.DISABLE_GRID :
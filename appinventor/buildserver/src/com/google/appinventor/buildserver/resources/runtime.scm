@@ -198,7 +198,7 @@
 ;;; (get-property 'Label1 'Text)
 (define (get-property component prop-name)
   (let ((component (coerce-to-component-and-verify component)))
-    (sanitize-component-data (invoke component prop-name))))
+    (sanitize-component-data (MethodDispatchCache:invoke component prop-name '()))))
 
 (define (coerce-to-component-and-verify possible-component)
   (let ((component (coerce-to-component possible-component)))
@@ -217,7 +217,7 @@
                  component-type
                  (*:getSimpleName (*:getClass possible-component)))
          "Problem with application")
-        (sanitize-component-data (invoke component prop-name)))))
+        (sanitize-component-data (MethodDispatchCache:invoke component prop-name '())))))
 
 (define (set-and-coerce-property-and-check! possible-component comp-type prop-sym property-value property-type)
   (let ((component (coerce-to-component-of-type possible-component comp-type)))
@@ -430,7 +430,9 @@
            (let ((registeredObject (string->symbol registeredComponentName)))
                  (if (is-bound-in-form-environment registeredObject)
                      (if (eq? (lookup-in-form-environment registeredObject) componentObject)
-                        (let ((handler (lookup-handler registeredComponentName eventName)))
+                        (let ((handler (lookup-handler registeredComponentName eventName))
+                              (start (com.google.appinventor.components.runtime.util.BlockProfiler:start))
+                              (heap (com.google.appinventor.components.runtime.util.BlockProfiler:heapUsed)))
                                 ;; Note: This try-catch was originally part of the
                                 ;; generated handler from define-event.  It was moved
                                 ;; here because Kawa seems be unable to eval a
@@ -440,6 +442,8 @@
                                 (try-catch
                                  (begin
                                    (apply handler (gnu.lists.LList:makeList args 0))
+                                   (com.google.appinventor.components.runtime.util.BlockProfiler:stopEvent
+                                    registeredComponentName eventName start heap)
                                    #t)
                                  ;; PermissionException should be caught by a permissions-aware component and
                                  ;; handled correctly at the point it is caught. However, older extensions
@@ -490,11 +494,15 @@
          ; string->symbol, which is effectively the same thing. Most
          ; of the logic then follows that of dispatchEvent above.
          (let* ((handler-symbol (string->symbol (string-append "any$" (get-simple-name componentObject) "$" eventName)))
-                (handler (lookup-in-form-environment handler-symbol)))
+                (handler (lookup-in-form-environment handler-symbol))
+                (start (com.google.appinventor.components.runtime.util.BlockProfiler:start))
+                (heap (com.google.appinventor.components.runtime.util.BlockProfiler:heapUsed)))
            (if handler
                (try-catch
                 (begin
                   (apply handler (cons componentObject (cons notAlreadyHandled (gnu.lists.LList:makeList args 0))))
+                  (com.google.appinventor.components.runtime.util.BlockProfiler:stop
+                   handler-symbol start heap)
                   #t)
                 (exception com.google.appinventor.components.runtime.errors.PermissionException
                  (begin
@@ -754,6 +762,20 @@
 ;;; environment, EXCEPT for calling primitives, where it just looks up
 ;;; the name.
 
+;;; Runs the body of a procedure, recording the call in the block profiler
+;;; when it is on.  The profiler is driven from the Blocks Editor, so only
+;;; procedures defined in the REPL are wrapped.  There is no try-finally, since Kawa cannot eval one in
+;;; code sent to the REPL (see dispatchEvent), so calls that end with an
+;;; error are not recorded.
+(define-syntax profile-procedure
+  (syntax-rules ()
+    ((_ func-name body ...)
+     (let* ((start (com.google.appinventor.components.runtime.util.BlockProfiler:start))
+            (heap (com.google.appinventor.components.runtime.util.BlockProfiler:heapUsed))
+            (result (begin body ...)))
+       (com.google.appinventor.components.runtime.util.BlockProfiler:stop 'func-name start heap)
+       result))))
+
 ;;; def
 ;;; (def var1 ...) ==> (define var1 ...)
 (define-syntax def
@@ -764,10 +786,12 @@
      (begin
        (if *this-is-the-repl*
            (add-global-var-to-current-form-environment 'func-name
-                                            (lambda (args ...) body ...))
+                                            (lambda (args ...)
+                                              (profile-procedure func-name body ...)))
            (add-to-global-vars 'func-name
                                (lambda ()
-                                 (lambda (args ...) body ...))))))
+                                 (lambda (args ...)
+                                   body ...))))))
     ((_ var-name value)
      (begin
        (if *this-is-the-repl*
@@ -801,7 +825,10 @@
 (define (lookup-in-current-form-environment name :: gnu.mapping.Symbol #!optional (default-value #f))
                     ;  (android-log (format #f "Looking up ~A in env ~A" name
                     ;                                     (if (not (eq? *this-form* #!null)) (*:.form-environment *this-form*) 'null)))
-  (let ((env (if (not (eq? *this-form* #!null))
+  ;; Declaring the type of env lets Kawa pick Environment.get(Symbol) when compiling, instead of
+  ;; choosing between the overloads of get by reflection on every lookup.
+  (let ((env :: gnu.mapping.Environment
+             (if (not (eq? *this-form* #!null))
                  (*:.form-environment *this-form*)
                  ;; The following is just for testing. In normal situations *this-form* should be non-null
                  *test-environment*)))
@@ -834,7 +861,8 @@
     *the-null-value*))
 
 (define (lookup-global-var-in-current-form-environment name :: gnu.mapping.Symbol #!optional (default-value #f))
-  (let ((env (if (not (eq? *this-form* #!null))
+  (let ((env :: gnu.mapping.Environment
+             (if (not (eq? *this-form* #!null))
                  (*:.global-var-environment *this-form*)
                  ;; The following is just for testing. In normal situations *this-form* should be non-null
                  *test-global-var-environment*)))
@@ -981,6 +1009,8 @@
 (define-alias YailRuntimeError <com.google.appinventor.components.runtime.errors.YailRuntimeError>)
 (define-alias PermissionException <com.google.appinventor.components.runtime.errors.PermissionException>)
 (define-alias JavaStringUtils <com.google.appinventor.components.runtime.util.JavaStringUtils>)
+(define-alias MethodDispatchCache <com.google.appinventor.components.runtime.util.MethodDispatchCache>)
+(define-alias BlockProfiler <com.google.appinventor.components.runtime.util.BlockProfiler>)
 
 (define-alias JavaCollection <java.util.Collection>)
 (define-alias JavaIterator <java.util.Iterator>)
@@ -1047,16 +1077,19 @@
 ;;; Be sure to check any components whose methods are type 'any' to make sure they can handle the
 ;;; values they will receive.
 
+;;; The method is called through MethodDispatchCache, which remembers the Java method for each
+;;; component class, method name and number of arguments instead of having Kawa's invoke look it
+;;; up on every call.  Calls it cannot handle are passed on to invoke.
+
 
 (define (call-component-method component-name method-name arglist typelist)
   (let ((coerced-args (coerce-args method-name arglist typelist)))
     (let ((result
            (if (all-coercible? coerced-args)
                (try-catch
-                (apply invoke
-                       `(,(lookup-in-current-form-environment component-name)
-                         ,method-name
-                         ,@coerced-args))
+                (MethodDispatchCache:invoke (lookup-in-current-form-environment component-name)
+                                            method-name
+                                            coerced-args)
                 (exception PermissionException
                            (*:dispatchPermissionDeniedEvent (SimpleForm:getActiveForm) (lookup-in-current-form-environment component-name) method-name exception)))
                (generate-runtime-type-error method-name arglist))))
@@ -1083,10 +1116,7 @@
                                      (list (get-display-representation possible-component)))
         (let ((result
                (if (all-coercible? coerced-args)
-                   (apply invoke
-                          `(,component-value
-                            ,method-name
-                            ,@coerced-args))
+                   (MethodDispatchCache:invoke component-value method-name coerced-args)
                    (generate-runtime-type-error method-name arglist))))
           ;; TODO(markf): this should probably be generalized but for now this is OK, I think
           (sanitize-component-data result)))))
@@ -1131,7 +1161,25 @@
 ;;; Try removing this code entirely and inlining it in the parser, including
 ;;; optimizing out coercion for constants.
 
-(define (call-yail-primitive prim arglist typelist codeblocks-name)
+;;; call-yail-primitive is a macro, so that the calls generated by the blocks editor, which
+;;; list the arguments with *list-for-runtime* and quote the types, are compiled to a call of
+;;; %call-yail-primitive-1, -2 or -3 when there are at most three arguments.  Those take the
+;;; arguments and types one by one, and call the primitive directly, without building a list of
+;;; arguments, when the arguments already have their types.  Other calls go to
+;;; %call-yail-primitive.
+
+(define-syntax call-yail-primitive
+  (syntax-rules (*list-for-runtime* quote)
+    ((_ prim (*list-for-runtime* a) (quote (type-a)) codeblocks-name)
+     (%call-yail-primitive-1 prim a 'type-a codeblocks-name))
+    ((_ prim (*list-for-runtime* a b) (quote (type-a type-b)) codeblocks-name)
+     (%call-yail-primitive-2 prim a b 'type-a 'type-b codeblocks-name))
+    ((_ prim (*list-for-runtime* a b c) (quote (type-a type-b type-c)) codeblocks-name)
+     (%call-yail-primitive-3 prim a b c 'type-a 'type-b 'type-c codeblocks-name))
+    ((_ prim arglist typelist codeblocks-name)
+     (%call-yail-primitive prim arglist typelist codeblocks-name))))
+
+(define (%call-yail-primitive prim arglist typelist codeblocks-name)
   ;; (android-log (format #f "applying procedure: ~A to ~A" codeblocks-name arglist))
   (let ((coerced-args (coerce-args codeblocks-name arglist typelist)))
     (if (all-coercible? coerced-args)
@@ -1139,6 +1187,21 @@
         (apply prim coerced-args)
         (generate-runtime-type-error codeblocks-name arglist))))
 
+(define (%call-yail-primitive-1 prim a type-a codeblocks-name)
+  (if (coerced-as? a type-a)
+      (prim a)
+      (%call-yail-primitive prim (list a) (list type-a) codeblocks-name)))
+
+(define (%call-yail-primitive-2 prim a b type-a type-b codeblocks-name)
+  (if (and (coerced-as? a type-a) (coerced-as? b type-b))
+      (prim a b)
+      (%call-yail-primitive prim (list a b) (list type-a type-b) codeblocks-name)))
+
+(define (%call-yail-primitive-3 prim a b c type-a type-b type-c codeblocks-name)
+  (if (and (coerced-as? a type-a) (coerced-as? b type-b) (coerced-as? c type-c))
+      (prim a b c)
+      (%call-yail-primitive prim (list a b c) (list type-a type-b type-c) codeblocks-name)))
+
 
 ;;; Sanitization
 ;;; Results coming from components might not be Yail objects.  We need to catch these
@@ -1282,9 +1345,9 @@
   (android-log (format #f "coercing for setting property ~A -- value ~A to type ~A" prop-name property-value property-type))
   (let ((coerced-arg (coerce-arg property-value property-type)))
     (android-log (format #f "coerced property value was: ~A " coerced-arg))
-    (if (all-coercible? (list coerced-arg))
+    (if (is-coercible? coerced-arg)
         (try-catch
-         (invoke comp prop-name coerced-arg)
+         (MethodDispatchCache:invoke comp prop-name (list coerced-arg))
          (exception PermissionException
                     (*:dispatchPermissionDeniedEvent (SimpleForm:getActiveForm) comp prop-name exception)))
         (generate-runtime-type-error prop-name (list property-value)))))
@@ -1343,9 +1406,36 @@
           (string-append "The arguments " (show-arglist-no-parens arglist)
                          " are the wrong number of arguments for " (get-display-representation procedure-name))
           (string-append "Wrong number of arguments for" (get-display-representation procedure-name))))
+        ((all-coerced-as? arglist typelist) arglist)
         (else (map coerce-arg arglist typelist))))
 
+;;; Fast paths for coerce-arg and coerce-args. Most arguments already have the type they are
+;;; coerced to: numbers from math blocks, text from text blocks and booleans from logic blocks.
+;;; coerce-arg returns those unchanged, so they need not be coerced one by one or copied into
+;;; a new list.  An argument is coerced-as a type when sanitize-atomic and coerce-arg would both
+;;; return it as it is.
+
+(define (coerced-as? arg type)
+  (cond ((eq? type 'number) (instance? arg gnu.math.Numeric))
+        ((eq? type 'text) (string? arg))
+        ((eq? type 'boolean) (boolean? arg))
+        ((eq? type 'any)
+         (not (or (eq? arg #!void)
+                  (and (number? arg) (not (instance? arg gnu.math.Numeric))))))
+        (else #f)))
+
+(define (all-coerced-as? arglist typelist)
+  (cond ((null? typelist) (null? arglist))
+        ((null? arglist) #f)
+        (else (and (coerced-as? (car arglist) (car typelist))
+                   (all-coerced-as? (cdr arglist) (cdr typelist))))))
+
 (define (coerce-arg arg type)
+  (if (coerced-as? arg type)
+      arg
+      (%coerce-arg arg type)))
+
+(define (%coerce-arg arg type)
   (let ((arg (sanitize-atomic arg)))
     (cond
      ((equal? type 'number) (coerce-to-number arg))
@@ -2199,8 +2289,11 @@ list, use the make-yail-list constructor with no arguments.
 
 
 ;; Implements the Blocks length operation
+;; A YailList keeps an index of its items, so this does not walk the list.
 (define (yail-list-length yail-list)
-  (length (yail-list-contents yail-list)))
+  (if (instance? yail-list YailList)
+      ((as YailList yail-list):size)
+      (length (yail-list-contents yail-list))))
 
 ;; These are removed, to simplify the API to lists
 ;; ;; Implements the Blocks first operation
@@ -2245,7 +2338,7 @@ list, use the make-yail-list constructor with no arguments.
                  len
                  (get-display-representation yail-list))
          "Select list item: List index too large")
-    (list-ref (yail-list-contents yail-list) (- index 1)))))
+    ((as YailList yail-list):getObject (- index 1)))))
 
 
 ;; Implements the Blocks set list item operation
@@ -2264,7 +2357,7 @@ list, use the make-yail-list constructor with no arguments.
                  len
                  (get-display-representation yail-list))
          "List index too large")))
-  (set-car! (list-tail (yail-list-contents yail-list) (- index 1)) value))
+  ((as YailList yail-list):setObject (- index 1) value))
 
 
 
@@ -2295,8 +2388,7 @@ list, use the make-yail-list constructor with no arguments.
                    len
                    (get-display-representation yail-list))
            "List index too large"))
-      (let ((pair-pointing-to-deletion (list-tail yail-list (- index2 1))))
-        (set-cdr! pair-pointing-to-deletion (cddr pair-pointing-to-deletion))))))
+      ((as YailList yail-list):removeObject (- index2 1)))))
 
 
 ;; Implements the Blocks insert list item operation
@@ -2325,11 +2417,7 @@ list, use the make-yail-list constructor with no arguments.
                    (get-display-representation yail-list)
                    len+1)
            "List index too large"))
-      (let ((contents (yail-list-contents yail-list)))
-        (if (= index2 1)
-            (set-yail-list-contents! yail-list (cons item contents))
-            (let ((at-item (list-tail contents (- index2 2))))
-              (set-cdr! at-item (cons item (cdr at-item)))))))))
+      ((as YailList yail-list):insertObject (- index2 1) item))))
 
 ;; Extends list A by appending the elements of list B to it
 ;; Modifies list A
@@ -2339,21 +2427,14 @@ list, use the make-yail-list constructor with no arguments.
   ;; between the augmented list and the source of the added elements.
   ;; But like Python, we do a shallow copy, so that substructure is
   ;; shared.
-  (define (list-copy l)
-    (if (null? l)
-    '()
-    (cons (car l) (list-copy (cdr l)))))
-  ;; We have to operate on the yail-list itself, not the contents, because
-  ;; the contents might be empty
-  (set-cdr! (list-tail yail-list-A (length (yail-list-contents yail-list-A)))
-        (list-copy (yail-list-contents yail-list-B))))
+  ((as YailList yail-list-A):addObjects yail-list-B))
 
 
 ;; Extend list A by appending the items to it
 ;; Modifies list A
 ;; Implements blocks add to list operation
 (define (yail-list-add-to-list! yail-list . items)
-  (yail-list-append! yail-list (apply make-yail-list items)))
+  (for-each (lambda (item) ((as YailList yail-list):addObject item)) items))
 
 ;;;TODO(halabelson): BUG!  We need to recognize that "1" is
 ;;; a member of (1 2 3)
@@ -3008,6 +3089,15 @@ Dictionary implementation.
    (string->symbol old-component-name)
    (string->symbol new-component-name)))
 
+;; Used by the blocks editor to profile the event handlers and procedures
+;; of the app in the repl.  The profile is sent to the blocks editor every
+;; period-millis milliseconds until the profiler is stopped.
+(define (start-block-profiler period-millis)
+  (BlockProfiler:startStreaming *this-form* period-millis))
+
+(define (stop-block-profiler)
+  (BlockProfiler:stopStreaming *this-form*))
+
 ;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;
 ;;;; End Support for REPL
 ;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;;
@@ -0,0 +1,149 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.appinventor.common.testutils.TestUtils;
+import com.google.appinventor.components.runtime.util.YailList;
+import gnu.math.IntNum;
+import kawa.standard.Scheme;
+
+/**
+ * Prints how fast the YAIL runtime runs some common blocks. This is not part of the test suite,
+ * since its results depend on the machine. Run it from the appinventor directory, with the
+ * classpath of the BuildServer tests:
+ *
+ * <pre>java com.google.appinventor.buildserver.YailEvalBenchmark</pre>
+ */
+public class YailEvalBenchmark {
+  private final Scheme scheme;
+
+  private YailEvalBenchmark() throws Throwable {
+    scheme = new Scheme();
+    String yailRuntimeLibrary = Compiler.getResource(Compiler.YAIL_RUNTIME);
+    yailRuntimeLibrary = TestUtils.windowsToUnix(yailRuntimeLibrary);
+    scheme.eval("(load \"" + yailRuntimeLibrary + "\")");
+    scheme.eval("(set! *testing* #t)");
+  }
+
+  public static void main(String[] args) throws Throwable {
+    YailEvalBenchmark benchmark = new YailEvalBenchmark();
+    benchmark.listBlocks();
+    benchmark.callComponentMethod();
+    benchmark.primitiveCoercion();
+  }
+
+  /**
+   * Prints the time per call of the common list blocks, each used once for every item of a list,
+   * as in "for each number from 1 to length of list, select list item".
+   */
+  private void listBlocks() throws Throwable {
+    String[][] blocks = {
+        {"add items to list", "(yail-list-add-to-list! bench-list i)"},
+        {"length of list", "(yail-list-length bench-list)"},
+        {"select list item", "(yail-list-get-item bench-list i)"},
+        {"replace list item", "(yail-list-set-item! bench-list i (* i 2))"},
+        {"insert list item", "(yail-list-insert-item! bench-list (+ i 1) i)"},
+        {"remove list item",
+            "(yail-list-remove-item! bench-list (yail-list-length bench-list))"},
+        {"append to list", "(yail-list-append! bench-list (make-yail-list i))"},
+    };
+    System.out.println("List blocks, time per call:");
+    System.out.println(String.format("  %-20s %10s %10s", "block", "n = 1000", "n = 5000"));
+    time("(bench-list " + define(new YailList()) + ")", blocks[0][1], 1000);  // warms up the JIT
+    for (String[] block : blocks) {
+      StringBuilder row = new StringBuilder(String.format("  %-20s", block[0]));
+      for (int n : new int[] { 1000, 5000 }) {
+        YailList list = new YailList();
+        if (!block[0].startsWith("add")) {
+          for (int i = 1; i <= n; i++) {
+            list.addObject(IntNum.make(i));
+          }
+        }
+        long nanos = time("(bench-list " + define(list) + ")", block[1], n);
+        row.append(String.format(" %7.2f us", nanos / 1000.0 / n));
+      }
+      System.out.println(row);
+    }
+  }
+
+  /**
+   * Prints the number of component method calls made per second through call-component-method,
+   * and through the same steps with Kawa's invoke looking up the method on every call.
+   */
+  private void callComponentMethod() throws Throwable {
+    scheme.eval("(add-to-current-form-environment 'Counter1 "
+        + define(new YailEvalTest.CountingComponent()) + ")");
+    String[][] calls = {
+        {"invoke (uncached)", "(sanitize-component-data (apply invoke `("
+            + ",(lookup-in-current-form-environment 'Counter1) Scale "
+            + ",@(coerce-args 'Scale (*list-for-runtime* i) '(number)))))"},
+        {"call-component-method",
+            "(call-component-method 'Counter1 'Scale (*list-for-runtime* i) '(number))"},
+    };
+    printRates("Component method calls per second:", calls, 100000);
+  }
+
+  /**
+   * Prints the number of primitive blocks run per second, for arithmetic, comparison and text
+   * blocks.
+   */
+  private void primitiveCoercion() throws Throwable {
+    // Block programs as the blocks editor generates them. The last one passes text where numbers
+    // are expected, so its arguments have to be coerced.
+    String[][] programs = {
+        {"arithmetic", "(call-yail-primitive + (*list-for-runtime* "
+            + "(call-yail-primitive * (*list-for-runtime* i 2) '(number number) \"*\") "
+            + "(call-yail-primitive - (*list-for-runtime* i 1.5) '(number number) \"-\")) "
+            + "'(number number) \"+\")"},
+        {"comparison", "(call-yail-primitive yail-equal? (*list-for-runtime* "
+            + "(call-yail-primitive modulo (*list-for-runtime* i 7) '(number number) "
+            + "\"modulo\") 0) '(any any) \"=\")"},
+        {"text", "(call-yail-primitive string-append (*list-for-runtime* "
+            + "(call-yail-primitive string-to-upper-case (*list-for-runtime* \"abc\") "
+            + "'(text) \"upcase\") \"def\" (call-yail-primitive string-length "
+            + "(*list-for-runtime* \"ghi\") '(text) \"length\")) '(text text text) \"join\")"},
+        {"arithmetic on text", "(call-yail-primitive + (*list-for-runtime* \"1\" \"2\") "
+            + "'(number number) \"+\")"},
+    };
+    printRates("Primitive blocks per second:", programs, 100000);
+  }
+
+  /**
+   * Prints the number of times per second each block runs, in a loop of n iterations.
+   */
+  private void printRates(String title, String[][] blocks, int n) throws Throwable {
+    System.out.println(title);
+    for (int round = 0; round < 2; round++) {
+      for (String[] block : blocks) {
+        long nanos = time("", block[1], n);
+        // The first round warms up the JIT.
+        if (round > 0) {
+          System.out.println(String.format("  %-22s %10.0f", block[0], n * 1e9 / nanos));
+        }
+      }
+    }
+  }
+
+  /**
+   * Defines a fresh variable holding the given value and returns its name.
+   */
+  private String define(Object value) {
+    String sym = "gensym$" + Math.round(Math.random() * Long.MAX_VALUE);
+    scheme.define(sym, value);
+    return sym;
+  }
+
+  /**
+   * Runs a block once for each i from 1 to n, with the given let bindings, and returns the time
+   * taken in nanoseconds. The loop times itself, so that compiling it is not counted.
+   */
+  private long time(String bindings, String block, int n) throws Throwable {
+    return ((Number) scheme.eval("(let (" + bindings + " "
+        + "(start (java.lang.System:nanoTime))) "
+        + "(do ((i 1 (+ i 1))) ((> i " + n + ")) " + block + ") "
+        + "(- (java.lang.System:nanoTime) start))")).longValue();
+  }
+}
@@ -10,6 +10,7 @@ import com.google.appinventor.common.testutils.TestUtils;
 import com.google.appinventor.components.runtime.Component;
 import com.google.appinventor.components.runtime.HandlesEventDispatching;
 import com.google.appinventor.components.runtime.errors.YailRuntimeError;
+import com.google.appinventor.components.runtime.util.BlockProfiler;
 import com.google.appinventor.components.runtime.util.YailDictionary;
 import com.google.appinventor.components.runtime.util.YailList;
 import gnu.kawa.functions.Arithmetic;
@@ -22,6 +23,8 @@ import java.io.InputStream;
 import java.util.Random;
 import junit.framework.TestCase;
 import kawa.standard.Scheme;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -1456,6 +1459,123 @@ public class YailEvalTest extends TestCase {
     assertTrue((Boolean) scheme.eval(String.format(code, sym)));
   }
 
+  /**
+   * A component whose methods are called by the tests of call-component-method.
+   */
+  public static class CountingComponent implements Component {
+    private double total;
+
+    @Override
+    public HandlesEventDispatching getDispatchDelegate() {
+      return null;
+    }
+
+    public void Add(double value) {
+      total += value;
+    }
+
+    public int Scale(int factor) {
+      return (int) total * factor;
+    }
+
+    public String Label(String prefix) {
+      return prefix + total;
+    }
+
+    public String Pick(String a) {
+      return "string";
+    }
+
+    public String Pick(YailList a) {
+      return "list";
+    }
+
+    public void Fail(String message) {
+      throw new YailRuntimeError(message, "Test");
+    }
+  }
+
+  public void testCallComponentMethod() throws Throwable {
+    String sym = gensym();
+    scheme.define(sym, new CountingComponent());
+    scheme.eval("(add-to-current-form-environment 'Counter1 " + sym + ")");
+    assertEquals("3.5", scheme.eval("(begin "
+        + "(call-component-method 'Counter1 'Add (*list-for-runtime* 1) '(number)) "
+        + "(call-component-method 'Counter1 'Add (*list-for-runtime* \"2.5\") '(number)) "
+        + "(call-component-method 'Counter1 'Label (*list-for-runtime* \"\") '(text)))")
+        .toString());
+    // Numbers are converted to the parameter type and results are sanitized.
+    assertEquals(IntNum.make(6),
+        scheme.eval("(call-component-method 'Counter1 'Scale (*list-for-runtime* 2.0) '(number))"));
+    assertEquals("total 3.5", scheme.eval(
+        "(call-component-method 'Counter1 'Label (*list-for-runtime* \"total \") '(text))"));
+    // Overloaded methods are left to Kawa.
+    assertEquals("list", scheme.eval("(call-component-method 'Counter1 'Pick "
+        + "(*list-for-runtime* (make-yail-list 1)) '(any))"));
+    try {
+      scheme.eval("(call-component-method 'Counter1 'Fail (*list-for-runtime* \"oops\") '(text))");
+      fail();
+    } catch (YailRuntimeError e) {
+      assertEquals("oops", e.getMessage());
+    }
+  }
+
+  public void testCallYailPrimitiveFastPaths() throws Throwable {
+    // Arguments that already have their types are passed as they are.
+    assertEquals(IntNum.make(7), scheme.eval(
+        "(call-yail-primitive + (*list-for-runtime* 3 4) '(number number) \"+\")"));
+    assertEquals("ab", scheme.eval("(call-yail-primitive string-append "
+        + "(*list-for-runtime* \"a\" \"b\") '(text text) \"join\")").toString());
+    // Java numbers still have to be sanitized, and text still has to be coerced to numbers.
+    String sym = gensym();
+    scheme.define(sym, Integer.valueOf(5));
+    assertEquals(IntNum.make(5), scheme.eval(
+        "(call-yail-primitive (lambda (x) x) (*list-for-runtime* " + sym + ") '(any) \"id\")"));
+    assertEquals(IntNum.make(10), scheme.eval("(call-yail-primitive + "
+        + "(*list-for-runtime* " + sym + " \"2\" 3) '(number number number) \"+\")"));
+    // Calls with more arguments, or with lists and types that are not written out, are coerced
+    // as a whole.
+    assertEquals(IntNum.make(10), scheme.eval("(call-yail-primitive + "
+        + "(*list-for-runtime* 1 2 3 \"4\") '(number number number number) \"+\")"));
+    assertEquals(IntNum.make(3), scheme.eval("(let ((args (list 1 \"2\")) "
+        + "(types '(number number))) (call-yail-primitive + args types \"+\"))"));
+    try {
+      scheme.eval("(call-yail-primitive + (*list-for-runtime* 1 \"x\") '(number number) \"+\")");
+      fail();
+    } catch (YailRuntimeError e) {
+      // The argument cannot be coerced to a number.
+    }
+  }
+
+  public void testBlockProfilerRecordsProcedures() throws Throwable {
+    // Only procedures defined in the REPL are profiled.
+    scheme.eval("(set! *this-is-the-repl* #t)");
+    String program = "(begin "
+        + "(def (p$twice x) (call-yail-primitive * (*list-for-runtime* x 2) "
+        + "'(number number) \"*\")) "
+        + "(do ((i 1 (+ i 1))) ((> i 5)) ((get-var p$twice) i)) "
+        + "((get-var p$twice) 21))";
+    // Nothing is recorded while the profiler is off.
+    BlockProfiler.setEnabled(true);
+    BlockProfiler.setEnabled(false);
+    assertEquals(IntNum.make(42), scheme.eval(program));
+    JSONObject profile = new JSONObject(BlockProfiler.getProfile(null));
+    assertEquals(0, profile.getJSONArray("blocks").length());
+
+    BlockProfiler.setEnabled(true);
+    try {
+      assertEquals(IntNum.make(42), scheme.eval(program));
+      profile = new JSONObject(BlockProfiler.getProfile(null));
+    } finally {
+      BlockProfiler.setEnabled(false);
+    }
+    JSONArray blocks = profile.getJSONArray("blocks");
+    assertEquals(1, blocks.length());
+    assertEquals("twice", blocks.getJSONObject(0).getString("name"));
+    assertEquals("procedure", blocks.getJSONObject(0).getString("kind"));
+    assertEquals(6, blocks.getJSONObject(0).getLong("calls"));
+  }
+
   private static String gensym() {
     return "gensym$" + Math.round(Math.random() * Long.MAX_VALUE);
   }
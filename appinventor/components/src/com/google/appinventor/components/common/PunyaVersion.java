@@ -3,5 +3,13 @@ package com.google.appinventor.components.common;
 public class PunyaVersion {
   public static final int PUNYA_VERSION = 1;
 
-  public static final int REASONER_COMPONENT_VERSION = 1;
+  // For REASONER_COMPONENT_VERSION 2:
+  // - The Incremental property and InferencesUpdated event were added.
+  // For REASONER_COMPONENT_VERSION 3:
+  // - The QueryAsync and CancelQuery methods were added.
+  // - The QueryTimeout, QueryLimit and ResultPageSize properties were added.
+  // - The QueryResultsReceived and QueryCancelled events were added.
+  // For REASONER_COMPONENT_VERSION 4:
+  // - The DefineQueryTemplate, RunQueryTemplate and RunQueryTemplateAsync methods were added.
+  public static final int REASONER_COMPONENT_VERSION = 4;
 }
@@ -591,7 +591,40 @@ public class YaVersion {
   // - BLUETOOTH_CLIENT_COMPONENT_VERSION was incremented to 7
   // For YOUNG_ANDROID_VERSION 238
   // - GRAPHQL_COMPONENT_VERSION was added.
-  public static final int YOUNG_ANDROID_VERSION = 238;
+  // For YOUNG_ANDROID_VERSION 239
+  // - LINKED_DATA_COMPONENT_VERSION was incremented to 4.
+  // For YOUNG_ANDROID_VERSION 240
+  // - REASONER_COMPONENT_VERSION was incremented to 2.
+  // For YOUNG_ANDROID_VERSION 241
+  // - REASONER_COMPONENT_VERSION was incremented to 3.
+  // For YOUNG_ANDROID_VERSION 242
+  // - LINKED_DATA_COMPONENT_VERSION was incremented to 5.
+  // For YOUNG_ANDROID_VERSION 243
+  // - LINKED_DATA_COMPONENT_VERSION was incremented to 6.
+  // For YOUNG_ANDROID_VERSION 244
+  // - LINKED_DATA_COMPONENT_VERSION was incremented to 7.
+  // For YOUNG_ANDROID_VERSION 245
+  // - LINKED_DATA_COMPONENT_VERSION was incremented to 8.
+  // For YOUNG_ANDROID_VERSION 246
+  // - LINKED_DATA_COMPONENT_VERSION was incremented to 9.
+  // For YOUNG_ANDROID_VERSION 247
+  // - LINKED_DATA_LISTPICKER_COMPONENT_VERSION was incremented to 4.
+  // For YOUNG_ANDROID_VERSION 248
+  // - LINKED_DATA_COMPONENT_VERSION was incremented to 10.
+  // For YOUNG_ANDROID_VERSION 249
+  // - LINKEDDATASTREAMING_COMPONENT_VERSION was incremented to 2.
+  // For YOUNG_ANDROID_VERSION 250
+  // - LINKEDDATASTREAMING_COMPONENT_VERSION was incremented to 3.
+  // For YOUNG_ANDROID_VERSION 251
+  // - LINKED_DATA_COMPONENT_VERSION was incremented to 11.
+  // - REASONER_COMPONENT_VERSION was incremented to 4.
+  // For YOUNG_ANDROID_VERSION 252
+  // - LINKED_DATA_COMPONENT_VERSION was incremented to 12.
+  // For YOUNG_ANDROID_VERSION 253
+  // - LDPCOAP_CLIENT_COMPONENT_VERSION was incremented to 2.
+  // For YOUNG_ANDROID_VERSION 254
+  // - LINKED_DATA_COMPONENT_VERSION was incremented to 13.
+  public static final int YOUNG_ANDROID_VERSION = 254;
 
   // ............................... Blocks Language Version Number ...............................
 
@@ -1058,7 +1091,14 @@ public class YaVersion {
 
   public static final int LD_COMPONENT_VERSION = 1;
 
-  public static final int LDPCOAP_CLIENT_COMPONENT_VERSION = 1;
+  // For LDPCOAP_CLIENT_COMPONENT_VERSION 1:
+  // - Initial version.
+  // For LDPCOAP_CLIENT_COMPONENT_VERSION 2:
+  // - Added BlockSize and MaxOutstandingRequests properties
+  // - Added GetAsync, DeleteAsync, DiscoverResourcesAsync, GetBlockwise, Observe,
+  //   StopObserving and CancelRequests methods
+  // - Added ResponseReceived, BlockReceived, ResourceChanged and RequestFailed events
+  public static final int LDPCOAP_CLIENT_COMPONENT_VERSION = 2;
 
   // For LINESTRING_COMPONENT_VERSION 1:
   // - Initial LineString implementation for Maps
@@ -1070,7 +1110,35 @@ public class YaVersion {
   // - Renamed SemanticWeb component to LinkedData component
   // For LINKED_DATA_COMPONENT_VERSION 3:
   // - Removed BaseURL property eclipsed by FormID on Linked Data Form
-  public static final int LINKED_DATA_COMPONENT_VERSION = 3;
+  // For LINKED_DATA_COMPONENT_VERSION 4:
+  // - Added StoreDirectory property for an on-device triple store
+  // For LINKED_DATA_COMPONENT_VERSION 5:
+  // - Added StreamDataFromWeb, StreamDataFromLocal and CancelLoadingData methods
+  // - Added LoadBatchSize property
+  // - Added LoadingDataProgress, FinishedLoadingData, CancelledLoadingData and FailedToLoadData
+  //   events
+  // For LINKED_DATA_COMPONENT_VERSION 6:
+  // - Added UpdateBatchSize and UpdateRetries properties
+  // - Added WritingDataToWebProgress and AddingDataToWebProgress events
+  // For LINKED_DATA_COMPONENT_VERSION 7:
+  // - Added ChangelogFile property
+  // For LINKED_DATA_COMPONENT_VERSION 8:
+  // - Added OutboxFile, OutboxQueueDepth, OutboxSentCount and OutboxFailureCount properties
+  // - Added SubmitLinkedDataForm and FlushOutbox methods
+  // - Added OutboxFlushed and OutboxFlushFailed events
+  // For LINKED_DATA_COMPONENT_VERSION 9:
+  // - Added QueryCacheTTL, QueryCacheOnDisk, QueryCacheHits and QueryCacheMisses properties
+  // - Added ClearQueryCache method
+  // For LINKED_DATA_COMPONENT_VERSION 10:
+  // - Added FederatedQueryParallelism and FederatedQueryTimeout properties
+  // - Added ExecuteFederatedQuery method and RetrievedFederatedResults event
+  // For LINKED_DATA_COMPONENT_VERSION 11:
+  // - Added DefineQueryTemplate and ExecuteQueryTemplate methods
+  // For LINKED_DATA_COMPONENT_VERSION 12:
+  // - Added ResultPageSize property and RetrievedResultsPage event
+  // For LINKED_DATA_COMPONENT_VERSION 13:
+  // - QueryCacheOnDisk is no longer a designer property, since it applies to all components
+  public static final int LINKED_DATA_COMPONENT_VERSION = 13;
 
   // For SEMANTIC_FORM_COMPONENT_VERSION 1:
   // - Initial version.
@@ -1085,10 +1153,20 @@ public class YaVersion {
   // - Renamed SemanticWebListPicker to LinkedDataListPicker
   // For LINKED_DATA_LISTPICKER_COMPONENT_VERSION_3:
   // - Added RelationToObject property
-  public static final int LINKED_DATA_LISTPICKER_COMPONENT_VERSION = 3;
+  // For LINKED_DATA_LISTPICKER_COMPONENT_VERSION_4:
+  // - Added PageSize property
+  public static final int LINKED_DATA_LISTPICKER_COMPONENT_VERSION = 4;
 
   // For LINKEDDATASTREAMING_COMPONENT_VERSION 1:
-  public static final int LINKEDDATASTREAMING_COMPONENT_VERSION = 1;
+  // - Initial version.
+  // For LINKEDDATASTREAMING_COMPONENT_VERSION 2:
+  // - Added StartLocalQuery, StopLocalQuery, AddStreamData and StreamFromLinkedData methods
+  // - Added LocalStreamingResultsReceived event
+  // For LINKEDDATASTREAMING_COMPONENT_VERSION 3:
+  // - Added BatchSize, FlushInterval, MessageQueueCapacity and CompressMessages properties
+  // - Added FlushMessages method
+  // - Added MessageQueueFull and MessagesSent events
+  public static final int LINKEDDATASTREAMING_COMPONENT_VERSION = 3;
 
   // For LISTPICKER_COMPONENT_VERSION 2:
   // - The Alignment property was renamed to TextAlignment.
@@ -8,14 +8,21 @@ package com.google.appinventor.components.runtime;
 
 import android.util.Log;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Dispatches events to component event handlers.
  *
+ * <p>Events are raised far more often than handlers are registered, so the registrations are
+ * kept in tables that are replaced by updated copies when they change, and dispatching reads
+ * them without locking or allocating.</p>
+ *
  * @author markf@google.com (Mark Friedman)
  * @author lizlooney@google.com (Liz Looney)
  */
@@ -56,6 +63,37 @@ public class EventDispatcher {
     }
   }
 
+  private static final EventClosure[] NO_CLOSURES = new EventClosure[0];
+
+  /*
+   * An EventRoute holds the event closures for one event name of one form, and the time spent
+   * dispatching that event to them.
+   */
+  private static final class EventRoute {
+    private final String eventName;
+
+    // Note that we only keep one closure for a given componentId-eventName.  We do not support
+    // invoking multiple handlers for a single event.  The array is replaced, never modified.
+    private volatile EventClosure[] eventClosures = NO_CLOSURES;
+
+    private final AtomicLong dispatchCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    EventRoute(String eventName) {
+      this.eventName = eventName;
+    }
+
+    void recordDispatch(long nanos) {
+      dispatchCount.incrementAndGet();
+      totalNanos.addAndGet(nanos);
+      long max = maxNanos.get();
+      while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+        max = maxNanos.get();
+      }
+    }
+  }
+
   /*
    * Each EventRegistry is associated with one dispatchDelegate.
    * It contains all the event closures for a single form.
@@ -63,22 +101,85 @@ public class EventDispatcher {
   private static final class EventRegistry {
     private final HandlesEventDispatching dispatchDelegate;
 
-    // Mapping of event names to a set of event closures.
-    // Note that by using a Set here, we'll only have one closure corresponding to a
-    // given componentId-eventName.  We do not support invoking multiple handlers for a
-    // single event.
-    private final HashMap<String, Set<EventClosure>> eventClosuresMap =
-        new HashMap<String, Set<EventClosure>>();
+    // Mapping of event names to routes.  Routes are only added, by replacing the map with an
+    // updated copy while holding the registry's lock.
+    private volatile Map<String, EventRoute> eventRoutes = Collections.emptyMap();
 
     EventRegistry(HandlesEventDispatching dispatchDelegate) {
       this.dispatchDelegate = dispatchDelegate;
     }
+
+    private EventRoute getOrAddRoute(String eventName) {
+      EventRoute route = eventRoutes.get(eventName);
+      if (route == null) {
+        route = new EventRoute(eventName);
+        Map<String, EventRoute> routes = new HashMap<String, EventRoute>(eventRoutes);
+        routes.put(eventName, route);
+        eventRoutes = routes;
+      }
+      return route;
+    }
+  }
+
+  /**
+   * Statistics on the dispatching of one event, recorded while
+   * {@link #setRecordDispatchStats(boolean)} is on.  The times include running the event
+   * handlers.
+   */
+  public static final class DispatchStats {
+    private final String eventName;
+    private final long dispatchCount;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    private DispatchStats(EventRoute route) {
+      eventName = route.eventName;
+      dispatchCount = route.dispatchCount.get();
+      totalNanos = route.totalNanos.get();
+      maxNanos = route.maxNanos.get();
+    }
+
+    public String getEventName() {
+      return eventName;
+    }
+
+    public long getDispatchCount() {
+      return dispatchCount;
+    }
+
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    public long getMeanNanos() {
+      return dispatchCount == 0 ? 0 : totalNanos / dispatchCount;
+    }
+
+    @Override
+    public String toString() {
+      return eventName + ": " + dispatchCount + " dispatches, mean " + getMeanNanos()
+          + " ns, max " + maxNanos + " ns";
+    }
   }
 
   private static final boolean DEBUG = false;
 
+  // Timing each dispatch costs two clock reads, so it is only done when asked for.
+  private static volatile boolean recordDispatchStats = false;
+
   private static final Map<HandlesEventDispatching, EventRegistry>
-      mapDispatchDelegateToEventRegistry = new HashMap<HandlesEventDispatching, EventRegistry>();
+      mapDispatchDelegateToEventRegistry =
+          new ConcurrentHashMap<HandlesEventDispatching, EventRegistry>();
+
+  // Full event names, by event name and then by component id, so that makeFullEventName need
+  // not build them again on every dispatch.  Replaced with an updated copy when a name is added,
+  // and rebuilt from the registered closures when closures are removed in bulk.
+  private static volatile Map<String, Map<String, String>> fullEventNames =
+      Collections.emptyMap();
 
   private EventDispatcher() {
   }
@@ -86,8 +187,13 @@ public class EventDispatcher {
   private static EventRegistry getEventRegistry(HandlesEventDispatching dispatchDelegate) {
     EventRegistry er = mapDispatchDelegateToEventRegistry.get(dispatchDelegate);
     if (er == null) {
-      er = new EventRegistry(dispatchDelegate);
-      mapDispatchDelegateToEventRegistry.put(dispatchDelegate, er);
+      synchronized (mapDispatchDelegateToEventRegistry) {
+        er = mapDispatchDelegateToEventRegistry.get(dispatchDelegate);
+        if (er == null) {
+          er = new EventRegistry(dispatchDelegate);
+          mapDispatchDelegateToEventRegistry.put(dispatchDelegate, er);
+        }
+      }
     }
     return er;
   }
@@ -96,6 +202,47 @@ public class EventDispatcher {
     return mapDispatchDelegateToEventRegistry.remove(dispatchDelegate);
   }
 
+  private static synchronized void addFullEventName(String componentId, String eventName) {
+    Map<String, String> byComponent = fullEventNames.get(eventName);
+    if (byComponent != null && byComponent.containsKey(componentId)) {
+      return;
+    }
+    byComponent = byComponent == null
+        ? new HashMap<String, String>()
+        : new HashMap<String, String>(byComponent);
+    byComponent.put(componentId, componentId + '$' + eventName);
+    Map<String, Map<String, String>> names =
+        new HashMap<String, Map<String, String>>(fullEventNames);
+    names.put(eventName, byComponent);
+    fullEventNames = names;
+  }
+
+  /**
+   * Keeps only the full event names of the closures that are still registered, so that names
+   * are not kept for the components of forms that have gone.
+   */
+  private static synchronized void rebuildFullEventNames() {
+    Map<String, Map<String, String>> names = new HashMap<String, Map<String, String>>();
+    for (EventRegistry er : mapDispatchDelegateToEventRegistry.values()) {
+      synchronized (er) {
+        for (EventRoute route : er.eventRoutes.values()) {
+          for (EventClosure closure : route.eventClosures) {
+            Map<String, String> byComponent = names.get(closure.eventName);
+            if (byComponent == null) {
+              byComponent = new HashMap<String, String>();
+              names.put(closure.eventName, byComponent);
+            }
+            Map<String, String> old = fullEventNames.get(closure.eventName);
+            String fullEventName = old == null ? null : old.get(closure.componentId);
+            byComponent.put(closure.componentId, fullEventName != null ? fullEventName
+                : closure.componentId + '$' + closure.eventName);
+          }
+        }
+      }
+    }
+    fullEventNames = names;
+  }
+
 
   /**
    * Registers a dispatchDelegate for handling event dispatching for the event with the specified
@@ -109,13 +256,21 @@ public class EventDispatcher {
   public static void registerEventForDelegation(HandlesEventDispatching dispatchDelegate,
                                                 String componentId, String eventName) {
     EventRegistry er = getEventRegistry(dispatchDelegate);
-    Set<EventClosure> eventClosures = er.eventClosuresMap.get(eventName);
-    if (eventClosures == null) {
-      eventClosures = new HashSet<EventClosure>();
-      er.eventClosuresMap.put(eventName, eventClosures);
+    EventClosure closure = new EventClosure(componentId, eventName);
+    synchronized (er) {
+      EventRoute route = er.getOrAddRoute(eventName);
+      EventClosure[] eventClosures = route.eventClosures;
+      for (EventClosure eventClosure : eventClosures) {
+        if (eventClosure.equals(closure)) {
+          return;
+        }
+      }
+      EventClosure[] updated = new EventClosure[eventClosures.length + 1];
+      System.arraycopy(eventClosures, 0, updated, 0, eventClosures.length);
+      updated[eventClosures.length] = closure;
+      route.eventClosures = updated;
     }
-
-    eventClosures.add(new EventClosure(componentId, eventName));
+    addFullEventName(componentId, eventName);
     if (DEBUG) {
       Log.i("EventDispatcher", "Registered event closure for " +
           componentId + "." + eventName);
@@ -134,22 +289,23 @@ public class EventDispatcher {
   public static void unregisterEventForDelegation(HandlesEventDispatching dispatchDelegate,
                                                   String componentId, String eventName) {
     EventRegistry er = getEventRegistry(dispatchDelegate);
-    Set<EventClosure> eventClosures = er.eventClosuresMap.get(eventName);
-    if (eventClosures == null || eventClosures.isEmpty()) {
-      return;
-    }
-    Set<EventClosure> toDelete = new HashSet<EventClosure>();
-    for (EventClosure eventClosure : eventClosures) {
-      if (eventClosure.componentId.equals(componentId)) {
-        toDelete.add(eventClosure);
+    synchronized (er) {
+      EventRoute route = er.eventRoutes.get(eventName);
+      if (route == null || route.eventClosures.length == 0) {
+        return;
       }
-    }
-    for (EventClosure eventClosure : toDelete) {
-      if (DEBUG) {
-        Log.i("EventDispatcher", "Deleting event closure for " +
-            eventClosure.componentId + "." + eventClosure.eventName);
+      List<EventClosure> toKeep = new ArrayList<EventClosure>();
+      for (EventClosure eventClosure : route.eventClosures) {
+        if (eventClosure.componentId.equals(componentId)) {
+          if (DEBUG) {
+            Log.i("EventDispatcher", "Deleting event closure for " +
+                eventClosure.componentId + "." + eventClosure.eventName);
+          }
+        } else {
+          toKeep.add(eventClosure);
+        }
       }
-      eventClosures.remove(eventClosure);
+      route.eventClosures = toKeep.toArray(new EventClosure[toKeep.size()]);
     }
   }
 
@@ -160,8 +316,14 @@ public class EventDispatcher {
   // Don't delete this method. It's called from runtime.scm.
   public static void unregisterAllEventsForDelegation() {
     for (EventRegistry er : mapDispatchDelegateToEventRegistry.values()) {
-      er.eventClosuresMap.clear();
+      synchronized (er) {
+        // The routes are kept, so that their statistics survive reloading the handlers.
+        for (EventRoute route : er.eventRoutes.values()) {
+          route.eventClosures = NO_CLOSURES;
+        }
+      }
     }
+    rebuildFullEventNames();
   }
 
   /**
@@ -174,7 +336,10 @@ public class EventDispatcher {
   public static void removeDispatchDelegate(HandlesEventDispatching dispatchDelegate) {
     EventRegistry er = removeEventRegistry(dispatchDelegate);
     if (er != null) {
-      er.eventClosuresMap.clear();
+      synchronized (er) {
+        er.eventRoutes = Collections.emptyMap();
+      }
+      rebuildFullEventNames();
     }
   }
 
@@ -193,9 +358,18 @@ public class EventDispatcher {
     HandlesEventDispatching dispatchDelegate = component.getDispatchDelegate();
     if (dispatchDelegate.canDispatchEvent(component, eventName)) {
       EventRegistry er = getEventRegistry(dispatchDelegate);
-      Set<EventClosure> eventClosures = er.eventClosuresMap.get(eventName);
-      if (eventClosures != null && eventClosures.size() > 0) {
-        dispatched = delegateDispatchEvent(dispatchDelegate, eventClosures, component, args);
+      EventRoute route = er.eventRoutes.get(eventName);
+      if (route != null) {
+        EventClosure[] eventClosures = route.eventClosures;
+        if (eventClosures.length > 0) {
+          if (recordDispatchStats) {
+            long start = System.nanoTime();
+            dispatched = delegateDispatchEvent(dispatchDelegate, eventClosures, component, args);
+            route.recordDispatch(System.nanoTime() - start);
+          } else {
+            dispatched = delegateDispatchEvent(dispatchDelegate, eventClosures, component, args);
+          }
+        }
       }
       dispatchDelegate.dispatchGenericEvent(component, eventName, !dispatched, args);
     }
@@ -205,14 +379,14 @@ public class EventDispatcher {
   /**
    * Delegates the dispatch of an event to the dispatch delegate.
    *
-   * @param eventClosures set of event closures matching the event name
+   * @param eventClosures event closures matching the event name
    * @param component the component that generated the event
    * @param args  arguments to event handler
    */
   private static boolean delegateDispatchEvent(HandlesEventDispatching dispatchDelegate,
-                                               Set<EventClosure> eventClosures,
+                                               EventClosure[] eventClosures,
                                                Component component, Object... args) {
-    // The event closures set will contain all event closures matching the event name.
+    // The event closures will contain all event closures matching the event name.
     // We depend on the delegate's dispatchEvent method to check the registered event closure and
     // only dispatch the event if the registered component matches the component that generated the
     // event.  This should only be true for one (or zero) of the closures.
@@ -232,12 +406,57 @@ public class EventDispatcher {
     return dispatched;
   }
 
+  /**
+   * Turns the recording of {@link DispatchStats} on or off.  It is off by default.
+   *
+   * @param enabled  whether to time each dispatch
+   */
+  public static void setRecordDispatchStats(boolean enabled) {
+    recordDispatchStats = enabled;
+  }
+
+  /**
+   * Returns statistics on the events dispatched to the handlers of the given dispatchDelegate.
+   *
+   * @param dispatchDelegate  object responsible for dispatching the events
+   * @return the statistics for each event that has had a handler registered
+   */
+  public static List<DispatchStats> getDispatchStats(HandlesEventDispatching dispatchDelegate) {
+    List<DispatchStats> stats = new ArrayList<DispatchStats>();
+    EventRegistry er = mapDispatchDelegateToEventRegistry.get(dispatchDelegate);
+    if (er != null) {
+      for (EventRoute route : er.eventRoutes.values()) {
+        stats.add(new DispatchStats(route));
+      }
+    }
+    return stats;
+  }
+
+  /**
+   * Clears the statistics on the events dispatched to the handlers of the given
+   * dispatchDelegate.
+   *
+   * @param dispatchDelegate  object responsible for dispatching the events
+   */
+  public static void resetDispatchStats(HandlesEventDispatching dispatchDelegate) {
+    EventRegistry er = mapDispatchDelegateToEventRegistry.get(dispatchDelegate);
+    if (er != null) {
+      for (EventRoute route : er.eventRoutes.values()) {
+        route.dispatchCount.set(0);
+        route.totalNanos.set(0);
+        route.maxNanos.set(0);
+      }
+    }
+  }
+
   // Don't delete this method. It's called from runtime.scm.
   public static String makeFullEventName(String componentId, String eventName) {
     if (DEBUG) {
       Log.i("EventDispatcher", "makeFullEventName componentId=" + componentId + ", " +
           "eventName=" + eventName);
     }
-    return componentId + '$' + eventName;
+    Map<String, String> byComponent = fullEventNames.get(eventName);
+    String fullEventName = byComponent == null ? null : byComponent.get(componentId);
+    return fullEventName != null ? fullEventName : componentId + '$' + eventName;
   }
 }
@@ -19,6 +19,8 @@ import com.google.appinventor.components.common.PropertyTypeConstants;
 import com.google.appinventor.components.common.YaVersion;
 import com.google.appinventor.components.runtime.errors.PermissionException;
 import com.google.appinventor.components.runtime.util.BulkPermissionRequest;
+import com.google.appinventor.components.runtime.util.CoapBlockReader;
+import com.google.appinventor.components.runtime.util.CoapPipeline;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.FileUtil;
 import android.Manifest;
@@ -28,10 +30,20 @@ import android.util.Log;
 //import com.google.appinventor.components.runtime.util.YailDictionary;
 import org.eclipse.californium.core.coap.CoAP;
 import org.eclipse.californium.core.CoapClient;
+import org.eclipse.californium.core.CoapHandler;
+import org.eclipse.californium.core.CoapObserveRelation;
 import org.eclipse.californium.core.CoapResponse;
+import org.eclipse.californium.core.coap.BlockOption;
 import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.CoAPEndpoint;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.google.appinventor.components.annotations.UsesLibraries;
 
@@ -41,6 +53,11 @@ import com.google.appinventor.components.annotations.UsesLibraries;
  *
  * LdpCoapClient to make ldp coap request
  *
+ * The Get, Delete and Discover methods wait for their response. The asynchronous methods
+ * instead send their requests through a dedicated endpoint, with up to MaxOutstandingRequests
+ * requests awaiting a response at once, and report the responses as events. GetBlockwise reports
+ * a large resource block by block as the blocks arrive, and Observe subscribes to a resource so
+ * that the server pushes its changes.
  */
 @DesignerComponent(version = YaVersion.LDPCOAP_CLIENT_COMPONENT_VERSION,
         description = "<p>LDP-COAP Client</p>",
@@ -55,7 +72,7 @@ import com.google.appinventor.components.annotations.UsesLibraries;
 "element-connector-1.0.7.jar")
 
 public final class LdpCoapClient extends AndroidNonvisibleComponent
-        implements Component {
+        implements Component, OnDestroyListener, Deleteable {
 
     private static final String TAG = "LdpCoapClient";
 
@@ -63,8 +80,18 @@ public final class LdpCoapClient extends AndroidNonvisibleComponent
     protected CoapResponse resp = null;
     protected String containerType = "ldp:BasicContainer";
 
+    private int blockSize = 1024;
+    private int maxOutstandingRequests = 4;
+    // Created when the first asynchronous request is made.
+    private CoAPEndpoint endpoint = null;
+    private CoapPipeline pipeline = null;
+    private CoapBlockReader blockReader = null;
+    private final Map<String, CoapObserveRelation> observations =
+        new HashMap<String, CoapObserveRelation>();
+
     public LdpCoapClient(final ComponentContainer<? extends Component> container) {
         super(container.$form());
+        form.registerForOnDestroy(this);
     }
     
 
@@ -317,6 +344,337 @@ public final class LdpCoapClient extends AndroidNonvisibleComponent
         }
         resp = client.putIfMatch(data, type, computeETag(etag));
     }
+    /**
+     * Returns the preferred size of the blocks in which large payloads are transferred.
+     *
+     * @return the block size in bytes
+     */
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+        description = "The preferred size, in bytes, of the blocks in which the asynchronous "
+            + "methods transfer large payloads: 16, 32, 64, 128, 256, 512 or 1024. The server may "
+            + "choose smaller blocks.")
+    public int BlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Specifies the preferred size of the blocks in which large payloads are transferred.
+     *
+     * @param size the block size in bytes
+     */
+    @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+        defaultValue = "1024")
+    @SimpleProperty
+    public void BlockSize(int size) {
+        if (!CoapBlockReader.isValidBlockSize(size)) {
+            form.dispatchErrorOccurredEvent(this, "BlockSize",
+                ErrorMessages.ERROR_LDP_COAP_INVALID_BLOCK_SIZE, size);
+            return;
+        }
+        blockSize = size;
+    }
+
+    /**
+     * Returns the number of asynchronous requests that may await a response at once.
+     *
+     * @return the maximum number of outstanding requests
+     */
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+        description = "The number of asynchronous requests that may await a response at once. "
+            + "Further requests wait until a response arrives.")
+    public int MaxOutstandingRequests() {
+        return maxOutstandingRequests;
+    }
+
+    /**
+     * Specifies the number of asynchronous requests that may await a response at once.
+     *
+     * @param count the maximum number of outstanding requests, at least 1
+     */
+    @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+        defaultValue = "4")
+    @SimpleProperty
+    public void MaxOutstandingRequests(int count) {
+        maxOutstandingRequests = Math.max(1, count);
+        synchronized (this) {
+            if (pipeline != null) {
+                pipeline.setMaxOutstanding(maxOutstandingRequests);
+            }
+        }
+    }
+
+    @SimpleFunction(description = "Sends a GET request without waiting for the response, which "
+        + "is reported by ResponseReceived with the given tag.")
+    public void GetAsync(String resource, int type, String tag) {
+        Request request = Request.newGet();
+        request.getOptions().setAccept(type);
+        sendAsync("GetAsync", request, BASE_URI + "/" + resource, tag);
+    }
+
+    @SimpleFunction(description = "Sends a DELETE request without waiting for the response, "
+        + "which is reported by ResponseReceived with the given tag.")
+    public void DeleteAsync(String resource, String tag) {
+        sendAsync("DeleteAsync", Request.newDelete(), BASE_URI + "/" + resource, tag);
+    }
+
+    @SimpleFunction(description = "Discovers resources without waiting for the response, which "
+        + "is reported by ResponseReceived with the given tag. If resourceType is not empty, only "
+        + "resources of that type are listed.")
+    public void DiscoverResourcesAsync(String resourceType, int type, String tag) {
+        Request request = Request.newGet();
+        request.getOptions().setAccept(type);
+        String uri = BASE_URI + "/.well-known/core";
+        if (resourceType.length() > 0) {
+            uri += "?rt=" + resourceType;
+        }
+        sendAsync("DiscoverResourcesAsync", request, uri, tag);
+    }
+
+    @SimpleFunction(description = "Reads a resource block by block. BlockReceived reports each "
+        + "block as soon as it arrives, so a large payload can be processed before it has been "
+        + "received in full.")
+    public void GetBlockwise(String resource, int type, final String tag) {
+        if (!startEndpoint("GetBlockwise")) {
+            return;
+        }
+        blockReader.read(BASE_URI + "/" + resource, type, blockSize,
+            new CoapBlockReader.Listener() {
+                @Override
+                public void onBlock(final int num, final String text, final boolean more) {
+                    form.runOnUiThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            BlockReceived(tag, num, text, more);
+                        }
+                    });
+                }
+
+                @Override
+                public void onFailure(String reason) {
+                    requestFailed(tag, reason);
+                }
+            });
+    }
+
+    @SimpleFunction(description = "Subscribes to a resource. The server pushes the new state of "
+        + "the resource whenever it changes, and ResourceChanged reports it. Observing a resource "
+        + "again replaces the earlier subscription.")
+    public void Observe(final String resource, int type) {
+        if (!startEndpoint("Observe")) {
+            return;
+        }
+        CoapClient client = new CoapClient(BASE_URI + "/" + resource);
+        client.setEndpoint(endpoint);
+        client.useEarlyNegotiation(blockSize);
+        // Set once the subscription is recorded, so the handler can tell whether a later Observe
+        // has replaced it.
+        final CoapObserveRelation[] relation = new CoapObserveRelation[1];
+        CoapHandler handler = new CoapHandler() {
+            @Override
+            public void onLoad(final CoapResponse response) {
+                if (!response.isSuccess()) {
+                    CoapObserveRelation current = forgetObservation(resource, relation);
+                    if (current != null) {
+                        current.proactiveCancel();
+                    }
+                    requestFailed(resource, response.getCode().toString());
+                    return;
+                }
+                final String code = response.getCode().toString();
+                final String format =
+                    MediaTypeRegistry.toString(response.getOptions().getContentFormat());
+                final String text = response.getResponseText();
+                form.runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        ResourceChanged(resource, code, format, text);
+                    }
+                });
+            }
+
+            @Override
+            public void onError() {
+                forgetObservation(resource, relation);
+                requestFailed(resource, "Observe failed");
+            }
+        };
+        CoapObserveRelation previous;
+        // The handler waits for the lock, so it cannot run before the relation is recorded.
+        synchronized (observations) {
+            relation[0] = client.observe(handler, type);
+            previous = observations.put(resource, relation[0]);
+        }
+        if (previous != null) {
+            previous.proactiveCancel();
+        }
+    }
+
+    /**
+     * Removes the subscription to a resource if it is still the one made by the given Observe
+     * call, rather than one that replaced it.
+     *
+     * @return the removed relation, or null if it is no longer the current subscription
+     */
+    private CoapObserveRelation forgetObservation(String resource, CoapObserveRelation[] relation) {
+        synchronized (observations) {
+            if (relation[0] == null || observations.get(resource) != relation[0]) {
+                return null;
+            }
+            return observations.remove(resource);
+        }
+    }
+
+    @SimpleFunction(description = "Ends the subscription made by Observe for a resource.")
+    public void StopObserving(String resource) {
+        CoapObserveRelation relation;
+        synchronized (observations) {
+            relation = observations.remove(resource);
+        }
+        if (relation != null) {
+            relation.proactiveCancel();
+        }
+    }
+
+    @SimpleFunction(description = "Cancels all asynchronous requests that have not been "
+        + "answered. RequestFailed is raised for each of them.")
+    public void CancelRequests() {
+        CoapPipeline current;
+        synchronized (this) {
+            current = pipeline;
+        }
+        if (current != null) {
+            current.cancelAll();
+        }
+    }
+
+    @SimpleEvent(description = "Triggered when the response to GetAsync, DeleteAsync or "
+        + "DiscoverResourcesAsync arrives.")
+    public void ResponseReceived(String tag, String responseCode, String contentFormat,
+        String responseText) {
+        EventDispatcher.dispatchEvent(this, "ResponseReceived", tag, responseCode, contentFormat,
+            responseText);
+    }
+
+    @SimpleEvent(description = "Triggered for each block of a resource read by GetBlockwise. "
+        + "The blocks arrive in order; more is false for the last one.")
+    public void BlockReceived(String tag, int blockNumber, String text, boolean more) {
+        EventDispatcher.dispatchEvent(this, "BlockReceived", tag, blockNumber, text, more);
+    }
+
+    @SimpleEvent(description = "Triggered when a resource subscribed to with Observe changes, "
+        + "and once with its state when the subscription starts.")
+    public void ResourceChanged(String resource, String responseCode, String contentFormat,
+        String responseText) {
+        EventDispatcher.dispatchEvent(this, "ResourceChanged", resource, responseCode,
+            contentFormat, responseText);
+    }
+
+    @SimpleEvent(description = "Triggered when an asynchronous request, block-wise transfer or "
+        + "subscription fails. The tag is the resource for a subscription. The reason is the "
+        + "response code or why no response was received.")
+    public void RequestFailed(String tag, String reason) {
+        EventDispatcher.dispatchEvent(this, "RequestFailed", tag, reason);
+    }
+
+    @Override
+    public void onDestroy() {
+        shutdown();
+    }
+
+    @Override
+    public void onDelete() {
+        shutdown();
+    }
+
+    private void sendAsync(String method, Request request, String uri, final String tag) {
+        if (!startEndpoint(method)) {
+            return;
+        }
+        request.setURI(uri);
+        // Ask for blocks of the preferred size from the start (early negotiation).
+        if (request.getCode() == CoAP.Code.GET) {
+            request.getOptions().setBlock2(BlockOption.size2Szx(blockSize), false, 0);
+        }
+        pipeline.send(request, new CoapPipeline.Callback() {
+            @Override
+            public void onResponse(Response response) {
+                final String code = response.getCode().toString();
+                final String format =
+                    MediaTypeRegistry.toString(response.getOptions().getContentFormat());
+                final String text = response.getPayloadString();
+                form.runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        ResponseReceived(tag, code, format, text);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(String reason) {
+                requestFailed(tag, reason);
+            }
+        });
+    }
+
+    private void requestFailed(final String tag, final String reason) {
+        form.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                RequestFailed(tag, reason);
+            }
+        });
+    }
+
+    /**
+     * Opens the endpoint used by the asynchronous methods if it is not open yet.
+     *
+     * @param method the method that needs the endpoint, for error reporting
+     * @return true if the endpoint is open
+     */
+    private synchronized boolean startEndpoint(String method) {
+        if (pipeline != null) {
+            return true;
+        }
+        CoAPEndpoint newEndpoint = new CoAPEndpoint();
+        try {
+            newEndpoint.start();
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to start CoAP endpoint", e);
+            form.dispatchErrorOccurredEvent(this, method,
+                ErrorMessages.ERROR_LDP_COAP_ENDPOINT_FAILED, e.getMessage());
+            return false;
+        }
+        endpoint = newEndpoint;
+        pipeline = new CoapPipeline(endpoint, maxOutstandingRequests);
+        blockReader = new CoapBlockReader(endpoint, pipeline);
+        return true;
+    }
+
+    private void shutdown() {
+        List<CoapObserveRelation> relations;
+        synchronized (observations) {
+            relations = new ArrayList<CoapObserveRelation>(observations.values());
+            observations.clear();
+        }
+        for (CoapObserveRelation relation : relations) {
+            relation.proactiveCancel();
+        }
+        CoAPEndpoint oldEndpoint;
+        CoapPipeline oldPipeline;
+        synchronized (this) {
+            oldEndpoint = endpoint;
+            oldPipeline = pipeline;
+            endpoint = null;
+            pipeline = null;
+            blockReader = null;
+        }
+        if (oldPipeline != null) {
+            oldPipeline.cancelAll();
+            oldEndpoint.destroy();
+        }
+    }
+
     @SimpleProperty(description = "text/plain code")
     public int TextPlain() {
         return MediaTypeRegistry.TEXT_PLAIN;
@@ -5,6 +5,13 @@
 
 package com.google.appinventor.components.runtime;
 
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.Handler;
 import android.util.Log;
 import com.google.appinventor.components.annotations.DesignerComponent;
 import com.google.appinventor.components.annotations.DesignerProperty;
@@ -19,10 +26,26 @@ import com.google.appinventor.components.common.ComponentCategory;
 import com.google.appinventor.components.common.PropertyTypeConstants;
 import com.google.appinventor.components.common.YaVersion;
 import com.google.appinventor.components.runtime.util.AsynchUtil;
+import com.google.appinventor.components.runtime.util.DiskGraph;
+import com.google.appinventor.components.runtime.util.ErrorMessages;
+import com.google.appinventor.components.runtime.util.FederatedQuery;
 import com.google.appinventor.components.runtime.util.IOUtils;
 import com.google.appinventor.components.runtime.util.MediaUtil;
+import com.google.appinventor.components.runtime.util.ModelChangelog;
+import com.google.appinventor.components.runtime.util.QueryTemplate;
+import com.google.appinventor.components.runtime.util.RdfSnapshot;
+import com.google.appinventor.components.runtime.util.RdfStreamLoader;
 import com.google.appinventor.components.runtime.util.RdfUtil;
+import com.google.appinventor.components.runtime.util.SparqlJsonDecoder;
+import com.google.appinventor.components.runtime.util.SparqlResultCache;
+import com.google.appinventor.components.runtime.util.SparqlUpdatePublisher;
+import com.google.appinventor.components.runtime.util.SubmissionOutbox;
+import com.google.appinventor.components.runtime.util.YailDictionary;
 import com.google.appinventor.components.runtime.util.YailList;
+import com.hp.hpl.jena.graph.GraphUtil;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.query.QueryFactory;
 import com.hp.hpl.jena.query.ResultSet;
 import com.hp.hpl.jena.query.ResultSetFactory;
 import com.hp.hpl.jena.query.ResultSetFormatter;
@@ -30,15 +53,21 @@ import com.hp.hpl.jena.query.ResultSetRewindable;
 import com.hp.hpl.jena.rdf.model.Model;
 import com.hp.hpl.jena.rdf.model.ModelFactory;
 import com.hp.hpl.jena.vocabulary.XSD;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 
 @DesignerComponent(version = YaVersion.LINKED_DATA_COMPONENT_VERSION,
     description = "Non-visible component that communicates with a SPARQL-powered triple store",
@@ -46,12 +75,13 @@ import java.util.Set;
     nonVisible = true,
     iconName = "images/semanticWeb.png")
 @SimpleObject
-@UsesPermissions(permissionNames = "android.permission.INTERNET")
+@UsesPermissions(permissionNames = "android.permission.INTERNET, "
+    + "android.permission.ACCESS_NETWORK_STATE")
 @UsesLibraries(libraries = "xercesImpl.jar," +
     "slf4j-android.jar," + "jena-iri.jar," + "jena-core.jar," +
-    "jena-arq.jar," + "xml-apis.jar")
+    "jena-arq.jar," + "xml-apis.jar," + "gson.jar")
 public class LinkedData extends LinkedDataBase<Model> implements
-		Component {
+		Component, OnStopListener, OnDestroyListener, Deleteable {
 
   /* constants for convenience */
   private static final String LOG_TAG = "LinkedData";
@@ -62,9 +92,74 @@ public class LinkedData extends LinkedDataBase<Model> implements
   private static final String GEO_NS = "http://www.w3.org/2003/01/geo/wgs84_pos#";
   private static final String SKOS_NS = "http://www.w3.org/2004/02/skos/core#";
 
+  /* minimum time between LoadingDataProgress events */
+  private static final long PROGRESS_INTERVAL_MS = 250;
+
+  /* delays between attempts to flush the outbox, doubled after each failure */
+  private static final long OUTBOX_INITIAL_RETRY_MS = 1000;
+  private static final long OUTBOX_MAX_RETRY_MS = 5 * 60 * 1000;
+
+  private static final String DEFAULT_OUTBOX_FILE = "LinkedDataOutbox";
+
   /** endpointURL stores the URI of a SPARQL endpoint **/
   private String endpointURL;
 
+  /** storeDirectory names the on-device triple store, or is empty for an in-memory model **/
+  private String storeDirectory = "";
+
+  /** store is the disk-backed graph behind model when storeDirectory is set **/
+  private DiskGraph store = null;
+
+  /** loadBatchSize is the number of triples added to the model at a time when streaming **/
+  private int loadBatchSize = RdfStreamLoader.DEFAULT_BATCH_SIZE;
+
+  /** changelogFile names the file recording changes since the last WriteDataToWeb **/
+  private String changelogFile = "";
+
+  /** changelog records changes to model when changelogFile is set **/
+  private ModelChangelog changelog = null;
+
+  /** updateBatchSize is the maximum number of triples sent to an endpoint per request **/
+  private int updateBatchSize = SparqlUpdatePublisher.DEFAULT_BATCH_SIZE;
+
+  /** updateRetries is the number of times a failed request to an endpoint is retried **/
+  private int updateRetries = SparqlUpdatePublisher.DEFAULT_MAX_RETRIES;
+
+  /** queryCacheTtl is how long, in seconds, a cached query result is used without revalidation **/
+  private int queryCacheTtl = 0;
+
+  /** resultPageSize is the number of rows in each RetrievedResultsPage event, or 0 **/
+  private volatile int resultPageSize = 0;
+
+  /** federatedParallelism is the number of endpoints queried at once by a federated query **/
+  private int federatedParallelism = FederatedQuery.DEFAULT_PARALLELISM;
+
+  /** federatedTimeout is how long, in milliseconds, a federated query waits for endpoints **/
+  private int federatedTimeout = (int) FederatedQuery.DEFAULT_TIMEOUT_MS;
+
+  /** activeLoads holds the loaders of streaming reads that have not finished **/
+  private final Set<RdfStreamLoader> activeLoads = new HashSet<>();
+
+  /** outboxFile names the log of form submissions waiting to be sent **/
+  private String outboxFile = DEFAULT_OUTBOX_FILE;
+
+  /** outbox is opened from outboxFile on first use **/
+  private SubmissionOutbox outbox = null;
+
+  /** outboxRetryDelay is the delay before the next attempt after a failed flush **/
+  private long outboxRetryDelay = OUTBOX_INITIAL_RETRY_MS;
+
+  /** connectivityReceiver retries the outbox when the network returns **/
+  private BroadcastReceiver connectivityReceiver = null;
+
+  private final Handler handler = new Handler();
+
+  private final Runnable flushOutbox = new Runnable() {
+    public void run() {
+      startOutboxFlush();
+    }
+  };
+
   public LinkedData(ComponentContainer<?> container) {
 	  super(container, ModelFactory.createDefaultModel());
 	  endpointURL = "http://dbpedia.org/sparql";
@@ -75,6 +170,16 @@ public class LinkedData extends LinkedDataBase<Model> implements
     model.setNsPrefix("geo", GEO_NS);
     model.setNsPrefix("skos", SKOS_NS);
     model.setNsPrefix("xsd", XSD.getURI());
+    form.registerForOnStop(this);
+    form.registerForOnDestroy(this);
+    // Send any submissions left from a previous run once the designer properties are set.
+    handler.post(new Runnable() {
+      public void run() {
+        if (resolveOutboxFile().exists()) {
+          startOutboxFlush();
+        }
+      }
+    });
   }
 
   public void Initialize() {
@@ -111,8 +216,312 @@ public class LinkedData extends LinkedDataBase<Model> implements
 	  endpointURL = url;
   }
 
+  /**
+   * Returns the directory of the on-device triple store backing this component.
+   *
+   * @return the store directory, or the empty string if the model is kept in memory
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "<p>Use the Store Directory field to keep the contents of this "
+          + "component in an indexed triple store on the device instead of in memory. "
+          + "Statements added to the store remain available the next time the app "
+          + "starts without being read again. Relative paths are resolved against the "
+          + "app's private storage. Leave the field empty to keep the model in memory."
+          + "</p>")
+  public String StoreDirectory() {
+    return storeDirectory;
+  }
+
+  /**
+   * Specifies the directory of an on-device triple store to use instead of an in-memory model.
+   * Statements held in memory when the store is opened are copied into it. Setting the property
+   * to the empty string closes the store and returns to an empty in-memory model.
+   *
+   * @param directory the store directory, or the empty string for an in-memory model
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_STRING,
+      defaultValue = "")
+  @SimpleProperty
+  public void StoreDirectory(String directory) {
+    if (directory.equals(storeDirectory)) {
+      return;
+    }
+    Model previous = model;
+    DiskGraph previousStore = store;
+    if (directory.length() == 0) {
+      store = null;
+      model = ModelFactory.createDefaultModel();
+    } else {
+      try {
+        File dir = new File(directory);
+        if (!dir.isAbsolute()) {
+          dir = new File(form.getFilesDir(), directory);
+        }
+        store = new DiskGraph(dir);
+      } catch (Exception e) {
+        Log.e(LOG_TAG, "Unable to open triple store " + directory, e);
+        form.dispatchErrorOccurredEvent(this, "StoreDirectory",
+            ErrorMessages.ERROR_LINKED_DATA_STORE_FAILED, directory, e.getMessage());
+        return;
+      }
+      model = ModelFactory.createModelForGraph(store);
+    }
+    model.setNsPrefixes(previous.getNsPrefixMap());
+    if (previousStore == null) {
+      model.add(previous);
+    } else {
+      previousStore.close();
+    }
+    if (changelog != null) {
+      // The copied statements are not changes to the published data.
+      changelog.detach();
+      changelog.attach(model);
+    }
+    storeDirectory = directory;
+  }
+
+  /**
+   * Returns the file recording the changes made to the model since it was last written to the
+   * web.
+   *
+   * @return the changelog file, or the empty string if changes are not recorded
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "<p>Use the Changelog File field to record the statements added to and "
+          + "removed from this component. Once a graph has been written with "
+          + "WriteDataToWeb, later calls send only the recorded changes to the endpoint's "
+          + "SPARQL Update service instead of the whole model. The changes are kept across "
+          + "app restarts. Relative paths are resolved against the app's private storage."
+          + "</p>")
+  public String ChangelogFile() {
+    return changelogFile;
+  }
+
+  /**
+   * Specifies a file in which to record changes to the model so that
+   * {@link #WriteDataToWeb(String)} can publish only the statements added or removed since the
+   * last successful write. Setting the property to the empty string stops recording changes.
+   *
+   * @param path the changelog file, or the empty string to publish the whole model each time
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_STRING,
+      defaultValue = "")
+  @SimpleProperty
+  public void ChangelogFile(String path) {
+    if (path.equals(changelogFile)) {
+      return;
+    }
+    closeChangelog();
+    if (path.length() > 0) {
+      try {
+        File file = new File(path);
+        if (!file.isAbsolute()) {
+          file = new File(form.getFilesDir(), path);
+        }
+        changelog = new ModelChangelog(file);
+        changelog.attach(model);
+      } catch (Exception e) {
+        Log.e(LOG_TAG, "Unable to open changelog " + path, e);
+        form.dispatchErrorOccurredEvent(this, "ChangelogFile",
+            ErrorMessages.ERROR_LINKED_DATA_CHANGELOG_FAILED, path, e.getMessage());
+        return;
+      }
+    }
+    changelogFile = path;
+  }
+
+  /**
+   * Returns the number of triples added to the model at a time by
+   * {@link #StreamDataFromWeb(String)} and {@link #StreamDataFromLocal(String)}.
+   *
+   * @return the batch size
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public int LoadBatchSize() {
+    return loadBatchSize;
+  }
+
+  /**
+   * Specifies the number of triples added to the model at a time while streaming data. The
+   * {@link #LoadingDataProgress(String, long, long)} event runs after each batch.
+   *
+   * @param size the batch size
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "1000")
+  @SimpleProperty
+  public void LoadBatchSize(int size) {
+    loadBatchSize = size > 0 ? size : RdfStreamLoader.DEFAULT_BATCH_SIZE;
+  }
+
+  /**
+   * Returns the maximum number of triples sent to the endpoint in a single request by
+   * {@link #WriteDataToWeb(String)} and {@link #AddDataToWeb(String, boolean)}.
+   *
+   * @return the batch size
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public int UpdateBatchSize() {
+    return updateBatchSize;
+  }
+
+  /**
+   * Specifies the maximum number of triples sent to the endpoint in a single request. Larger
+   * models are sent as a sequence of requests, which keeps memory use bounded and avoids request
+   * size limits on the server.
+   *
+   * @param size the batch size
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "500")
+  @SimpleProperty
+  public void UpdateBatchSize(int size) {
+    updateBatchSize = size > 0 ? size : SparqlUpdatePublisher.DEFAULT_BATCH_SIZE;
+  }
+
+  /**
+   * Returns the number of times a request that fails while writing data to the endpoint is
+   * retried.
+   *
+   * @return the number of retries
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public int UpdateRetries() {
+    return updateRetries;
+  }
+
+  /**
+   * Specifies the number of times a request that fails due to a network or server error is
+   * retried before the write is reported as failed. The delay between retries doubles each time.
+   *
+   * @param retries the number of retries
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "3")
+  @SimpleProperty
+  public void UpdateRetries(int retries) {
+    updateRetries = Math.max(0, retries);
+  }
+
+  /**
+   * Returns how long, in seconds, the result of a query to the endpoint is reused without
+   * checking with the endpoint.
+   *
+   * @return the cache lifetime in seconds
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The number of seconds for which the results of a query sent to the "
+          + "endpoint are reused without asking the endpoint again. After that, the endpoint is "
+          + "asked whether the results have changed, and they are only downloaded again if they "
+          + "have.")
+  public int QueryCacheTTL() {
+    return queryCacheTtl;
+  }
+
+  /**
+   * Specifies how long, in seconds, the result of a query to the endpoint is reused without
+   * checking with the endpoint. With 0, every query is revalidated, which still avoids
+   * downloading results the endpoint reports as unchanged.
+   *
+   * @param seconds the cache lifetime in seconds
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "0")
+  @SimpleProperty
+  public void QueryCacheTTL(int seconds) {
+    queryCacheTtl = Math.max(0, seconds);
+  }
+
+  /**
+   * Returns the number of rows delivered in each RetrievedResultsPage event.
+   *
+   * @return the page size, or 0 if results are delivered all at once
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The number of rows in each RetrievedResultsPage event. With 0, the rows of "
+          + "a query are delivered all at once in RetrievedResults.")
+  public int ResultPageSize() {
+    return resultPageSize;
+  }
+
+  /**
+   * Specifies the number of rows delivered in each RetrievedResultsPage event. With a page size
+   * greater than 0, results are delivered while they are still being decoded, and
+   * RetrievedResults is not raised.
+   *
+   * @param size the page size, or 0 to deliver results all at once
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "0")
+  @SimpleProperty
+  public void ResultPageSize(int size) {
+    resultPageSize = Math.max(0, size);
+  }
+
+  /**
+   * Returns whether cached query results are also kept on the device's storage.
+   *
+   * @return true if the disk cache is enabled
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "If true, cached query results are also saved to the device so that they "
+          + "can be reused after the app restarts. The cache is shared by all components, so "
+          + "setting this on one LinkedData component changes it for all of them.")
+  public boolean QueryCacheOnDisk() {
+    return SparqlResultCache.getInstance().hasDiskTier();
+  }
+
+  /**
+   * Specifies whether cached query results are also kept on the device's storage. The setting
+   * applies to the cache shared by all LinkedData and LinkedDataListPicker components, so it is
+   * set from the blocks only: as a designer property, each component would overwrite the setting
+   * of the ones initialized before it.
+   *
+   * @param enabled true to keep cached results on disk
+   */
+  @SimpleProperty
+  public void QueryCacheOnDisk(boolean enabled) {
+    SparqlResultCache.getInstance().setDiskDirectory(
+        enabled ? new File(form.getCacheDir(), "sparql") : null,
+        SparqlResultCache.DEFAULT_DISK_BYTES);
+  }
+
+  /**
+   * Returns the number of queries answered from the shared query cache.
+   *
+   * @return the number of cache hits
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The number of queries answered from the query cache since the app "
+          + "started, including those the endpoint confirmed were unchanged.")
+  public int QueryCacheHits() {
+    return SparqlResultCache.getInstance().getHits();
+  }
+
+  /**
+   * Returns the number of queries whose results were downloaded from the endpoint.
+   *
+   * @return the number of cache misses
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The number of queries whose results were downloaded from the endpoint "
+          + "since the app started.")
+  public int QueryCacheMisses() {
+    return SparqlResultCache.getInstance().getMisses();
+  }
+
+  /**
+   * Discards all cached query results, so that the next queries are sent to the endpoint.
+   */
+  @SimpleFunction
+  public void ClearQueryCache() {
+    SparqlResultCache.getInstance().clear();
+  }
+
   /**
    * Execute a SPARQL query on the set EndpointURL of this Linked Data component.
+   * If EndpointURL is empty, the query is evaluated against the local model instead.
+   * Results from the endpoint are cached as described for {@link #QueryCacheTTL()}.
    * Currently only supports SELECT queries, and converts all integer types into Long
    * and decimal types into Double.
    *
@@ -128,42 +537,140 @@ public class LinkedData extends LinkedDataBase<Model> implements
 
   private void executeQuery(String queryText) {
     try {
-      ResultSet results = RdfUtil.executeSELECT( endpointURL, queryText );
-      if ( results == null ) {
-        form.runOnUiThread(new Runnable() {
-          public void run() {
-            UnsupportedQueryType();
-          }
-        });
+      ResultSet results;
+      if (endpointURL == null || endpointURL.length() == 0) {
+        results = RdfUtil.executeSELECT( model, queryText );
+      } else if (QueryFactory.create(queryText).isSelectType()) {
+        deliverJsonResults(SparqlResultCache.getInstance().selectJson(endpointURL, queryText,
+            queryCacheTtl * 1000L));
         return;
+      } else {
+        results = null;
+      }
+      deliverResults(results);
+    } catch (final Exception e ) {
+      queryFailed(e, queryText);
+    }
+  }
+
+  /**
+   * Runs a query template defined with {@link #DefineQueryTemplate(String, String)} on the set
+   * EndpointURL, or on the local model if EndpointURL is empty, with the given values bound to
+   * its variables. The template is not parsed again. Values that look like URIs are bound as
+   * URIs, numbers and booleans as typed literals, and other values as strings. Results are
+   * reported as for {@link #ExecuteSPARQLQuery(String)}.
+   *
+   * @param name the name of the template
+   * @param values a dictionary from variable names to values
+   */
+  @SimpleFunction
+  public void ExecuteQueryTemplate(final String name, final YailDictionary values) {
+    AsynchUtil.runAsynchronously(new Runnable() {
+      public void run() {
+        executeTemplate(name, templateValues(values));
       }
-      results = ResultSetFactory.copyResults( results );
-      ByteArrayOutputStream baos = new ByteArrayOutputStream();
-      ResultSetFormatter.outputAsJSON( baos, results );
-      final String jsonResults = baos.toString();
+    });
+  }
+
+  private void executeTemplate(String name, Map<String, Object> values) {
+    try {
+      QueryTemplate template = getQueryTemplate(name);
+      if (endpointURL == null || endpointURL.length() == 0) {
+        QueryExecution execution = template.createExecution(model, values);
+        try {
+          deliverResults(execution.execSelect());
+        } finally {
+          execution.close();
+        }
+      } else {
+        deliverJsonResults(SparqlResultCache.getInstance().selectJson(endpointURL,
+            template.toQueryString(values), queryCacheTtl * 1000L));
+      }
+    } catch (final Exception e) {
+      queryFailed(e, name);
+    }
+  }
+
+  private void deliverResults(ResultSet results) {
+    if ( results == null ) {
       form.runOnUiThread(new Runnable() {
         public void run() {
-          RetrievedRawResults("SELECT", jsonResults);
+          UnsupportedQueryType();
         }
       });
-      ((ResultSetRewindable)results).reset();
-      final YailList solutions = RdfUtil.resultSetUsingYailDictionary( results );
+      return;
+    }
+    results = ResultSetFactory.copyResults( results );
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ResultSetFormatter.outputAsJSON( baos, results );
+    final String jsonResults = baos.toString();
+    form.runOnUiThread(new Runnable() {
+      public void run() {
+        RetrievedRawResults("SELECT", jsonResults);
+      }
+    });
+    ((ResultSetRewindable)results).reset();
+    int pageSize = resultPageSize;
+    List<YailDictionary> rows = new ArrayList<>();
+    int page = 1;
+    while (results.hasNext()) {
+      rows.add(RdfUtil.solutionAsYailDictionary(results.next()));
+      if (pageSize > 0 && rows.size() == pageSize && results.hasNext()) {
+        deliverRows(rows, pageSize, page++, true);
+        rows = new ArrayList<>();
+      }
+    }
+    deliverRows(rows, pageSize, page, false);
+  }
+
+  /**
+   * Delivers a result in the SPARQL JSON format, decoding it straight into rows.
+   */
+  private void deliverJsonResults(byte[] body) throws IOException {
+    final String jsonResults = new String(body, "UTF-8");
+    form.runOnUiThread(new Runnable() {
+      public void run() {
+        RetrievedRawResults("SELECT", jsonResults);
+      }
+    });
+    final int pageSize = resultPageSize;
+    SparqlJsonDecoder.decode(new ByteArrayInputStream(body), pageSize,
+        new SparqlJsonDecoder.PageListener() {
+          @Override
+          public void onPage(List<YailDictionary> rows, int page, boolean hasMore) {
+            deliverRows(rows, pageSize, page, hasMore);
+          }
+        });
+  }
+
+  private void deliverRows(List<YailDictionary> rows, int pageSize, final int page,
+      final boolean hasMore) {
+    final YailList solutions = YailList.makeList(rows);
+    if (pageSize > 0) {
       form.runOnUiThread(new Runnable() {
         public void run() {
-          RetrievedResults("SELECT", solutions);
+          RetrievedResultsPage(solutions, page, hasMore);
         }
       });
-    } catch (final Exception e ) {
-      Log.w(LOG_TAG, e);
-      Log.w(LOG_TAG, queryText);
+    } else {
       form.runOnUiThread(new Runnable() {
         public void run() {
-          FailedToExecuteQuery(e.getMessage());
+          RetrievedResults("SELECT", solutions);
         }
       });
     }
   }
 
+  private void queryFailed(final Exception e, String query) {
+    Log.w(LOG_TAG, e);
+    Log.w(LOG_TAG, query);
+    form.runOnUiThread(new Runnable() {
+      public void run() {
+        FailedToExecuteQuery(e.getMessage());
+      }
+    });
+  }
+
   /**
    * This event is raised after a SPARQL engine finishes processing a query
    * and the client has received the results, but before those results have
@@ -190,6 +697,19 @@ public class LinkedData extends LinkedDataBase<Model> implements
     EventDispatcher.dispatchEvent(this, "RetrievedResults", type, bindings);
   }
 
+  /**
+   * This event is raised for each page of ResultPageSize rows of the results of a SELECT query
+   * when ResultPageSize is greater than 0, in place of RetrievedResults.
+   *
+   * @param bindings the rows of the page
+   * @param page the number of the page, starting at 1
+   * @param hasMore true if more pages follow
+   */
+  @SimpleEvent
+  public void RetrievedResultsPage(YailList bindings, int page, boolean hasMore) {
+    EventDispatcher.dispatchEvent(this, "RetrievedResultsPage", bindings, page, hasMore);
+  }
+
   /**
    * Event raised when a SPARQL query to be executed is not supported
    * by the Linked Data component.
@@ -207,6 +727,141 @@ public class LinkedData extends LinkedDataBase<Model> implements
     EventDispatcher.dispatchEvent(this, "FailedToExecuteQuery", error);
   }
 
+  /**
+   * Returns the maximum number of endpoints queried at the same time by
+   * {@link #ExecuteFederatedQuery(YailList, boolean)}.
+   *
+   * @return the number of concurrent endpoint queries
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The maximum number of endpoints queried at the same time by "
+          + "ExecuteFederatedQuery.")
+  public int FederatedQueryParallelism() {
+    return federatedParallelism;
+  }
+
+  /**
+   * Specifies the maximum number of endpoints queried at the same time by
+   * {@link #ExecuteFederatedQuery(YailList, boolean)}.
+   *
+   * @param parallelism the number of concurrent endpoint queries
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "4")
+  @SimpleProperty
+  public void FederatedQueryParallelism(int parallelism) {
+    federatedParallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Returns how long, in milliseconds, a federated query waits for all of its endpoints.
+   *
+   * @return the timeout in milliseconds
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The number of milliseconds ExecuteFederatedQuery waits for its endpoints. "
+          + "Endpoints that have not answered by then are left out of the results.")
+  public int FederatedQueryTimeout() {
+    return federatedTimeout;
+  }
+
+  /**
+   * Specifies how long, in milliseconds, a federated query waits for all of its endpoints.
+   *
+   * @param timeout the timeout in milliseconds
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "10000")
+  @SimpleProperty
+  public void FederatedQueryTimeout(int timeout) {
+    federatedTimeout = Math.max(0, timeout);
+  }
+
+  /**
+   * Executes SELECT queries on several endpoints at the same time and combines their results.
+   * Each item of sources is either a pair of an endpoint URL and a query, or a query alone,
+   * which is sent to EndpointURL. An empty endpoint URL queries the local model. With join,
+   * the results are joined on the variables the queries have in common; otherwise all results
+   * are returned together. Endpoints that fail, or do not answer within FederatedQueryTimeout,
+   * are left out and reported in RetrievedFederatedResults.
+   *
+   * @param sources the endpoints and queries
+   * @param join true to join the results, false to combine them
+   */
+  @SimpleFunction
+  public void ExecuteFederatedQuery(YailList sources, final boolean join) {
+    final List<FederatedQuery.Source> parsed = new ArrayList<>();
+    for (Object item : sources.toArray()) {
+      if (item instanceof YailList && ((YailList) item).size() == 2) {
+        YailList pair = (YailList) item;
+        parsed.add(new FederatedQuery.Source(pair.getString(0), pair.getString(1)));
+      } else if (item instanceof String) {
+        parsed.add(new FederatedQuery.Source(endpointURL, (String) item));
+      } else {
+        FailedToExecuteQuery("Expected a query or a pair of an endpoint and a query, got " + item);
+        return;
+      }
+    }
+    final FederatedQuery query = new FederatedQuery(SparqlResultCache.getInstance(),
+        queryCacheTtl * 1000L, model, federatedParallelism, federatedTimeout);
+    AsynchUtil.runAsynchronously(new Runnable() {
+      public void run() {
+        executeFederatedQuery(query, parsed, join);
+      }
+    });
+  }
+
+  private void executeFederatedQuery(FederatedQuery query, List<FederatedQuery.Source> sources,
+      boolean join) {
+    try {
+      final FederatedQuery.Result result = query.execute(sources, join);
+      final List<YailDictionary> reports = new ArrayList<>();
+      for (FederatedQuery.Outcome outcome : result.getOutcomes()) {
+        reports.add(YailDictionary.makeDictionary(
+            "endpoint", outcome.getSource().getEndpoint(),
+            "status", outcome.getStatus(),
+            "latency", outcome.getLatency(),
+            "solutions", outcome.getSolutions(),
+            "error", outcome.getError()));
+      }
+      if (!result.hasAnswers()) {
+        final String error = reports.get(0).get("error").toString();
+        form.runOnUiThread(new Runnable() {
+          public void run() {
+            FailedToExecuteQuery(error);
+          }
+        });
+        return;
+      }
+      final YailList solutions = RdfUtil.resultSetUsingYailDictionary(result.getResultSet());
+      form.runOnUiThread(new Runnable() {
+        public void run() {
+          RetrievedFederatedResults(solutions, YailList.makeList(reports));
+        }
+      });
+    } catch (final Exception e) {
+      Log.w(LOG_TAG, e);
+      form.runOnUiThread(new Runnable() {
+        public void run() {
+          FailedToExecuteQuery(e.getMessage());
+        }
+      });
+    }
+  }
+
+  /**
+   * This event is raised after a federated query finishes. Each report is a dictionary with the
+   * endpoint, its status ("ok", "timeout" or "error"), its latency in milliseconds, the number
+   * of solutions it returned, and its error message, in the order the sources were given.
+   *
+   * @param bindings A list of bindings combined from the endpoints that answered
+   * @param reports A list with one report per source
+   */
+  @SimpleEvent
+  public void RetrievedFederatedResults(YailList bindings, YailList reports) {
+    EventDispatcher.dispatchEvent(this, "RetrievedFederatedResults", bindings, reports);
+  }
+
   /**
    * Read contents of the specified path (local or remote) into the referent model.
    *
@@ -219,7 +874,9 @@ public class LinkedData extends LinkedDataBase<Model> implements
   }
 
   /**
-   * Read contents of the specified path (local or remote) into the referent model.
+   * Read contents of the specified path (local or remote) into the referent model. Paths ending
+   * in .rdfb are read as binary snapshots written by {@link #WriteDataToLocal(String)}, which
+   * restore much faster than text formats.
    *
    * @param path Path to a file containing linked data
    * @return true if the graph was read successfully, otherwise false
@@ -228,14 +885,18 @@ public class LinkedData extends LinkedDataBase<Model> implements
   public boolean ReadDataFromLocal(String path) {
     InputStream input = null;
     try {
-      String type = "RDF/XML";
-      if(path.endsWith(".n3")) {
-        type = "N3";
-      } else if(path.endsWith(".ttl")) {
-        type = "TURTLE";
+      File file = new File(path);
+      if (RdfSnapshot.isSnapshot(path) && file.isFile()) {
+        RdfSnapshot.read(file, model);
+        return true;
       }
       input = MediaUtil.openMedia(form, path);
-      model.read(input, path, type);
+      if (RdfSnapshot.isSnapshot(path)) {
+        RdfSnapshot.read(input, model);
+      } else {
+        new RdfStreamLoader(model, loadBatchSize, null)
+            .load(input, path, RdfStreamLoader.guessLang(null, path));
+      }
     } catch(Exception e) {
       Log.w(LOG_TAG, "Unable to read model.", e);
       return false;
@@ -246,7 +907,168 @@ public class LinkedData extends LinkedDataBase<Model> implements
   }
 
   /**
-   * Saves the model to the given path on the file system.
+   * Streams the RDF document at the given URL into the model on a background thread. Triples
+   * are added in batches of {@link #LoadBatchSize()} as they are parsed and
+   * {@link #LoadingDataProgress(String, long, long)} reports the progress after each batch.
+   * {@link #FinishedLoadingData(String, long)} runs when the document has been read.
+   *
+   * @param url the URL of a document containing linked data
+   */
+  @SimpleFunction
+  public void StreamDataFromWeb(final String url) {
+    final RdfStreamLoader loader = startLoad(url);
+    AsynchUtil.runAsynchronously(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          loadRemoteResource(url, loader);
+          finishLoad(url, loader, null);
+        } catch (Exception e) {
+          finishLoad(url, loader, e);
+        }
+      }
+    });
+  }
+
+  /**
+   * Streams a local or asset file into the model on a background thread. Triples are added in
+   * batches of {@link #LoadBatchSize()} as they are parsed and
+   * {@link #LoadingDataProgress(String, long, long)} reports the progress after each batch.
+   * {@link #FinishedLoadingData(String, long)} runs when the file has been read.
+   *
+   * @param path the path of a file containing linked data
+   */
+  @SimpleFunction
+  public void StreamDataFromLocal(final String path) {
+    final RdfStreamLoader loader = startLoad(path);
+    AsynchUtil.runAsynchronously(new Runnable() {
+      @Override
+      public void run() {
+        InputStream input = null;
+        try {
+          input = MediaUtil.openMedia(form, path);
+          loader.load(input, path, RdfStreamLoader.guessLang(null, path));
+          finishLoad(path, loader, null);
+        } catch (Exception e) {
+          finishLoad(path, loader, e);
+        } finally {
+          IOUtils.closeQuietly(LOG_TAG, input);
+        }
+      }
+    });
+  }
+
+  /**
+   * Cancels any reads started with {@link #StreamDataFromWeb(String)} or
+   * {@link #StreamDataFromLocal(String)}. Triples already added to the model are kept.
+   * {@link #CancelledLoadingData(String, long)} runs for each read that is stopped.
+   */
+  @SimpleFunction
+  public void CancelLoadingData() {
+    synchronized (activeLoads) {
+      for (RdfStreamLoader loader : activeLoads) {
+        loader.cancel();
+      }
+    }
+  }
+
+  /**
+   * Event raised after each batch of triples is added to the model by a streaming read.
+   *
+   * @param path the path or URL being read
+   * @param triples the number of triples added so far
+   * @param bytes the number of bytes read so far
+   */
+  @SimpleEvent
+  public void LoadingDataProgress(String path, long triples, long bytes) {
+    EventDispatcher.dispatchEvent(this, "LoadingDataProgress", path, triples, bytes);
+  }
+
+  /**
+   * Event raised when a streaming read has added all of the triples in a document.
+   *
+   * @param path the path or URL that was read
+   * @param triples the number of triples added
+   */
+  @SimpleEvent
+  public void FinishedLoadingData(String path, long triples) {
+    EventDispatcher.dispatchEvent(this, "FinishedLoadingData", path, triples);
+  }
+
+  /**
+   * Event raised when a streaming read is stopped by {@link #CancelLoadingData()}.
+   *
+   * @param path the path or URL that was being read
+   * @param triples the number of triples added before the read stopped
+   */
+  @SimpleEvent
+  public void CancelledLoadingData(String path, long triples) {
+    EventDispatcher.dispatchEvent(this, "CancelledLoadingData", path, triples);
+  }
+
+  /**
+   * Event raised when a streaming read fails. Triples added before the failure are kept.
+   *
+   * @param path the path or URL that was being read
+   * @param error the error message
+   */
+  @SimpleEvent
+  public void FailedToLoadData(String path, String error) {
+    EventDispatcher.dispatchEvent(this, "FailedToLoadData", path, error);
+  }
+
+  private RdfStreamLoader startLoad(final String path) {
+    final RdfStreamLoader[] self = new RdfStreamLoader[1];
+    RdfStreamLoader loader = new RdfStreamLoader(model, loadBatchSize,
+        new RdfStreamLoader.ProgressListener() {
+          private long lastReport = 0;
+
+          @Override
+          public void onProgress(final long triples, final long bytes) {
+            // Limit the rate of events so that fast parses do not flood the UI thread.
+            long now = System.currentTimeMillis();
+            if (now - lastReport < PROGRESS_INTERVAL_MS || self[0].isCancelled()) {
+              return;
+            }
+            lastReport = now;
+            form.runOnUiThread(new Runnable() {
+              public void run() {
+                LoadingDataProgress(path, triples, bytes);
+              }
+            });
+          }
+        });
+    self[0] = loader;
+    synchronized (activeLoads) {
+      activeLoads.add(loader);
+    }
+    return loader;
+  }
+
+  private void finishLoad(final String path, final RdfStreamLoader loader, final Exception e) {
+    synchronized (activeLoads) {
+      activeLoads.remove(loader);
+    }
+    final long triples = loader.getTriples();
+    final long bytes = loader.getBytes();
+    form.runOnUiThread(new Runnable() {
+      public void run() {
+        if (e == null) {
+          LoadingDataProgress(path, triples, bytes);
+          FinishedLoadingData(path, triples);
+        } else if (e instanceof CancellationException || loader.isCancelled()) {
+          CancelledLoadingData(path, triples);
+        } else {
+          Log.w(LOG_TAG, "Unable to load data from " + path, e);
+          FailedToLoadData(path, e.getMessage() == null ? e.toString() : e.getMessage());
+        }
+      }
+    });
+  }
+
+  /**
+   * Saves the model to the given path on the file system. Paths ending in .rdfb are written as
+   * binary snapshots with dictionary-encoded terms.
    *
    * @param path Path to a local file where the model will be written
    * @return true if the data were written successfully, otherwise false
@@ -254,6 +1076,10 @@ public class LinkedData extends LinkedDataBase<Model> implements
   @SimpleFunction
   public boolean WriteDataToLocal(String path) {
     try {
+      if (RdfSnapshot.isSnapshot(path)) {
+        RdfSnapshot.write(model, new File(path));
+        return true;
+      }
       String type = "RDF/XML";
       if(path.endsWith(".n3")) {
         type = "N3";
@@ -307,21 +1133,46 @@ public class LinkedData extends LinkedDataBase<Model> implements
     }
   }
 
-  private void doPublishModel(final URI uri, final String graph) {
-    try {
-      if(RdfUtil.publishGraph(uri, model)) {
-        form.runOnUiThread(new Runnable() {
-          public void run() {
-              FinishedWritingDataToWeb(graph);
+  private SparqlUpdatePublisher createPublisher(URI uri, SparqlUpdatePublisher.Dialect dialect,
+      final String graph, final boolean adding) {
+    return new SparqlUpdatePublisher(uri, dialect)
+        .setBatchSize(updateBatchSize)
+        .setMaxRetries(updateRetries)
+        .setProgressListener(new SparqlUpdatePublisher.ProgressListener() {
+          @Override
+          public void onProgress(final int sent, final int total) {
+            form.runOnUiThread(new Runnable() {
+              public void run() {
+                if (adding) {
+                  AddingDataToWebProgress(graph, sent, total);
+                } else {
+                  WritingDataToWebProgress(graph, sent, total);
+                }
+              }
+            });
           }
         });
+  }
+
+  private void doPublishModel(final URI uri, final URI updateUri, final String graph) {
+    try {
+      ModelChangelog changelog = this.changelog;
+      ModelChangelog.Delta delta = changelog == null ? null : changelog.getDelta();
+      if (changelog != null && changelog.isPublished(graph)) {
+        createPublisher(updateUri, SparqlUpdatePublisher.Dialect.SPARQL_UPDATE, graph, false)
+            .publishChanges(model, delta.getAdded(), delta.getRemoved(), graph);
       } else {
-        form.runOnUiThread(new Runnable() {
-          public void run() {
-              FailedToWriteDataToWeb(graph, "See log for details.");
-          }
-        });
+        createPublisher(uri, SparqlUpdatePublisher.Dialect.GRAPH_STORE, graph, false)
+            .publish(model, null);
+      }
+      if (changelog != null) {
+        changelog.markPublished(delta, graph);
       }
+      form.runOnUiThread(new Runnable() {
+        public void run() {
+            FinishedWritingDataToWeb(graph);
+        }
+      });
     } catch(final Exception e) {
       form.runOnUiThread(new Runnable() {
         public void run() {
@@ -335,6 +1186,11 @@ public class LinkedData extends LinkedDataBase<Model> implements
   /**
    * Write the model represented by the LinkedData component to the
    * RDF graph store represented by EndpointURL using the given graph URI.
+   * Models larger than {@link #UpdateBatchSize()} are sent in several requests:
+   * the first replaces the graph and the rest are merged into it. If
+   * {@link #ChangelogFile()} is set and the graph has been written before, only
+   * the statements added or removed since then are sent, using SPARQL Update.
+   * {@link #WritingDataToWebProgress(String, int, int)} runs after each request.
    *
    * @param graph the target graph to receive the contents of the model
    */
@@ -343,9 +1199,11 @@ public class LinkedData extends LinkedDataBase<Model> implements
     try {
       URI part = new URI(null, null, "rdf-graph-store", "graph="+graph, null);
       final URI uri = URI.create(EndpointURL()).resolve(part);
+      final URI updateUri = URI.create(EndpointURL()).resolve(
+          new URI(null, null, "update", null, null));
       Runnable call = new Runnable() {
         public void run() {
-          doPublishModel(uri, graph);
+          doPublishModel(uri, updateUri, graph);
         }
       };
       AsynchUtil.runAsynchronously(call);
@@ -367,6 +1225,19 @@ public class LinkedData extends LinkedDataBase<Model> implements
     EventDispatcher.dispatchEvent(this, "FailedToWriteDataToWeb", graph, error);
   }
 
+  /**
+   * This event is raised after each batch of triples sent by
+   * {@link #WriteDataToWeb(String)} is accepted by the endpoint.
+   *
+   * @param graph the target graph being written
+   * @param sent the number of triples sent so far
+   * @param total the number of triples in the model
+   */
+  @SimpleEvent
+  public void WritingDataToWebProgress(String graph, int sent, int total) {
+    EventDispatcher.dispatchEvent(this, "WritingDataToWebProgress", graph, sent, total);
+  }
+
   /**
    * This event is raised when a graph is successfully published on a remote
    * endpoint.
@@ -378,6 +1249,280 @@ public class LinkedData extends LinkedDataBase<Model> implements
     EventDispatcher.dispatchEvent(this, "FinishedWritingDataToWeb", graph);
   }
 
+  /**
+   * Returns the file holding form submissions that have not yet been sent.
+   *
+   * @return the outbox file
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "<p>Use the Outbox File field to name the file in which "
+          + "SubmitLinkedDataForm keeps submissions until the endpoint accepts them. "
+          + "Relative paths are resolved against the app's private storage.</p>")
+  public String OutboxFile() {
+    return outboxFile;
+  }
+
+  /**
+   * Specifies the file in which {@link #SubmitLinkedDataForm(LinkedDataForm, String)} queues
+   * submissions. Submissions already queued in the previous file stay there and are sent when
+   * that file is used again.
+   *
+   * @param path the outbox file
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_STRING,
+      defaultValue = DEFAULT_OUTBOX_FILE)
+  @SimpleProperty
+  public void OutboxFile(String path) {
+    if (path.length() == 0) {
+      path = DEFAULT_OUTBOX_FILE;
+    }
+    if (!path.equals(outboxFile)) {
+      closeOutbox();
+      outboxFile = path;
+    }
+  }
+
+  /**
+   * Returns the number of form submissions waiting to be sent.
+   *
+   * @return the number of queued submissions
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The number of form submissions waiting to be sent to the endpoint.")
+  public int OutboxQueueDepth() {
+    SubmissionOutbox outbox = getOutbox();
+    return outbox == null ? 0 : outbox.size();
+  }
+
+  /**
+   * Returns the number of form submissions sent from the outbox since the app started.
+   *
+   * @return the number of submissions sent
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The number of form submissions sent from the outbox since the app "
+          + "started.")
+  public int OutboxSentCount() {
+    SubmissionOutbox outbox = getOutbox();
+    return outbox == null ? 0 : outbox.getSentCount();
+  }
+
+  /**
+   * Returns the number of failed attempts to send a batch from the outbox since the app started.
+   *
+   * @return the number of failed attempts
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The number of failed attempts to send a batch of submissions from the "
+          + "outbox since the app started.")
+  public int OutboxFailureCount() {
+    SubmissionOutbox outbox = getOutbox();
+    return outbox == null ? 0 : outbox.getFailureCount();
+  }
+
+  /**
+   * Converts a LinkedDataForm into triples and queues them to be added to a graph at the
+   * endpoint. The submission is saved to {@link #OutboxFile()} before this returns, so it is not
+   * lost if the device is offline or the app is closed. Queued submissions for the same graph are
+   * sent together in batches of up to {@link #UpdateBatchSize()} triples. Failed attempts are
+   * retried with an increasing delay, and immediately when the network becomes available.
+   *
+   * @param dataForm the form to submit
+   * @param graph the graph to add the data to, or the empty string for the default graph
+   * @return true if the submission was queued, otherwise false
+   */
+  @SimpleFunction
+  public boolean SubmitLinkedDataForm(LinkedDataForm dataForm, String graph) {
+    try {
+      SubmissionOutbox outbox = getOutbox();
+      if (outbox == null) {
+        return false;
+      }
+      Model submission = ModelFactory.createDefaultModel();
+      submission.setNsPrefixes(model.getNsPrefixMap());
+      if (!RdfUtil.triplifyForm(dataForm, RdfUtil.generateSubjectForForm(dataForm),
+          submission)) {
+        return false;
+      }
+      outbox.enqueue(graph, submission.getGraph().find(Triple.ANY).toList());
+    } catch(Exception e) {
+      Log.w(LOG_TAG, "Unable to queue form submission.", e);
+      return false;
+    }
+    handler.removeCallbacks(flushOutbox);
+    startOutboxFlush();
+    return true;
+  }
+
+  /**
+   * Attempts to send the queued form submissions now rather than waiting for the next retry.
+   */
+  @SimpleFunction
+  public void FlushOutbox() {
+    outboxRetryDelay = OUTBOX_INITIAL_RETRY_MS;
+    handler.removeCallbacks(flushOutbox);
+    startOutboxFlush();
+  }
+
+  /**
+   * This event is raised when queued form submissions have been accepted by the endpoint.
+   *
+   * @param sent the number of submissions sent
+   * @param remaining the number of submissions still queued
+   */
+  @SimpleEvent
+  public void OutboxFlushed(int sent, int remaining) {
+    EventDispatcher.dispatchEvent(this, "OutboxFlushed", sent, remaining);
+  }
+
+  /**
+   * This event is raised when a batch of queued form submissions could not be sent. The
+   * submissions stay queued and are retried later, unless the endpoint rejected them outright,
+   * in which case they are dropped so that later submissions can still be sent.
+   *
+   * @param error an error message describing the failure
+   * @param remaining the number of submissions still queued
+   */
+  @SimpleEvent
+  public void OutboxFlushFailed(String error, int remaining) {
+    EventDispatcher.dispatchEvent(this, "OutboxFlushFailed", error, remaining);
+  }
+
+  private File resolveOutboxFile() {
+    File file = new File(outboxFile);
+    return file.isAbsolute() ? file : new File(form.getFilesDir(), outboxFile);
+  }
+
+  private SubmissionOutbox getOutbox() {
+    if (outbox == null) {
+      try {
+        outbox = new SubmissionOutbox(resolveOutboxFile());
+      } catch (IOException e) {
+        Log.e(LOG_TAG, "Unable to open outbox " + outboxFile, e);
+        form.dispatchErrorOccurredEvent(this, "OutboxFile",
+            ErrorMessages.ERROR_LINKED_DATA_OUTBOX_FAILED, outboxFile, e.getMessage());
+      }
+    }
+    return outbox;
+  }
+
+  private void startOutboxFlush() {
+    final SubmissionOutbox outbox = getOutbox();
+    if (outbox == null || outbox.size() == 0) {
+      return;
+    }
+    final URI uri;
+    try {
+      uri = URI.create(EndpointURL()).resolve(new URI(null, null, "update", null, null));
+    } catch (Exception e) {
+      Log.w(LOG_TAG, "Unable to generate SPARQL Update URL.", e);
+      OutboxFlushFailed("Invalid endpoint URI. See log for details.", outbox.size());
+      return;
+    }
+    final SparqlUpdatePublisher.Dialect dialect = endpointURL.contains("dydra.com")
+        ? SparqlUpdatePublisher.Dialect.SPARQL_UPDATE : SparqlUpdatePublisher.Dialect.VIRTUOSO;
+    final int batchSize = updateBatchSize;
+    final Map<String, String> prefixes = model.getNsPrefixMap();
+    AsynchUtil.runAsynchronously(new Runnable() {
+      public void run() {
+        try {
+          final int sent = outbox.flush(new SubmissionOutbox.Sender() {
+            @Override
+            public void send(String graph, List<Triple> triples) throws IOException {
+              Model batch = ModelFactory.createDefaultModel();
+              batch.setNsPrefixes(prefixes);
+              GraphUtil.add(batch.getGraph(), triples);
+              try {
+                new SparqlUpdatePublisher(uri, dialect)
+                    .setBatchSize(batchSize)
+                    .setMaxRetries(0)
+                    .publish(batch, graph);
+              } catch (SparqlUpdatePublisher.RejectedException e) {
+                throw new SubmissionOutbox.RejectedException(e.getMessage());
+              }
+            }
+
+            @Override
+            public void rejected(String graph, final List<Triple> triples,
+                final SubmissionOutbox.RejectedException reason) {
+              form.runOnUiThread(new Runnable() {
+                public void run() {
+                  Log.w(LOG_TAG, "Dropped a rejected outbox batch.", reason);
+                  OutboxFlushFailed("The endpoint rejected " + triples.size()
+                      + " triples, which were dropped: " + reason.getMessage(), outbox.size());
+                }
+              });
+            }
+          }, batchSize);
+          form.runOnUiThread(new Runnable() {
+            public void run() {
+              if (sent > 0) {
+                outboxRetryDelay = OUTBOX_INITIAL_RETRY_MS;
+                OutboxFlushed(sent, outbox.size());
+              }
+              if (outbox.size() == 0) {
+                unregisterConnectivityReceiver();
+              }
+            }
+          });
+        } catch (final Exception e) {
+          form.runOnUiThread(new Runnable() {
+            public void run() {
+              Log.w(LOG_TAG, "Unable to flush outbox.", e);
+              scheduleOutboxRetry();
+              OutboxFlushFailed(e.getLocalizedMessage(), outbox.size());
+            }
+          });
+        }
+      }
+    });
+  }
+
+  private void scheduleOutboxRetry() {
+    if (outbox == null) {
+      return;
+    }
+    handler.removeCallbacks(flushOutbox);
+    handler.postDelayed(flushOutbox, outboxRetryDelay);
+    outboxRetryDelay = Math.min(outboxRetryDelay * 2, OUTBOX_MAX_RETRY_MS);
+    if (connectivityReceiver == null) {
+      connectivityReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+          ConnectivityManager cm =
+              (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+          NetworkInfo networkInfo = cm.getActiveNetworkInfo();
+          if (networkInfo != null && networkInfo.isConnected()) {
+            FlushOutbox();
+          }
+        }
+      };
+      form.registerReceiver(connectivityReceiver,
+          new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+  }
+
+  private void unregisterConnectivityReceiver() {
+    if (connectivityReceiver != null) {
+      form.unregisterReceiver(connectivityReceiver);
+      connectivityReceiver = null;
+    }
+  }
+
+  private void closeOutbox() {
+    handler.removeCallbacks(flushOutbox);
+    unregisterConnectivityReceiver();
+    outboxRetryDelay = OUTBOX_INITIAL_RETRY_MS;
+    if (outbox != null) {
+      try {
+        outbox.close();
+      } catch (IOException e) {
+        Log.w(LOG_TAG, "Unable to close outbox.", e);
+      }
+      outbox = null;
+    }
+  }
+
   private static final Set<Class<?>> WRAPPER_TYPES =
       new HashSet<Class<?>>(Arrays.asList(Boolean.class, Byte.class,
           Short.class, Integer.class, Long.class, Float.class, Double.class));
@@ -464,27 +1609,14 @@ public class LinkedData extends LinkedDataBase<Model> implements
 
   private void doInsertModel(int option, final URI uri, final String graph) {
     try {
-    	
-    	boolean selection = false;
-    	if (option == 0) {
-    		selection = RdfUtil.insertDataToDydra(uri, model, graph.length() == 0 ? null : graph);
-    	} else if (option == 1) {
-    		selection = RdfUtil.insertDataToVirtuoso(uri, model, graph.length() == 0 ? null : graph);
-    	} 
-    	
-      if(selection) {
-        form.runOnUiThread(new Runnable() {
-          public void run() {
-            FinishedAddingDataToWeb(graph);
-          }
-        });
-      } else {
-        form.runOnUiThread(new Runnable() {
-          public void run() {
-            FailedToAddDataToWeb(graph, "See log for details.");
-          }
-        });
-      }
+      SparqlUpdatePublisher.Dialect dialect = option == 0
+          ? SparqlUpdatePublisher.Dialect.SPARQL_UPDATE : SparqlUpdatePublisher.Dialect.VIRTUOSO;
+      createPublisher(uri, dialect, graph, true).publish(model, graph);
+      form.runOnUiThread(new Runnable() {
+        public void run() {
+          FinishedAddingDataToWeb(graph);
+        }
+      });
     } catch(final Exception e) {
       form.runOnUiThread(new Runnable() {
         public void run() {
@@ -500,6 +1632,19 @@ public class LinkedData extends LinkedDataBase<Model> implements
     EventDispatcher.dispatchEvent(this, "FailedToAddDataToWeb", graph, error);
   }
 
+  /**
+   * This event is raised after each batch of triples sent by
+   * {@link #AddDataToWeb(String, boolean)} is accepted by the endpoint.
+   *
+   * @param graph the target graph being written
+   * @param sent the number of triples sent so far
+   * @param total the number of triples in the model
+   */
+  @SimpleEvent
+  public void AddingDataToWebProgress(String graph, int sent, int total) {
+    EventDispatcher.dispatchEvent(this, "AddingDataToWebProgress", graph, sent, total);
+  }
+
   @SimpleEvent
   public void FinishedAddingDataToWeb(String graph) {
     EventDispatcher.dispatchEvent(this, "FinishedAddingDataToWeb", graph);
@@ -689,6 +1834,63 @@ public class LinkedData extends LinkedDataBase<Model> implements
     return out.toString();
   }
 
+  @Override
+  public void onStop() {
+    if (changelog != null) {
+      try {
+        changelog.flush();
+      } catch (IOException e) {
+        Log.w(LOG_TAG, "Unable to write changelog.", e);
+      }
+    }
+    if (store != null) {
+      try {
+        store.sync();
+      } catch (Exception e) {
+        Log.w(LOG_TAG, "Unable to sync triple store.", e);
+      }
+    }
+  }
+
+  @Override
+  public void onDestroy() {
+    CancelLoadingData();
+    closeOutbox();
+    closeChangelog();
+    closeStore();
+  }
+
+  @Override
+  public void onDelete() {
+    CancelLoadingData();
+    closeOutbox();
+    closeChangelog();
+    closeStore();
+  }
+
+  private void closeChangelog() {
+    if (changelog != null) {
+      changelog.detach();
+      try {
+        changelog.close();
+      } catch (IOException e) {
+        Log.w(LOG_TAG, "Unable to close changelog.", e);
+      }
+      changelog = null;
+    }
+  }
+
+  private void closeStore() {
+    if (store != null) {
+      try {
+        store.close();
+      } catch (Exception e) {
+        Log.w(LOG_TAG, "Unable to close triple store.", e);
+      }
+      store = null;
+    }
+  }
+
   @SimpleEvent
   public void FinishedHttsPostingFileToWeb(String message) {
     EventDispatcher.dispatchEvent(this, "FinishedHttsPostingFileToWeb", message);
@@ -3,6 +3,11 @@ package com.google.appinventor.components.runtime;
 import com.google.appinventor.components.annotations.SimpleFunction;
 import com.google.appinventor.components.annotations.SimpleObject;
 import com.google.appinventor.components.runtime.util.AsynchUtil;
+import com.google.appinventor.components.runtime.util.ErrorMessages;
+import com.google.appinventor.components.runtime.util.IOUtils;
+import com.google.appinventor.components.runtime.util.QueryTemplate;
+import com.google.appinventor.components.runtime.util.RdfStreamLoader;
+import com.google.appinventor.components.runtime.util.YailDictionary;
 import com.hp.hpl.jena.rdf.model.Model;
 import com.hp.hpl.jena.rdf.model.Property;
 import com.hp.hpl.jena.rdf.model.RDFNode;
@@ -11,18 +16,28 @@ import com.hp.hpl.jena.rdf.model.ResourceFactory;
 import com.hp.hpl.jena.rdf.model.Statement;
 import com.hp.hpl.jena.rdf.model.StmtIterator;
 import com.hp.hpl.jena.vocabulary.RDF;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.jena.riot.Lang;
 
 @SimpleObject
 public class LinkedDataBase<T extends Model> extends AndroidNonvisibleComponent {
 
+  private static final String LOG_TAG = LinkedDataBase.class.getSimpleName();
+
   protected T model;
 
+  private final Map<String, QueryTemplate> queryTemplates = new ConcurrentHashMap<>();
+
   protected LinkedDataBase(ComponentContainer<?> container) {
     this(container, null);
   }
@@ -71,6 +86,50 @@ public class LinkedDataBase<T extends Model> extends AndroidNonvisibleComponent
     return result;
   }
 
+  /**
+   * Parses a SPARQL SELECT query once and saves it under the given name, replacing any template
+   * with the same name. Values for the variables of the query are given each time the template
+   * is run, so the query is not parsed again and the values cannot change its structure.
+   *
+   * @param name the name of the template
+   * @param query the SELECT query
+   */
+  @SimpleFunction
+  public void DefineQueryTemplate(String name, String query) {
+    try {
+      queryTemplates.put(name, new QueryTemplate(query));
+    } catch (RuntimeException e) {
+      form.dispatchErrorOccurredEvent(this, "DefineQueryTemplate",
+          ErrorMessages.ERROR_LINKED_DATA_INVALID_QUERY_TEMPLATE, name, e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the template defined with the given name.
+   *
+   * @param name the name of the template
+   * @return the template
+   * @throws IllegalArgumentException if no template has the name
+   */
+  protected QueryTemplate getQueryTemplate(String name) {
+    QueryTemplate template = queryTemplates.get(name);
+    if (template == null) {
+      throw new IllegalArgumentException("Unknown query template: " + name);
+    }
+    return template;
+  }
+
+  /**
+   * Converts the values given to a template from blocks to a map from variable names to values.
+   */
+  protected static Map<String, Object> templateValues(YailDictionary values) {
+    Map<String, Object> result = new LinkedHashMap<>();
+    for (Map.Entry<Object, Object> entry : values.entrySet()) {
+      result.put(entry.getKey().toString(), entry.getValue());
+    }
+    return result;
+  }
+
   protected Model getModel() {
     return model;
   }
@@ -105,20 +164,8 @@ public class LinkedDataBase<T extends Model> extends AndroidNonvisibleComponent
       return AsynchUtil.runAsynchronously(new Callable<Boolean>() {
         @Override
         public Boolean call() throws Exception {
-          URL parsedUrl = new URL(url);
-          HttpURLConnection conn = (HttpURLConnection) parsedUrl.openConnection();
-          conn.setRequestProperty("Accept", "text/turtle, text/n-triples, application/rdf+xml");
-          conn.setInstanceFollowRedirects(true);
-          conn.setDoInput(true);
-          conn.connect();
-          String contentType = conn.getContentType();
-          String lang = "RDF/XML";
-          if (contentType.startsWith("text/turtle")) {
-            lang = "TURTLE";
-          } else if (contentType.startsWith("text/n3")) {
-            lang = "N3";
-          }
-          model.read(conn.getInputStream(), url, lang);
+          loadRemoteResource(url, new RdfStreamLoader(model,
+              RdfStreamLoader.DEFAULT_BATCH_SIZE, null));
           return true;
         }
       });
@@ -127,4 +174,32 @@ public class LinkedDataBase<T extends Model> extends AndroidNonvisibleComponent
       return false;
     }
   }
+
+  /**
+   * Streams the RDF document at the given URL into the model using the given loader. This method
+   * performs network I/O and must not be called on the UI thread.
+   *
+   * @param url the URL of the document
+   * @param loader the loader used to parse the document
+   * @return the number of triples loaded
+   * @throws IOException if the document cannot be retrieved
+   */
+  protected long loadRemoteResource(String url, RdfStreamLoader loader) throws IOException {
+    URL parsedUrl = new URL(url);
+    HttpURLConnection conn = (HttpURLConnection) parsedUrl.openConnection();
+    conn.setRequestProperty("Accept", "text/turtle, application/n-triples, text/n3, "
+        + "application/rdf+xml;q=0.9, */*;q=0.1");
+    conn.setInstanceFollowRedirects(true);
+    conn.setDoInput(true);
+    InputStream in = null;
+    try {
+      conn.connect();
+      Lang lang = RdfStreamLoader.guessLang(conn.getContentType(), parsedUrl.getPath());
+      in = conn.getInputStream();
+      return loader.load(in, url, lang);
+    } finally {
+      IOUtils.closeQuietly(LOG_TAG, in);
+      conn.disconnect();
+    }
+  }
 }
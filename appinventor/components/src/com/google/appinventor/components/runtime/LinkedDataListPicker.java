@@ -3,6 +3,7 @@ package com.google.appinventor.components.runtime;
 import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
 import android.util.Log;
 import com.google.appinventor.components.annotations.DesignerComponent;
 import com.google.appinventor.components.annotations.DesignerProperty;
@@ -21,7 +22,11 @@ import com.google.appinventor.components.runtime.SWListActivity.LabeledUri;
 import com.google.appinventor.components.runtime.util.AsynchUtil;
 import com.google.appinventor.components.runtime.util.RdfUtil;
 import com.google.appinventor.components.runtime.util.RdfUtil.Solution;
+import com.google.appinventor.components.runtime.util.SparqlPager;
+import com.google.appinventor.components.runtime.util.SparqlResultCache;
+import com.hp.hpl.jena.query.QuerySolution;
 import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.rdf.model.RDFNode;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -48,11 +53,15 @@ public class LinkedDataListPicker extends Picker implements ActivityResultListen
 
   private static final String LOG_TAG = LinkedDataListPicker.class.getSimpleName();
   private static final String SWLIST_ACTIVITY_CLASS = SWListActivity.class.getName();
+  // The instances of a class rarely change, so reuse cached results for a while before
+  // revalidating them with the endpoint.
+  private static final long QUERY_CACHE_TTL_MS = 10 * 60 * 1000;
   static final String SWLIST_ACTIVITY_ARG_NAME = SWLIST_ACTIVITY_CLASS + ".list";
   static final String SWLIST_ACTIVITY_RESULT_URI = SWLIST_ACTIVITY_CLASS + ".selectionUri";
   static final String SWLIST_ACTIVITY_RESULT_LABEL = SWLIST_ACTIVITY_CLASS + ".selectionLabel";
   static final String SWLIST_ACTIVITY_RESULT_INDEX = SWLIST_ACTIVITY_CLASS + ".index";
   static final String SWLIST_ACTIVITY_ANIM_TYPE = SWLIST_ACTIVITY_CLASS + ".anim";
+  static final String SWLIST_ACTIVITY_PAGED = SWLIST_ACTIVITY_CLASS + ".paged";
   private String endpointUrl;
   private String selectionUri;
   private String selectionLabel;
@@ -62,9 +71,19 @@ public class LinkedDataListPicker extends Picker implements ActivityResultListen
   private String propertyUri;
   private String relationUri;
   private List<LabeledUri> items;
+  private int pageSize = 0;
+  private SparqlPager<LabeledUri> pager = null;
   private final Form form;
+  private final Handler handler = new Handler();
   private volatile boolean initialized = false;
 
+  // Loads the items once all of the designer properties have been set.
+  private final Runnable refresh = new Runnable() {
+    public void run() {
+      refreshItems();
+    }
+  };
+
   public LinkedDataListPicker(ComponentContainer container) {
     super(container);
     Log.d(LOG_TAG, "Constructing SemanticWebListPicker");
@@ -100,6 +119,7 @@ public class LinkedDataListPicker extends Picker implements ActivityResultListen
 
   @Override
   public void onDelete() {
+    handler.removeCallbacks(refresh);
     container.$form().unregisterForActivityResult(this);
   }
 
@@ -110,6 +130,32 @@ public class LinkedDataListPicker extends Picker implements ActivityResultListen
     intent.setClassName(container.$context(), SWLIST_ACTIVITY_CLASS);
     Bundle bundle = new Bundle();
     bundle.putBinder("binder", new SWListActivity.DataSource() {
+      @Override
+      void performPageQuery(String filter, int page, final PageCompletion completion) {
+        SparqlPager<LabeledUri> pager = LinkedDataListPicker.this.pager;
+        if (pager == null) {
+          super.performPageQuery(filter, page, completion);
+          return;
+        }
+        pager.requestPage(filter, page, new SparqlPager.Listener<LabeledUri>() {
+          @Override
+          public void onPage(String filter, int page, List<LabeledUri> items, boolean hasMore) {
+            completion.onPage(filter, page, items, hasMore);
+          }
+
+          @Override
+          public void onError(String filter, int page, final Exception error) {
+            Log.w(LOG_TAG, "Unable to retrieve page " + page, error);
+            completion.onPage(filter, page, new ArrayList<LabeledUri>(), false);
+            form.runOnUiThread(new Runnable() {
+              public void run() {
+                UnableToRetrieveContent(error.getLocalizedMessage());
+              }
+            });
+          }
+        });
+      }
+
       @Override
       void performQuery(String query, Completion completion) {
         ArrayList<LabeledUri> filteredItems = new ArrayList<>();
@@ -136,6 +182,7 @@ public class LinkedDataListPicker extends Picker implements ActivityResultListen
     //intent.putExtra(SWLIST_ACTIVITY_ARG_NAME, items.toArray(new LabeledUri[] {}));
     String openAnim = container.$form().getOpenAnimType();
     intent.putExtra(SWLIST_ACTIVITY_ANIM_TYPE, openAnim);
+    intent.putExtra(SWLIST_ACTIVITY_PAGED, pager != null);
     return intent;
   }
 
@@ -150,12 +197,7 @@ public class LinkedDataListPicker extends Picker implements ActivityResultListen
     this.endpointUrl = url;
     Log.d(LOG_TAG, "Setting endpoint URL");
     if(conceptUri != null && !conceptUri.isEmpty() && !initialized) {
-      final Runnable call = new Runnable() {
-        public void run() { populateItemsList(url, conceptUri); }
-      };
-      BeforeQuery();
-      Log.d(LOG_TAG, "Preparing to populate items list.");
-      AsynchUtil.runAsynchronously(call);
+      scheduleRefresh();
     }
   }
 
@@ -196,12 +238,7 @@ public class LinkedDataListPicker extends Picker implements ActivityResultListen
     conceptUri = uri;
     Log.d(LOG_TAG, "Setting concept uri");
     if(endpointUrl != null && !endpointUrl.isEmpty()) {
-      final Runnable call = new Runnable() {
-        public void run() { populateItemsList(endpointUrl, uri); }
-      };
-      BeforeQuery();
-      Log.d(LOG_TAG, "Preparing to populate items list.");
-      AsynchUtil.runAsynchronously(call);
+      scheduleRefresh();
     }
   }
 
@@ -223,9 +260,114 @@ public class LinkedDataListPicker extends Picker implements ActivityResultListen
     relationUri = uri;
   }
 
-  private void populateItemsList(final String endpoint, final String conceptUri) {
-    Log.d(LOG_TAG, "Populating item list for semantic list picker");
-    final String query = "PREFIX dc: <http://purl.org/dc/terms/> " +
+  /**
+   * Returns the number of items loaded at a time as the user scrolls through the list.
+   *
+   * @return the page size, or 0 if all items are loaded at once
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "<p>The number of items to load at a time. If 0, all instances of the "
+          + "Object Type are loaded before the list opens. Otherwise items are loaded page by "
+          + "page as the user scrolls, and text typed in the search box is matched by the "
+          + "endpoint. Use this for classes with many instances.</p>")
+  public int PageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Specifies the number of items loaded at a time as the user scrolls through the list. With
+   * 0, every instance is fetched in a single query when the Endpoint URL or Object Type is set.
+   *
+   * @param size the page size, or 0 to load all items at once
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "0")
+  @SimpleProperty
+  public void PageSize(int size) {
+    size = Math.max(0, size);
+    if (size != pageSize) {
+      pageSize = size;
+      if (endpointUrl != null && !endpointUrl.isEmpty() && !conceptUri.isEmpty()) {
+        scheduleRefresh();
+      }
+    }
+  }
+
+  private void scheduleRefresh() {
+    handler.removeCallbacks(refresh);
+    handler.post(refresh);
+  }
+
+  private void refreshItems() {
+    final String endpoint = endpointUrl;
+    final String concept = conceptUri;
+    if (endpoint == null || endpoint.isEmpty() || concept == null || concept.isEmpty()) {
+      return;
+    }
+    BeforeQuery();
+    if (pageSize > 0) {
+      Log.d(LOG_TAG, "Preparing to page items.");
+      items.clear();
+      pager = new SparqlPager<LabeledUri>(SparqlResultCache.getInstance(), endpoint,
+          new SparqlPager.QueryBuilder() {
+            @Override
+            public String build(String filter, int limit, int offset) {
+              return buildItemsQuery(concept, filter) + " LIMIT " + limit + " OFFSET " + offset;
+            }
+          },
+          new SparqlPager.RowMapper<LabeledUri>() {
+            @Override
+            public LabeledUri map(QuerySolution solution) {
+              RDFNode uri = solution.get("uri");
+              RDFNode label = solution.get("label");
+              if (uri == null || !uri.isURIResource() || label == null || !label.isLiteral()) {
+                return null;
+              }
+              return new LabeledUri(label.asLiteral().getLexicalForm(), uri.asResource().getURI());
+            }
+          }, pageSize, QUERY_CACHE_TTL_MS);
+      // Fetch the first page now so the list has content as soon as it opens.
+      pager.requestPage("", 0, new SparqlPager.Listener<LabeledUri>() {
+        @Override
+        public void onPage(String filter, int page, List<LabeledUri> items, boolean hasMore) {
+          initialized = true;
+          form.runOnUiThread(new Runnable() {
+            public void run() {
+              AfterQuery();
+            }
+          });
+        }
+
+        @Override
+        public void onError(String filter, int page, final Exception error) {
+          Log.w(LOG_TAG, "Unable to retrieve SPARQL contents due to exception.", error);
+          form.runOnUiThread(new Runnable() {
+            public void run() {
+              UnableToRetrieveContent(error.getLocalizedMessage());
+            }
+          });
+        }
+      });
+    } else {
+      pager = null;
+      Log.d(LOG_TAG, "Preparing to populate items list.");
+      AsynchUtil.runAsynchronously(new Runnable() {
+        public void run() { populateItemsList(endpoint, concept); }
+      });
+    }
+  }
+
+  /**
+   * Builds the query for instances of the concept and their labels, ordered by label. If filter
+   * is not empty, only labels containing it, ignoring case, are matched.
+   */
+  private String buildItemsQuery(final String conceptUri, final String filter) {
+    String textFilter = "";
+    if (filter != null && !filter.isEmpty()) {
+      textFilter = "FILTER(CONTAINS(LCASE(STR(?lbl)), \"" +
+          SparqlPager.escapeString(filter.toLowerCase()) + "\")) ";
+    }
+    return "PREFIX dc: <http://purl.org/dc/terms/> " +
         "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#> " +
         "PREFIX foaf: <http://xmlns.com/foaf/0.1/> " +
         "PREFIX skos: <http://www.w3.org/2004/02/skos/core#> " +
@@ -236,11 +378,18 @@ public class LinkedDataListPicker extends Picker implements ActivityResultListen
         "UNION { ?uri foaf:name ?lbl } UNION { ?uri dc:title ?lbl } " +
         "FILTER(lang(?lbl) = \"\" || langMatches(lang(?lbl), \"" +
         Locale.getDefault().getLanguage() + "\"))" +
+        textFilter +
         "} GROUP BY ?uri ORDER BY ?label";
+  }
+
+  private void populateItemsList(final String endpoint, final String conceptUri) {
+    Log.d(LOG_TAG, "Populating item list for semantic list picker");
+    final String query = buildItemsQuery(conceptUri, "");
     Log.d(LOG_TAG, "The Query is " + query);
     Collection<Solution> solutions = null;
     try {
-      ResultSet results = RdfUtil.executeSELECT(endpoint, query);
+      ResultSet results = SparqlResultCache.getInstance().select(endpoint, query,
+          QUERY_CACHE_TTL_MS);
       Log.d(LOG_TAG, "Received results; parsing JSON to collection.");
       solutions = RdfUtil.resultSetAsCollection(results);
     } catch(final Exception e) {
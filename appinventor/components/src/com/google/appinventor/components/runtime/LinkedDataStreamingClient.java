@@ -6,15 +6,19 @@
 package com.google.appinventor.components.runtime;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
+import java.util.zip.GZIPOutputStream;
 
 import com.google.appinventor.components.annotations.DesignerComponent;
 import com.google.appinventor.components.annotations.DesignerProperty;
@@ -30,7 +34,15 @@ import com.google.appinventor.components.common.YaVersion;
 import com.google.appinventor.components.runtime.util.AsynchUtil;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.FileUtil;
+import com.google.appinventor.components.runtime.util.MessageBatcher;
+import com.google.appinventor.components.runtime.util.QueryTemplate;
 import com.google.appinventor.components.runtime.util.RdfUtil;
+import com.google.appinventor.components.runtime.util.WindowedQuery;
+import com.google.appinventor.components.runtime.util.YailList;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.listeners.StatementListener;
+import com.hp.hpl.jena.rdf.model.Statement;
 
 import android.R;
 import android.app.Activity;
@@ -103,6 +115,60 @@ public final class LinkedDataStreamingClient extends AndroidNonvisibleComponent
     private static final String REG_ID_TAG = "RegistrationId";
     private final SharedPreferences sharedPreferences;
 
+    // the continuous query evaluated on the device, or null
+    private volatile WindowedQuery localQuery = null;
+    private final Handler slideHandler = new Handler();
+    private final Runnable slideTask = new Runnable() {
+      @Override
+      public void run() {
+        WindowedQuery query = localQuery;
+        if (query != null) {
+          slideLocalQuery(query);
+          slideHandler.postDelayed(this, query.getWindow().getStep());
+        }
+      }
+    };
+
+    private volatile boolean compressMessages = false;
+    private final MessageBatcher messageBatcher = new MessageBatcher(
+        new MessageBatcher.Transport() {
+          @Override
+          public MessageBatcher.Response send(List<String> batch) throws IOException {
+            return postMessages(batch);
+          }
+        },
+        new MessageBatcher.Listener() {
+          @Override
+          public void onBatchSent(final List<String> batch,
+              final MessageBatcher.Response response) {
+            mainUIThreadActivity.runOnUiThread(new Runnable() {
+              @Override
+              public void run() {
+                MessagesSent(batch.size(), response.getCode(), response.getType(),
+                    response.getContent());
+                GotResponseFromServer(SERVER_URL, response.getCode(), response.getType(),
+                    response.getContent());
+              }
+            });
+          }
+
+          @Override
+          public void onBatchFailed(List<String> batch, Exception e) {
+            form.dispatchErrorOccurredEvent(LinkedDataStreamingClient.this, "SendMessageToServer",
+                ErrorMessages.ERROR_WEB_UNABLE_TO_POST_OR_PUT, batch.size() + " messages",
+                SERVER_URL);
+          }
+        }, 100, 1, 1000);
+
+    // the LinkedData component whose new statements are streamed into the local query
+    private LinkedData streamSource = null;
+    private final StatementListener streamListener = new StatementListener() {
+      @Override
+      public void addedStatement(Statement s) {
+        addStreamTriple(s.asTriple());
+      }
+    };
+
     // private final SharedPreferences sharedPreferences;
 
     public LinkedDataStreamingClient(ComponentContainer container) {
@@ -149,6 +215,8 @@ public final class LinkedDataStreamingClient extends AndroidNonvisibleComponent
 
     @Override
     public void onDestroy() {
+        StopLocalQuery();
+        messageBatcher.shutdown();
         // remember to unbind
         Log.i(TAG, "My GoogleCloudMessaging.java got destroyed");
         if (mIsBound && mConnection != null) {
@@ -532,83 +600,217 @@ public final class LinkedDataStreamingClient extends AndroidNonvisibleComponent
     }
     
     /**
-     * Performs an HTTP POST request using the GCM Server url property and the specified text.
+     * Queues the specified text to be posted to the GCM Server url. Messages are sent in batches
+     * of BatchSize, or after waiting FlushInterval milliseconds, over a kept-alive connection.
      *
      * @param text the text data for the POST request
      */
-    @SimpleFunction(description = "Performs an HTTP POST request using the GCM Server url property and " +
-        "the specified text.<br>" +
-        "The characters of the text are encoded using UTF-8 encoding.<br>" +
-        "The GotResponseFromServer event will be triggered when the request is done.")
+    @SimpleFunction(description = "Queues the specified text to be sent to the GCM Server url in "
+        + "an HTTP POST request.<br>"
+        + "The characters of the text are encoded using UTF-8 encoding.<br>"
+        + "Messages are sent together once BatchSize of them are queued, or once the oldest has "
+        + "waited FlushInterval milliseconds. A batch of several messages is posted with one "
+        + "message per line. If MessageQueueCapacity messages are already waiting, the text is "
+        + "not sent and MessageQueueFull is triggered instead.<br>"
+        + "The MessagesSent and GotResponseFromServer events will be triggered when each batch "
+        + "is done.")
     public void SendMessageToServer(final String text) {
       try {
-        final URL url = new URL(SERVER_URL);
-        AsynchUtil.runAsynchronously(new Runnable() {
-          @Override
-          public void run() {
-            // Convert text to bytes using the encoding.
-            byte[] requestData = null;
-            try {
-              String regId = retrieveRegId();
-              if (!regId.equalsIgnoreCase("")) {
-                String inputText = text + "&regId=" + regId;
-                requestData = inputText.getBytes("UTF-8");
-              } else {
-                form.dispatchErrorOccurredEvent(LinkedDataStreamingClient.this, "SendMessageToServer", ErrorMessages.ERROR_GCM_NO_REGID_FOR_MESSAGE, "Not registered with GCM Server");
-              }
-            } catch (UnsupportedEncodingException e) {
-              form.dispatchErrorOccurredEvent(LinkedDataStreamingClient.this, "SendMessageToServer",
-                  ErrorMessages.ERROR_WEB_UNSUPPORTED_ENCODING, "UTF-8");
-              return;
-            }
-
-            try {
-              // Open the connection.
-              HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-              if (connection != null) {
-                try {
-                  connection.setRequestMethod("POST");
-                  if (requestData != null) {
-                    connection.setDoOutput(true); // This makes it something other than a HTTP GET.
-                    // Write the data.
-                    connection.setFixedLengthStreamingMode(requestData.length);
-                    BufferedOutputStream out = new BufferedOutputStream(connection.getOutputStream());
-                    try {
-                      out.write(requestData, 0, requestData.length);
-                      out.flush();
-                    } finally {
-                      out.close();
-                    }
-                  }
-
-                  // Get the response.
-                  final int responseCode = connection.getResponseCode();
-                  final String responseType = (connection.getContentType() != null) ? connection.getContentType() : "";
-                  final String responseContent = getResponseContent(connection);
-
-                  // Dispatch the event.
-                  mainUIThreadActivity.runOnUiThread(new Runnable() {
-                    @Override
-                    public void run() {
-                      GotResponseFromServer(url.toString(), responseCode, responseType, responseContent);
-                    }
-                  });
-                } finally {
-                  connection.disconnect();
-                }
-              }
-            } catch (Exception e) {
-              form.dispatchErrorOccurredEvent(LinkedDataStreamingClient.this, "SendMessageToServer",
-                  ErrorMessages.ERROR_WEB_UNABLE_TO_POST_OR_PUT, text, url);
-            }
-          }
-        });
+        new URL(SERVER_URL);
       } catch (MalformedURLException e) {
         form.dispatchErrorOccurredEvent(LinkedDataStreamingClient.this, "SendMessageToServer",
             ErrorMessages.ERROR_WEB_MALFORMED_URL, SERVER_URL);
+        return;
+      }
+      String regId = retrieveRegId();
+      if (regId.equalsIgnoreCase("")) {
+        form.dispatchErrorOccurredEvent(LinkedDataStreamingClient.this, "SendMessageToServer",
+            ErrorMessages.ERROR_GCM_NO_REGID_FOR_MESSAGE, "Not registered with GCM Server");
+        return;
+      }
+      if (!messageBatcher.offer(text + "&regId=" + regId)) {
+        MessageQueueFull(text);
       }
     }
-    
+
+    /**
+     * Sends the queued messages now, without waiting for a full batch or FlushInterval.
+     */
+    @SimpleFunction(description = "Sends the messages queued by SendMessageToServer now, without "
+        + "waiting for a full batch.")
+    public void FlushMessages() {
+      messageBatcher.flush();
+    }
+
+    /**
+     * Returns the number of messages that are sent together.
+     *
+     * @return the batch size
+     */
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+        description = "The number of messages SendMessageToServer sends in one request. With 1, "
+            + "each message is sent on its own as soon as possible.")
+    public int BatchSize() {
+      return messageBatcher.getBatchSize();
+    }
+
+    /**
+     * Specifies the number of messages that are sent together.
+     *
+     * @param size the batch size
+     */
+    @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+        defaultValue = "1")
+    @SimpleProperty
+    public void BatchSize(int size) {
+      messageBatcher.setBatchSize(size);
+    }
+
+    /**
+     * Returns the longest time, in milliseconds, a message waits for its batch to fill.
+     *
+     * @return the flush interval in milliseconds
+     */
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+        description = "The longest time, in milliseconds, a message waits for its batch to fill "
+            + "before the messages queued so far are sent.")
+    public int FlushInterval() {
+      return (int) messageBatcher.getFlushInterval();
+    }
+
+    /**
+     * Specifies the longest time, in milliseconds, a message waits for its batch to fill.
+     *
+     * @param interval the flush interval in milliseconds
+     */
+    @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+        defaultValue = "1000")
+    @SimpleProperty
+    public void FlushInterval(int interval) {
+      messageBatcher.setFlushInterval(interval);
+    }
+
+    /**
+     * Returns the maximum number of messages waiting to be sent.
+     *
+     * @return the queue capacity
+     */
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+        description = "The maximum number of messages waiting to be sent. Further messages are "
+            + "refused with MessageQueueFull until the queue drains.")
+    public int MessageQueueCapacity() {
+      return messageBatcher.getCapacity();
+    }
+
+    /**
+     * Specifies the maximum number of messages waiting to be sent.
+     *
+     * @param capacity the queue capacity
+     */
+    @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+        defaultValue = "100")
+    @SimpleProperty
+    public void MessageQueueCapacity(int capacity) {
+      messageBatcher.setCapacity(capacity);
+    }
+
+    /**
+     * Returns whether message batches are gzip-compressed.
+     *
+     * @return true if batches are compressed
+     */
+    @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+        description = "Whether SendMessageToServer compresses each request with gzip. The server "
+            + "must accept Content-Encoding: gzip.")
+    public boolean CompressMessages() {
+      return compressMessages;
+    }
+
+    /**
+     * Specifies whether message batches are gzip-compressed.
+     *
+     * @param compress true to compress batches
+     */
+    @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN,
+        defaultValue = "False")
+    @SimpleProperty
+    public void CompressMessages(boolean compress) {
+      compressMessages = compress;
+    }
+
+    /**
+     * Event raised when SendMessageToServer is called while the queue is full.
+     *
+     * @param text the message that was not sent
+     */
+    @SimpleEvent(description = "Triggered when SendMessageToServer is called while "
+        + "MessageQueueCapacity messages are already waiting. The message is not sent.")
+    public void MessageQueueFull(String text) {
+      EventDispatcher.dispatchEvent(this, "MessageQueueFull", text);
+    }
+
+    /**
+     * Event raised when the server answers a batch of messages.
+     *
+     * @param messageCount the number of messages in the batch
+     * @param responseCode the response code from the server
+     * @param responseType the mime type of the response
+     * @param responseContent the response content from the server
+     */
+    @SimpleEvent(description = "Triggered when the server answers a batch of messages sent by "
+        + "SendMessageToServer.")
+    public void MessagesSent(int messageCount, int responseCode, String responseType,
+        String responseContent) {
+      EventDispatcher.dispatchEvent(this, "MessagesSent", messageCount, responseCode,
+          responseType, responseContent);
+    }
+
+    /**
+     * Posts a batch of messages, one per line, to the GCM Server url. The connection is not
+     * disconnected, so that it is kept alive for the next batch.
+     */
+    private MessageBatcher.Response postMessages(List<String> batch) throws IOException {
+      StringBuilder sb = new StringBuilder();
+      for (String message : batch) {
+        if (sb.length() > 0) {
+          sb.append('\n');
+        }
+        sb.append(message);
+      }
+      byte[] requestData = sb.toString().getBytes("UTF-8");
+      HttpURLConnection connection = (HttpURLConnection) new URL(SERVER_URL).openConnection();
+      connection.setRequestMethod("POST");
+      connection.setRequestProperty("Connection", "keep-alive");
+      if (batch.size() > 1) {
+        connection.setRequestProperty("X-Message-Count", Integer.toString(batch.size()));
+      }
+      if (compressMessages) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        try {
+          gzip.write(requestData);
+        } finally {
+          gzip.close();
+        }
+        requestData = compressed.toByteArray();
+        connection.setRequestProperty("Content-Encoding", "gzip");
+      }
+      connection.setDoOutput(true);
+      connection.setFixedLengthStreamingMode(requestData.length);
+      OutputStream out = connection.getOutputStream();
+      try {
+        out.write(requestData);
+      } finally {
+        out.close();
+      }
+      // Reading the whole response returns the connection to the keep-alive pool.
+      int responseCode = connection.getResponseCode();
+      String responseType = (connection.getContentType() != null)
+          ? connection.getContentType() : "";
+      return new MessageBatcher.Response(responseCode, responseType,
+          getResponseContent(connection));
+    }
+
     /**
      * Performs an HTTP POST query subscription request using the GCM Server url property and the given query.
      * Query is converted to a CONSTRUCT query because an arbitrary UUID injection is necessary.
@@ -698,6 +900,122 @@ public final class LinkedDataStreamingClient extends AndroidNonvisibleComponent
       }
     }
     
+    /**
+     * Starts evaluating a query on the device over a sliding window of the triples given to
+     * AddStreamData or streamed from a LinkedData component, replacing any previous local query.
+     *
+     * @param querytext the SELECT query
+     * @param window the window range, either a duration such as 30s or TRIPLES n
+     * @param step how far the window slides, a duration or a number of triples
+     */
+    @SimpleFunction(description = "Evaluates a SELECT query on the device over a sliding "
+        + "window of the triples added with AddStreamData or StreamFromLinkedData. The window is "
+        + "a duration such as 30s, 500ms or 5m, or a number of triples such as TRIPLES 100, and "
+        + "the step is a duration or a number of triples. Each time the window slides, "
+        + "LocalStreamingResultsReceived reports the solutions that appeared and expired.")
+    public void StartLocalQuery(String querytext, String window, String step) {
+      WindowedQuery query;
+      try {
+        query = new WindowedQuery(querytext, WindowedQuery.Window.parse(window, step));
+      } catch (RuntimeException e) {
+        form.dispatchErrorOccurredEvent(this, "StartLocalQuery",
+            ErrorMessages.ERROR_LINKED_DATA_INVALID_STREAMING_QUERY, e.getMessage());
+        return;
+      }
+      slideHandler.removeCallbacks(slideTask);
+      localQuery = query;
+      if (!query.getWindow().isCountBased()) {
+        slideHandler.postDelayed(slideTask, query.getWindow().getStep());
+      }
+    }
+
+    /**
+     * Stops the local query and discards its window.
+     */
+    @SimpleFunction(description = "Stops the query started with StartLocalQuery.")
+    public void StopLocalQuery() {
+      localQuery = null;
+      slideHandler.removeCallbacks(slideTask);
+      if (streamSource != null) {
+        streamSource.model.unregister(streamListener);
+        streamSource = null;
+      }
+    }
+
+    /**
+     * Adds a triple to the stream evaluated by the local query. The value becomes a URI if it
+     * looks like one, a typed literal if it is a number or boolean, and a string otherwise.
+     *
+     * @param subject the subject URI or CURIE
+     * @param predicate the predicate URI or CURIE
+     * @param value the object
+     */
+    @SimpleFunction(description = "Adds a triple to the stream evaluated by the local query, "
+        + "for example a sensor reading.")
+    public void AddStreamData(String subject, String predicate, Object value) {
+      addStreamTriple(Triple.create(Node.createURI(RdfUtil.expandQName(subject)),
+          Node.createURI(RdfUtil.expandQName(predicate)), QueryTemplate.toNode(value)));
+    }
+
+    /**
+     * Streams the statements added to a LinkedData component into the local query from now on.
+     *
+     * @param source the LinkedData component
+     */
+    @SimpleFunction(description = "Adds every statement added to the given LinkedData component "
+        + "from now on to the stream evaluated by the local query.")
+    public void StreamFromLinkedData(LinkedData source) {
+      if (streamSource != null) {
+        streamSource.model.unregister(streamListener);
+      }
+      streamSource = source;
+      source.model.register(streamListener);
+    }
+
+    /**
+     * Event raised when the window of the local query slides and its solutions change.
+     *
+     * @param bindings the solutions that were not in the previous window
+     * @param expired the solutions of the previous window that are no longer produced
+     */
+    @SimpleEvent
+    public void LocalStreamingResultsReceived(YailList bindings, YailList expired) {
+      EventDispatcher.dispatchEvent(this, "LocalStreamingResultsReceived", bindings, expired);
+    }
+
+    private void addStreamTriple(Triple triple) {
+      WindowedQuery query = localQuery;
+      if (query == null) {
+        return;
+      }
+      query.add(triple, System.currentTimeMillis());
+      if (query.isSlideDue()) {
+        slideLocalQuery(query);
+      }
+    }
+
+    private void slideLocalQuery(final WindowedQuery query) {
+      AsynchUtil.runAsynchronously(new Runnable() {
+        @Override
+        public void run() {
+          WindowedQuery.Update update = query.slide(System.currentTimeMillis());
+          if (update == null || update.getAddedCount() + update.getRemovedCount() == 0) {
+            return;
+          }
+          final YailList added = RdfUtil.resultSetUsingYailDictionary(update.getAdded());
+          final YailList removed = RdfUtil.resultSetUsingYailDictionary(update.getRemoved());
+          mainUIThreadActivity.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+              if (query == localQuery) {
+                LocalStreamingResultsReceived(added, removed);
+              }
+            }
+          });
+        }
+      });
+    }
+
     private static String getResponseContent(HttpURLConnection connection) throws IOException {
       // Use the content encoding to convert bytes to characters.
       String encoding = connection.getContentEncoding();
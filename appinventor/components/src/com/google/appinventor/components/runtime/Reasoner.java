@@ -15,19 +15,29 @@ import com.google.appinventor.components.runtime.util.AsynchUtil;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.IOUtils;
 import com.google.appinventor.components.runtime.util.MediaUtil;
+import com.google.appinventor.components.runtime.util.QueryTemplate;
 import com.google.appinventor.components.runtime.util.YailDictionary;
 import com.google.appinventor.components.runtime.util.YailList;
 import com.hp.hpl.jena.query.Query;
 import com.hp.hpl.jena.query.QueryExecution;
 import com.hp.hpl.jena.query.QueryExecutionFactory;
+import com.hp.hpl.jena.query.QueryCancelledException;
 import com.hp.hpl.jena.query.QueryFactory;
 import com.hp.hpl.jena.query.QuerySolution;
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.GraphEvents;
+import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.rdf.listeners.StatementListener;
 import com.hp.hpl.jena.rdf.model.InfModel;
+import com.hp.hpl.jena.rdf.model.Model;
 import com.hp.hpl.jena.rdf.model.ModelFactory2;
 import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.rdf.model.Statement;
 import com.hp.hpl.jena.reasoner.BaseInfGraph;
+import com.hp.hpl.jena.reasoner.InfGraph;
 import com.hp.hpl.jena.reasoner.ReasonerRegistry;
+import com.hp.hpl.jena.reasoner.rulesys.BasicForwardRuleInfGraph;
 import com.hp.hpl.jena.reasoner.rulesys.FBRuleReasoner;
 import com.hp.hpl.jena.reasoner.rulesys.GenericRuleReasoner;
 import com.hp.hpl.jena.reasoner.rulesys.Rule;
@@ -36,8 +46,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -60,6 +75,49 @@ public class Reasoner extends LinkedDataBase<InfModel> {
   private String rulesEngine = "";
   private String rulesFile = "";
   private List<Rule> rules = new ArrayList<>();
+  private boolean incremental = false;
+  private int queryTimeout = 0;
+  private int queryLimit = 0;
+  private int resultPageSize = 100;
+
+  /**
+   * Queries started with {@link #QueryAsync(String)} that have not yet finished, keyed by id. The
+   * execution is null until the query has been parsed on the background thread.
+   */
+  private final Map<Integer, QueryExecution> runningQueries = new HashMap<>();
+  private final Set<Integer> cancelledQueries = new HashSet<>();
+  private final AtomicInteger nextQueryId = new AtomicInteger(1);
+
+  /**
+   * Changes made to the base model since they were last propagated into the inferences. Access is
+   * guarded by the list itself.
+   */
+  private final List<Triple> pendingAdditions = new ArrayList<>();
+  private boolean pendingRebuild = false;
+  private boolean propagationScheduled = false;
+  private volatile Thread propagationThread = null;
+  private Model observedModel = null;
+
+  private final StatementListener changeListener = new StatementListener() {
+    @Override
+    public void addedStatement(Statement s) {
+      enqueueChange(s.asTriple());
+    }
+
+    @Override
+    public void removedStatement(Statement s) {
+      enqueueChange(null);
+    }
+
+    @Override
+    public void notifyEvent(Model m, Object event) {
+      if (event instanceof GraphEvents && !GraphEvents.startRead.equals(event)
+          && !GraphEvents.finishRead.equals(event)) {
+        // removeAll and pattern removals
+        enqueueChange(null);
+      }
+    }
+  };
 
   /**
    * Creates a new Reasoner..
@@ -85,6 +143,9 @@ public class Reasoner extends LinkedDataBase<InfModel> {
   )
   @SimpleProperty(category = PropertyCategory.BEHAVIOR)
   public void Model(LinkedData model) {
+    if (this.basemodel != model) {
+      detachChangeListener();
+    }
     this.basemodel = model;
   }
 
@@ -123,6 +184,86 @@ public class Reasoner extends LinkedDataBase<InfModel> {
     this.rulesFile = rules;
   }
 
+  @SimpleProperty
+  public boolean Incremental() {
+    return incremental;
+  }
+
+  /**
+   * Specifies whether changes to the {@link #Model} made after {@link #Run} are propagated into
+   * the existing inferences. Added statements are passed through the forward-chaining engine
+   * incrementally. Removed statements cause the inferences to be recomputed, since the rule
+   * engines do not track which conclusions depend on which statements. The
+   * {@link #InferencesUpdated} event runs after each batch of changes is processed.
+   *
+   * @param incremental true to propagate changes to the model, otherwise false
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN,
+      defaultValue = "False")
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public void Incremental(boolean incremental) {
+    this.incremental = incremental;
+    if (!incremental) {
+      detachChangeListener();
+    } else if (model != null) {
+      attachChangeListener();
+    }
+  }
+
+  @SimpleProperty
+  public int QueryTimeout() {
+    return queryTimeout;
+  }
+
+  /**
+   * The maximum time, in milliseconds, that a query started with {@link #QueryAsync(String)} may
+   * run before it is stopped and {@link #QueryCancelled} runs. A value of 0 means no limit.
+   *
+   * @param timeout the timeout in milliseconds
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "0")
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public void QueryTimeout(int timeout) {
+    this.queryTimeout = Math.max(0, timeout);
+  }
+
+  @SimpleProperty
+  public int QueryLimit() {
+    return queryLimit;
+  }
+
+  /**
+   * The maximum number of rows returned by a query started with {@link #QueryAsync(String)}.
+   * A value of 0 means no limit.
+   *
+   * @param limit the maximum number of result rows
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "0")
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public void QueryLimit(int limit) {
+    this.queryLimit = Math.max(0, limit);
+  }
+
+  @SimpleProperty
+  public int ResultPageSize() {
+    return resultPageSize;
+  }
+
+  /**
+   * The number of rows delivered by each {@link #QueryResultsReceived} event. A value of 0
+   * delivers all of the results in a single event.
+   *
+   * @param size the number of rows per page
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "100")
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public void ResultPageSize(int size) {
+    this.resultPageSize = Math.max(0, size);
+  }
+
   ///endregion
   ///region Methods
 
@@ -137,6 +278,7 @@ public class Reasoner extends LinkedDataBase<InfModel> {
       form.dispatchErrorOccurredEvent(this, "Run", 0);
       return;
     }
+    detachChangeListener();
     final String rulesFile = this.rulesFile;
     final String rulesEngine = this.rulesEngine;
     AsynchUtil.runAsynchronously(new Runnable() {
@@ -169,6 +311,9 @@ public class Reasoner extends LinkedDataBase<InfModel> {
             ((BaseInfGraph) model.getGraph()).validate();
             // TODO(ewpatton): Report validity to blocks
           }
+          if (incremental) {
+            attachChangeListener();
+          }
           form.runOnUiThread(new Runnable() {
             @Override
             public void run() {
@@ -242,31 +387,148 @@ public class Reasoner extends LinkedDataBase<InfModel> {
   @SimpleFunction
   public Object Query(String query) {
     Query sparql = QueryFactory.create(query);
+    if (!sparql.isSelectType()) {
+      return Collections.emptyList();
+    }
+    InfModel model = this.model;
     QueryExecution qe = QueryExecutionFactory.create(sparql, model);
-    if (sparql.isSelectType()) {
-      ResultSet rs = qe.execSelect();
-      YailDictionary result = new YailDictionary();
-      YailDictionary head = new YailDictionary();
-      head.put("vars", YailList.makeList(rs.getResultVars()));
-      result.put("head", head);
-      List<YailDictionary> results = new ArrayList<>();
-      while (rs.hasNext()) {
-        YailDictionary yailBinding = new YailDictionary();
-        QuerySolution binding = rs.next();
-        Iterator<String> vars = binding.varNames();
-        while (vars.hasNext()) {
-          String var = vars.next();
-          RDFNode value = binding.get(var);
-          if (value != null) {
-            yailBinding.put(var, value.toString());
-          }
+    try {
+      // Serialize with incremental updates, which modify the inference graph in place.
+      synchronized (model.getGraph()) {
+        ResultSet rs = qe.execSelect();
+        List<YailDictionary> results = new ArrayList<>();
+        while (rs.hasNext()) {
+          results.add(toDictionary(rs.next()));
         }
-        results.add(yailBinding);
+        return makeResultDictionary(rs.getResultVars(), results);
+      }
+    } finally {
+      qe.close();
+    }
+  }
+
+  /**
+   * Evaluates a SPARQL SELECT query over the knowledge base on a background thread. Results are
+   * delivered in pages of {@link #ResultPageSize} rows through the {@link #QueryResultsReceived}
+   * event, using the same dictionary format as {@link #Query(String)}. The query is stopped
+   * after {@link #QueryTimeout} milliseconds or {@link #QueryLimit} rows, or when
+   * {@link #CancelQuery(int)} is called.
+   *
+   * @param query a string containing a valid SPARQL SELECT query
+   * @return an identifier for the query that is passed to the query events
+   */
+  @SimpleFunction
+  public int QueryAsync(final String query) {
+    final int queryId = nextQueryId.getAndIncrement();
+    if (model == null) {
+      form.dispatchErrorOccurredEvent(this, "QueryAsync", ErrorMessages.ERROR_REASONER_NO_MODEL);
+      return queryId;
+    }
+    final InfModel model = this.model;
+    final long timeout = queryTimeout;
+    final int limit = queryLimit;
+    final int pageSize = resultPageSize;
+    synchronized (runningQueries) {
+      runningQueries.put(queryId, null);
+    }
+    AsynchUtil.runAsynchronously(new Runnable() {
+      @Override
+      public void run() {
+        runQuery(queryId, model, query, null, null, timeout, limit, pageSize);
+      }
+    });
+    return queryId;
+  }
+
+  /**
+   * Evaluates a query template defined with {@link #DefineQueryTemplate(String, String)} over
+   * the knowledge base, with the given values bound to its variables. The template is not parsed
+   * again. The result has the same format as {@link #Query(String)}.
+   *
+   * @param name the name of the template
+   * @param values a dictionary from variable names to values
+   * @return the query results
+   */
+  @SimpleFunction
+  public YailDictionary RunQueryTemplate(String name, YailDictionary values) {
+    InfModel model = this.model;
+    QueryExecution qe = getQueryTemplate(name).createExecution(model, templateValues(values));
+    try {
+      synchronized (model.getGraph()) {
+        ResultSet rs = qe.execSelect();
+        List<YailDictionary> results = new ArrayList<>();
+        while (rs.hasNext()) {
+          results.add(toDictionary(rs.next()));
+        }
+        return makeResultDictionary(rs.getResultVars(), results);
+      }
+    } finally {
+      qe.close();
+    }
+  }
+
+  /**
+   * Evaluates a query template defined with {@link #DefineQueryTemplate(String, String)} on a
+   * background thread, with the given values bound to its variables. Results are delivered as
+   * for {@link #QueryAsync(String)}, and the query can be cancelled with
+   * {@link #CancelQuery(int)}.
+   *
+   * @param name the name of the template
+   * @param values a dictionary from variable names to values
+   * @return an identifier for the query that is passed to the query events
+   */
+  @SimpleFunction
+  public int RunQueryTemplateAsync(String name, YailDictionary values) {
+    final int queryId = nextQueryId.getAndIncrement();
+    if (model == null) {
+      form.dispatchErrorOccurredEvent(this, "RunQueryTemplateAsync",
+          ErrorMessages.ERROR_REASONER_NO_MODEL);
+      return queryId;
+    }
+    final QueryTemplate template;
+    try {
+      template = getQueryTemplate(name);
+    } catch (IllegalArgumentException e) {
+      form.dispatchErrorOccurredEvent(this, "RunQueryTemplateAsync",
+          ErrorMessages.ERROR_LINKED_DATA_INVALID_QUERY_TEMPLATE, name, e.getMessage());
+      return queryId;
+    }
+    final Map<String, Object> bound = templateValues(values);
+    final InfModel model = this.model;
+    final long timeout = queryTimeout;
+    final int limit = queryLimit;
+    final int pageSize = resultPageSize;
+    synchronized (runningQueries) {
+      runningQueries.put(queryId, null);
+    }
+    AsynchUtil.runAsynchronously(new Runnable() {
+      @Override
+      public void run() {
+        runQuery(queryId, model, null, template, bound, timeout, limit, pageSize);
+      }
+    });
+    return queryId;
+  }
+
+  /**
+   * Cancels a query started with {@link #QueryAsync(String)}. The {@link #QueryCancelled} event
+   * runs once the query has stopped. Cancelling a query that has already finished has no effect.
+   *
+   * @param queryId the identifier returned by {@link #QueryAsync(String)}
+   */
+  @SimpleFunction
+  public void CancelQuery(int queryId) {
+    QueryExecution qe;
+    synchronized (runningQueries) {
+      qe = runningQueries.get(queryId);
+      if (qe == null && runningQueries.containsKey(queryId)) {
+        // The query has not started executing yet.
+        cancelledQueries.add(queryId);
       }
-      result.put("results", YailList.makeList(results));
-      return result;
     }
-    return Collections.emptyList();
+    if (qe != null) {
+      qe.abort();
+    }
   }
 
   ///endregion
@@ -292,8 +554,295 @@ public class Reasoner extends LinkedDataBase<InfModel> {
     }
   }
 
+  /**
+   * Runs when changes to the {@link #Model} have been propagated through the inferences while
+   * {@link #Incremental} is enabled.
+   *
+   * @param added the number of inferred statements that were added
+   * @param retracted the number of inferred statements that were retracted
+   */
+  @SimpleEvent
+  public void InferencesUpdated(int added, int retracted) {
+    EventDispatcher.dispatchEvent(this, "InferencesUpdated", added, retracted);
+  }
+
+  /**
+   * Runs when a page of results is available for a query started with
+   * {@link #QueryAsync(String)}. The results use the same format as {@link #Query(String)}.
+   *
+   * @param queryId the identifier of the query
+   * @param results the page of results in the SPARQL 1.1 Query Result format
+   * @param page the page number, starting at 1
+   * @param hasMore true if more pages will follow, otherwise false
+   */
+  @SimpleEvent
+  public void QueryResultsReceived(int queryId, YailDictionary results, int page,
+      boolean hasMore) {
+    EventDispatcher.dispatchEvent(this, "QueryResultsReceived", queryId, results, page, hasMore);
+  }
+
+  /**
+   * Runs when a query started with {@link #QueryAsync(String)} is stopped before it completes,
+   * either by {@link #CancelQuery(int)} or because it ran longer than {@link #QueryTimeout}.
+   * Pages already delivered remain valid.
+   *
+   * @param queryId the identifier of the query
+   * @param timedOut true if the query exceeded the timeout, false if it was cancelled
+   */
+  @SimpleEvent
+  public void QueryCancelled(int queryId, boolean timedOut) {
+    EventDispatcher.dispatchEvent(this, "QueryCancelled", queryId, timedOut);
+  }
+
   ///endregion
 
+  /**
+   * Runs either the query text or, if template is not null, the template with the given values.
+   * A template's parsed query is shared, so its limit is applied while reading the results.
+   */
+  private void runQuery(final int queryId, InfModel model, String query, QueryTemplate template,
+      Map<String, Object> values, long timeout, int limit, int pageSize) {
+    final long start = System.currentTimeMillis();
+    QueryExecution qe = null;
+    try {
+      if (template != null) {
+        qe = template.createExecution(model, values);
+      } else {
+        Query sparql = QueryFactory.create(query);
+        if (!sparql.isSelectType()) {
+          throw new IllegalArgumentException("Only SELECT queries can be run asynchronously");
+        }
+        if (limit > 0 && (!sparql.hasLimit() || sparql.getLimit() > limit)) {
+          sparql.setLimit(limit);
+        }
+        qe = QueryExecutionFactory.create(sparql, model);
+      }
+      if (timeout > 0) {
+        qe.setTimeout(timeout);
+      }
+      synchronized (runningQueries) {
+        if (cancelledQueries.remove(queryId)) {
+          throw new QueryCancelledException();
+        }
+        runningQueries.put(queryId, qe);
+      }
+      // Serialize with incremental updates, which modify the inference graph in place.
+      synchronized (model.getGraph()) {
+        ResultSet rs = qe.execSelect();
+        List<String> vars = rs.getResultVars();
+        List<YailDictionary> rows = new ArrayList<>();
+        int page = 1;
+        int rowsLeft = limit > 0 ? limit : Integer.MAX_VALUE;
+        while (rowsLeft > 0 && rs.hasNext()) {
+          rows.add(toDictionary(rs.next()));
+          rowsLeft--;
+          if (pageSize > 0 && rows.size() == pageSize && rowsLeft > 0 && rs.hasNext()) {
+            deliverPage(queryId, makeResultDictionary(vars, rows), page++, true);
+            rows = new ArrayList<>();
+          }
+        }
+        deliverPage(queryId, makeResultDictionary(vars, rows), page, false);
+      }
+    } catch (QueryCancelledException e) {
+      final boolean timedOut = timeout > 0 && System.currentTimeMillis() - start >= timeout;
+      form.runOnUiThread(new Runnable() {
+        @Override
+        public void run() {
+          QueryCancelled(queryId, timedOut);
+        }
+      });
+    } catch (final Exception e) {
+      form.runOnUiThread(new Runnable() {
+        @Override
+        public void run() {
+          ErrorOccurred(e.toString());
+        }
+      });
+    } finally {
+      synchronized (runningQueries) {
+        runningQueries.remove(queryId);
+        cancelledQueries.remove(queryId);
+      }
+      if (qe != null) {
+        qe.close();
+      }
+    }
+  }
+
+  private void deliverPage(final int queryId, final YailDictionary results, final int page,
+      final boolean hasMore) {
+    form.runOnUiThread(new Runnable() {
+      @Override
+      public void run() {
+        QueryResultsReceived(queryId, results, page, hasMore);
+      }
+    });
+  }
+
+  private static YailDictionary toDictionary(QuerySolution binding) {
+    YailDictionary yailBinding = new YailDictionary();
+    Iterator<String> vars = binding.varNames();
+    while (vars.hasNext()) {
+      String var = vars.next();
+      RDFNode value = binding.get(var);
+      if (value != null) {
+        yailBinding.put(var, value.toString());
+      }
+    }
+    return yailBinding;
+  }
+
+  private static YailDictionary makeResultDictionary(List<String> vars,
+      List<YailDictionary> rows) {
+    YailDictionary result = new YailDictionary();
+    YailDictionary head = new YailDictionary();
+    head.put("vars", YailList.makeList(vars));
+    result.put("head", head);
+    result.put("results", YailList.makeList(rows));
+    return result;
+  }
+
+  private void attachChangeListener() {
+    Model base = basemodel == null ? null : basemodel.getModel();
+    if (base == observedModel) {
+      return;
+    }
+    detachChangeListener();
+    if (base != null) {
+      base.register(changeListener);
+      observedModel = base;
+    }
+  }
+
+  private void detachChangeListener() {
+    if (observedModel != null) {
+      observedModel.unregister(changeListener);
+      observedModel = null;
+    }
+    synchronized (pendingAdditions) {
+      pendingAdditions.clear();
+      pendingRebuild = false;
+    }
+  }
+
+  /**
+   * Records a change to the base model and schedules propagation if none is pending.
+   *
+   * @param added the added triple, or null if statements were removed
+   */
+  private void enqueueChange(Triple added) {
+    if (Thread.currentThread() == propagationThread) {
+      // Echo of a triple we are passing to the inference graph ourselves.
+      return;
+    }
+    synchronized (pendingAdditions) {
+      if (added == null) {
+        pendingRebuild = true;
+      } else {
+        pendingAdditions.add(added);
+      }
+      if (propagationScheduled) {
+        return;
+      }
+      propagationScheduled = true;
+    }
+    AsynchUtil.runAsynchronously(new Runnable() {
+      @Override
+      public void run() {
+        propagateChanges();
+      }
+    });
+  }
+
+  private void propagateChanges() {
+    propagationThread = Thread.currentThread();
+    try {
+      while (true) {
+        List<Triple> additions;
+        boolean rebuild;
+        synchronized (pendingAdditions) {
+          if (pendingAdditions.isEmpty() && !pendingRebuild) {
+            propagationScheduled = false;
+            return;
+          }
+          additions = new ArrayList<>(pendingAdditions);
+          rebuild = pendingRebuild;
+          pendingAdditions.clear();
+          pendingRebuild = false;
+        }
+        final int[] counts = applyChanges(additions, rebuild);
+        form.runOnUiThread(new Runnable() {
+          @Override
+          public void run() {
+            InferencesUpdated(counts[0], counts[1]);
+          }
+        });
+      }
+    } catch (final Exception e) {
+      synchronized (pendingAdditions) {
+        pendingAdditions.clear();
+        pendingRebuild = false;
+        propagationScheduled = false;
+      }
+      form.runOnUiThread(new Runnable() {
+        @Override
+        public void run() {
+          ErrorOccurred(e.toString());
+        }
+      });
+    } finally {
+      propagationThread = null;
+    }
+  }
+
+  /**
+   * Applies a batch of changes to the inference graph.
+   *
+   * @param additions triples added to the base model
+   * @param rebuild true if statements were removed from the base model
+   * @return the number of inferences added and retracted
+   */
+  private int[] applyChanges(List<Triple> additions, boolean rebuild) {
+    InfModel current = model;
+    if (current == null || !(current.getGraph() instanceof InfGraph)) {
+      return new int[] {0, 0};
+    }
+    InfGraph graph = (InfGraph) current.getGraph();
+    synchronized (graph) {
+      if (rebuild || !(graph instanceof BasicForwardRuleInfGraph)) {
+        Set<Triple> before = snapshot(graph.getDeductionsGraph());
+        graph.rebind();
+        graph.prepare();
+        Set<Triple> after = snapshot(graph.getDeductionsGraph());
+        int added = 0;
+        for (Triple t : after) {
+          if (!before.remove(t)) {
+            added++;
+          }
+        }
+        return new int[] {added, before.size()};
+      }
+      Graph raw = graph.getRawGraph();
+      int before = size(graph.getDeductionsGraph());
+      for (Triple t : additions) {
+        // Skip triples removed again before we got to them; adding them would restore them.
+        if (raw.contains(t)) {
+          graph.add(t);
+        }
+      }
+      graph.prepare();
+      return new int[] {Math.max(0, size(graph.getDeductionsGraph()) - before), 0};
+    }
+  }
+
+  private static Set<Triple> snapshot(Graph graph) {
+    return graph == null ? new HashSet<Triple>() : graph.find(Triple.ANY).toSet();
+  }
+
+  private static int size(Graph graph) {
+    return graph == null ? 0 : graph.size();
+  }
+
   private List<Rule> loadRules(String filename) throws IOException {
     InputStream in = null;
     try {
@@ -4,6 +4,7 @@ import android.content.Intent;
 import android.graphics.Color;
 import android.os.Binder;
 import android.os.Bundle;
+import android.os.Handler;
 import android.os.IBinder;
 import android.os.Parcel;
 import android.os.Parcelable;
@@ -13,6 +14,7 @@ import android.text.TextWatcher;
 import android.util.Log;
 import android.view.KeyEvent;
 import android.view.View;
+import android.widget.AbsListView;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.EditText;
@@ -34,14 +36,54 @@ public class SWListActivity extends AppInventorCompatActivity {
 
   private static final String LOG_TAG = SWListActivity.class.getSimpleName();
 
+  // Transactions sent to the DataSource
+  private static final int QUERY_TRANSACTION = IBinder.FIRST_CALL_TRANSACTION;
+  private static final int PAGE_QUERY_TRANSACTION = IBinder.FIRST_CALL_TRANSACTION + 1;
+
+  // Transactions sent to the DataCallback
+  private static final int RESULTS_TRANSACTION = IBinder.FIRST_CALL_TRANSACTION;
+  private static final int DONE_TRANSACTION = IBinder.FIRST_CALL_TRANSACTION + 1;
+  private static final int PAGE_TRANSACTION = IBinder.FIRST_CALL_TRANSACTION + 2;
+
+  // Delay after the last keystroke before a paged list is filtered by the endpoint
+  private static final long FILTER_DELAY_MS = 300;
+
+  // Number of rows from the end of a paged list at which the next page is requested
+  private static final int PAGE_THRESHOLD = 10;
+
   public abstract static class DataSource extends Binder {
     interface Completion {
       void onResultsAvailable(List<LabeledUri> results, boolean first);
       void done();
     }
+    interface PageCompletion {
+      void onPage(String filter, int page, List<LabeledUri> results, boolean hasMore);
+    }
     @Override
     protected boolean onTransact(int code, @NonNull Parcel data, @Nullable Parcel reply, int flags) {
       final IBinder callback = data.readStrongBinder();
+      if (code == PAGE_QUERY_TRANSACTION) {
+        String filter = data.readString();
+        performPageQuery(filter, data.readInt(), new PageCompletion() {
+          @Override
+          public void onPage(String filter, int page, List<LabeledUri> results, boolean hasMore) {
+            Parcel parcel = Parcel.obtain();
+            parcel.writeString(filter);
+            parcel.writeInt(page);
+            parcel.writeInt(hasMore ? 1 : 0);
+            parcel.writeInt(results.size());
+            for (LabeledUri uri : results) {
+              parcel.writeTypedObject(uri, 0);
+            }
+            try {
+              callback.transact(PAGE_TRANSACTION, parcel, null, 0);
+            } catch (RemoteException e) {
+              e.printStackTrace();
+            }
+          }
+        });
+        return true;
+      }
       performQuery(data.readString(), new Completion() {
         @Override
         public void onResultsAvailable(List<LabeledUri> results, boolean first) {
@@ -52,7 +94,7 @@ public class SWListActivity extends AppInventorCompatActivity {
             parcel.writeTypedObject(uri, 0);
           }
           try {
-            callback.transact(FIRST_CALL_TRANSACTION, parcel, null, 0);
+            callback.transact(RESULTS_TRANSACTION, parcel, null, 0);
           } catch (RemoteException e) {
             e.printStackTrace();
           }
@@ -62,7 +104,7 @@ public class SWListActivity extends AppInventorCompatActivity {
         public void done() {
           Parcel parcel = Parcel.obtain();
           try {
-            callback.transact(FIRST_CALL_TRANSACTION + 1, parcel, null, 0);
+            callback.transact(DONE_TRANSACTION, parcel, null, 0);
           } catch (RemoteException e) {
             e.printStackTrace();
           }
@@ -72,13 +114,38 @@ public class SWListActivity extends AppInventorCompatActivity {
     }
 
     abstract void performQuery(String query, Completion completion);
+
+    /**
+     * Loads one page of items matching a filter. Sources that do not support paging report an
+     * empty last page.
+     */
+    void performPageQuery(String filter, int page, PageCompletion completion) {
+      completion.onPage(filter, page, new ArrayList<LabeledUri>(), false);
+    }
   }
 
   private class DataCallback extends Binder {
     @Override
     protected boolean onTransact(int code, @NonNull Parcel data, @Nullable Parcel reply, int flags) throws RemoteException {
       switch (code) {
-        case FIRST_CALL_TRANSACTION:
+        case PAGE_TRANSACTION:
+          final String filter = data.readString();
+          final int page = data.readInt();
+          final boolean more = data.readInt() == 1;
+          int count = data.readInt();
+          final List<LabeledUri> pageItems = new ArrayList<>(count);
+          while (count > 0) {
+            pageItems.add(data.readTypedObject(LabeledUri.CREATOR));
+            count--;
+          }
+          runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+              onPageReceived(filter, page, pageItems, more);
+            }
+          });
+          break;
+        case RESULTS_TRANSACTION:
           if (data.readInt() == 1) {
             items.clear();
           }
@@ -88,7 +155,7 @@ public class SWListActivity extends AppInventorCompatActivity {
             numItems--;
           }
           break;
-        case FIRST_CALL_TRANSACTION + 1:
+        case DONE_TRANSACTION:
           runOnUiThread(new Runnable() {
             @Override
             public void run() {
@@ -168,6 +235,19 @@ public class SWListActivity extends AppInventorCompatActivity {
   private IBinder source;
   private ArrayAdapter<LabeledUri> listAdapter;
   private ListView listView;
+  private final Handler handler = new Handler();
+  private boolean paged = false;
+  private String currentFilter = "";
+  private int nextPage = 0;
+  private boolean hasMore = false;
+  private boolean loading = false;
+
+  private final Runnable applyFilter = new Runnable() {
+    @Override
+    public void run() {
+      requestPage(currentFilter, 0);
+    }
+  };
 
   @Override
   public void onCreate(Bundle savedInstanceState) {
@@ -191,7 +271,14 @@ public class SWListActivity extends AppInventorCompatActivity {
 
       @Override
       public void onTextChanged(CharSequence s, int start, int before, int count) {
-        listAdapter.getFilter().filter(s);
+        if (paged) {
+          // Wait for the user to stop typing before asking the endpoint.
+          currentFilter = s.toString().trim();
+          handler.removeCallbacks(applyFilter);
+          handler.postDelayed(applyFilter, FILTER_DELAY_MS);
+        } else {
+          listAdapter.getFilter().filter(s);
+        }
       }
 
       @Override
@@ -209,9 +296,24 @@ public class SWListActivity extends AppInventorCompatActivity {
         onListItemClick(SWListActivity.this.listView, view, position, id);
       }
     });
+    listView.setOnScrollListener(new AbsListView.OnScrollListener() {
+      @Override
+      public void onScrollStateChanged(AbsListView view, int scrollState) {
+      }
+
+      @Override
+      public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
+          int totalItemCount) {
+        if (paged && hasMore && !loading
+            && firstVisibleItem + visibleItemCount >= totalItemCount - PAGE_THRESHOLD) {
+          requestPage(currentFilter, nextPage);
+        }
+      }
+    });
     setContentView(viewLayout);
 
     Intent myIntent = getIntent();
+    paged = myIntent.getBooleanExtra(LinkedDataListPicker.SWLIST_ACTIVITY_PAGED, false);
     if (myIntent.hasExtra(LinkedDataListPicker.SWLIST_ACTIVITY_ANIM_TYPE)) {
       closeAnim = myIntent.getStringExtra(LinkedDataListPicker.SWLIST_ACTIVITY_ANIM_TYPE);
     }
@@ -222,7 +324,9 @@ public class SWListActivity extends AppInventorCompatActivity {
         listAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1);
         listView.setAdapter(listAdapter);
         source = callbackBundle.getBinder("binder");
-        if (source != null) {
+        if (source != null && paged) {
+          requestPage("", 0);
+        } else if (source != null) {
           Parcel parcel = Parcel.obtain();
           parcel.writeStrongBinder(new DataCallback());
           parcel.writeString("");
@@ -245,6 +349,53 @@ public class SWListActivity extends AppInventorCompatActivity {
     }
   }
 
+  /**
+   * Asks the data source for a page of a paged list.
+   */
+  private void requestPage(String filter, int page) {
+    if (source == null) {
+      return;
+    }
+    loading = true;
+    Parcel parcel = Parcel.obtain();
+    parcel.writeStrongBinder(new DataCallback());
+    parcel.writeString(filter);
+    parcel.writeInt(page);
+    try {
+      source.transact(PAGE_QUERY_TRANSACTION, parcel, null, 0);
+    } catch (RemoteException e) {
+      loading = false;
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Adds a page to the list, ignoring pages for a filter the user has since changed.
+   */
+  private void onPageReceived(String filter, int page, List<LabeledUri> pageItems,
+      boolean more) {
+    if (!filter.equals(currentFilter)) {
+      return;
+    }
+    if (page == 0) {
+      listAdapter.clear();
+      nextPage = 0;
+    } else if (page != nextPage) {
+      return;
+    }
+    Log.d(LOG_TAG, "Adding page " + page + " with " + pageItems.size() + " items");
+    listAdapter.addAll(pageItems);
+    nextPage = page + 1;
+    hasMore = more;
+    loading = false;
+  }
+
+  @Override
+  protected void onDestroy() {
+    handler.removeCallbacks(applyFilter);
+    super.onDestroy();
+  }
+
   @Override
   public boolean onKeyDown(int keyCode, KeyEvent event) {
     if (keyCode == KeyEvent.KEYCODE_BACK) {
@@ -0,0 +1,336 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import android.util.Log;
+import com.google.appinventor.components.runtime.EventDispatcher;
+import com.google.appinventor.components.runtime.HandlesEventDispatching;
+import gnu.mapping.Symbol;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Measures the time spent in each event handler and procedure of an app, so that the blocks
+ * editor can show which blocks are hot while the app runs in the companion.
+ *
+ * <p>The YAIL runtime brackets each event handler and procedure call with {@link #start()},
+ * {@link #heapUsed()} and one of the {@code stop} methods. While the profiler is off, these
+ * return at once. While it is on, each call adds a sample to a fixed buffer, which is folded
+ * into the totals for each block when it fills up or when a profile is taken, so that
+ * recording a call does not allocate.</p>
+ *
+ * <p>The allocation figure is estimated from the growth of the used heap during the call. The
+ * VM hands heap to threads in chunks, and a garbage collection during the call hides what it
+ * allocated, so the figure is only a rough guide to which blocks allocate the most.</p>
+ *
+ * <p>Calls that end with an error are not recorded.</p>
+ */
+public final class BlockProfiler {
+  private static final String LOG_TAG = "BlockProfiler";
+
+  /**
+   * Number of samples held before they are folded into the totals.
+   */
+  static final int BUFFER_SIZE = 1024;
+
+  private static final String PROCEDURE_PREFIX = "p$";
+  private static final String GENERIC_EVENT_PREFIX = "any$";
+
+  private static volatile boolean enabled = false;
+
+  // Everything below is guarded by lock.
+  private static final Object lock = new Object();
+
+  private static final int[] sampleBlocks = new int[BUFFER_SIZE];
+  private static final long[] sampleNanos = new long[BUFFER_SIZE];
+  private static final long[] sampleBytes = new long[BUFFER_SIZE];
+  private static int sampleCount = 0;
+
+  private static final Map<String, Integer> blockIds = new HashMap<String, Integer>();
+  private static String[] blockNames = new String[16];
+  private static long[] callCounts = new long[16];
+  private static long[] totalNanos = new long[16];
+  private static long[] maxNanos = new long[16];
+  private static long[] allocatedBytes = new long[16];
+  private static int blockCount = 0;
+
+  private static Timer timer;
+
+  // Prevent instantiation, we are only called statically
+  private BlockProfiler() {
+  }
+
+  /**
+   * Turns the profiler on or off. Turning it on clears the totals and also turns on the
+   * dispatch statistics of {@link EventDispatcher}.
+   *
+   * @param on whether to record calls
+   */
+  public static void setEnabled(boolean on) {
+    synchronized (lock) {
+      if (on && !enabled) {
+        clear();
+      }
+      enabled = on;
+    }
+    EventDispatcher.setRecordDispatchStats(on);
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the time at which a call starts, or 0 if the profiler is off.
+   */
+  public static long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Returns the number of bytes in use on the heap, or 0 if the profiler is off.
+   */
+  public static long heapUsed() {
+    if (!enabled) {
+      return 0;
+    }
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Records the end of a call to a procedure or a generic event handler.
+   *
+   * @param block the name of the procedure or handler, as a string or a symbol
+   * @param start the value returned by {@link #start()} when the call started
+   * @param heap the value returned by {@link #heapUsed()} when the call started
+   */
+  public static void stop(Object block, long start, long heap) {
+    if (start == 0) {
+      return;
+    }
+    long nanos = System.nanoTime() - start;
+    long bytes = Math.max(0, heapUsed() - heap);
+    String name = block instanceof Symbol ? ((Symbol) block).getName() : block.toString();
+    record(name, nanos, bytes);
+  }
+
+  /**
+   * Records the end of a call to the event handler for the given component and event.
+   *
+   * @param componentName the name of the component, as registered for the event
+   * @param eventName the name of the event
+   * @param start the value returned by {@link #start()} when the call started
+   * @param heap the value returned by {@link #heapUsed()} when the call started
+   */
+  public static void stopEvent(String componentName, String eventName, long start, long heap) {
+    if (start == 0) {
+      return;
+    }
+    long nanos = System.nanoTime() - start;
+    long bytes = Math.max(0, heapUsed() - heap);
+    record(EventDispatcher.makeFullEventName(componentName, eventName), nanos, bytes);
+  }
+
+  private static void record(String name, long nanos, long bytes) {
+    synchronized (lock) {
+      if (!enabled) {
+        // Turned off during the call.
+        return;
+      }
+      if (sampleCount == BUFFER_SIZE) {
+        fold();
+      }
+      sampleBlocks[sampleCount] = blockId(name);
+      sampleNanos[sampleCount] = nanos;
+      sampleBytes[sampleCount] = bytes;
+      sampleCount++;
+    }
+  }
+
+  private static int blockId(String name) {
+    Integer id = blockIds.get(name);
+    if (id != null) {
+      return id;
+    }
+    if (blockCount == blockNames.length) {
+      int length = blockCount * 2;
+      blockNames = Arrays.copyOf(blockNames, length);
+      callCounts = Arrays.copyOf(callCounts, length);
+      totalNanos = Arrays.copyOf(totalNanos, length);
+      maxNanos = Arrays.copyOf(maxNanos, length);
+      allocatedBytes = Arrays.copyOf(allocatedBytes, length);
+    }
+    blockNames[blockCount] = name;
+    blockIds.put(name, blockCount);
+    return blockCount++;
+  }
+
+  private static void fold() {
+    for (int i = 0; i < sampleCount; i++) {
+      int id = sampleBlocks[i];
+      callCounts[id]++;
+      totalNanos[id] += sampleNanos[i];
+      maxNanos[id] = Math.max(maxNanos[id], sampleNanos[i]);
+      allocatedBytes[id] += sampleBytes[i];
+    }
+    sampleCount = 0;
+  }
+
+  /**
+   * Clears the totals, and the dispatch statistics of the given form.
+   *
+   * @param form the form being profiled, or null for none
+   */
+  public static void reset(HandlesEventDispatching form) {
+    synchronized (lock) {
+      clear();
+    }
+    if (form != null) {
+      EventDispatcher.resetDispatchStats(form);
+    }
+  }
+
+  private static void clear() {
+    sampleCount = 0;
+    blockIds.clear();
+    Arrays.fill(blockNames, null);
+    Arrays.fill(callCounts, 0);
+    Arrays.fill(totalNanos, 0);
+    Arrays.fill(maxNanos, 0);
+    Arrays.fill(allocatedBytes, 0);
+    blockCount = 0;
+  }
+
+  /**
+   * Returns the profile recorded since the profiler was turned on, as a JSON object.
+   *
+   * <p>Its {@code blocks} are the event handlers and procedures that have been called, with the
+   * most total time first. Each has a {@code name}, a {@code kind} of {@code "event"},
+   * {@code "genericEvent"} or {@code "procedure"}, and the {@code calls}, {@code totalMs},
+   * {@code maxMs} and {@code allocatedBytes} of its calls. Its {@code dispatches} are the
+   * {@link EventDispatcher.DispatchStats} of the events of the given form that have been
+   * raised.</p>
+   *
+   * @param form the form whose event dispatches to include, or null for none
+   * @return the profile
+   */
+  public static String getProfile(HandlesEventDispatching form) {
+    JSONObject profile = new JSONObject();
+    try {
+      profile.put("enabled", enabled);
+      profile.put("blocks", getBlocks());
+      JSONArray dispatches = new JSONArray();
+      if (form != null) {
+        for (EventDispatcher.DispatchStats stats : EventDispatcher.getDispatchStats(form)) {
+          if (stats.getDispatchCount() > 0) {
+            JSONObject dispatch = new JSONObject();
+            dispatch.put("event", stats.getEventName());
+            dispatch.put("count", stats.getDispatchCount());
+            dispatch.put("totalMs", toMillis(stats.getTotalNanos()));
+            dispatch.put("maxMs", toMillis(stats.getMaxNanos()));
+            dispatches.put(dispatch);
+          }
+        }
+      }
+      profile.put("dispatches", dispatches);
+    } catch (JSONException e) {
+      Log.e(LOG_TAG, "Error building profile", e);
+    }
+    return profile.toString();
+  }
+
+  private static JSONArray getBlocks() throws JSONException {
+    JSONArray blocks = new JSONArray();
+    synchronized (lock) {
+      fold();
+      Integer[] ids = new Integer[blockCount];
+      for (int id = 0; id < blockCount; id++) {
+        ids[id] = id;
+      }
+      Arrays.sort(ids, new Comparator<Integer>() {
+        @Override
+        public int compare(Integer a, Integer b) {
+          long ta = totalNanos[a];
+          long tb = totalNanos[b];
+          return ta < tb ? 1 : ta > tb ? -1 : 0;
+        }
+      });
+      for (int id : ids) {
+        String name = blockNames[id];
+        JSONObject block = new JSONObject();
+        if (name.startsWith(PROCEDURE_PREFIX)) {
+          block.put("name", name.substring(PROCEDURE_PREFIX.length()));
+          block.put("kind", "procedure");
+        } else if (name.startsWith(GENERIC_EVENT_PREFIX)) {
+          block.put("name", name.substring(GENERIC_EVENT_PREFIX.length()));
+          block.put("kind", "genericEvent");
+        } else {
+          block.put("name", name);
+          block.put("kind", "event");
+        }
+        block.put("calls", callCounts[id]);
+        block.put("totalMs", toMillis(totalNanos[id]));
+        block.put("maxMs", toMillis(maxNanos[id]));
+        block.put("allocatedBytes", allocatedBytes[id]);
+        blocks.put(block);
+      }
+    }
+    return blocks;
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1000000.0;
+  }
+
+  /**
+   * Turns the profiler on and sends the profile of the given form to the blocks editor every
+   * periodMillis milliseconds, until {@link #stopStreaming(HandlesEventDispatching)} is called.
+   *
+   * @param form the form being profiled
+   * @param periodMillis the time between profiles
+   */
+  public static void startStreaming(final HandlesEventDispatching form, long periodMillis) {
+    setEnabled(true);
+    reset(form);
+    synchronized (lock) {
+      if (timer != null) {
+        timer.cancel();
+      }
+      timer = new Timer(LOG_TAG, true);
+      timer.schedule(new TimerTask() {
+        @Override
+        public void run() {
+          RetValManager.sendProfile(getProfile(form));
+        }
+      }, periodMillis, periodMillis);
+    }
+  }
+
+  /**
+   * Stops sending profiles, sends the final profile of the given form and turns the profiler
+   * off.
+   *
+   * @param form the form being profiled
+   */
+  public static void stopStreaming(HandlesEventDispatching form) {
+    synchronized (lock) {
+      if (timer != null) {
+        timer.cancel();
+        timer = null;
+      }
+    }
+    RetValManager.sendProfile(getProfile(form));
+    setEnabled(false);
+  }
+}
@@ -0,0 +1,293 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.eclipse.californium.core.coap.BlockOption;
+import org.eclipse.californium.core.coap.CoAP;
+import org.eclipse.californium.core.coap.EmptyMessage;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.Endpoint;
+import org.eclipse.californium.core.network.interceptors.MessageInterceptor;
+
+/**
+ * Reads CoAP resources block by block (RFC 7959), handing each block to a listener as soon as
+ * it arrives instead of assembling the whole representation first.
+ *
+ * <p>Californium's block-wise layer gathers every block of a response that starts at block 0
+ * before delivering it. To stream, the reader watches the responses arriving at its endpoint,
+ * takes the first block of a multi-block response itself and cancels the request so that the
+ * layer does not fetch the rest. Later blocks are requested by number, which the layer passes
+ * through unchanged. All requests go through a {@link CoapPipeline}, so the blocks of several
+ * transfers can be in flight at once.</p>
+ *
+ * <p>Payloads are decoded as UTF-8. A character split between two blocks is delivered with the
+ * block in which it ends. If the ETag of the resource changes during a transfer the transfer
+ * fails, since the blocks would come from different representations.</p>
+ */
+public class CoapBlockReader {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /**
+   * Receives the blocks of a transfer. Callbacks are made on the endpoint's threads, one at a
+   * time and in order for each transfer.
+   */
+  public interface Listener {
+    /**
+     * @param num the number of the block, counted in blocks of the size used by the server
+     * @param text the decoded text of the block
+     * @param more true if more blocks follow
+     */
+    void onBlock(int num, String text, boolean more);
+
+    /**
+     * Called instead of further blocks when the transfer cannot be completed.
+     *
+     * @param reason the response code, or why no response was received
+     */
+    void onFailure(String reason);
+  }
+
+  private final CoapPipeline pipeline;
+  // Transfers whose first request has been sent and not yet answered.
+  private final List<Transfer> starting = new CopyOnWriteArrayList<>();
+
+  /**
+   * @param endpoint the endpoint that the pipeline sends requests through
+   * @param pipeline the pipeline used to send requests
+   */
+  public CoapBlockReader(Endpoint endpoint, CoapPipeline pipeline) {
+    this.pipeline = pipeline;
+    endpoint.addInterceptor(new FirstBlockInterceptor());
+  }
+
+  /**
+   * Starts reading a resource.
+   *
+   * @param uri the URI of the resource
+   * @param accept the content format to request, or -1 for none
+   * @param blockSize the preferred block size, a power of two from 16 to 1024
+   * @param listener receives the blocks
+   * @throws IllegalArgumentException if the block size is not valid
+   */
+  public void read(String uri, int accept, int blockSize, Listener listener) {
+    if (!isValidBlockSize(blockSize)) {
+      throw new IllegalArgumentException("Invalid block size: " + blockSize);
+    }
+    new Transfer(uri, accept, listener).start(BlockOption.size2Szx(blockSize));
+  }
+
+  /**
+   * @param blockSize a block size in bytes
+   * @return true if the size is a power of two from 16 to 1024
+   */
+  public static boolean isValidBlockSize(int blockSize) {
+    return blockSize >= 16 && blockSize <= 1024 && Integer.bitCount(blockSize) == 1;
+  }
+
+  private class Transfer {
+    private final String uri;
+    private final int accept;
+    private final Listener listener;
+    private final CharsetDecoder decoder = UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private byte[] partial = null;
+    private Request first;
+    private boolean streaming = false;
+    private boolean finished = false;
+    private byte[] etag = null;
+    private int offset = 0;
+
+    private Transfer(String uri, int accept, Listener listener) {
+      this.uri = uri;
+      this.accept = accept;
+      this.listener = listener;
+    }
+
+    private void start(int szx) {
+      first = newRequest(szx, 0);
+      starting.add(this);
+      pipeline.send(first, new CoapPipeline.Callback() {
+        @Override
+        public void onResponse(Response response) {
+          starting.remove(Transfer.this);
+          // The whole representation fit in one response, or the server ignored the option.
+          if (CoAP.ResponseCode.isSuccess(response.getCode())) {
+            deliver(response.getPayload(), 0, false);
+          } else {
+            fail(response.getCode().toString());
+          }
+        }
+
+        @Override
+        public void onFailure(String reason) {
+          starting.remove(Transfer.this);
+          synchronized (Transfer.this) {
+            if (streaming) {
+              // We canceled the request after taking its first block.
+              return;
+            }
+          }
+          fail(reason);
+        }
+      });
+    }
+
+    /**
+     * Takes the first block of a multi-block response before the block-wise layer sees it.
+     */
+    private void intercept(Response response) {
+      BlockOption block2 = response.getOptions().getBlock2();
+      if (block2 == null || !block2.isM() || block2.getNum() != 0
+          || !CoAP.ResponseCode.isSuccess(response.getCode())) {
+        return;
+      }
+      synchronized (this) {
+        if (streaming) {
+          return;  // a duplicate
+        }
+        streaming = true;
+      }
+      starting.remove(this);
+      first.cancel();
+      receive(response);
+    }
+
+    private void receive(Response response) {
+      BlockOption block2 = response.getOptions().getBlock2();
+      byte[] tag = response.getOptions().getETagCount() > 0
+          ? response.getOptions().getETags().get(0) : null;
+      if (offset == 0) {
+        etag = tag;
+      } else if (!Arrays.equals(etag, tag)) {
+        fail("Resource changed during transfer");
+        return;
+      }
+      if (block2 == null || block2.getNum() * block2.getSize() != offset) {
+        fail("Unexpected block " + block2);
+        return;
+      }
+      byte[] payload = response.getPayload();
+      offset += payload.length;
+      deliver(payload, block2.getNum(), block2.isM());
+      if (block2.isM()) {
+        // The server may have chosen a smaller block size than we asked for.
+        pipeline.send(newRequest(block2.getSzx(), offset / block2.getSize()),
+            new CoapPipeline.Callback() {
+              @Override
+              public void onResponse(Response response) {
+                if (CoAP.ResponseCode.isSuccess(response.getCode())) {
+                  receive(response);
+                } else {
+                  fail(response.getCode().toString());
+                }
+              }
+
+              @Override
+              public void onFailure(String reason) {
+                fail(reason);
+              }
+            });
+      }
+    }
+
+    private Request newRequest(int szx, int num) {
+      Request request = Request.newGet();
+      request.setURI(uri);
+      if (accept >= 0) {
+        request.getOptions().setAccept(accept);
+      }
+      request.getOptions().setBlock2(szx, false, num);
+      return request;
+    }
+
+    private void deliver(byte[] payload, int num, boolean more) {
+      String text = decode(payload, !more);
+      synchronized (this) {
+        if (finished) {
+          return;
+        }
+        finished = !more;
+      }
+      listener.onBlock(num, text, more);
+    }
+
+    private void fail(String reason) {
+      synchronized (this) {
+        if (finished) {
+          return;
+        }
+        finished = true;
+      }
+      listener.onFailure(reason);
+    }
+
+    private String decode(byte[] payload, boolean last) {
+      ByteBuffer in;
+      if (partial == null) {
+        in = ByteBuffer.wrap(payload);
+      } else {
+        in = ByteBuffer.allocate(partial.length + payload.length);
+        in.put(partial).put(payload);
+        in.flip();
+      }
+      CharBuffer out = CharBuffer.allocate(in.remaining() + 1);
+      decoder.decode(in, out, last);
+      if (last) {
+        decoder.flush(out);
+      }
+      partial = null;
+      if (in.hasRemaining()) {
+        partial = new byte[in.remaining()];
+        in.get(partial);
+      }
+      out.flip();
+      return out.toString();
+    }
+  }
+
+  private class FirstBlockInterceptor implements MessageInterceptor {
+    @Override
+    public void receiveResponse(Response response) {
+      for (Transfer transfer : starting) {
+        if (Arrays.equals(response.getToken(), transfer.first.getToken())) {
+          transfer.intercept(response);
+          return;
+        }
+      }
+    }
+
+    @Override
+    public void sendRequest(Request request) {
+    }
+
+    @Override
+    public void sendResponse(Response response) {
+    }
+
+    @Override
+    public void sendEmptyMessage(EmptyMessage message) {
+    }
+
+    @Override
+    public void receiveRequest(Request request) {
+    }
+
+    @Override
+    public void receiveEmptyMessage(EmptyMessage message) {
+    }
+  }
+}
@@ -0,0 +1,207 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import org.eclipse.californium.core.coap.MessageObserverAdapter;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.Endpoint;
+
+/**
+ * Sends CoAP requests through one endpoint with several requests outstanding at once.
+ *
+ * <p>Requests are sent as soon as they are submitted, without waiting for the responses to
+ * earlier ones, until a limit of outstanding requests is reached. Further requests wait in
+ * order and are sent as responses arrive. Responses are matched to their requests by the
+ * endpoint using the message tokens, so they may arrive in any order.</p>
+ *
+ * <p>A request counts against the limit until it gets its final response, is rejected, times
+ * out or is canceled. Observe relations should not be sent through a pipeline, since their
+ * requests are never complete.</p>
+ */
+public class CoapPipeline {
+
+  /**
+   * Receives the outcome of a request. Callbacks are made on the endpoint's threads.
+   */
+  public interface Callback {
+    /**
+     * @param response the response, with its payload assembled if it was sent in blocks
+     */
+    void onResponse(Response response);
+
+    /**
+     * @param reason why no response was received
+     */
+    void onFailure(String reason);
+  }
+
+  private static class Pending {
+    private final Request request;
+    private final Callback callback;
+
+    private Pending(Request request, Callback callback) {
+      this.request = request;
+      this.callback = callback;
+    }
+  }
+
+  private final Endpoint endpoint;
+  private final Queue<Pending> queued = new ArrayDeque<>();
+  private final List<Request> outstanding = new ArrayList<>();
+  private int maxOutstanding;
+
+  /**
+   * @param endpoint the started endpoint used to send requests
+   * @param maxOutstanding the number of requests that may await a response at once
+   * @throws IllegalArgumentException if maxOutstanding is less than 1
+   */
+  public CoapPipeline(Endpoint endpoint, int maxOutstanding) {
+    this.endpoint = endpoint;
+    setMaxOutstanding(maxOutstanding);
+  }
+
+  /**
+   * Sends a request, or queues it if the limit of outstanding requests has been reached.
+   *
+   * @param request the request, with its URI set
+   * @param callback receives the response
+   */
+  public void send(Request request, Callback callback) {
+    Pending pending = new Pending(request, callback);
+    synchronized (this) {
+      if (outstanding.size() >= maxOutstanding) {
+        queued.add(pending);
+        return;
+      }
+      outstanding.add(request);
+    }
+    dispatch(pending);
+  }
+
+  /**
+   * @return the number of requests sent and awaiting a response
+   */
+  public synchronized int getOutstanding() {
+    return outstanding.size();
+  }
+
+  /**
+   * @return the number of requests waiting to be sent
+   */
+  public synchronized int getQueued() {
+    return queued.size();
+  }
+
+  public synchronized int getMaxOutstanding() {
+    return maxOutstanding;
+  }
+
+  /**
+   * Changes the limit of outstanding requests. Raising it sends queued requests at once;
+   * lowering it does not affect requests already sent.
+   *
+   * @param maxOutstanding the number of requests that may await a response at once
+   * @throws IllegalArgumentException if maxOutstanding is less than 1
+   */
+  public void setMaxOutstanding(int maxOutstanding) {
+    if (maxOutstanding < 1) {
+      throw new IllegalArgumentException("At least one request must be allowed");
+    }
+    synchronized (this) {
+      this.maxOutstanding = maxOutstanding;
+    }
+    sendQueued();
+  }
+
+  /**
+   * Cancels all outstanding and queued requests. Their callbacks receive a failure.
+   */
+  public void cancelAll() {
+    List<Request> sent;
+    List<Pending> waiting;
+    synchronized (this) {
+      sent = new ArrayList<>(outstanding);
+      waiting = new ArrayList<>(queued);
+      queued.clear();
+    }
+    for (Pending pending : waiting) {
+      pending.callback.onFailure("Canceled");
+    }
+    for (Request request : sent) {
+      request.cancel();
+    }
+  }
+
+  private void dispatch(final Pending pending) {
+    pending.request.addMessageObserver(new MessageObserverAdapter() {
+      @Override
+      public void onResponse(Response response) {
+        // Notifications after the first response of an observe request are not ours to count.
+        if (complete(pending.request)) {
+          pending.callback.onResponse(response);
+        }
+      }
+
+      @Override
+      public void onReject() {
+        fail("Rejected");
+      }
+
+      @Override
+      public void onTimeout() {
+        fail("Timed out");
+      }
+
+      @Override
+      public void onCancel() {
+        fail("Canceled");
+      }
+
+      private void fail(String reason) {
+        if (complete(pending.request)) {
+          pending.callback.onFailure(reason);
+        }
+      }
+    });
+    try {
+      endpoint.sendRequest(pending.request);
+    } catch (RuntimeException e) {
+      // The endpoint has been stopped.
+      if (complete(pending.request)) {
+        pending.callback.onFailure(e.toString());
+      }
+    }
+  }
+
+  private boolean complete(Request request) {
+    synchronized (this) {
+      if (!outstanding.remove(request)) {
+        return false;
+      }
+    }
+    sendQueued();
+    return true;
+  }
+
+  private void sendQueued() {
+    while (true) {
+      Pending next;
+      synchronized (this) {
+        if (queued.isEmpty() || outstanding.size() >= maxOutstanding) {
+          return;
+        }
+        next = queued.remove();
+        outstanding.add(next.request);
+      }
+      dispatch(next);
+    }
+  }
+}
@@ -0,0 +1,302 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.graph.GraphEvents;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.graph.TripleMatch;
+import com.hp.hpl.jena.graph.impl.GraphBase;
+import com.hp.hpl.jena.shared.JenaException;
+import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+import com.hp.hpl.jena.util.iterator.NiceIterator;
+import com.hp.hpl.jena.util.iterator.WrappedIterator;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A Jena graph persisted in a directory on disk. Terms are dictionary-encoded by a
+ * {@link NodeDictionary} and triples are kept in three memory-mapped {@link TripleIndex}es (SPO,
+ * POS and OSP) so that every triple pattern is answered by a range scan of one index rather than
+ * by loading the graph into the heap.
+ *
+ * <p>Changes are buffered in memory and merged into the index files when the buffer grows past
+ * a threshold, when {@link #sync()} is called, or when the graph is closed.</p>
+ *
+ * <p>Unlike Jena's in-memory graph, literals are matched by term rather than by value, so
+ * <code>"1"^^xsd:int</code> does not match <code>"1"^^xsd:integer</code>.</p>
+ */
+public class DiskGraph extends GraphBase {
+
+  private static final int DELTA_LIMIT = 8192;
+
+  private final NodeDictionary dictionary;
+  private final TripleIndex[] indexes;
+  private final List<TreeSet<TripleIndex.Key>> added = new ArrayList<>();
+  private final Set<TripleIndex.Key> removed = new HashSet<>();
+
+  /**
+   * Opens the graph stored in the given directory, creating it if necessary.
+   *
+   * @param directory the directory holding the store files
+   * @throws IOException if the store cannot be opened
+   */
+  public DiskGraph(File directory) throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Unable to create store directory " + directory);
+    }
+    dictionary = new NodeDictionary(directory);
+    indexes = new TripleIndex[] {
+        new TripleIndex(new File(directory, "spo.idx"), TripleIndex.SPO),
+        new TripleIndex(new File(directory, "pos.idx"), TripleIndex.POS),
+        new TripleIndex(new File(directory, "osp.idx"), TripleIndex.OSP)
+    };
+    for (TripleIndex index : indexes) {
+      added.add(new TreeSet<TripleIndex.Key>(index.comparator()));
+    }
+  }
+
+  @Override
+  public synchronized void performAdd(Triple t) {
+    try {
+      TripleIndex.Key key = new TripleIndex.Key(dictionary.getOrCreateId(t.getSubject()),
+          dictionary.getOrCreateId(t.getPredicate()), dictionary.getOrCreateId(t.getObject()));
+      if (removed.remove(key) || indexes[0].contains(key)) {
+        return;
+      }
+      for (TreeSet<TripleIndex.Key> delta : added) {
+        delta.add(key);
+      }
+      if (added.get(0).size() >= DELTA_LIMIT) {
+        merge();
+      }
+    } catch (IOException e) {
+      throw new JenaException("Unable to add triple to store", e);
+    }
+  }
+
+  @Override
+  public synchronized void performDelete(Triple t) {
+    try {
+      TripleIndex.Key key = lookup(t);
+      if (key == null) {
+        return;
+      }
+      if (added.get(0).contains(key)) {
+        for (TreeSet<TripleIndex.Key> delta : added) {
+          delta.remove(key);
+        }
+      } else if (indexes[0].contains(key)) {
+        removed.add(key);
+        if (removed.size() >= DELTA_LIMIT) {
+          merge();
+        }
+      }
+    } catch (IOException e) {
+      throw new JenaException("Unable to remove triple from store", e);
+    }
+  }
+
+  @Override
+  protected synchronized boolean graphBaseContains(Triple t) {
+    if (!t.isConcrete()) {
+      return super.graphBaseContains(t);
+    }
+    try {
+      TripleIndex.Key key = lookup(t);
+      return key != null && !removed.contains(key)
+          && (added.get(0).contains(key) || indexes[0].contains(key));
+    } catch (IOException e) {
+      throw new JenaException("Unable to read store", e);
+    }
+  }
+
+  @Override
+  protected synchronized int graphBaseSize() {
+    return indexes[0].size() - removed.size() + added.get(0).size();
+  }
+
+  @Override
+  protected synchronized ExtendedIterator<Triple> graphBaseFind(TripleMatch m) {
+    try {
+      long[] pattern = {
+          resolve(m.getMatchSubject()),
+          resolve(m.getMatchPredicate()),
+          resolve(m.getMatchObject())
+      };
+      if (pattern[0] == NodeDictionary.NO_ID || pattern[1] == NodeDictionary.NO_ID
+          || pattern[2] == NodeDictionary.NO_ID) {
+        return NiceIterator.emptyIterator();
+      }
+      int best = 0;
+      int bestLength = -1;
+      for (int i = 0; i < indexes.length; i++) {
+        int length = indexes[i].prefixLength(pattern);
+        if (length > bestLength) {
+          best = i;
+          bestLength = length;
+        }
+      }
+      List<TripleIndex.Key> pending = new ArrayList<>();
+      for (TripleIndex.Key key : added.get(best)) {
+        if (matches(key, pattern)) {
+          pending.add(key);
+        }
+      }
+      Set<TripleIndex.Key> tombstones = removed.isEmpty()
+          ? Collections.<TripleIndex.Key>emptySet() : new HashSet<TripleIndex.Key>(removed);
+      return WrappedIterator.createNoRemove(
+          new TripleIterator(indexes[best].find(pattern), pending.iterator(), tombstones));
+    } catch (IOException e) {
+      throw new JenaException("Unable to read store", e);
+    }
+  }
+
+  @Override
+  public synchronized void clear() {
+    try {
+      added.get(0).clear();
+      added.get(1).clear();
+      added.get(2).clear();
+      removed.clear();
+      for (TripleIndex index : indexes) {
+        index.clear();
+      }
+      dictionary.clear();
+    } catch (IOException e) {
+      throw new JenaException("Unable to clear store", e);
+    }
+    getEventManager().notifyEvent(this, GraphEvents.removeAll);
+  }
+
+  /**
+   * Merges buffered changes into the index files and flushes them to the storage device.
+   */
+  public synchronized void sync() {
+    try {
+      merge();
+      dictionary.sync();
+    } catch (IOException e) {
+      throw new JenaException("Unable to write store", e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      try {
+        merge();
+        dictionary.close();
+      } catch (IOException e) {
+        throw new JenaException("Unable to close store", e);
+      } finally {
+        super.close();
+      }
+    }
+  }
+
+  private void merge() throws IOException {
+    if (added.get(0).isEmpty() && removed.isEmpty()) {
+      return;
+    }
+    for (int i = 0; i < indexes.length; i++) {
+      indexes[i].rewrite(removed, added.get(i));
+      added.get(i).clear();
+    }
+    removed.clear();
+  }
+
+  private TripleIndex.Key lookup(Triple t) throws IOException {
+    long s = dictionary.getId(t.getSubject());
+    long p = dictionary.getId(t.getPredicate());
+    long o = dictionary.getId(t.getObject());
+    if (s == NodeDictionary.NO_ID || p == NodeDictionary.NO_ID || o == NodeDictionary.NO_ID) {
+      return null;
+    }
+    return new TripleIndex.Key(s, p, o);
+  }
+
+  private long resolve(Node node) throws IOException {
+    if (node == null || !node.isConcrete()) {
+      return TripleIndex.ANY;
+    }
+    return dictionary.getId(node);
+  }
+
+  private static boolean matches(TripleIndex.Key key, long[] pattern) {
+    for (int i = 0; i < 3; i++) {
+      if (pattern[i] != TripleIndex.ANY && pattern[i] != key.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Decodes keys from the on-disk index and the pending additions back into Jena triples.
+   */
+  private class TripleIterator implements Iterator<Triple> {
+    private final Iterator<TripleIndex.Key> stored;
+    private final Iterator<TripleIndex.Key> pending;
+    private final Set<TripleIndex.Key> tombstones;
+    private TripleIndex.Key next;
+
+    TripleIterator(Iterator<TripleIndex.Key> stored, Iterator<TripleIndex.Key> pending,
+        Set<TripleIndex.Key> tombstones) {
+      this.stored = stored;
+      this.pending = pending;
+      this.tombstones = tombstones;
+      advance();
+    }
+
+    private void advance() {
+      next = null;
+      while (stored.hasNext()) {
+        TripleIndex.Key key = stored.next();
+        if (!tombstones.contains(key)) {
+          next = key;
+          return;
+        }
+      }
+      if (pending.hasNext()) {
+        next = pending.next();
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Triple next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      try {
+        Triple result = Triple.create(dictionary.getNode(next.get(0)),
+            dictionary.getNode(next.get(1)), dictionary.getNode(next.get(2)));
+        advance();
+        return result;
+      } catch (IOException e) {
+        throw new JenaException("Unable to read store", e);
+      }
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
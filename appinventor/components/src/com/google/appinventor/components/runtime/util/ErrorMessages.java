@@ -337,6 +337,15 @@ public final class ErrorMessages {
   public static final int ERROR_REASONER_FAILED = 12100;
   public static final int ERROR_REASONER_NO_MODEL = 12101;
 
+  // for linked data
+  public static final int ERROR_LINKED_DATA_STORE_FAILED = 12200;
+  public static final int ERROR_LINKED_DATA_CHANGELOG_FAILED = 12201;
+  public static final int ERROR_LINKED_DATA_OUTBOX_FAILED = 12202;
+  public static final int ERROR_LINKED_DATA_INVALID_STREAMING_QUERY = 12203;
+  public static final int ERROR_LINKED_DATA_INVALID_QUERY_TEMPLATE = 12204;
+  public static final int ERROR_LDP_COAP_INVALID_BLOCK_SIZE = 12205;
+  public static final int ERROR_LDP_COAP_ENDPOINT_FAILED = 12206;
+
   // GraphQL errors
   public static final int ERROR_GQL_INVALID_HTTP_HEADERS = 13601;
   public static final int ERROR_GQL_UNABLE_TO_POST = 13602;
@@ -818,6 +827,18 @@ public final class ErrorMessages {
     errorMessages.put(ERROR_REASONER_FAILED, "Reasoning failed due to error: %s");
     errorMessages.put(ERROR_REASONER_NO_MODEL, "No Model specified for reasoning.");
 
+    // Linked data
+    errorMessages.put(ERROR_LINKED_DATA_STORE_FAILED, "Unable to open triple store %s: %s");
+    errorMessages.put(ERROR_LINKED_DATA_CHANGELOG_FAILED, "Unable to open changelog %s: %s");
+    errorMessages.put(ERROR_LINKED_DATA_OUTBOX_FAILED, "Unable to open outbox %s: %s");
+    errorMessages.put(ERROR_LINKED_DATA_INVALID_STREAMING_QUERY,
+        "Invalid local streaming query: %s");
+    errorMessages.put(ERROR_LINKED_DATA_INVALID_QUERY_TEMPLATE,
+        "Invalid query template %s: %s");
+    errorMessages.put(ERROR_LDP_COAP_INVALID_BLOCK_SIZE,
+        "Invalid CoAP block size %d. The size must be 16, 32, 64, 128, 256, 512 or 1024.");
+    errorMessages.put(ERROR_LDP_COAP_ENDPOINT_FAILED, "Unable to open a CoAP endpoint: %s");
+
     // GraphQL errors
     errorMessages.put(ERROR_GQL_INVALID_HTTP_HEADERS,
         "Invalid HTTP header format. Must be a JSON string of name and value(s).");
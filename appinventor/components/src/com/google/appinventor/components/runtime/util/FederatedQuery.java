@@ -0,0 +1,398 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.query.QueryExecutionFactory;
+import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.query.ResultSetFactory;
+import com.hp.hpl.jena.query.ResultSetRewindable;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.sparql.algebra.Algebra;
+import com.hp.hpl.jena.sparql.core.Var;
+import com.hp.hpl.jena.sparql.engine.ResultSetStream;
+import com.hp.hpl.jena.sparql.engine.binding.Binding;
+import com.hp.hpl.jena.sparql.engine.iterator.QueryIterPlainWrapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs SELECT queries against several endpoints at once and combines their solutions.
+ *
+ * <p>Each source is queried on a pool of at most {@code parallelism} threads, so a slow endpoint
+ * does not hold up the others. All sources share one deadline; a source that has not answered
+ * by then is abandoned and the solutions of the remaining sources are combined without it.
+ * Solutions are combined either as a union or as a natural join on the variables the sources
+ * have in common, following the SPARQL rules for compatible solutions.</p>
+ */
+public class FederatedQuery {
+
+  /** The default number of sources queried at the same time. */
+  public static final int DEFAULT_PARALLELISM = 4;
+
+  /** The default time, in milliseconds, allowed for all sources to answer. */
+  public static final long DEFAULT_TIMEOUT_MS = 10000;
+
+  /**
+   * An endpoint and the query to send to it.
+   */
+  public static final class Source {
+    private final String endpoint;
+    private final String query;
+
+    /**
+     * @param endpoint the URL of the SPARQL endpoint, or the empty string for the local model
+     * @param query the SELECT query
+     */
+    public Source(String endpoint, String query) {
+      this.endpoint = endpoint == null ? "" : endpoint;
+      this.query = query;
+    }
+
+    public String getEndpoint() {
+      return endpoint;
+    }
+
+    public String getQuery() {
+      return query;
+    }
+  }
+
+  /**
+   * What happened when one source was queried.
+   */
+  public static final class Outcome {
+    /** The source answered. */
+    public static final String OK = "ok";
+    /** The source did not answer before the deadline. */
+    public static final String TIMEOUT = "timeout";
+    /** The source reported an error. */
+    public static final String ERROR = "error";
+
+    private final Source source;
+    private final String status;
+    private final long latency;
+    private final int solutions;
+    private final String error;
+
+    private Outcome(Source source, String status, long latency, int solutions, String error) {
+      this.source = source;
+      this.status = status;
+      this.latency = latency;
+      this.solutions = solutions;
+      this.error = error;
+    }
+
+    public Source getSource() {
+      return source;
+    }
+
+    /**
+     * @return one of {@link #OK}, {@link #TIMEOUT} or {@link #ERROR}
+     */
+    public String getStatus() {
+      return status;
+    }
+
+    /**
+     * @return the time, in milliseconds, the source took to answer, or the time waited for it
+     */
+    public long getLatency() {
+      return latency;
+    }
+
+    /**
+     * @return the number of solutions the source returned
+     */
+    public int getSolutions() {
+      return solutions;
+    }
+
+    /**
+     * @return the error message, or the empty string
+     */
+    public String getError() {
+      return error;
+    }
+  }
+
+  /**
+   * The combined solutions and the outcome of each source, in the order the sources were given.
+   */
+  public static final class Result {
+    private final List<String> vars;
+    private final List<Binding> bindings;
+    private final List<Outcome> outcomes;
+
+    private Result(List<String> vars, List<Binding> bindings, List<Outcome> outcomes) {
+      this.vars = vars;
+      this.bindings = bindings;
+      this.outcomes = Collections.unmodifiableList(outcomes);
+    }
+
+    /**
+     * @return a result set over the combined solutions
+     */
+    public ResultSetRewindable getResultSet() {
+      Model model = ModelFactory.createDefaultModel();
+      return ResultSetFactory.makeRewindable(new ResultSetStream(vars, model,
+          new QueryIterPlainWrapper(bindings.iterator())));
+    }
+
+    public List<Outcome> getOutcomes() {
+      return outcomes;
+    }
+
+    /**
+     * @return true if every source answered
+     */
+    public boolean isComplete() {
+      for (Outcome outcome : outcomes) {
+        if (!Outcome.OK.equals(outcome.status)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * @return true if at least one source answered
+     */
+    public boolean hasAnswers() {
+      for (Outcome outcome : outcomes) {
+        if (Outcome.OK.equals(outcome.status)) {
+          return true;
+        }
+      }
+      return outcomes.isEmpty();
+    }
+  }
+
+  /**
+   * The solutions of one source.
+   */
+  private static final class Answer {
+    private final List<String> vars;
+    private final List<Binding> bindings;
+    private final long latency;
+
+    private Answer(List<String> vars, List<Binding> bindings, long latency) {
+      this.vars = vars;
+      this.bindings = bindings;
+      this.latency = latency;
+    }
+  }
+
+  private final SparqlResultCache cache;
+  private final long ttl;
+  private final Model localModel;
+  private final int parallelism;
+  private final long timeout;
+
+  /**
+   * Creates a federated query.
+   *
+   * @param cache the cache used to query remote endpoints
+   * @param ttl how long, in milliseconds, cached results may be reused without revalidation
+   * @param localModel the model queried by sources without an endpoint, or null
+   * @param parallelism the maximum number of sources queried at the same time
+   * @param timeout the time, in milliseconds, allowed for all sources to answer
+   */
+  public FederatedQuery(SparqlResultCache cache, long ttl, Model localModel, int parallelism,
+      long timeout) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism must be positive");
+    }
+    this.cache = cache;
+    this.ttl = ttl;
+    this.localModel = localModel;
+    this.parallelism = parallelism;
+    this.timeout = timeout;
+  }
+
+  /**
+   * Queries all sources and combines their solutions. Sources that fail or time out are left
+   * out of the combination and reported in {@link Result#getOutcomes()}.
+   *
+   * @param sources the sources to query
+   * @param join true to join the solutions of the sources, false to take their union
+   * @return the combined solutions
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public Result execute(List<Source> sources, boolean join) throws InterruptedException {
+    List<Outcome> outcomes = new ArrayList<>(sources.size());
+    List<Answer> answers = new ArrayList<>(sources.size());
+    if (sources.isEmpty()) {
+      return new Result(Collections.<String>emptyList(), Collections.<Binding>emptyList(),
+          outcomes);
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, sources.size()));
+    try {
+      final long start = System.nanoTime();
+      List<Future<Answer>> futures = new ArrayList<>(sources.size());
+      for (final Source source : sources) {
+        futures.add(pool.submit(new Callable<Answer>() {
+          @Override
+          public Answer call() throws Exception {
+            return query(source);
+          }
+        }));
+      }
+      long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+      for (int i = 0; i < sources.size(); i++) {
+        Source source = sources.get(i);
+        Future<Answer> future = futures.get(i);
+        try {
+          Answer answer = future.get(Math.max(0, deadline - System.nanoTime()),
+              TimeUnit.NANOSECONDS);
+          answers.add(answer);
+          outcomes.add(new Outcome(source, Outcome.OK, answer.latency, answer.bindings.size(),
+              ""));
+        } catch (TimeoutException e) {
+          future.cancel(true);
+          outcomes.add(new Outcome(source, Outcome.TIMEOUT, elapsed(start), 0,
+              "No answer within " + timeout + " ms"));
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause() == null ? e : e.getCause();
+          outcomes.add(new Outcome(source, Outcome.ERROR, elapsed(start), 0,
+              cause.getMessage() == null ? cause.toString() : cause.getMessage()));
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    return join ? join(answers, outcomes) : union(answers, outcomes);
+  }
+
+  private static long elapsed(long start) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+  }
+
+  private Answer query(Source source) throws Exception {
+    long start = System.nanoTime();
+    ResultSet results;
+    if (source.endpoint.length() == 0) {
+      if (localModel == null) {
+        throw new IllegalStateException("No local model to query");
+      }
+      QueryExecution execution = QueryExecutionFactory.create(source.query, localModel);
+      try {
+        results = ResultSetFactory.copyResults(execution.execSelect());
+      } finally {
+        execution.close();
+      }
+    } else {
+      results = cache.select(source.endpoint, source.query, ttl);
+    }
+    List<Binding> bindings = new ArrayList<>();
+    while (results.hasNext()) {
+      bindings.add(results.nextBinding());
+    }
+    return new Answer(results.getResultVars(), bindings, elapsed(start));
+  }
+
+  private static Result union(List<Answer> answers, List<Outcome> outcomes) {
+    Set<String> vars = new LinkedHashSet<>();
+    List<Binding> bindings = new ArrayList<>();
+    for (Answer answer : answers) {
+      vars.addAll(answer.vars);
+      bindings.addAll(answer.bindings);
+    }
+    return new Result(new ArrayList<>(vars), bindings, outcomes);
+  }
+
+  private static Result join(List<Answer> answers, List<Outcome> outcomes) {
+    if (answers.isEmpty()) {
+      return union(answers, outcomes);
+    }
+    Set<String> vars = new LinkedHashSet<>(answers.get(0).vars);
+    List<Binding> bindings = answers.get(0).bindings;
+    for (int i = 1; i < answers.size(); i++) {
+      Answer right = answers.get(i);
+      List<Var> shared = new ArrayList<>();
+      for (String var : right.vars) {
+        if (vars.contains(var)) {
+          shared.add(Var.alloc(var));
+        }
+      }
+      bindings = join(bindings, right.bindings, shared);
+      vars.addAll(right.vars);
+    }
+    return new Result(new ArrayList<>(vars), bindings, outcomes);
+  }
+
+  /**
+   * Joins two lists of solutions. Solutions that bind every shared variable are matched through
+   * a hash table; the rest, which SPARQL allows to match on any value of an unbound variable,
+   * are compared pairwise.
+   */
+  static List<Binding> join(List<Binding> left, List<Binding> right, List<Var> shared) {
+    Map<List<Object>, List<Binding>> table = new HashMap<>();
+    List<Binding> partial = new ArrayList<>();
+    for (Binding binding : right) {
+      List<Object> key = key(binding, shared);
+      if (key == null) {
+        partial.add(binding);
+      } else {
+        List<Binding> matches = table.get(key);
+        if (matches == null) {
+          matches = new ArrayList<>();
+          table.put(key, matches);
+        }
+        matches.add(binding);
+      }
+    }
+    List<Binding> joined = new ArrayList<>();
+    for (Binding binding : left) {
+      List<Object> key = key(binding, shared);
+      if (key == null) {
+        for (Binding other : right) {
+          if (Algebra.compatible(binding, other)) {
+            joined.add(Algebra.merge(binding, other));
+          }
+        }
+        continue;
+      }
+      List<Binding> matches = table.get(key);
+      if (matches != null) {
+        for (Binding other : matches) {
+          joined.add(Algebra.merge(binding, other));
+        }
+      }
+      for (Binding other : partial) {
+        if (Algebra.compatible(binding, other)) {
+          joined.add(Algebra.merge(binding, other));
+        }
+      }
+    }
+    return joined;
+  }
+
+  private static List<Object> key(Binding binding, List<Var> shared) {
+    List<Object> key = new ArrayList<>(shared.size());
+    for (Var var : shared) {
+      Object value = binding.get(var);
+      if (value == null) {
+        return null;
+      }
+      key.add(value);
+    }
+    return key;
+  }
+}
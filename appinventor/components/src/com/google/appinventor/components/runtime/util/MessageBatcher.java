@@ -0,0 +1,236 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Collects messages in a bounded in-memory queue and sends them in batches from a single
+ * background thread.
+ *
+ * <p>A batch is sent once {@link #getBatchSize()} messages are queued, once the oldest queued
+ * message has waited {@link #getFlushInterval()} milliseconds, or when {@link #flush()} is
+ * called. Messages keep being queued while a batch is being sent, so the next batch is ready as
+ * soon as the previous one completes. When the queue is full, {@link #offer(String)} refuses the
+ * message rather than blocking the caller.</p>
+ */
+public class MessageBatcher {
+
+  /**
+   * Sends one batch of messages.
+   */
+  public interface Transport {
+    /**
+     * @param batch the messages, in the order they were queued
+     * @return the response to the batch
+     * @throws IOException if the batch could not be sent
+     */
+    Response send(List<String> batch) throws IOException;
+  }
+
+  /**
+   * Receives the outcome of each batch, on the sending thread.
+   */
+  public interface Listener {
+    void onBatchSent(List<String> batch, Response response);
+
+    void onBatchFailed(List<String> batch, Exception e);
+  }
+
+  /**
+   * The response to a batch.
+   */
+  public static final class Response {
+    private final int code;
+    private final String type;
+    private final String content;
+
+    public Response(int code, String type, String content) {
+      this.code = code;
+      this.type = type;
+      this.content = content;
+    }
+
+    public int getCode() {
+      return code;
+    }
+
+    public String getType() {
+      return type;
+    }
+
+    public String getContent() {
+      return content;
+    }
+  }
+
+  private static final class Pending {
+    private final String message;
+    private final long queued;
+
+    private Pending(String message, long queued) {
+      this.message = message;
+      this.queued = queued;
+    }
+  }
+
+  private final Transport transport;
+  private final Listener listener;
+  private final Deque<Pending> queue = new ArrayDeque<>();
+  private int capacity;
+  private int batchSize;
+  private long flushInterval;
+  private boolean flushRequested = false;
+  private boolean running = true;
+  private Thread sender = null;
+
+  /**
+   * Creates a batcher. The sending thread is started when the first message is queued.
+   *
+   * @param transport sends the batches
+   * @param listener receives the outcome of each batch
+   * @param capacity the maximum number of queued messages
+   * @param batchSize the number of messages that triggers a send
+   * @param flushInterval the longest time, in milliseconds, a message waits to be sent
+   */
+  public MessageBatcher(Transport transport, Listener listener, int capacity, int batchSize,
+      long flushInterval) {
+    this.transport = transport;
+    this.listener = listener;
+    setCapacity(capacity);
+    setBatchSize(batchSize);
+    setFlushInterval(flushInterval);
+  }
+
+  /**
+   * Queues a message.
+   *
+   * @param message the message
+   * @return true if the message was queued, false if the queue is full or the batcher has been
+   *     shut down
+   */
+  public synchronized boolean offer(String message) {
+    if (!running || queue.size() >= capacity) {
+      return false;
+    }
+    queue.addLast(new Pending(message, System.currentTimeMillis()));
+    if (sender == null) {
+      sender = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          sendLoop();
+        }
+      }, "MessageBatcher");
+      sender.setDaemon(true);
+      sender.start();
+    }
+    notifyAll();
+    return true;
+  }
+
+  /**
+   * Sends the queued messages without waiting for a full batch or the flush interval.
+   */
+  public synchronized void flush() {
+    if (!queue.isEmpty()) {
+      flushRequested = true;
+      notifyAll();
+    }
+  }
+
+  /**
+   * Stops accepting messages. The messages already queued are still sent.
+   */
+  public synchronized void shutdown() {
+    running = false;
+    flushRequested = true;
+    notifyAll();
+  }
+
+  /**
+   * @return the number of messages waiting to be sent
+   */
+  public synchronized int size() {
+    return queue.size();
+  }
+
+  public synchronized int getCapacity() {
+    return capacity;
+  }
+
+  public synchronized void setCapacity(int capacity) {
+    this.capacity = Math.max(1, capacity);
+  }
+
+  public synchronized int getBatchSize() {
+    return batchSize;
+  }
+
+  public synchronized void setBatchSize(int batchSize) {
+    this.batchSize = Math.max(1, batchSize);
+    notifyAll();
+  }
+
+  public synchronized long getFlushInterval() {
+    return flushInterval;
+  }
+
+  public synchronized void setFlushInterval(long flushInterval) {
+    this.flushInterval = Math.max(0, flushInterval);
+    notifyAll();
+  }
+
+  private void sendLoop() {
+    List<String> batch;
+    while ((batch = nextBatch()) != null) {
+      Response response;
+      try {
+        response = transport.send(batch);
+      } catch (Exception e) {
+        listener.onBatchFailed(batch, e);
+        continue;
+      }
+      listener.onBatchSent(batch, response);
+    }
+  }
+
+  /**
+   * Waits until a batch is due and removes it from the queue.
+   *
+   * @return the batch, or null once the batcher is shut down and the queue is empty
+   */
+  private synchronized List<String> nextBatch() {
+    try {
+      while (true) {
+        if (queue.isEmpty()) {
+          flushRequested = false;
+          if (!running) {
+            break;
+          }
+          wait();
+          continue;
+        }
+        long wait = queue.peekFirst().queued + flushInterval - System.currentTimeMillis();
+        if (flushRequested || queue.size() >= batchSize || wait <= 0) {
+          List<String> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+          while (!queue.isEmpty() && batch.size() < batchSize) {
+            batch.add(queue.removeFirst().message);
+          }
+          return batch;
+        }
+        wait(wait);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    sender = null;
+    return null;
+  }
+}
@@ -0,0 +1,365 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import gnu.kawa.reflect.Invoke;
+import gnu.lists.LList;
+import gnu.lists.Pair;
+import gnu.mapping.Values;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calls component methods for the YAIL runtime, remembering the method found for each class,
+ * method name and number of arguments.
+ *
+ * <p>Kawa's {@code invoke} looks up the methods of the target's class by name and picks one
+ * that applies to the arguments on every call. Component methods are not overloaded on the
+ * types of their arguments, so the class, name and number of arguments are enough to find the
+ * method once and call it directly afterwards. The arguments are converted to the parameter
+ * types the same way Kawa converts them.</p>
+ *
+ * <p>Components built with the annotation processors also have a generated
+ * {@link DispatchTable}, which calls their methods and property getters and setters with a
+ * switch instead of reflection. It is used for the methods it covers when present.</p>
+ *
+ * <p>Calls that cannot be handled this way, because the method is overloaded, cannot be found
+ * or an argument does not convert, are passed on to Kawa's {@code invoke}, so that they behave
+ * and fail exactly as before.</p>
+ */
+public final class MethodDispatchCache {
+
+  /**
+   * Calls one method of a component.
+   */
+  public interface Invoker {
+    /**
+     * @param target the component
+     * @param args the arguments, already coerced by the runtime
+     * @return the result, or {@link #UNHANDLED} if the arguments could not be converted
+     * @throws Throwable whatever the method throws
+     */
+    Object invoke(Object target, Object[] args) throws Throwable;
+  }
+
+  /**
+   * Calls the methods of a component class by id, without reflection. Implementations are
+   * generated for each component class by
+   * {@code com.google.appinventor.components.scripts.ComponentDispatchTableGenerator}, named after
+   * the class with the suffix {@code _DispatchTable}.
+   */
+  public interface DispatchTable {
+    /**
+     * @param name the name of the method or property
+     * @param arity the number of arguments
+     * @return the id of the method, or -1 if the table does not cover it
+     */
+    int methodId(String name, int arity);
+
+    /**
+     * @param target the component
+     * @param methodId the id returned by {@link #methodId(String, int)}
+     * @param args the arguments, already coerced by the runtime
+     * @return the result, or {@link #UNHANDLED} if the arguments could not be converted
+     * @throws Throwable whatever the method throws
+     */
+    Object invoke(Object target, int methodId, Object[] args) throws Throwable;
+  }
+
+  /**
+   * Returned by an {@link Invoker} that cannot convert the arguments it was given.
+   */
+  public static final Object UNHANDLED = new Object();
+
+  private static final Object[] NO_ARGS = new Object[0];
+
+  private static final String DISPATCH_TABLE_SUFFIX = "_DispatchTable";
+
+  // For each class, the invokers for each method name, indexed by number of arguments. A null
+  // entry means that calls are passed on to Kawa.
+  private static final Map<Class<?>, Map<String, Invoker[]>> CACHE =
+      new ConcurrentHashMap<Class<?>, Map<String, Invoker[]>>();
+
+  private MethodDispatchCache() {
+  }
+
+  /**
+   * Calls a method of a component.
+   *
+   * @param target the component
+   * @param methodName the name of the method, as a symbol or string
+   * @param args the arguments, as a Kawa list
+   * @return the result of the method, or {@code #!void} if it returns nothing
+   * @throws Throwable whatever the method throws
+   */
+  public static Object invoke(Object target, Object methodName, Object args) throws Throwable {
+    Object[] argArray = toArray(args);
+    if (target != null) {
+      Invoker invoker = lookup(target.getClass(), methodName.toString(), argArray.length);
+      if (invoker != null) {
+        Object result = invoker.invoke(target, argArray);
+        if (result != UNHANDLED) {
+          return result;
+        }
+      }
+    }
+    Object[] kawaArgs = new Object[argArray.length + 2];
+    kawaArgs[0] = target;
+    kawaArgs[1] = methodName;
+    System.arraycopy(argArray, 0, kawaArgs, 2, argArray.length);
+    return Invoke.invoke.applyN(kawaArgs);
+  }
+
+  /**
+   * Finds the invoker for a method.
+   *
+   * @param cls the class of the component
+   * @param methodName the name of the method
+   * @param arity the number of arguments
+   * @return the invoker, or null if calls must be passed on to Kawa
+   */
+  public static Invoker lookup(Class<?> cls, String methodName, int arity) {
+    Map<String, Invoker[]> methods = CACHE.get(cls);
+    if (methods == null) {
+      methods = reflect(cls);
+      CACHE.put(cls, methods);
+    }
+    Invoker[] byArity = methods.get(methodName);
+    return byArity != null && arity < byArity.length ? byArity[arity] : null;
+  }
+
+  private static Map<String, Invoker[]> reflect(Class<?> cls) {
+    DispatchTable table = findDispatchTable(cls);
+    Map<String, List<Method>> byName = new HashMap<String, List<Method>>();
+    for (Method method : cls.getMethods()) {
+      if (method.isBridge()) {
+        continue;
+      }
+      List<Method> sameName = byName.get(method.getName());
+      if (sameName == null) {
+        sameName = new ArrayList<Method>();
+        byName.put(method.getName(), sameName);
+      }
+      sameName.add(method);
+    }
+    Map<String, Invoker[]> methods = new HashMap<String, Invoker[]>();
+    for (Map.Entry<String, List<Method>> entry : byName.entrySet()) {
+      int maxArity = 0;
+      for (Method method : entry.getValue()) {
+        maxArity = Math.max(maxArity, method.getParameterTypes().length);
+      }
+      Method[] unique = new Method[maxArity + 1];
+      boolean[] overloaded = new boolean[maxArity + 1];
+      for (Method method : entry.getValue()) {
+        int arity = method.getParameterTypes().length;
+        overloaded[arity] = unique[arity] != null;
+        unique[arity] = method;
+      }
+      Invoker[] invokers = new Invoker[maxArity + 1];
+      for (int arity = 0; arity <= maxArity; arity++) {
+        if (unique[arity] == null || overloaded[arity]) {
+          continue;
+        }
+        int id = table == null ? -1 : table.methodId(entry.getKey(), arity);
+        if (id >= 0) {
+          invokers[arity] = new TableInvoker(table, id);
+        } else if (makeAccessible(unique[arity])) {
+          invokers[arity] = new ReflectiveInvoker(unique[arity]);
+        }
+      }
+      methods.put(entry.getKey(), invokers);
+    }
+    return methods;
+  }
+
+  /**
+   * Finds the generated dispatch table of a class, or of its nearest superclass that has one,
+   * for classes such as ReplForm that extend a component.
+   */
+  private static DispatchTable findDispatchTable(Class<?> cls) {
+    for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+      try {
+        Class<?> tableClass =
+            Class.forName(c.getName() + DISPATCH_TABLE_SUFFIX, true, c.getClassLoader());
+        if (DispatchTable.class.isAssignableFrom(tableClass)) {
+          return (DispatchTable) tableClass.newInstance();
+        }
+      } catch (ClassNotFoundException e) {
+        // Not a component, or built without the annotation processors.
+      } catch (InstantiationException e) {
+        return null;
+      } catch (IllegalAccessException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private static boolean makeAccessible(Method method) {
+    try {
+      // Public methods of classes that are not public, such as anonymous classes, need this.
+      method.setAccessible(true);
+      return true;
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  private static Object[] toArray(Object args) {
+    if (!(args instanceof Pair)) {
+      return NO_ARGS;
+    }
+    Object[] array = new Object[LList.length(args)];
+    Object rest = args;
+    for (int i = 0; i < array.length; i++) {
+      Pair pair = (Pair) rest;
+      array[i] = pair.getCar();
+      rest = pair.getCdr();
+    }
+    return array;
+  }
+
+  /**
+   * Calls a method through a generated dispatch table.
+   */
+  private static class TableInvoker implements Invoker {
+    private final DispatchTable table;
+    private final int methodId;
+
+    TableInvoker(DispatchTable table, int methodId) {
+      this.table = table;
+      this.methodId = methodId;
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws Throwable {
+      return table.invoke(target, methodId, args);
+    }
+  }
+
+  /**
+   * Calls a method through reflection, converting the arguments as Kawa would.
+   */
+  private static class ReflectiveInvoker implements Invoker {
+    private static final int INT = 0;
+    private static final int LONG = 1;
+    private static final int SHORT = 2;
+    private static final int BYTE = 3;
+    private static final int DOUBLE = 4;
+    private static final int FLOAT = 5;
+    private static final int BOOLEAN = 6;
+    private static final int STRING = 7;
+    private static final int REFERENCE = 8;
+    private static final int OTHER = 9;
+
+    private final Method method;
+    private final Class<?>[] types;
+    private final int[] kinds;
+    private final boolean isVoid;
+
+    ReflectiveInvoker(Method method) {
+      this.method = method;
+      types = method.getParameterTypes();
+      kinds = new int[types.length];
+      for (int i = 0; i < types.length; i++) {
+        kinds[i] = kindOf(types[i]);
+      }
+      isVoid = method.getReturnType() == void.class;
+    }
+
+    private static int kindOf(Class<?> type) {
+      if (type == int.class) {
+        return INT;
+      } else if (type == long.class) {
+        return LONG;
+      } else if (type == short.class) {
+        return SHORT;
+      } else if (type == byte.class) {
+        return BYTE;
+      } else if (type == double.class) {
+        return DOUBLE;
+      } else if (type == float.class) {
+        return FLOAT;
+      } else if (type == boolean.class) {
+        return BOOLEAN;
+      } else if (type == String.class) {
+        return STRING;
+      } else if (type.isPrimitive()) {
+        return OTHER;
+      } else {
+        return REFERENCE;
+      }
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws Throwable {
+      // Check every argument before converting any, so that Kawa gets them unchanged.
+      for (int i = 0; i < args.length; i++) {
+        if (!accepts(i, args[i])) {
+          return UNHANDLED;
+        }
+      }
+      for (int i = 0; i < args.length; i++) {
+        args[i] = convert(i, args[i]);
+      }
+      Object result;
+      try {
+        result = method.invoke(target, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      } catch (IllegalAccessException e) {
+        return UNHANDLED;
+      }
+      return isVoid ? Values.empty : result;
+    }
+
+    private boolean accepts(int i, Object arg) {
+      switch (kinds[i]) {
+        case INT:
+        case LONG:
+        case SHORT:
+        case BYTE:
+        case DOUBLE:
+        case FLOAT:
+          return arg instanceof Number;
+        case BOOLEAN:
+          return arg instanceof Boolean;
+        case STRING:
+          return true;
+        case REFERENCE:
+          return arg == null || types[i].isInstance(arg);
+        default:
+          return false;
+      }
+    }
+
+    private Object convert(int i, Object arg) {
+      switch (kinds[i]) {
+        case INT:
+          return ((Number) arg).intValue();
+        case LONG:
+          return ((Number) arg).longValue();
+        case SHORT:
+          return ((Number) arg).shortValue();
+        case BYTE:
+          return ((Number) arg).byteValue();
+        case DOUBLE:
+          return ((Number) arg).doubleValue();
+        case FLOAT:
+          return ((Number) arg).floatValue();
+        case STRING:
+          return arg == null ? null : arg.toString();
+        default:
+          return arg;
+      }
+    }
+  }
+}
@@ -0,0 +1,482 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.graph.GraphEvents;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.listeners.StatementListener;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.rdf.model.StmtIterator;
+import com.hp.hpl.jena.shared.JenaException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the statements added to and removed from a {@link Model} since it was last published,
+ * so that only the difference needs to be sent to the remote store. Attach the changelog to a
+ * model with {@link #attach(Model)}.
+ *
+ * <p>Jena notifies listeners of redundant changes too, such as adding a statement that is already
+ * in the model, and only after the change has been made. The changelog compares the size of the
+ * model before and after each change to tell whether it took effect. When that cannot be decided,
+ * as for a bulk change that only partly took effect, the statements are kept as changes of unknown
+ * effect: they are always sent, which is harmless because INSERT DATA and DELETE DATA are
+ * idempotent, but they never cancel an earlier change.</p>
+ *
+ * <p>Changes are appended to a journal file as they happen and replayed when the changelog is
+ * opened, so a pending delta survives the app being restarted. The journal is compacted each time
+ * a delta is marked as published.</p>
+ */
+public class ModelChangelog extends StatementListener implements Closeable {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int MAGIC = 0x5059434c;  // "PYCL"
+  private static final int VERSION = 1;
+  private static final int FLUSH_INTERVAL = 64;
+
+  // Records of changes that took effect. They are also the states of the changed statements.
+  private static final byte RECORD_ADD = 'A';
+  private static final byte RECORD_DELETE = 'D';
+  // Records of changes that may have been redundant, and the states they leave behind.
+  private static final byte RECORD_MAYBE_ADD = 'a';
+  private static final byte RECORD_MAYBE_DELETE = 'd';
+  private static final byte RECORD_CLEAR = 'C';
+  private static final byte RECORD_GRAPH = 'G';
+
+  /**
+   * The changes recorded at the time {@link #getDelta()} was called.
+   */
+  public static final class Delta {
+    private final List<Triple> added;
+    private final List<Triple> removed;
+    private final boolean cleared;
+    private final int generation;
+
+    private Delta(List<Triple> added, List<Triple> removed, boolean cleared, int generation) {
+      this.added = Collections.unmodifiableList(added);
+      this.removed = Collections.unmodifiableList(removed);
+      this.cleared = cleared;
+      this.generation = generation;
+    }
+
+    public List<Triple> getAdded() {
+      return added;
+    }
+
+    public List<Triple> getRemoved() {
+      return removed;
+    }
+
+    /**
+     * Returns true if the model was cleared, in which case the individual removals are unknown
+     * and the whole model must be republished.
+     */
+    public boolean isCleared() {
+      return cleared;
+    }
+
+    public boolean isEmpty() {
+      return added.isEmpty() && removed.isEmpty() && !cleared;
+    }
+  }
+
+  private final File file;
+  private final Map<Triple, Byte> changes = new LinkedHashMap<>();
+  private boolean cleared = false;
+  private int clearGeneration = 0;
+  private String publishedGraph = null;
+  private DataOutputStream journal;
+  private int unflushed = 0;
+  private Model model = null;
+  private long lastSize = -1;
+
+  /**
+   * Opens the changelog stored in the given file, replaying any changes recorded in it.
+   *
+   * @param file the journal file, which is created if it does not exist
+   * @throws IOException if the journal cannot be read or opened for writing
+   */
+  public ModelChangelog(File file) throws IOException {
+    this.file = file;
+    if (file.exists() && file.length() > 0) {
+      replay();
+    }
+    rewrite();
+  }
+
+  /**
+   * Starts recording the changes made to a model.
+   *
+   * @param model the model to watch
+   */
+  public synchronized void attach(Model model) {
+    this.model = model;
+    lastSize = model.size();
+    model.register(this);
+  }
+
+  /**
+   * Stops recording the changes made to the attached model.
+   */
+  public synchronized void detach() {
+    if (model != null) {
+      model.unregister(this);
+      model = null;
+      lastSize = -1;
+    }
+  }
+
+  /**
+   * Tests whether the model has previously been published in full to the given graph, so that
+   * a delta can be applied to it.
+   *
+   * @param graph the target graph, or the empty string for the default graph
+   */
+  public synchronized boolean isPublished(String graph) {
+    return !cleared && graph.equals(publishedGraph);
+  }
+
+  /**
+   * Returns the changes recorded since the last publish.
+   */
+  public synchronized Delta getDelta() {
+    List<Triple> added = new ArrayList<>();
+    List<Triple> removed = new ArrayList<>();
+    for (Map.Entry<Triple, Byte> entry : changes.entrySet()) {
+      if (isAdd(entry.getValue())) {
+        added.add(entry.getKey());
+      } else {
+        removed.add(entry.getKey());
+      }
+    }
+    return new Delta(added, removed, cleared, clearGeneration);
+  }
+
+  /**
+   * Discards the changes in a delta after it has been published. Changes recorded after the delta
+   * was taken are kept.
+   *
+   * @param delta the delta that was published
+   * @param graph the graph the model was published to
+   * @throws IOException if the journal cannot be compacted
+   */
+  public synchronized void markPublished(Delta delta, String graph) throws IOException {
+    for (Triple t : delta.added) {
+      Byte state = changes.get(t);
+      if (state != null && isAdd(state)) {
+        changes.remove(t);
+      }
+    }
+    for (Triple t : delta.removed) {
+      Byte state = changes.get(t);
+      if (state != null && !isAdd(state)) {
+        changes.remove(t);
+      }
+    }
+    if (delta.generation == clearGeneration) {
+      cleared = false;
+    }
+    publishedGraph = graph;
+    rewrite();
+  }
+
+  /**
+   * Forgets all recorded changes and the published graph, so that the next publish sends the
+   * whole model.
+   */
+  public synchronized void reset() throws IOException {
+    changes.clear();
+    cleared = false;
+    publishedGraph = null;
+    rewrite();
+  }
+
+  /**
+   * Writes any buffered journal records to the file.
+   */
+  public synchronized void flush() throws IOException {
+    if (journal != null) {
+      journal.flush();
+      unflushed = 0;
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (journal != null) {
+      journal.close();
+      journal = null;
+    }
+  }
+
+  @Override
+  public void addedStatement(Statement s) {
+    changed(true, Collections.singletonList(s.asTriple()));
+  }
+
+  @Override
+  public void addedStatements(Statement[] statements) {
+    changed(true, triples(Arrays.asList(statements).iterator()));
+  }
+
+  @Override
+  public void addedStatements(List<Statement> statements) {
+    changed(true, triples(statements.iterator()));
+  }
+
+  @Override
+  public void addedStatements(StmtIterator statements) {
+    changed(true, triples(statements));
+  }
+
+  @Override
+  public void addedStatements(Model m) {
+    changed(true, triples(m.listStatements()));
+  }
+
+  @Override
+  public void removedStatement(Statement s) {
+    changed(false, Collections.singletonList(s.asTriple()));
+  }
+
+  @Override
+  public void removedStatements(Statement[] statements) {
+    changed(false, triples(Arrays.asList(statements).iterator()));
+  }
+
+  @Override
+  public void removedStatements(List<Statement> statements) {
+    changed(false, triples(statements.iterator()));
+  }
+
+  @Override
+  public void removedStatements(StmtIterator statements) {
+    changed(false, triples(statements));
+  }
+
+  @Override
+  public void removedStatements(Model m) {
+    changed(false, triples(m.listStatements()));
+  }
+
+  @Override
+  public synchronized void notifyEvent(Model m, Object event) {
+    if (GraphEvents.removeAll.equals(event)) {
+      record(RECORD_CLEAR, null);
+    }
+    if (model != null) {
+      lastSize = model.size();
+    }
+  }
+
+  private static List<Triple> triples(Iterator<Statement> statements) {
+    List<Triple> triples = new ArrayList<>();
+    while (statements.hasNext()) {
+      triples.add(statements.next().asTriple());
+    }
+    return triples;
+  }
+
+  /**
+   * Records a change the model has been notified of, using the change in its size to decide
+   * whether the change took effect.
+   */
+  private synchronized void changed(boolean add, List<Triple> triples) {
+    long size = model == null ? -1 : model.size();
+    long expected = lastSize + (add ? triples.size() : -triples.size());
+    byte type;
+    if (lastSize >= 0 && size == lastSize) {
+      // The change was redundant, so there is nothing to record.
+      lastSize = size;
+      return;
+    } else if (lastSize >= 0 && size == expected) {
+      type = add ? RECORD_ADD : RECORD_DELETE;
+    } else {
+      type = add ? RECORD_MAYBE_ADD : RECORD_MAYBE_DELETE;
+    }
+    lastSize = size;
+    for (Triple t : triples) {
+      record(type, t);
+    }
+  }
+
+  private static boolean isAdd(byte state) {
+    return state == RECORD_ADD || state == RECORD_MAYBE_ADD;
+  }
+
+  private void record(byte type, Triple t) {
+    apply(type, t);
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.writeByte(type);
+      if (t != null) {
+        writeTriple(journal, t);
+      }
+      if (++unflushed >= FLUSH_INTERVAL) {
+        flush();
+      }
+    } catch (IOException e) {
+      throw new JenaException("Unable to record change", e);
+    }
+  }
+
+  private void apply(byte type, Triple t) {
+    switch (type) {
+      case RECORD_ADD:
+      case RECORD_MAYBE_ADD:
+      case RECORD_DELETE:
+      case RECORD_MAYBE_DELETE:
+        applyChange(type, t);
+        break;
+      case RECORD_CLEAR:
+        changes.clear();
+        cleared = true;
+        clearGeneration++;
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Updates the state of a statement after a change to it. A statement that was added or deleted
+   * earlier is known to have been in the model or not, so a later change to it took effect. Only
+   * for a statement that has not been changed before does the record say whether it did.
+   */
+  private void applyChange(byte type, Triple t) {
+    Byte state = changes.get(t);
+    boolean add = isAdd(type);
+    if (state == null) {
+      changes.put(t, type);
+    } else if (state == RECORD_ADD || state == RECORD_DELETE) {
+      if (add != isAdd(state)) {
+        // The change undoes one made since the last publish.
+        changes.remove(t);
+      }
+    } else if (add != isAdd(state)) {
+      // Whether the statement was in the remote store is still unknown, so keep sending it.
+      changes.put(t, add ? RECORD_MAYBE_ADD : RECORD_MAYBE_DELETE);
+    }
+  }
+
+  private void replay() throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    try {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a changelog: " + file);
+      }
+      while (true) {
+        byte type;
+        try {
+          type = in.readByte();
+        } catch (EOFException e) {
+          break;
+        }
+        try {
+          if (type == RECORD_GRAPH) {
+            publishedGraph = readString(in);
+          } else {
+            apply(type, type == RECORD_CLEAR ? null : readTriple(in));
+          }
+        } catch (EOFException e) {
+          // The app stopped while a record was being written; drop the partial record.
+          break;
+        }
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Replaces the journal with one holding only the current state.
+   */
+  private void rewrite() throws IOException {
+    close();
+    File tmp = new File(file.getPath() + ".tmp");
+    FileOutputStream tmpOut = new FileOutputStream(tmp);
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(tmpOut));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      if (publishedGraph != null) {
+        out.writeByte(RECORD_GRAPH);
+        writeString(out, publishedGraph);
+      }
+      if (cleared) {
+        out.writeByte(RECORD_CLEAR);
+      }
+      for (Map.Entry<Triple, Byte> entry : changes.entrySet()) {
+        out.writeByte(entry.getValue());
+        writeTriple(out, entry.getKey());
+      }
+      out.flush();
+      tmpOut.getFD().sync();
+    } finally {
+      out.close();
+    }
+    // Renaming replaces the old journal in one step, so a crash leaves one or the other intact.
+    if (!tmp.renameTo(file)) {
+      throw new IOException("Unable to replace changelog " + file);
+    }
+    journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+    unflushed = 0;
+  }
+
+  private static void writeTriple(DataOutputStream out, Triple t) throws IOException {
+    writeNode(out, t.getSubject());
+    writeNode(out, t.getPredicate());
+    writeNode(out, t.getObject());
+  }
+
+  private static Triple readTriple(DataInputStream in) throws IOException {
+    return Triple.create(readNode(in), readNode(in), readNode(in));
+  }
+
+  private static void writeNode(DataOutputStream out, Node node) throws IOException {
+    byte[] bytes = NodeDictionary.encode(node);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static Node readNode(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return NodeDictionary.decode(bytes);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(UTF8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, UTF8);
+  }
+}
@@ -0,0 +1,372 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.datatypes.TypeMapper;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.rdf.model.AnonId;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A disk-backed dictionary that assigns a stable long identifier to each RDF term. Terms are
+ * appended to a data file and the identifier of a term is the offset of its record in that file.
+ * Lookups from term to identifier go through an open-addressing hash table that is memory-mapped
+ * from disk, so only a small cache of recently used terms is kept on the heap.
+ */
+public class NodeDictionary implements Closeable {
+
+  /** Identifier returned by {@link #getId(Node)} for terms that are not in the dictionary. */
+  public static final long NO_ID = -1L;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int DATA_MAGIC = 0x50594e44;  // "PYND"
+  private static final int TABLE_MAGIC = 0x50594e48;  // "PYNH"
+  private static final int VERSION = 1;
+  private static final int DATA_HEADER = 8;
+  private static final int TABLE_HEADER = 16;
+  private static final int SLOT_SIZE = 16;
+  private static final int INITIAL_CAPACITY = 1 << 12;
+  private static final int CACHE_SIZE = 2048;
+
+  private static final byte TYPE_URI = 'U';
+  private static final byte TYPE_BLANK = 'B';
+  private static final byte TYPE_LITERAL = 'L';
+  private static final byte TYPE_TYPED_LITERAL = 'T';
+
+  private final File dataFile;
+  private final File tableFile;
+  private final RandomAccessFile data;
+  private final FileChannel dataChannel;
+  private RandomAccessFile table;
+  private MappedByteBuffer slots;
+  private int capacity;
+  private int count;
+
+  private final Map<Long, Node> nodeCache = new LinkedHashMap<Long, Node>(CACHE_SIZE, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, Node> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  };
+
+  private final Map<Node, Long> idCache = new LinkedHashMap<Node, Long>(CACHE_SIZE, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Node, Long> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  };
+
+  /**
+   * Opens (or creates) the dictionary stored in the given directory.
+   *
+   * @param directory the directory holding the dictionary files
+   * @throws IOException if the files cannot be opened or are not dictionary files
+   */
+  public NodeDictionary(File directory) throws IOException {
+    dataFile = new File(directory, "nodes.dat");
+    tableFile = new File(directory, "nodes.idx");
+    data = new RandomAccessFile(dataFile, "rw");
+    dataChannel = data.getChannel();
+    if (data.length() == 0) {
+      data.writeInt(DATA_MAGIC);
+      data.writeInt(VERSION);
+    } else if (data.readInt() != DATA_MAGIC || data.readInt() != VERSION) {
+      throw new IOException("Unrecognized dictionary file " + dataFile);
+    }
+    if (tableFile.exists() && tableFile.length() > TABLE_HEADER) {
+      openTable(tableFile);
+    } else {
+      createTable(tableFile, INITIAL_CAPACITY);
+      rebuildTable();
+    }
+  }
+
+  /**
+   * Returns the identifier for the given term, adding it to the dictionary if needed.
+   *
+   * @param node a concrete RDF term
+   * @return the term's identifier
+   * @throws IOException if the dictionary cannot be updated
+   */
+  public synchronized long getOrCreateId(Node node) throws IOException {
+    long id = getId(node);
+    if (id != NO_ID) {
+      return id;
+    }
+    byte[] encoded = encode(node);
+    id = dataChannel.size();
+    ByteBuffer record = ByteBuffer.allocate(4 + encoded.length);
+    record.putInt(encoded.length).put(encoded).flip();
+    while (record.hasRemaining()) {
+      dataChannel.write(record, id + record.position());
+    }
+    if ((count + 1) * 2 > capacity) {
+      rehash(capacity * 2);
+    }
+    insert(hash(encoded), id);
+    count++;
+    slots.putInt(8, count);
+    idCache.put(node, id);
+    nodeCache.put(id, node);
+    return id;
+  }
+
+  /**
+   * Returns the identifier for the given term without modifying the dictionary.
+   *
+   * @param node a concrete RDF term
+   * @return the term's identifier, or {@link #NO_ID} if the term has never been stored
+   * @throws IOException if the dictionary cannot be read
+   */
+  public synchronized long getId(Node node) throws IOException {
+    Long cached = idCache.get(node);
+    if (cached != null) {
+      return cached;
+    }
+    byte[] encoded = encode(node);
+    long hash = hash(encoded);
+    int mask = capacity - 1;
+    for (int slot = (int) (hash ^ (hash >>> 32)) & mask; ; slot = (slot + 1) & mask) {
+      int offset = TABLE_HEADER + slot * SLOT_SIZE;
+      long stored = slots.getLong(offset + 8);
+      if (stored == 0) {
+        return NO_ID;
+      }
+      if (slots.getLong(offset) == hash && Arrays.equals(encoded, read(stored - 1))) {
+        idCache.put(node, stored - 1);
+        return stored - 1;
+      }
+    }
+  }
+
+  /**
+   * Returns the term with the given identifier.
+   *
+   * @param id an identifier previously returned by {@link #getOrCreateId(Node)}
+   * @return the corresponding term
+   * @throws IOException if the dictionary cannot be read
+   */
+  public synchronized Node getNode(long id) throws IOException {
+    Node node = nodeCache.get(id);
+    if (node == null) {
+      node = decode(read(id));
+      nodeCache.put(id, node);
+    }
+    return node;
+  }
+
+  /**
+   * Returns the number of distinct terms in the dictionary.
+   */
+  public synchronized int size() {
+    return count;
+  }
+
+  /**
+   * Removes every term from the dictionary.
+   *
+   * @throws IOException if the files cannot be truncated
+   */
+  public synchronized void clear() throws IOException {
+    dataChannel.truncate(DATA_HEADER);
+    nodeCache.clear();
+    idCache.clear();
+    table.close();
+    createTable(tableFile, INITIAL_CAPACITY);
+  }
+
+  /**
+   * Forces pending writes to the storage device.
+   *
+   * @throws IOException if the data cannot be written
+   */
+  public synchronized void sync() throws IOException {
+    dataChannel.force(false);
+    slots.force();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    sync();
+    table.close();
+    data.close();
+  }
+
+  private byte[] read(long id) throws IOException {
+    ByteBuffer length = ByteBuffer.allocate(4);
+    while (length.hasRemaining()) {
+      if (dataChannel.read(length, id + length.position()) < 0) {
+        throw new IOException("Truncated dictionary record at " + id);
+      }
+    }
+    ByteBuffer payload = ByteBuffer.allocate(length.getInt(0));
+    while (payload.hasRemaining()) {
+      if (dataChannel.read(payload, id + 4 + payload.position()) < 0) {
+        throw new IOException("Truncated dictionary record at " + id);
+      }
+    }
+    return payload.array();
+  }
+
+  private void insert(long hash, long id) {
+    int mask = capacity - 1;
+    int slot = (int) (hash ^ (hash >>> 32)) & mask;
+    while (slots.getLong(TABLE_HEADER + slot * SLOT_SIZE + 8) != 0) {
+      slot = (slot + 1) & mask;
+    }
+    slots.putLong(TABLE_HEADER + slot * SLOT_SIZE, hash);
+    slots.putLong(TABLE_HEADER + slot * SLOT_SIZE + 8, id + 1);
+  }
+
+  private void openTable(File file) throws IOException {
+    table = new RandomAccessFile(file, "rw");
+    slots = table.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, table.length());
+    if (slots.getInt(0) != TABLE_MAGIC) {
+      throw new IOException("Unrecognized dictionary index " + file);
+    }
+    capacity = slots.getInt(4);
+    count = slots.getInt(8);
+  }
+
+  private void createTable(File file, int newCapacity) throws IOException {
+    table = new RandomAccessFile(file, "rw");
+    table.setLength(0);
+    table.setLength(TABLE_HEADER + (long) newCapacity * SLOT_SIZE);
+    slots = table.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, table.length());
+    slots.putInt(0, TABLE_MAGIC);
+    slots.putInt(4, newCapacity);
+    slots.putInt(8, 0);
+    capacity = newCapacity;
+    count = 0;
+  }
+
+  private void rehash(int newCapacity) throws IOException {
+    MappedByteBuffer old = slots;
+    int oldCapacity = capacity;
+    int oldCount = count;
+    RandomAccessFile oldTable = table;
+    File tmp = new File(tableFile.getPath() + ".tmp");
+    createTable(tmp, newCapacity);
+    for (int i = 0; i < oldCapacity; i++) {
+      long stored = old.getLong(TABLE_HEADER + i * SLOT_SIZE + 8);
+      if (stored != 0) {
+        insert(old.getLong(TABLE_HEADER + i * SLOT_SIZE), stored - 1);
+      }
+    }
+    count = oldCount;
+    slots.putInt(8, count);
+    slots.force();
+    oldTable.close();
+    if (!tmp.renameTo(tableFile)) {
+      throw new IOException("Unable to replace dictionary index " + tableFile);
+    }
+  }
+
+  /**
+   * Reconstructs the hash table from the data file, e.g. after the index file was lost.
+   */
+  private void rebuildTable() throws IOException {
+    long size = dataChannel.size();
+    for (long id = DATA_HEADER; id < size; ) {
+      byte[] encoded = read(id);
+      if ((count + 1) * 2 > capacity) {
+        rehash(capacity * 2);
+      }
+      insert(hash(encoded), id);
+      count++;
+      id += 4 + encoded.length;
+    }
+    slots.putInt(8, count);
+  }
+
+  private static long hash(byte[] bytes) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : bytes) {
+      h ^= b & 0xff;
+      h *= 0x100000001b3L;
+    }
+    return h;
+  }
+
+  /**
+   * Encodes a concrete RDF term into a compact byte representation. The encoding is a type tag
+   * followed by one or more length-prefixed UTF-8 strings.
+   *
+   * @param node the term to encode
+   * @return the encoded term
+   */
+  public static byte[] encode(Node node) {
+    if (node.isURI()) {
+      return pack(TYPE_URI, node.getURI());
+    } else if (node.isBlank()) {
+      return pack(TYPE_BLANK, node.getBlankNodeLabel());
+    } else if (node.isLiteral()) {
+      String datatype = node.getLiteralDatatypeURI();
+      if (datatype != null) {
+        return pack(TYPE_TYPED_LITERAL, node.getLiteralLexicalForm(), datatype);
+      }
+      return pack(TYPE_LITERAL, node.getLiteralLexicalForm(), node.getLiteralLanguage());
+    }
+    throw new IllegalArgumentException("Cannot store non-concrete node " + node);
+  }
+
+  /**
+   * Decodes a term previously encoded with {@link #encode(Node)}.
+   *
+   * @param bytes the encoded term
+   * @return the RDF term
+   */
+  public static Node decode(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    byte type = buffer.get();
+    String first = unpack(buffer);
+    switch (type) {
+      case TYPE_URI:
+        return Node.createURI(first);
+      case TYPE_BLANK:
+        return Node.createAnon(new AnonId(first));
+      case TYPE_LITERAL:
+        return Node.createLiteral(first, unpack(buffer), false);
+      case TYPE_TYPED_LITERAL:
+        return Node.createLiteral(first, null,
+            TypeMapper.getInstance().getSafeTypeByName(unpack(buffer)));
+      default:
+        throw new IllegalArgumentException("Unknown node type " + type);
+    }
+  }
+
+  private static byte[] pack(byte type, String... parts) {
+    byte[][] encoded = new byte[parts.length][];
+    int length = 1;
+    for (int i = 0; i < parts.length; i++) {
+      encoded[i] = (parts[i] == null ? "" : parts[i]).getBytes(UTF8);
+      length += 4 + encoded[i].length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    buffer.put(type);
+    for (byte[] part : encoded) {
+      buffer.putInt(part.length).put(part);
+    }
+    return buffer.array();
+  }
+
+  private static String unpack(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    String result = new String(buffer.array(), buffer.position(), length, UTF8);
+    buffer.position(buffer.position() + length);
+    return result;
+  }
+}
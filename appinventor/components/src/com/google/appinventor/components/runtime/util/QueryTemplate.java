@@ -0,0 +1,195 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.query.Query;
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.query.QueryExecutionFactory;
+import com.hp.hpl.jena.query.QueryFactory;
+import com.hp.hpl.jena.query.QuerySolutionMap;
+import com.hp.hpl.jena.query.Syntax;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.shared.PrefixMapping;
+import com.hp.hpl.jena.sparql.core.Prologue;
+import com.hp.hpl.jena.sparql.util.FmtUtils;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A SPARQL SELECT query that is parsed once and then executed many times with different values
+ * bound to its variables.
+ *
+ * <p>Any variable of the query can be bound. Against a local model the values are passed to
+ * the query engine as an initial binding of the parsed query, so nothing is parsed again. For a
+ * remote endpoint the query is serialized once and the values are appended as a
+ * <code>VALUES</code> block. Values are always converted to RDF terms and written with the
+ * SPARQL escaping rules, so a value can never change the structure of the query, unlike text
+ * concatenated into the query.</p>
+ *
+ * <p>The parsed query is shared by all executions and must not be modified.</p>
+ */
+public class QueryTemplate {
+
+  // Strings matching this are bound as URIs rather than string literals.
+  private static final Pattern URI_VALUE =
+      Pattern.compile("([a-zA-Z][a-zA-Z0-9+.-]*://|urn:)\\S+");
+  private static final Pattern VAR_NAME = Pattern.compile("[\\p{L}\\p{N}_]+");
+  // Characters that may not appear in an IRI reference in SPARQL.
+  private static final Pattern INVALID_IRI = Pattern.compile("[\\s<>\"{}|^`\\\\]");
+
+  private final Query query;
+  private final String queryString;
+
+  /**
+   * Parses a query template.
+   *
+   * @param queryText the SELECT query
+   * @throws IllegalArgumentException if the query is not a SELECT query
+   * @throws com.hp.hpl.jena.query.QueryParseException if the query cannot be parsed
+   */
+  public QueryTemplate(String queryText) {
+    this(queryText, null);
+  }
+
+  /**
+   * Parses a query template that may use the given prefixes without declaring them.
+   *
+   * @param queryText the SELECT query
+   * @param prefixes prefixes available to the query, or null
+   * @throws IllegalArgumentException if the query is not a SELECT query
+   * @throws com.hp.hpl.jena.query.QueryParseException if the query cannot be parsed
+   */
+  public QueryTemplate(String queryText, PrefixMapping prefixes) {
+    if (prefixes == null) {
+      query = QueryFactory.create(queryText);
+    } else {
+      query = QueryFactory.parse(new Query(new Prologue(prefixes)), queryText, "",
+          Syntax.syntaxSPARQL_11);
+    }
+    if (!query.isSelectType()) {
+      throw new IllegalArgumentException("Only SELECT queries can be used as templates");
+    }
+    queryString = query.hasValues() ? null : query.serialize();
+  }
+
+  /**
+   * @return the parsed query, which must not be modified
+   */
+  public Query getQuery() {
+    return query;
+  }
+
+  /**
+   * Creates an execution of the query over a model with the given values bound.
+   *
+   * @param model the model to query
+   * @param values the values of the variables, by name with or without the leading ?
+   * @return the execution, which the caller must close
+   * @throws IllegalArgumentException if a variable name is invalid
+   */
+  public QueryExecution createExecution(Model model, Map<String, ?> values) {
+    QuerySolutionMap binding = new QuerySolutionMap();
+    for (Map.Entry<String, Node> entry : toNodes(values).entrySet()) {
+      binding.add(entry.getKey(), model.asRDFNode(entry.getValue()));
+    }
+    return QueryExecutionFactory.create(query, model, binding);
+  }
+
+  /**
+   * Returns the text of the query with the given values bound, for sending to an endpoint.
+   *
+   * @param values the values of the variables, by name with or without the leading ?
+   * @return the query text
+   * @throws IllegalArgumentException if a variable name is invalid, or if values are given and
+   *     the query already ends with a VALUES block
+   */
+  public String toQueryString(Map<String, ?> values) {
+    Map<String, Node> nodes = toNodes(values);
+    if (queryString == null) {
+      if (!nodes.isEmpty()) {
+        throw new IllegalArgumentException("A query with a VALUES block cannot be bound");
+      }
+      return query.serialize();
+    }
+    if (nodes.isEmpty()) {
+      return queryString;
+    }
+    StringBuilder sb = new StringBuilder(queryString);
+    sb.append("VALUES (");
+    for (String name : nodes.keySet()) {
+      sb.append(" ?").append(name);
+    }
+    sb.append(" ) {\n  (");
+    for (Node node : nodes.values()) {
+      sb.append(' ').append(FmtUtils.stringForNode(node));
+    }
+    sb.append(" )\n}\n");
+    return sb.toString();
+  }
+
+  /**
+   * Converts a value to an RDF term. Booleans and numbers become typed literals, strings that
+   * look like URIs, or are written in angle brackets, become URIs, and other values become
+   * plain literals.
+   *
+   * @param value the value
+   * @return the RDF term
+   * @throws IllegalArgumentException if the value is a URI containing characters that are not
+   *     allowed in URIs
+   */
+  public static Node toNode(Object value) {
+    if (value instanceof Node) {
+      return (Node) value;
+    } else if (value instanceof RDFNode) {
+      return ((RDFNode) value).asNode();
+    } else if (value instanceof Boolean) {
+      return Node.createLiteral(value.toString(), null, XSDDatatype.XSDboolean);
+    } else if (value instanceof Number) {
+      Number number = (Number) value;
+      if (number.doubleValue() == number.longValue()) {
+        return Node.createLiteral(Long.toString(number.longValue()), null,
+            XSDDatatype.XSDinteger);
+      }
+      return Node.createLiteral(Double.toString(number.doubleValue()), null,
+          XSDDatatype.XSDdouble);
+    }
+    String text = value.toString();
+    if (text.length() > 2 && text.startsWith("<") && text.endsWith(">")) {
+      return uri(text.substring(1, text.length() - 1));
+    } else if (URI_VALUE.matcher(text).matches()) {
+      return uri(text);
+    }
+    return Node.createLiteral(text);
+  }
+
+  private static Node uri(String text) {
+    if (INVALID_IRI.matcher(text).find()) {
+      throw new IllegalArgumentException("Invalid URI: " + text);
+    }
+    return Node.createURI(text);
+  }
+
+  private static Map<String, Node> toNodes(Map<String, ?> values) {
+    Map<String, Node> nodes = new LinkedHashMap<>();
+    if (values != null) {
+      for (Map.Entry<String, ?> entry : values.entrySet()) {
+        String name = entry.getKey();
+        if (name.startsWith("?") || name.startsWith("$")) {
+          name = name.substring(1);
+        }
+        if (!VAR_NAME.matcher(name).matches()) {
+          throw new IllegalArgumentException("Invalid variable name: " + entry.getKey());
+        }
+        nodes.put(name, toNode(entry.getValue()));
+      }
+    }
+    return nodes;
+  }
+}
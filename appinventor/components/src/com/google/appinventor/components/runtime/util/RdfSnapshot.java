@@ -0,0 +1,231 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.GraphUtil;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes a compact binary snapshot of a {@link Model}. Each distinct term is stored
+ * once, encoded with {@link NodeDictionary#encode(Node)}, and each triple is stored as three
+ * integer term ids, so restoring a snapshot needs no parsing beyond decoding the term table.
+ *
+ * <p>The file layout is:</p>
+ * <pre>
+ *   int magic, int version, int prefixCount, int termCount, int tripleCount
+ *   prefixCount x (int length, UTF-8 prefix, int length, UTF-8 namespace)
+ *   termCount x (int length, encoded term)
+ *   tripleCount x (int subject, int predicate, int object)
+ * </pre>
+ */
+public final class RdfSnapshot {
+
+  /** The file extension used for snapshots. */
+  public static final String EXTENSION = ".rdfb";
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int MAGIC = 0x50595253;  // "PYRS"
+  private static final int VERSION = 1;
+  private static final int BATCH_SIZE = 4096;
+
+  private RdfSnapshot() {
+  }
+
+  /**
+   * Tests whether the path names a snapshot file.
+   */
+  public static boolean isSnapshot(String path) {
+    return path != null && path.toLowerCase().endsWith(EXTENSION);
+  }
+
+  /**
+   * Writes a snapshot of the model, including its namespace prefixes. The snapshot is written to
+   * a temporary file which then replaces the destination, so an existing snapshot is not
+   * corrupted if writing fails.
+   *
+   * @param model the model to write
+   * @param file the destination file
+   * @return the number of triples written
+   * @throws IOException if the file cannot be written
+   */
+  public static int write(Model model, File file) throws IOException {
+    Map<Node, Integer> ids = new HashMap<>();
+    List<byte[]> terms = new ArrayList<>();
+    ByteArrayOutputStream tripleBytes = new ByteArrayOutputStream();
+    DataOutputStream triples = new DataOutputStream(tripleBytes);
+    int count = 0;
+    ExtendedIterator<Triple> it = model.getGraph().find(Triple.ANY);
+    try {
+      while (it.hasNext()) {
+        Triple t = it.next();
+        triples.writeInt(termId(ids, terms, t.getSubject()));
+        triples.writeInt(termId(ids, terms, t.getPredicate()));
+        triples.writeInt(termId(ids, terms, t.getObject()));
+        count++;
+      }
+    } finally {
+      it.close();
+    }
+    Map<String, String> prefixes = model.getNsPrefixMap();
+
+    File tmp = new File(file.getPath() + ".tmp");
+    FileOutputStream tmpOut = new FileOutputStream(tmp);
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(tmpOut, 64 * 1024));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(prefixes.size());
+      out.writeInt(terms.size());
+      out.writeInt(count);
+      for (Map.Entry<String, String> prefix : prefixes.entrySet()) {
+        writeString(out, prefix.getKey());
+        writeString(out, prefix.getValue());
+      }
+      for (byte[] term : terms) {
+        out.writeInt(term.length);
+        out.write(term);
+      }
+      tripleBytes.writeTo(out);
+      out.flush();
+      tmpOut.getFD().sync();
+    } finally {
+      out.close();
+    }
+    // Renaming over the old snapshot replaces it in one step, so it is never missing.
+    if (!tmp.renameTo(file)) {
+      throw new IOException("Unable to replace snapshot " + file);
+    }
+    return count;
+  }
+
+  /**
+   * Adds the contents of a snapshot file to the model. The file is memory-mapped rather than
+   * read through a stream.
+   *
+   * @param file the snapshot file
+   * @param model the model to add the triples to
+   * @return the number of triples read
+   * @throws IOException if the file cannot be read or is not a snapshot
+   */
+  public static int read(File file, Model model) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      return read(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length()), model);
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Adds the contents of a snapshot stream to the model. The stream is read fully into memory
+   * and is not closed.
+   *
+   * @param in the stream containing the snapshot
+   * @param model the model to add the triples to
+   * @return the number of triples read
+   * @throws IOException if the stream cannot be read or is not a snapshot
+   */
+  public static int read(InputStream in, Model model) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[64 * 1024];
+    int n;
+    while ((n = in.read(buffer)) > 0) {
+      bytes.write(buffer, 0, n);
+    }
+    return read(ByteBuffer.wrap(bytes.toByteArray()), model);
+  }
+
+  /**
+   * Adds the contents of a snapshot held in a buffer to the model.
+   *
+   * @param buffer the snapshot, positioned at its first byte
+   * @param model the model to add the triples to
+   * @return the number of triples read
+   * @throws IOException if the buffer does not hold a valid snapshot
+   */
+  public static int read(ByteBuffer buffer, Model model) throws IOException {
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw new IOException("Not an RDF snapshot");
+      }
+      int version = buffer.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported RDF snapshot version " + version);
+      }
+      int prefixCount = buffer.getInt();
+      int termCount = buffer.getInt();
+      int tripleCount = buffer.getInt();
+      for (int i = 0; i < prefixCount; i++) {
+        String prefix = readString(buffer);
+        model.setNsPrefix(prefix, readString(buffer));
+      }
+      Node[] nodes = new Node[termCount];
+      for (int i = 0; i < termCount; i++) {
+        byte[] term = new byte[buffer.getInt()];
+        buffer.get(term);
+        nodes[i] = NodeDictionary.decode(term);
+      }
+      Graph graph = model.getGraph();
+      List<Triple> batch = new ArrayList<>(Math.min(tripleCount, BATCH_SIZE));
+      for (int i = 0; i < tripleCount; i++) {
+        batch.add(Triple.create(nodes[buffer.getInt()], nodes[buffer.getInt()],
+            nodes[buffer.getInt()]));
+        if (batch.size() == BATCH_SIZE) {
+          GraphUtil.add(graph, batch);
+          batch.clear();
+        }
+      }
+      GraphUtil.add(graph, batch);
+      return tripleCount;
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated RDF snapshot", e);
+    } catch (ArrayIndexOutOfBoundsException | NegativeArraySizeException e) {
+      throw new IOException("Corrupt RDF snapshot", e);
+    }
+  }
+
+  private static int termId(Map<Node, Integer> ids, List<byte[]> terms, Node node) {
+    Integer id = ids.get(node);
+    if (id == null) {
+      id = terms.size();
+      ids.put(node, id);
+      terms.add(NodeDictionary.encode(node));
+    }
+    return id;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(UTF8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, UTF8);
+  }
+}
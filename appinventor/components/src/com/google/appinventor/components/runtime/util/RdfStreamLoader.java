@@ -0,0 +1,223 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.graph.GraphUtil;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.sparql.core.Quad;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.system.StreamRDFBase;
+
+/**
+ * Parses an RDF stream into a {@link Model} in batches. Unlike {@link Model#read(InputStream,
+ * String, String)}, triples become visible in the model as they are parsed, the number of
+ * triples and bytes read so far is reported to a {@link ProgressListener}, and the load can be
+ * cancelled from another thread.
+ *
+ * <p>A cancelled or failed load leaves the batches added before it stopped in the model.</p>
+ */
+public class RdfStreamLoader extends StreamRDFBase {
+
+  /**
+   * Receives progress notifications from a loader. Notifications are made on the thread that
+   * called {@link #load(InputStream, String, Lang)}.
+   */
+  public interface ProgressListener {
+    /**
+     * Called after each batch of triples has been added to the model.
+     *
+     * @param triples the number of triples added so far
+     * @param bytes the number of bytes read so far
+     */
+    void onProgress(long triples, long bytes);
+  }
+
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  private final Model model;
+  private final int batchSize;
+  private final ProgressListener listener;
+  private final List<Triple> batch;
+  private volatile boolean cancelled = false;
+  private CountingInputStream input;
+  private long triples = 0;
+
+  /**
+   * Creates a loader that adds triples to the given model.
+   *
+   * @param model the model to load into
+   * @param batchSize the number of triples added to the model at a time
+   * @param listener the listener to notify after each batch, or null
+   */
+  public RdfStreamLoader(Model model, int batchSize, ProgressListener listener) {
+    this.model = model;
+    this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    this.listener = listener;
+    this.batch = new ArrayList<>(this.batchSize);
+  }
+
+  /**
+   * Guesses the syntax of an RDF document from its content type or file name. Documents that
+   * cannot be identified are assumed to be RDF/XML.
+   *
+   * @param contentType the content type reported by the server, or null
+   * @param path the path or URL of the document
+   * @return the language to parse the document with
+   */
+  public static Lang guessLang(String contentType, String path) {
+    Lang lang = null;
+    if (contentType != null) {
+      int semicolon = contentType.indexOf(';');
+      lang = RDFLanguages.contentTypeToLang(
+          semicolon < 0 ? contentType.trim() : contentType.substring(0, semicolon).trim());
+    }
+    if (lang == null && path != null) {
+      lang = RDFLanguages.filenameToLang(path);
+    }
+    return lang == null ? RDFLanguages.RDFXML : lang;
+  }
+
+  /**
+   * Parses the stream into the model. The stream is not closed.
+   *
+   * @param in the stream to parse
+   * @param base the base URI used to resolve relative IRIs
+   * @param lang the syntax of the stream
+   * @return the number of triples loaded
+   * @throws CancellationException if {@link #cancel()} was called before the load finished
+   */
+  public long load(InputStream in, String base, Lang lang) {
+    input = new CountingInputStream(in);
+    try {
+      RDFDataMgr.parse(this, input, base, lang, null);
+    } catch (RuntimeException e) {
+      // Parsers may wrap the exception thrown when cancelled.
+      if (cancelled) {
+        throw new CancellationException();
+      }
+      throw e;
+    }
+    return triples;
+  }
+
+  /**
+   * Requests that the load stop. The thread running {@link #load(InputStream, String, Lang)}
+   * stops at the next triple or read from the stream.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Returns the number of triples added to the model so far.
+   */
+  public long getTriples() {
+    return triples;
+  }
+
+  /**
+   * Returns the number of bytes read from the stream so far.
+   */
+  public long getBytes() {
+    return input == null ? 0 : input.count;
+  }
+
+  @Override
+  public void triple(Triple triple) {
+    checkCancelled();
+    batch.add(triple);
+    if (batch.size() >= batchSize) {
+      flush();
+    }
+  }
+
+  @Override
+  public void quad(Quad quad) {
+    // Only the default graph is loaded into the model.
+    if (quad.isTriple() || quad.isDefaultGraph()) {
+      triple(quad.asTriple());
+    }
+  }
+
+  @Override
+  public void prefix(String prefix, String iri) {
+    model.setNsPrefix(prefix, iri);
+  }
+
+  @Override
+  public void finish() {
+    flush();
+  }
+
+  private void flush() {
+    if (batch.isEmpty()) {
+      return;
+    }
+    GraphUtil.add(model.getGraph(), batch);
+    triples += batch.size();
+    batch.clear();
+    if (listener != null) {
+      listener.onProgress(triples, getBytes());
+    }
+  }
+
+  private void checkCancelled() {
+    if (cancelled) {
+      throw new CancellationException();
+    }
+  }
+
+  /**
+   * Counts the bytes read by the parser and stops reading once the load is cancelled.
+   */
+  private class CountingInputStream extends FilterInputStream {
+    private long count = 0;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      checkCancelled();
+      int b = super.read();
+      if (b >= 0) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      checkCancelled();
+      int n = super.read(buffer, offset, length);
+      if (n > 0) {
+        count += n;
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+  }
+}
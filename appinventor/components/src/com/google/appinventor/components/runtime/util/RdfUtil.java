@@ -57,7 +57,6 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -298,6 +297,21 @@ public final class RdfUtil {
     return executeSELECTQuery(endpoint, query);
   }
 
+  /**
+   * Executes a SPARQL SELECT query against a local model.
+   * @param model the model to query
+   * @param queryText the text of the query
+   * @return the query results, or null if the query is not a SELECT query
+   */
+  public static ResultSet executeSELECT(Model model, String queryText) {
+    Query query = QueryFactory.create(queryText);
+    if (!query.isSelectType()) {
+      Log.d(LOG_TAG, "Cannot execute query that is not SELECT");
+      return null;
+    }
+    return QueryExecutionFactory.create(query, model).execSelect();
+  }
+
   public static ResultSet executeSELECT(String endpoint, String queryText,
       PrefixMapping prefixes) {
     Query query = QueryFactory.parse(new Query(new Prologue(prefixes)),
@@ -531,50 +545,6 @@ public final class RdfUtil {
     return subject.toString();
   }
 
-  /**
-   * Publishes the a semantic web model to the given URI using the SPARQL
-   * Graph Protocol. Data will be transmitted using the text/turtle encoding
-   * with the UTF-8 charset. The method will return true if the server returns
-   * a 2xx response code, otherwise it will return false and log the reason
-   * for the failure to logcat.
-   *
-   * @link http://www.w3.org/TR/2013/REC-sparql11-http-rdf-update-20130321/#http-put
-   * @param uri An indirect graph URI (with a graph query parameter)
-   * @param model A Jena model containing the RDF content to HTTP PUT
-   * @return
-   */
-  public static boolean publishGraph(URI uri, Model model) {
-    boolean success = false;
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    model.write(baos, "TTL");
-    HttpURLConnection conn = null;
-    try {
-      conn = (HttpURLConnection) uri.toURL().openConnection();
-      conn.setDoInput(true);
-      conn.setDoOutput(true);
-      conn.setRequestMethod("PUT");
-      conn.setRequestProperty("Content-Length", Integer.toString(baos.size()));
-      conn.setRequestProperty("Content-Type", "text/turtle;charset=utf-8");
-      conn.connect();
-      OutputStream os = conn.getOutputStream();
-      baos.writeTo(os);
-      int status = conn.getResponseCode();
-      if(status == 200 || status == 201 || status == 204) {
-        success = true;
-      } else {
-        Log.w(LOG_TAG, "Unable to put graph due to HTTP code "+status+" "+conn.getResponseMessage());
-      }
-      conn.disconnect();
-    } catch (MalformedURLException e) {
-      Log.w(LOG_TAG, "Unable to publish graph due to malformed URL", e);
-    } catch (ProtocolException e) {
-      Log.w(LOG_TAG, "Unable to perform HTTP PUT for given URI", e);
-    } catch (IOException e) {
-      Log.w(LOG_TAG, "Unable to publish graph due to IO failure", e);
-    }
-    return success;
-  }
-
   /**
    * Performs a SPARQL 1.1 Update INSERT DATA operation on a remote triple
    * store by inserting the triples in <i>model</i> into the optionally named
@@ -586,87 +556,8 @@ public final class RdfUtil {
    * @return true on success, false otherwise.
    */
   public static boolean insertDataToDydra(URI uri, Model model, String graph) {
-    boolean success = false;
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    model.write(baos, "TTL");
-    Log.d(LOG_TAG, "Byte array size: "+baos.size());
-    // get model contents in turtle
-    String contents = null;
-    try {
-      contents = baos.toString("UTF-8");
-    } catch(UnsupportedEncodingException e) {
-      Log.e(LOG_TAG, "Unable to encode query.", e);
-      return false;
-    }
-    baos = null;
-    Log.d(LOG_TAG, "Model: "+contents);
-    // remove PREFIX statements and move them before an insert data block
-    Pattern prefixPattern = Pattern.compile("@prefix[ \t]+([^:]*:)[ \t]+<([^>]+)>[ \t]+.[ \t\r\n]+", Pattern.CASE_INSENSITIVE);
-    Matcher matcher = prefixPattern.matcher(contents);
-    StringBuffer prefixes = new StringBuffer();
-    StringBuffer sb = new StringBuffer("INSERT DATA { ");
-    if(graph != null && graph.length() != 0) {
-      sb.append("GRAPH <"+graph+"> { ");
-    }
-    sb.append("\r\n");
-    while(matcher.find()) {
-      prefixes.append("PREFIX ");
-      prefixes.append(matcher.group(1));
-      prefixes.append(" <");
-      prefixes.append(matcher.group(2));
-      prefixes.append(">\r\n");
-      matcher.appendReplacement(sb, "");
-    }
-    matcher.appendTail(sb);
-    prefixes.append(sb);
-    if(graph != null && graph.length() != 0) {
-      prefixes.append("}\r\n");
-    }
-    prefixes.append("}\r\n");
-    sb = null;
-    HttpURLConnection conn = null;
-    Log.i(LOG_TAG, "Sending update to server:");
-    Log.d(LOG_TAG, prefixes.toString());
-    try {
-      conn = (HttpURLConnection) uri.toURL().openConnection();
-      conn.setDoInput(true);
-      conn.setDoOutput(true);
-      conn.setRequestMethod("POST");
-      //conn.setRequestProperty("Content-Length", Integer.toString(prefixes.length()));
-      conn.setRequestProperty("Content-Type", "application/sparql-query");
-      conn.setRequestProperty("Accept", "*/*");
-      String userInfo = uri.getUserInfo();
-      if(userInfo != null && userInfo.length() != 0) {
-        if(!userInfo.contains(":")) {
-          userInfo = userInfo + ":";
-        }
-        String encodedInfo = Base64.encodeToString(userInfo.getBytes("UTF-8"), Base64.NO_WRAP).trim();
-        Log.d(LOG_TAG, "Authorization = "+encodedInfo);
-        conn.setRequestProperty("Authorization", "Basic "+encodedInfo);
-      }
-      conn.connect();
-      OutputStream os = conn.getOutputStream();
-      PrintStream ps = new PrintStream(os);
-      ps.print(prefixes);
-      ps.close();
-      int status = conn.getResponseCode();
-      Log.d(LOG_TAG, "HTTP Status = " + status);
-      if(status == 200) {
-        success = true;
-      } else if(status >= 400) {
-        success = false;
-        Log.w(LOG_TAG, "HTTP status for update was "+status);
-        Log.w(LOG_TAG, "HTTP response msg was "+conn.getResponseMessage());
-      }
-      conn.disconnect();
-    } catch (MalformedURLException e) {
-      Log.w(LOG_TAG, "Unable to insert triples due to malformed URL.");
-    } catch (ProtocolException e) {
-      Log.w(LOG_TAG, "Unable to perform HTTP POST to given URI.", e);
-    } catch (IOException e) {
-      Log.w(LOG_TAG, "Unable to insert triples due to communication issue.", e);
-    }
-    return success;
+    return insertData(new SparqlUpdatePublisher(uri, SparqlUpdatePublisher.Dialect.SPARQL_UPDATE),
+        model, graph);
   }
   
   /**
@@ -680,88 +571,18 @@ public final class RdfUtil {
    * @return true on success, false otherwise.
    */
   public static boolean insertDataToVirtuoso(URI uri, Model model, String graph) {
-    boolean success = false;
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    model.write(baos, "TTL");
-    Log.d(LOG_TAG, "Byte array size: "+baos.size());
-    // get model contents in turtle
-    String contents = null;
-    try {
-      contents = baos.toString("UTF-8");
-    } catch(UnsupportedEncodingException e) {
-      Log.e(LOG_TAG, "Unable to encode query.", e);
-      return false;
-    }
-    baos = null;
-    Log.d(LOG_TAG, "Model: "+contents);
-    // remove PREFIX statements and move them before an insert data block
-    Pattern prefixPattern = Pattern.compile("@prefix[ \t]+([^:]*:)[ \t]+<([^>]+)>[ \t]+.[ \t\r\n]+", Pattern.CASE_INSENSITIVE);
-    Matcher matcher = prefixPattern.matcher(contents);
-    StringBuffer prefixes = new StringBuffer();
-    StringBuffer sb = new StringBuffer("INSERT INTO GRAPH <");
-    if(graph != null && graph.length() != 0) {
-      sb.append(graph);
-    }
-    else {
-    	sb.append("#");
-    }
-    sb.append("> {\r\n");
-    while(matcher.find()) {
-      prefixes.append("PREFIX ");
-      prefixes.append(matcher.group(1));
-      prefixes.append(" <");
-      prefixes.append(matcher.group(2));
-      prefixes.append(">\r\n");
-      matcher.appendReplacement(sb, "");
-    }
-    matcher.appendTail(sb);
-    prefixes.append(sb);
-    prefixes.append("}\r\n");
-    sb = null;
-    HttpURLConnection conn = null;
-    Log.i(LOG_TAG, "Sending update to server:");
-    Log.d(LOG_TAG, prefixes.toString());
+    return insertData(new SparqlUpdatePublisher(uri, SparqlUpdatePublisher.Dialect.VIRTUOSO),
+        model, graph);
+  }
+
+  private static boolean insertData(SparqlUpdatePublisher publisher, Model model, String graph) {
     try {
-      conn = (HttpURLConnection) uri.toURL().openConnection();
-      conn.setDoInput(true);
-      conn.setDoOutput(true);
-      conn.setRequestMethod("POST");
-      //conn.setRequestProperty("Content-Length", Integer.toString(prefixes.length()));
-      //conn.setRequestProperty("Content-Type", "application/sparql-query");
-      conn.setRequestProperty("Accept", "*/*");
-      String userInfo = uri.getUserInfo();
-      if(userInfo != null && userInfo.length() != 0) {
-        if(!userInfo.contains(":")) {
-          userInfo = userInfo + ":";
-        }
-        String encodedInfo = Base64.encodeToString(userInfo.getBytes("UTF-8"), Base64.NO_WRAP).trim();
-        Log.d(LOG_TAG, "Authorization = "+encodedInfo);
-        conn.setRequestProperty("Authorization", "Basic "+encodedInfo);
-      }
-      conn.connect();
-      OutputStream os = conn.getOutputStream();
-      PrintStream ps = new PrintStream(os);
-      ps.print("query=" + URLEncoder.encode(prefixes.toString()));
-      ps.close();
-      int status = conn.getResponseCode();
-      Log.d(LOG_TAG, "HTTP Status = " + status);
-      if(status == 200) {
-        success = true;
-      } else if(status >= 400) {
-        success = false;
-        Log.w(LOG_TAG, "HTTP status for update was "+status);
-        Log.w(LOG_TAG, "HTTP response msg was "+conn.getResponseMessage());
-        Log.w(LOG_TAG, "HTTP response msg was "+conn.getContent().toString());
-      }
-      conn.disconnect();
-    } catch (MalformedURLException e) {
-      Log.w(LOG_TAG, "Unable to insert triples due to malformed URL.");
-    } catch (ProtocolException e) {
-      Log.w(LOG_TAG, "Unable to perform HTTP POST to given URI.", e);
+      publisher.publish(model, graph);
+      return true;
     } catch (IOException e) {
       Log.w(LOG_TAG, "Unable to insert triples due to communication issue.", e);
+      return false;
     }
-    return success;
   }
 
   /**
@@ -1007,52 +828,50 @@ public final class RdfUtil {
   public static YailList resultSetUsingYailDictionary(ResultSet results) {
     List<YailDictionary> bindings = new ArrayList<>();
     while (results.hasNext()) {
-      QuerySolution s = results.next();
-      Iterator<String> varNames = s.varNames();
-      YailDictionary binding = new YailDictionary();
-      while (varNames.hasNext()) {
-        String var = varNames.next();
-        RDFNode node = s.get(var);
-        if (node.isResource()) {
-          binding.put(var, node.toString());
-        } else if (node.isLiteral()) {
-          Literal l = node.asLiteral();
-          if (l.getDatatype() != null) {
-            RDFDatatype datatype = l.getDatatype();
-            if (XSDDatatype.XSDboolean.equals(datatype)) {
-              binding.put(var, l.getBoolean());
-            } else if (INTEGER_TYPES.contains(l.getDatatype())) {
-              binding.put(var, l.getInt());
-            } else if (DOUBLE_TYPES.contains(l.getDatatype())) {
-              binding.put(var, l.getDouble());
-            } else if (XSDDatatype.XSDdate.equals(datatype)) {
-              String[] parts = l.getString().split("-");
-              Calendar cal = GregorianCalendar.getInstance();
-              cal.set(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
-              binding.put(var, node.toString());
-            } else if (XSDDatatype.XSDdateTime.equals(datatype)) {
-              // TODO(ewpatton): Implementation
-              String[] parts = l.getString().split("T");
-              String[] dateParts = parts[0].split("-");
-              String[] timeParts = parts[1].split(":");
-              Calendar cal = GregorianCalendar.getInstance();
-              cal.set(Integer.parseInt(dateParts[0]), Integer.parseInt(dateParts[1]), Integer.parseInt(dateParts[2]),
-                  Integer.parseInt(timeParts[0]), Integer.parseInt(timeParts[1]), Integer.parseInt(timeParts[2]));
-            } else {
-              binding.put(var, l.getString());
-            }
+      bindings.add(solutionAsYailDictionary(results.next()));
+    }
+    return YailList.makeList(bindings);
+  }
+
+  /**
+   * Converts one solution of a SELECT query into a dictionary from variable names to values.
+   * Booleans and numbers are converted to their values; all other literals, including dates,
+   * are given by their lexical form. Integers are given as an {@link Integer}, or a {@link Long}
+   * if the value does not fit. {@link SparqlJsonDecoder} produces the same values.
+   *
+   * @param s the solution
+   * @return the dictionary
+   */
+  public static YailDictionary solutionAsYailDictionary(QuerySolution s) {
+    Iterator<String> varNames = s.varNames();
+    YailDictionary binding = new YailDictionary();
+    while (varNames.hasNext()) {
+      String var = varNames.next();
+      RDFNode node = s.get(var);
+      if (node.isResource()) {
+        binding.put(var, node.toString());
+      } else if (node.isLiteral()) {
+        Literal l = node.asLiteral();
+        if (l.getDatatype() != null) {
+          RDFDatatype datatype = l.getDatatype();
+          if (XSDDatatype.XSDboolean.equals(datatype)) {
+            binding.put(var, l.getBoolean());
+          } else if (INTEGER_TYPES.contains(l.getDatatype())) {
+            binding.put(var, SparqlJsonDecoder.convert(l.getLexicalForm(), datatype.getURI()));
+          } else if (DOUBLE_TYPES.contains(l.getDatatype())) {
+            binding.put(var, l.getDouble());
           } else {
-            binding.put(var, l.getString());
+            binding.put(var, l.getLexicalForm());
           }
         } else {
-          Log.d(LOG_TAG, "Unexpected type: " + node.getClass());
-          binding.put(var, node.toString());
+          binding.put(var, l.getString());
         }
+      } else {
+        Log.d(LOG_TAG, "Unexpected type: " + node.getClass());
+        binding.put(var, node.toString());
       }
-      bindings.add(binding);
     }
-    Log.d(LOG_TAG, bindings.toString());
-    return YailList.makeList(bindings);
+    return binding;
   }
   
   public static YailList resultSetAsYailList(ResultSet results) {
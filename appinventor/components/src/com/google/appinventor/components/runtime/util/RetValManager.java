@@ -199,6 +199,32 @@ public class RetValManager {
     }
   }
 
+  /*
+   * sendProfile -- Send a block profile to the Blocks Editor
+   *
+   * @param profile The profile, as JSON, from BlockProfiler
+   */
+  public static void sendProfile(String profile) {
+    synchronized (semaphore) {
+      JSONObject retval = new JSONObject();
+      try {
+        retval.put("status", "OK");
+        retval.put("type", "profile");
+        retval.put("value", profile);
+      } catch (JSONException e) {
+        Log.e(LOG_TAG, "Error building retval", e);
+        return;
+      }
+      boolean sendNotify = currentArray.isEmpty();
+      currentArray.add(retval);
+      if (PhoneStatus.getUseWebRTC()) {
+        webRTCsendCurrent();
+      } else if (sendNotify) {
+        semaphore.notifyAll();
+      }
+    }
+  }
+
   /*
    * fetch -- Fetch all pending results as a JSON encoded array.
    *
@@ -0,0 +1,251 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes SPARQL SELECT results in the <code>application/sparql-results+json</code> format
+ * directly into {@link YailDictionary} rows, in a single pass over the stream.
+ *
+ * <p>No Jena objects are created. Each binding is converted as it is read: URIs and blank nodes
+ * become strings, booleans become {@link Boolean}, the integer types become {@link Integer}
+ * (or {@link Long} when the value does not fit), xsd:float, xsd:double and xsd:decimal become
+ * {@link Double}, and every other literal becomes its lexical form. These are the same values
+ * that {@link RdfUtil#resultSetUsingYailDictionary} produces from a Jena result set.</p>
+ *
+ * <p>Rows can be delivered in pages while the stream is still being read, so that a large
+ * result never needs to be held in memory at once.</p>
+ */
+public final class SparqlJsonDecoder {
+
+  private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+  private static final int BOOLEAN = 1;
+  private static final int INTEGER = 2;
+  private static final int DOUBLE = 3;
+
+  private static final Map<String, Integer> DATATYPES = new HashMap<>();
+
+  static {
+    DATATYPES.put(XSD + "boolean", BOOLEAN);
+    for (String type : new String[] { "byte", "unsignedByte", "short", "unsignedShort", "int",
+        "integer", "unsignedInt", "nonNegativeInteger", "nonPositiveInteger", "positiveInteger",
+        "negativeInteger" }) {
+      DATATYPES.put(XSD + type, INTEGER);
+    }
+    for (String type : new String[] { "float", "double", "decimal" }) {
+      DATATYPES.put(XSD + type, DOUBLE);
+    }
+  }
+
+  /**
+   * Receives the rows of a result as they are decoded.
+   */
+  public interface PageListener {
+    /**
+     * @param rows the rows of the page, which the listener may keep
+     * @param page the number of the page, starting at 1
+     * @param hasMore true if more rows follow
+     */
+    void onPage(List<YailDictionary> rows, int page, boolean hasMore);
+  }
+
+  private SparqlJsonDecoder() {
+  }
+
+  /**
+   * Decodes a whole result.
+   *
+   * @param in the JSON result, which is not closed
+   * @return the rows of the result
+   * @throws IOException if the stream cannot be read or is not a SELECT result
+   */
+  public static List<YailDictionary> decode(InputStream in) throws IOException {
+    final List<YailDictionary> all = new ArrayList<>();
+    decode(in, 0, new PageListener() {
+      @Override
+      public void onPage(List<YailDictionary> rows, int page, boolean hasMore) {
+        all.addAll(rows);
+      }
+    });
+    return all;
+  }
+
+  /**
+   * Decodes a result, delivering its rows in pages. The listener is called at least once, with
+   * an empty last page if the result has no rows, or if its rows exactly fill the pages before.
+   *
+   * @param in the JSON result, which is not closed
+   * @param pageSize the number of rows in each page, or 0 to deliver all rows in one page
+   * @param listener receives the pages
+   * @return the variables named in the head of the result
+   * @throws IOException if the stream cannot be read or is not a SELECT result
+   */
+  public static List<String> decode(InputStream in, int pageSize, PageListener listener)
+      throws IOException {
+    JsonReader reader = new JsonReader(new InputStreamReader(in, "UTF-8"));
+    List<String> vars = new ArrayList<>();
+    boolean sawBindings = false;
+    try {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if ("head".equals(name)) {
+          readHead(reader, vars);
+        } else if ("results".equals(name)) {
+          reader.beginObject();
+          while (reader.hasNext()) {
+            if ("bindings".equals(reader.nextName())) {
+              readBindings(reader, pageSize, listener);
+              sawBindings = true;
+            } else {
+              reader.skipValue();
+            }
+          }
+          reader.endObject();
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+    } catch (IllegalStateException e) {
+      // JsonReader reports unexpected tokens this way.
+      throw new IOException("Malformed SPARQL JSON results: " + e.getMessage());
+    }
+    if (!sawBindings) {
+      throw new IOException("SPARQL JSON results contain no bindings");
+    }
+    return vars;
+  }
+
+  private static void readHead(JsonReader reader, List<String> vars) throws IOException {
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if ("vars".equals(reader.nextName())) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+          vars.add(reader.nextString());
+        }
+        reader.endArray();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+  }
+
+  private static void readBindings(JsonReader reader, int pageSize, PageListener listener)
+      throws IOException {
+    // Variable names repeat on every row; share one String per name.
+    Map<String, String> interned = new HashMap<>();
+    List<YailDictionary> rows = new ArrayList<>(pageSize > 0 ? pageSize : 16);
+    int page = 1;
+    reader.beginArray();
+    while (reader.hasNext()) {
+      YailDictionary row = new YailDictionary();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String var = reader.nextName();
+        String shared = interned.get(var);
+        if (shared == null) {
+          interned.put(var, var);
+          shared = var;
+        }
+        row.put(shared, readTerm(reader));
+      }
+      reader.endObject();
+      rows.add(row);
+      if (pageSize > 0 && rows.size() == pageSize && reader.hasNext()) {
+        listener.onPage(rows, page++, true);
+        rows = new ArrayList<>(pageSize);
+      }
+    }
+    reader.endArray();
+    listener.onPage(rows, page, false);
+  }
+
+  private static Object readTerm(JsonReader reader) throws IOException {
+    String type = null;
+    String value = null;
+    String datatype = null;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if ("value".equals(name)) {
+        value = reader.nextString();
+      } else if ("type".equals(name)) {
+        type = reader.nextString();
+      } else if ("datatype".equals(name)) {
+        datatype = reader.nextString();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    if (value == null) {
+      throw new IOException("SPARQL JSON binding has no value");
+    }
+    if (datatype == null || !("literal".equals(type) || "typed-literal".equals(type))) {
+      return value;
+    }
+    return convert(value, datatype);
+  }
+
+  /**
+   * Converts the lexical form of a typed literal to the value given to blocks.
+   *
+   * @param value the lexical form
+   * @param datatype the datatype URI
+   * @return the converted value, or the lexical form if it is not a known numeric or boolean
+   *     type or is not valid for its type
+   */
+  static Object convert(String value, String datatype) {
+    Integer kind = DATATYPES.get(datatype);
+    if (kind == null) {
+      return value;
+    }
+    String trimmed = value.trim();
+    try {
+      switch (kind) {
+        case BOOLEAN:
+          if ("true".equals(trimmed) || "1".equals(trimmed)) {
+            return Boolean.TRUE;
+          } else if ("false".equals(trimmed) || "0".equals(trimmed)) {
+            return Boolean.FALSE;
+          }
+          return value;
+        case INTEGER:
+          if (trimmed.startsWith("+")) {
+            trimmed = trimmed.substring(1);
+          }
+          long l = Long.parseLong(trimmed);
+          if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+            return (int) l;
+          }
+          return l;
+        case DOUBLE:
+          if ("INF".equals(trimmed)) {
+            return Double.POSITIVE_INFINITY;
+          } else if ("-INF".equals(trimmed)) {
+            return Double.NEGATIVE_INFINITY;
+          }
+          return Double.parseDouble(trimmed);
+        default:
+          return value;
+      }
+    } catch (NumberFormatException e) {
+      return value;
+    }
+  }
+}
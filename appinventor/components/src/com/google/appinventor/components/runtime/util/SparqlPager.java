@@ -0,0 +1,243 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.query.QuerySolution;
+import com.hp.hpl.jena.query.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the results of a SPARQL SELECT query one page at a time using <code>LIMIT</code> and
+ * <code>OFFSET</code>, optionally narrowed by a text filter evaluated by the endpoint.
+ *
+ * <p>Pages are fetched on background threads. Concurrent requests for the same page share one
+ * query, and each page delivered to a listener causes the following page to be prefetched so that
+ * it is ready when the user scrolls to it. Loaded pages are kept in a bounded cache, so reopening
+ * a list does not query the endpoint again.</p>
+ *
+ * @param <T> the type of item produced from each solution
+ */
+public class SparqlPager<T> {
+
+  /** The maximum number of pages kept in memory. */
+  public static final int MAX_CACHED_PAGES = 64;
+
+  /**
+   * Builds the query for one page.
+   */
+  public interface QueryBuilder {
+    /**
+     * @param filter the text to filter by, or the empty string for no filter
+     * @param limit the maximum number of solutions to return
+     * @param offset the number of solutions to skip
+     * @return the SELECT query
+     */
+    String build(String filter, int limit, int offset);
+  }
+
+  /**
+   * Converts a solution into an item.
+   */
+  public interface RowMapper<T> {
+    /**
+     * @return the item, or null to omit the solution from the page
+     */
+    T map(QuerySolution solution);
+  }
+
+  /**
+   * Receives pages requested with {@link SparqlPager#requestPage(String, int, Listener)}.
+   * Methods are called on a background thread, or on the requesting thread if the page was
+   * cached.
+   */
+  public interface Listener<T> {
+    void onPage(String filter, int page, List<T> items, boolean hasMore);
+
+    void onError(String filter, int page, Exception error);
+  }
+
+  private static final class Page<T> {
+    private final List<T> items;
+    private final boolean hasMore;
+
+    private Page(List<T> items, boolean hasMore) {
+      this.items = Collections.unmodifiableList(items);
+      this.hasMore = hasMore;
+    }
+  }
+
+  private final SparqlResultCache cache;
+  private final String endpoint;
+  private final QueryBuilder builder;
+  private final RowMapper<T> mapper;
+  private final int pageSize;
+  private final long ttl;
+  private final Map<String, Page<T>> pages =
+      new LinkedHashMap<String, Page<T>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Page<T>> eldest) {
+          return size() > MAX_CACHED_PAGES;
+        }
+      };
+  private final Map<String, List<Listener<T>>> inflight = new HashMap<>();
+  private int generation = 0;
+
+  /**
+   * Creates a pager.
+   *
+   * @param cache the cache used to execute queries
+   * @param endpoint the URL of the SPARQL endpoint
+   * @param builder builds the query for each page
+   * @param mapper converts solutions into items
+   * @param pageSize the number of solutions per page
+   * @param ttl how long, in milliseconds, the endpoint's result for a page may be reused by the
+   *     cache without revalidation
+   */
+  public SparqlPager(SparqlResultCache cache, String endpoint, QueryBuilder builder,
+      RowMapper<T> mapper, int pageSize, long ttl) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("pageSize must be positive");
+    }
+    this.cache = cache;
+    this.endpoint = endpoint;
+    this.builder = builder;
+    this.mapper = mapper;
+    this.pageSize = pageSize;
+    this.ttl = ttl;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Requests a page. The listener is called once the page is available. If the page is cached
+   * the listener is called before this method returns.
+   *
+   * @param filter the text filter, or the empty string for no filter
+   * @param page the zero-based page number
+   * @param listener the listener to notify, or null to load the page into the cache only
+   */
+  public void requestPage(final String filter, final int page, Listener<T> listener) {
+    final String key = key(filter, page);
+    final int requestGeneration;
+    Page<T> cached;
+    boolean start = false;
+    synchronized (this) {
+      requestGeneration = generation;
+      cached = pages.get(key);
+      if (cached == null) {
+        String flightKey = requestGeneration + ":" + key;
+        List<Listener<T>> waiting = inflight.get(flightKey);
+        if (waiting == null) {
+          waiting = new ArrayList<>();
+          inflight.put(flightKey, waiting);
+          start = true;
+        }
+        if (listener != null) {
+          waiting.add(listener);
+        }
+      }
+    }
+    if (cached != null) {
+      if (listener != null) {
+        listener.onPage(filter, page, cached.items, cached.hasMore);
+        if (cached.hasMore) {
+          requestPage(filter, page + 1, null);
+        }
+      }
+    } else if (start) {
+      AsynchUtil.runAsynchronously(new Runnable() {
+        @Override
+        public void run() {
+          load(filter, page, key, requestGeneration);
+        }
+      });
+    }
+  }
+
+  /**
+   * Discards all cached pages. Requests in progress still complete, but their pages are not
+   * cached.
+   */
+  public synchronized void clear() {
+    generation++;
+    pages.clear();
+  }
+
+  /**
+   * Escapes text for use inside a double-quoted SPARQL string literal.
+   */
+  public static String escapeString(String text) {
+    StringBuilder sb = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '\\': sb.append("\\\\"); break;
+        case '"': sb.append("\\\""); break;
+        case '\n': sb.append("\\n"); break;
+        case '\r': sb.append("\\r"); break;
+        case '\t': sb.append("\\t"); break;
+        default: sb.append(c); break;
+      }
+    }
+    return sb.toString();
+  }
+
+  private static String key(String filter, int page) {
+    return page + ":" + filter;
+  }
+
+  private void load(String filter, int page, String key, int requestGeneration) {
+    Page<T> result = null;
+    Exception error = null;
+    try {
+      // Ask for one extra solution to learn whether another page follows.
+      ResultSet results = cache.select(endpoint,
+          builder.build(filter, pageSize + 1, page * pageSize), ttl);
+      List<T> items = new ArrayList<>(pageSize);
+      int rows = 0;
+      while (results.hasNext()) {
+        QuerySolution solution = results.next();
+        if (++rows > pageSize) {
+          break;
+        }
+        T item = mapper.map(solution);
+        if (item != null) {
+          items.add(item);
+        }
+      }
+      result = new Page<T>(items, rows > pageSize);
+    } catch (Exception e) {
+      error = e;
+    }
+    List<Listener<T>> waiting;
+    synchronized (this) {
+      waiting = inflight.remove(requestGeneration + ":" + key);
+      if (result != null && requestGeneration == generation) {
+        pages.put(key, result);
+      }
+    }
+    if (waiting == null || waiting.isEmpty()) {
+      return;
+    }
+    for (Listener<T> listener : waiting) {
+      if (result != null) {
+        listener.onPage(filter, page, result.items, result.hasMore);
+      } else {
+        listener.onError(filter, page, error);
+      }
+    }
+    if (result != null && result.hasMore) {
+      requestPage(filter, page + 1, null);
+    }
+  }
+}
@@ -0,0 +1,522 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.query.ResultSetFactory;
+import com.hp.hpl.jena.query.ResultSetRewindable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Caches the results of SPARQL SELECT queries sent to remote endpoints. Results are kept as the
+ * <code>application/sparql-results+json</code> bytes returned by the endpoint, keyed by the
+ * endpoint and the query text with insignificant whitespace removed.
+ *
+ * <p>Entries live in a memory tier, bounded by total size and evicted least recently used first,
+ * and optionally in a disk tier that survives restarts. An entry younger than the TTL given to
+ * {@link #select(String, String, long)} is returned without contacting the endpoint. An older
+ * entry is revalidated with <code>If-None-Match</code> and <code>If-Modified-Since</code> when
+ * the endpoint supplied an <code>ETag</code> or <code>Last-Modified</code> header, so an unchanged
+ * result costs a round trip but is not transferred again.</p>
+ *
+ * <p>Components share the instance returned by {@link #getInstance()}, so results survive
+ * switching screens.</p>
+ */
+public class SparqlResultCache {
+
+  /** The default bound on the memory tier, in bytes. */
+  public static final long DEFAULT_MEMORY_BYTES = 4 * 1024 * 1024;
+
+  /** The default bound on the disk tier, in bytes. */
+  public static final long DEFAULT_DISK_BYTES = 32 * 1024 * 1024;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final String RESULTS_JSON = "application/sparql-results+json";
+  private static final int MAGIC = 0x50595143;  // "PYQC"
+  private static final int VERSION = 1;
+  private static final int MAX_GET_LENGTH = 2000;
+  private static final int TIMEOUT_MS = 30000;
+  private static final String TMP_SUFFIX = ".tmp";
+
+  private static SparqlResultCache instance;
+
+  private static final class Entry {
+    private final String key;
+    private final byte[] body;
+    private final String etag;
+    private final String lastModified;
+    private final long fetchedAt;
+
+    private Entry(String key, byte[] body, String etag, String lastModified, long fetchedAt) {
+      this.key = key;
+      this.body = body;
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.fetchedAt = fetchedAt;
+    }
+
+    private boolean canRevalidate() {
+      return etag != null || lastModified != null;
+    }
+  }
+
+  private final LinkedHashMap<String, Entry> memory =
+      new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  private final long maxMemoryBytes;
+  private long memoryBytes = 0;
+  private File diskDirectory = null;
+  private long maxDiskBytes = DEFAULT_DISK_BYTES;
+  private int hits = 0;
+  private int misses = 0;
+  private int revalidations = 0;
+
+  /**
+   * Returns the cache shared by all components.
+   */
+  public static synchronized SparqlResultCache getInstance() {
+    if (instance == null) {
+      instance = new SparqlResultCache(DEFAULT_MEMORY_BYTES);
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a cache with only a memory tier.
+   *
+   * @param maxMemoryBytes the maximum total size of the results held in memory
+   */
+  public SparqlResultCache(long maxMemoryBytes) {
+    this.maxMemoryBytes = maxMemoryBytes;
+  }
+
+  /**
+   * Enables or disables the disk tier.
+   *
+   * @param directory the directory to hold cached results, or null to keep results only in memory
+   * @param maxBytes the maximum total size of the files in the directory
+   */
+  public synchronized void setDiskDirectory(File directory, long maxBytes) {
+    if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+      directory = null;
+    }
+    diskDirectory = directory;
+    maxDiskBytes = maxBytes;
+  }
+
+  /**
+   * Returns true if the disk tier is enabled.
+   */
+  public synchronized boolean hasDiskTier() {
+    return diskDirectory != null;
+  }
+
+  /**
+   * Executes a SELECT query against a remote endpoint, using a cached result where possible.
+   *
+   * @param endpoint the URL of the SPARQL endpoint
+   * @param queryText the SELECT query
+   * @param ttl how long, in milliseconds, a result may be used without revalidation
+   * @return the results, positioned at the first solution
+   * @throws IOException if the endpoint could not be reached or rejected the query
+   */
+  public ResultSetRewindable select(String endpoint, String queryText, long ttl)
+      throws IOException {
+    return parse(selectJson(endpoint, queryText, ttl));
+  }
+
+  /**
+   * Executes a SELECT query against a remote endpoint, using a cached result where possible, and
+   * returns the result in the SPARQL JSON results format without parsing it. The returned array
+   * is shared with the cache and must not be modified.
+   *
+   * @param endpoint the URL of the SPARQL endpoint
+   * @param queryText the SELECT query
+   * @param ttl how long, in milliseconds, a result may be used without revalidation
+   * @return the JSON result, encoded in UTF-8
+   * @throws IOException if the endpoint could not be reached or rejected the query
+   * @see SparqlJsonDecoder
+   */
+  public byte[] selectJson(String endpoint, String queryText, long ttl) throws IOException {
+    String key = endpoint + '\n' + normalize(queryText);
+    long now = System.currentTimeMillis();
+    Entry entry = lookup(key);
+    if (entry != null && now - entry.fetchedAt <= ttl) {
+      countHit(false);
+      return entry.body;
+    }
+    Entry fetched = fetch(endpoint, queryText, key, entry != null && entry.canRevalidate()
+        ? entry : null);
+    if (fetched == entry) {
+      countHit(true);
+      store(new Entry(key, entry.body, entry.etag, entry.lastModified, now));
+      return entry.body;
+    }
+    synchronized (this) {
+      misses++;
+    }
+    store(fetched);
+    return fetched.body;
+  }
+
+  /**
+   * Removes all cached results from memory and disk.
+   */
+  public synchronized void clear() {
+    memory.clear();
+    memoryBytes = 0;
+    if (diskDirectory != null) {
+      File[] files = diskDirectory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          file.delete();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of queries answered from the cache, including those answered after a
+   * successful revalidation.
+   */
+  public synchronized int getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of queries whose results had to be transferred from the endpoint.
+   */
+  public synchronized int getMisses() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of hits that required a conditional request to the endpoint.
+   */
+  public synchronized int getRevalidations() {
+    return revalidations;
+  }
+
+  /**
+   * Removes comments, collapses runs of whitespace outside string literals into a single space
+   * and trims the query, so that queries differing only in layout share a cache entry.
+   */
+  static String normalize(String queryText) {
+    StringBuilder sb = new StringBuilder(queryText.length());
+    char quote = 0;
+    boolean space = false;
+    for (int i = 0; i < queryText.length(); i++) {
+      char c = queryText.charAt(i);
+      if (quote != 0) {
+        sb.append(c);
+        if (c == '\\' && i + 1 < queryText.length()) {
+          sb.append(queryText.charAt(++i));
+        } else if (c == quote) {
+          quote = 0;
+        }
+      } else if (Character.isWhitespace(c)) {
+        space = true;
+      } else if (c == '#' && (i == 0 || Character.isWhitespace(queryText.charAt(i - 1)))) {
+        // A comment runs to the end of the line. A '#' inside an IRI is never preceded by
+        // whitespace.
+        while (i + 1 < queryText.length() && queryText.charAt(i + 1) != '\n') {
+          i++;
+        }
+        space = true;
+      } else {
+        if (space && sb.length() > 0) {
+          sb.append(' ');
+        }
+        space = false;
+        if (c == '"' || c == '\'') {
+          quote = c;
+        }
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  private synchronized void countHit(boolean revalidated) {
+    hits++;
+    if (revalidated) {
+      revalidations++;
+    }
+  }
+
+  /**
+   * Returns the entry for a key from memory, or else from disk. The disk is read without holding
+   * the cache's lock.
+   */
+  private Entry lookup(String key) {
+    File directory;
+    synchronized (this) {
+      Entry entry = memory.get(key);
+      if (entry != null || diskDirectory == null) {
+        return entry;
+      }
+      directory = diskDirectory;
+    }
+    Entry entry = readDisk(directory, key);
+    if (entry == null) {
+      return null;
+    }
+    synchronized (this) {
+      Entry current = memory.get(key);
+      if (current != null && current.fetchedAt >= entry.fetchedAt) {
+        // Stored while we were reading.
+        return current;
+      }
+      putMemory(entry);
+    }
+    return entry;
+  }
+
+  /**
+   * Stores an entry in memory and, if the disk tier is enabled, on disk. The disk is written
+   * without holding the cache's lock.
+   */
+  private void store(Entry entry) {
+    File directory;
+    long maxBytes;
+    synchronized (this) {
+      putMemory(entry);
+      directory = diskDirectory;
+      maxBytes = maxDiskBytes;
+    }
+    if (directory != null) {
+      writeDisk(directory, entry, maxBytes);
+    }
+  }
+
+  private void putMemory(Entry entry) {
+    Entry old = memory.put(entry.key, entry);
+    if (old != null) {
+      memoryBytes -= old.body.length;
+    }
+    memoryBytes += entry.body.length;
+    Iterator<Entry> it = memory.values().iterator();
+    while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+      Entry eldest = it.next();
+      memoryBytes -= eldest.body.length;
+      it.remove();
+    }
+  }
+
+  private static ResultSetRewindable parse(byte[] body) {
+    return ResultSetFactory.makeRewindable(
+        ResultSetFactory.fromJSON(new ByteArrayInputStream(body)));
+  }
+
+  /**
+   * Sends the query. If a stale entry is given and the endpoint reports that it has not changed,
+   * that entry is returned.
+   */
+  private Entry fetch(String endpoint, String queryText, String key, Entry stale)
+      throws IOException {
+    String encoded = "query=" + URLEncoder.encode(queryText, "UTF-8");
+    boolean get = endpoint.length() + encoded.length() + 1 < MAX_GET_LENGTH;
+    URL url = new URL(get ? endpoint + (endpoint.indexOf('?') < 0 ? '?' : '&') + encoded
+        : endpoint);
+    HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+    try {
+      conn.setConnectTimeout(TIMEOUT_MS);
+      conn.setReadTimeout(TIMEOUT_MS);
+      conn.setRequestProperty("Accept", RESULTS_JSON);
+      if (stale != null) {
+        if (stale.etag != null) {
+          conn.setRequestProperty("If-None-Match", stale.etag);
+        }
+        if (stale.lastModified != null) {
+          conn.setRequestProperty("If-Modified-Since", stale.lastModified);
+        }
+      }
+      if (!get) {
+        byte[] body = encoded.getBytes(UTF8);
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+        conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        conn.setFixedLengthStreamingMode(body.length);
+        OutputStream out = conn.getOutputStream();
+        try {
+          out.write(body);
+        } finally {
+          out.close();
+        }
+      }
+      int status = conn.getResponseCode();
+      if (status == HttpURLConnection.HTTP_NOT_MODIFIED && stale != null) {
+        return stale;
+      }
+      if (status != HttpURLConnection.HTTP_OK) {
+        throw new IOException("HTTP " + status + " " + conn.getResponseMessage());
+      }
+      InputStream in = conn.getInputStream();
+      try {
+        return new Entry(key, readFully(in), conn.getHeaderField("ETag"),
+            conn.getHeaderField("Last-Modified"), System.currentTimeMillis());
+      } finally {
+        in.close();
+      }
+    } finally {
+      conn.disconnect();
+    }
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int n;
+    while ((n = in.read(buffer)) > 0) {
+      out.write(buffer, 0, n);
+    }
+    return out.toByteArray();
+  }
+
+  private static File diskFile(File directory, String key) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(UTF8));
+      StringBuilder name = new StringBuilder(digest.length * 2 + 5);
+      for (byte b : digest) {
+        name.append(Character.forDigit((b >> 4) & 0xf, 16));
+        name.append(Character.forDigit(b & 0xf, 16));
+      }
+      return new File(directory, name.append(".json").toString());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static Entry readDisk(File directory, String key) {
+    File file = diskFile(directory, key);
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(
+          new FileInputStream(file)));
+      try {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION || !key.equals(in.readUTF())) {
+          return null;
+        }
+        String etag = in.readBoolean() ? in.readUTF() : null;
+        String lastModified = in.readBoolean() ? in.readUTF() : null;
+        long fetchedAt = in.readLong();
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new Entry(key, body, etag, lastModified, fetchedAt);
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      file.delete();
+      return null;
+    }
+  }
+
+  /**
+   * Writes an entry to the disk tier. Concurrent writes of the same key each use their own
+   * temporary file, which is renamed over the entry's file in one step, so readers see either
+   * the old or the new entry.
+   */
+  private static void writeDisk(File directory, Entry entry, long maxBytes) {
+    File file = diskFile(directory, entry.key);
+    File tmp = null;
+    try {
+      tmp = File.createTempFile(file.getName(), TMP_SUFFIX, directory);
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+          new FileOutputStream(tmp)));
+      try {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(entry.key);
+        writeOptional(out, entry.etag);
+        writeOptional(out, entry.lastModified);
+        out.writeLong(entry.fetchedAt);
+        out.writeInt(entry.body.length);
+        out.write(entry.body);
+      } finally {
+        out.close();
+      }
+      if (!tmp.renameTo(file)) {
+        tmp.delete();
+        return;
+      }
+    } catch (IOException e) {
+      if (tmp != null) {
+        tmp.delete();
+      }
+      return;
+    }
+    trimDisk(directory, maxBytes);
+  }
+
+  private static void writeOptional(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  /**
+   * Deletes the least recently written files until the disk tier fits its bound. Files still
+   * being written are left alone.
+   */
+  private static void trimDisk(File directory, long maxDiskBytes) {
+    File[] files = directory.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return !file.getName().endsWith(TMP_SUFFIX);
+      }
+    });
+    if (files == null) {
+      return;
+    }
+    long total = 0;
+    for (File file : files) {
+      total += file.length();
+    }
+    if (total <= maxDiskBytes) {
+      return;
+    }
+    Arrays.sort(files, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        long diff = a.lastModified() - b.lastModified();
+        return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+      }
+    });
+    for (File file : files) {
+      if (total <= maxDiskBytes) {
+        break;
+      }
+      long length = file.length();
+      if (file.delete()) {
+        total -= length;
+      }
+    }
+  }
+}
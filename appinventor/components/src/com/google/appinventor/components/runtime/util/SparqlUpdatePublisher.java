@@ -0,0 +1,511 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import android.util.Base64;
+import android.util.Log;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.rdf.model.ResIterator;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.rdf.model.StmtIterator;
+import com.hp.hpl.jena.shared.PrefixMapping;
+import com.hp.hpl.jena.sparql.util.FmtUtils;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Publishes the contents of a {@link Model} to a remote triple store as a sequence of
+ * bounded-size requests. Each request carries at most {@link #setBatchSize(int) batch size}
+ * triples and is written directly to the connection, so the model is never serialized into
+ * memory as a whole. Failed requests are retried with exponential backoff.
+ *
+ * <p>Triples are grouped by subject, and the statements about blank nodes are sent with the
+ * statement that refers to them, because blank node labels are scoped to a single request. The
+ * statements about a named subject may be split across requests; only a blank node that has more
+ * statements than the batch size makes a request larger than the batch size. A blank node that is
+ * referred to by more than one subject may still be split into distinct nodes on the server if
+ * those subjects are sent in different batches.</p>
+ */
+public class SparqlUpdatePublisher {
+
+  private static final String LOG_TAG = SparqlUpdatePublisher.class.getSimpleName();
+
+  /**
+   * The request format understood by the remote store.
+   */
+  public enum Dialect {
+    /** SPARQL 1.1 Update <code>INSERT DATA</code> posted as application/sparql-update. */
+    SPARQL_UPDATE,
+    /** Virtuoso <code>INSERT INTO GRAPH</code> posted as a form-encoded query. */
+    VIRTUOSO,
+    /**
+     * SPARQL 1.1 Graph Store HTTP Protocol. The first batch replaces the graph with PUT and the
+     * remaining batches are merged into it with POST.
+     */
+    GRAPH_STORE
+  }
+
+  /**
+   * Receives progress notifications after each batch is accepted by the server.
+   */
+  public interface ProgressListener {
+    /**
+     * @param sent the number of triples sent so far
+     * @param total the number of triples in the model
+     */
+    void onProgress(int sent, int total);
+  }
+
+  public static final int DEFAULT_BATCH_SIZE = 500;
+  public static final int DEFAULT_MAX_RETRIES = 3;
+  public static final long DEFAULT_RETRY_DELAY_MS = 1000;
+
+  private final URI uri;
+  private final Dialect dialect;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  private int maxRetries = DEFAULT_MAX_RETRIES;
+  private long retryDelay = DEFAULT_RETRY_DELAY_MS;
+  private ProgressListener listener = null;
+  private final Map<Node, String> blankLabels = new HashMap<>();
+
+  /**
+   * Creates a publisher for the given endpoint.
+   *
+   * @param uri the update endpoint, or the graph store URI including the graph parameter for
+   *     {@link Dialect#GRAPH_STORE}
+   * @param dialect the request format to use
+   */
+  public SparqlUpdatePublisher(URI uri, Dialect dialect) {
+    this.uri = uri;
+    this.dialect = dialect;
+  }
+
+  /**
+   * Sets the maximum number of triples sent in one request.
+   */
+  public SparqlUpdatePublisher setBatchSize(int batchSize) {
+    this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    return this;
+  }
+
+  /**
+   * Sets the number of times a failed request is retried before publishing stops.
+   */
+  public SparqlUpdatePublisher setMaxRetries(int maxRetries) {
+    this.maxRetries = Math.max(0, maxRetries);
+    return this;
+  }
+
+  /**
+   * Sets the delay before the first retry of a failed request. The delay doubles with each
+   * further retry.
+   */
+  public SparqlUpdatePublisher setRetryDelay(long retryDelay) {
+    this.retryDelay = Math.max(0, retryDelay);
+    return this;
+  }
+
+  public SparqlUpdatePublisher setProgressListener(ProgressListener listener) {
+    this.listener = listener;
+    return this;
+  }
+
+  /**
+   * Sends the contents of the model.
+   *
+   * @param model the model to publish
+   * @param graph the graph to insert into, or null for the default graph. Ignored for
+   *     {@link Dialect#GRAPH_STORE}, where the graph is part of the URI.
+   * @return the number of triples sent
+   * @throws IOException if a batch could not be sent after all retries
+   */
+  public int publish(Model model, String graph) throws IOException {
+    if (graph != null && graph.length() == 0) {
+      graph = null;
+    }
+    blankLabels.clear();
+    int total = (int) model.size();
+    int sent = 0;
+    int batches = 0;
+    List<Triple> batch = new ArrayList<>(batchSize);
+    Set<Resource> emitted = new HashSet<>();
+    // Named subjects first, each with the blank nodes it reaches, then any blank nodes that are
+    // not reachable from a named subject.
+    for (int pass = 0; pass < 2; pass++) {
+      ResIterator subjects = model.listSubjects();
+      try {
+        while (subjects.hasNext()) {
+          Resource subject = subjects.next();
+          if (subject.isAnon() != (pass == 1) || emitted.contains(subject)) {
+            continue;
+          }
+          for (List<Triple> unit : splitSubject(model, subject, emitted)) {
+            if (!batch.isEmpty() && batch.size() + unit.size() > batchSize) {
+              sendWithRetry(model, batch, graph, batches++ == 0, null);
+              sent += batch.size();
+              batch.clear();
+              notifyProgress(sent, total);
+            }
+            batch.addAll(unit);
+          }
+        }
+      } finally {
+        subjects.close();
+      }
+    }
+    // A graph store PUT of an empty batch still replaces the remote graph.
+    if (!batch.isEmpty() || (batches == 0 && dialect == Dialect.GRAPH_STORE)) {
+      sendWithRetry(model, batch, graph, batches == 0, null);
+      sent += batch.size();
+      notifyProgress(sent, total);
+    }
+    return sent;
+  }
+
+  /**
+   * Splits the statements about a subject into the groups that must be sent in the same request.
+   * A statement about a named subject is a group on its own, unless its object is a blank node,
+   * in which case the statements about the blank node are added to the group. All statements about
+   * a blank subject form a single group.
+   */
+  private static List<List<Triple>> splitSubject(Model model, Resource subject,
+      Set<Resource> emitted) {
+    List<List<Triple>> units = new ArrayList<>();
+    if (subject.isAnon()) {
+      List<Triple> unit = new ArrayList<>();
+      addClosure(model, subject, unit, emitted);
+      units.add(unit);
+      return units;
+    }
+    List<Statement> statements = model.listStatements(subject, null, (RDFNode) null).toList();
+    for (Statement st : statements) {
+      List<Triple> unit = new ArrayList<>();
+      unit.add(st.asTriple());
+      if (st.getObject().isAnon() && !emitted.contains(st.getObject())) {
+        addClosure(model, st.getObject().asResource(), unit, emitted);
+      }
+      units.add(unit);
+    }
+    return units;
+  }
+
+  /**
+   * Adds the statements about a subject to the batch, along with the statements about any blank
+   * nodes that it refers to, so that blank nodes are not split across requests.
+   */
+  private static void addClosure(Model model, Resource subject, List<Triple> batch,
+      Set<Resource> emitted) {
+    if (subject.isAnon()) {
+      emitted.add(subject);
+    }
+    List<Resource> blanks = new ArrayList<>();
+    StmtIterator it = model.listStatements(subject, null, (RDFNode) null);
+    try {
+      while (it.hasNext()) {
+        Statement st = it.next();
+        batch.add(st.asTriple());
+        if (st.getObject().isAnon() && !emitted.contains(st.getObject())) {
+          blanks.add(st.getObject().asResource());
+        }
+      }
+    } finally {
+      it.close();
+    }
+    for (Resource blank : blanks) {
+      if (!emitted.contains(blank)) {
+        addClosure(model, blank, batch, emitted);
+      }
+    }
+  }
+
+  /**
+   * Applies a set of changes to a graph that was previously published, sending the removals as
+   * <code>DELETE DATA</code> requests followed by the additions as <code>INSERT DATA</code>
+   * requests. SPARQL does not allow blank nodes in <code>DELETE DATA</code>, so removed statements
+   * that contain blank nodes are skipped. The graph store dialect cannot express changes, so
+   * requests are sent using SPARQL 1.1 Update syntax, form-encoded for {@link Dialect#VIRTUOSO}.
+   *
+   * @param prefixes the prefixes used to abbreviate terms
+   * @param added the statements to insert
+   * @param removed the statements to delete
+   * @param graph the graph to modify, or null for the default graph
+   * @return the number of statements sent
+   * @throws IOException if a batch could not be sent after all retries
+   */
+  public int publishChanges(PrefixMapping prefixes, Collection<Triple> added,
+      Collection<Triple> removed, String graph) throws IOException {
+    if (dialect == Dialect.GRAPH_STORE) {
+      throw new IllegalStateException("The graph store protocol cannot publish changes");
+    }
+    if (graph != null && graph.length() == 0) {
+      graph = null;
+    }
+    blankLabels.clear();
+    int total = added.size() + removed.size();
+    int sent = 0;
+    List<Triple> batch = new ArrayList<>(batchSize);
+    for (Triple t : removed) {
+      if (t.getSubject().isBlank() || t.getObject().isBlank()) {
+        Log.w(LOG_TAG, "Unable to delete statement with a blank node: " + t);
+        total--;
+        continue;
+      }
+      batch.add(t);
+      if (batch.size() >= batchSize) {
+        sent = sendChanges(prefixes, batch, graph, "DELETE DATA", sent, total);
+      }
+    }
+    if (!batch.isEmpty()) {
+      sent = sendChanges(prefixes, batch, graph, "DELETE DATA", sent, total);
+    }
+    for (Triple t : added) {
+      batch.add(t);
+      if (batch.size() >= batchSize) {
+        sent = sendChanges(prefixes, batch, graph, "INSERT DATA", sent, total);
+      }
+    }
+    if (!batch.isEmpty()) {
+      sent = sendChanges(prefixes, batch, graph, "INSERT DATA", sent, total);
+    }
+    return sent;
+  }
+
+  private int sendChanges(PrefixMapping prefixes, List<Triple> batch, String graph,
+      String operation, int sent, int total) throws IOException {
+    sendWithRetry(prefixes, batch, graph, false, operation);
+    sent += batch.size();
+    batch.clear();
+    notifyProgress(sent, total);
+    return sent;
+  }
+
+  private void notifyProgress(int sent, int total) {
+    if (listener != null) {
+      listener.onProgress(sent, total);
+    }
+  }
+
+  private void sendWithRetry(PrefixMapping prefixes, List<Triple> batch, String graph,
+      boolean first, String operation) throws IOException {
+    long delay = retryDelay;
+    for (int attempt = 0; ; attempt++) {
+      try {
+        send(prefixes, batch, graph, first, operation);
+        return;
+      } catch (RetryableException e) {
+        if (attempt >= maxRetries) {
+          throw new IOException(e.getMessage(), e.getCause());
+        }
+        Log.w(LOG_TAG, "Retrying batch after failure: " + e.getMessage());
+      }
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while publishing");
+      }
+      delay *= 2;
+    }
+  }
+
+  private void send(PrefixMapping prefixes, List<Triple> batch, String graph, boolean first,
+      String operation) throws IOException {
+    HttpURLConnection conn = null;
+    int status;
+    String message;
+    try {
+      conn = (HttpURLConnection) uri.toURL().openConnection();
+      conn.setDoInput(true);
+      conn.setDoOutput(true);
+      conn.setChunkedStreamingMode(0);
+      conn.setRequestMethod(dialect == Dialect.GRAPH_STORE && first ? "PUT" : "POST");
+      conn.setRequestProperty("Accept", "*/*");
+      switch (dialect) {
+        case SPARQL_UPDATE:
+          conn.setRequestProperty("Content-Type", "application/sparql-update;charset=utf-8");
+          break;
+        case VIRTUOSO:
+          conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+          break;
+        case GRAPH_STORE:
+          conn.setRequestProperty("Content-Type", "text/turtle;charset=utf-8");
+          break;
+      }
+      String userInfo = uri.getUserInfo();
+      if (userInfo != null && userInfo.length() != 0) {
+        if (!userInfo.contains(":")) {
+          userInfo = userInfo + ":";
+        }
+        String encodedInfo =
+            Base64.encodeToString(userInfo.getBytes("UTF-8"), Base64.NO_WRAP).trim();
+        conn.setRequestProperty("Authorization", "Basic " + encodedInfo);
+      }
+      Writer out = new BufferedWriter(new OutputStreamWriter(conn.getOutputStream(), "UTF-8"));
+      try {
+        writeBody(dialect == Dialect.VIRTUOSO ? new FormEncodingWriter(out) : out, prefixes,
+            batch, graph, operation);
+      } finally {
+        out.close();
+      }
+      status = conn.getResponseCode();
+      message = "HTTP " + status + " " + conn.getResponseMessage();
+      if (status >= 200 && status < 300) {
+        drain(conn);
+      }
+    } catch (IOException e) {
+      // Connection failures are usually transient on mobile networks.
+      throw new RetryableException(e.toString(), e);
+    } finally {
+      if (conn != null) {
+        conn.disconnect();
+      }
+    }
+    if (status >= 200 && status < 300) {
+      return;
+    } else if (status >= 500 || status == 408 || status == 429) {
+      throw new RetryableException(message, null);
+    } else if (status >= 400) {
+      throw new RejectedException(message);
+    }
+    throw new IOException(message);
+  }
+
+  /**
+   * Writes a request body.
+   *
+   * @param operation a SPARQL 1.1 Update data operation such as <code>DELETE DATA</code>, or null
+   *     to insert the batch using the publisher's dialect
+   */
+  private void writeBody(Writer out, PrefixMapping prefixes, List<Triple> batch, String graph,
+      String operation) throws IOException {
+    boolean turtle = dialect == Dialect.GRAPH_STORE;
+    for (Map.Entry<String, String> e : prefixes.getNsPrefixMap().entrySet()) {
+      if (turtle) {
+        out.write("@prefix " + e.getKey() + ": <" + e.getValue() + "> .\n");
+      } else {
+        out.write("PREFIX " + e.getKey() + ": <" + e.getValue() + ">\n");
+      }
+    }
+    int braces = 0;
+    if (operation != null || dialect == Dialect.SPARQL_UPDATE) {
+      out.write((operation == null ? "INSERT DATA" : operation) + " {\n");
+      braces++;
+      if (graph != null) {
+        out.write("GRAPH <" + graph + "> {\n");
+        braces++;
+      }
+    } else if (dialect == Dialect.VIRTUOSO) {
+      out.write("INSERT INTO GRAPH <" + (graph == null ? "#" : graph) + "> {\n");
+      braces++;
+    }
+    for (Triple t : batch) {
+      out.write(format(t.getSubject(), prefixes));
+      out.write(' ');
+      out.write(format(t.getPredicate(), prefixes));
+      out.write(' ');
+      out.write(format(t.getObject(), prefixes));
+      out.write(" .\n");
+    }
+    while (braces-- > 0) {
+      out.write("}\n");
+    }
+  }
+
+  private String format(Node node, PrefixMapping prefixes) {
+    if (node.isBlank()) {
+      // Jena's internal labels are not valid SPARQL blank node labels.
+      String label = blankLabels.get(node);
+      if (label == null) {
+        label = "_:b" + blankLabels.size();
+        blankLabels.put(node, label);
+      }
+      return label;
+    }
+    return FmtUtils.stringForNode(node, prefixes);
+  }
+
+  private static void drain(HttpURLConnection conn) {
+    InputStream in = null;
+    try {
+      in = conn.getInputStream();
+      byte[] buffer = new byte[4096];
+      while (in.read(buffer) > 0) {
+        // Discard the response so the connection can be reused.
+      }
+    } catch (IOException e) {
+      // The update succeeded; a problem reading the response body does not matter.
+    } finally {
+      IOUtils.closeQuietly(LOG_TAG, in);
+    }
+  }
+
+  /**
+   * Thrown when the endpoint refuses a batch with a client error, such that sending the same
+   * batch again would not help.
+   */
+  public static class RejectedException extends IOException {
+    RejectedException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Marks a failure that may succeed if the request is sent again.
+   */
+  private static class RetryableException extends IOException {
+    RetryableException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  /**
+   * Writes the body as the value of the <code>query</code> form parameter.
+   */
+  private static class FormEncodingWriter extends Writer {
+    private final Writer out;
+    private boolean started = false;
+
+    FormEncodingWriter(Writer out) {
+      this.out = out;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+      if (!started) {
+        out.write("query=");
+        started = true;
+      }
+      out.write(URLEncoder.encode(new String(buffer, offset, length), "UTF-8"));
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,412 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A durable queue of RDF submissions waiting to be sent to a remote store. Each submission is
+ * appended to a log file and synced before {@link #enqueue(String, Collection)} returns, so queued
+ * data survives the app being killed. Acknowledgements are appended to the same log, which is
+ * compacted once it holds enough acknowledged entries or the queue empties.
+ *
+ * <p>{@link #flush(Sender, int)} coalesces queued submissions for the same graph into batches of
+ * distinct triples, so that many small submissions are sent in a few requests. A batch the
+ * store will never accept is dropped, so that it does not hold up the submissions behind it.</p>
+ */
+public class SubmissionOutbox implements Closeable {
+
+  /**
+   * Sends a batch of triples to a graph.
+   */
+  public interface Sender {
+    /**
+     * @param graph the target graph, or the empty string for the default graph
+     * @param triples the triples to insert
+     * @throws RejectedException if the store will never accept the batch
+     * @throws IOException if the batch was not accepted, but may be if sent again
+     */
+    void send(String graph, List<Triple> triples) throws IOException;
+
+    /**
+     * Called when a batch has been rejected and dropped from the queue.
+     *
+     * @param graph the target graph
+     * @param triples the triples that were dropped
+     * @param reason the rejection
+     */
+    void rejected(String graph, List<Triple> triples, RejectedException reason);
+  }
+
+  /**
+   * Thrown by a {@link Sender} when the store has refused a batch, such that sending it again
+   * would not help.
+   */
+  public static class RejectedException extends IOException {
+    public RejectedException(String message) {
+      super(message);
+    }
+  }
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int MAGIC = 0x5059514f;  // "PYQO"
+  private static final int VERSION = 1;
+  private static final int COMPACT_THRESHOLD = 256;
+
+  private static final byte RECORD_SUBMISSION = 'S';
+  private static final byte RECORD_ACK = 'K';
+
+  private static final class Submission {
+    private final long id;
+    private final String graph;
+    private final List<Triple> triples;
+
+    private Submission(long id, String graph, List<Triple> triples) {
+      this.id = id;
+      this.graph = graph;
+      this.triples = triples;
+    }
+  }
+
+  private static final class Batch {
+    private final String graph;
+    private final List<Triple> triples;
+    private final List<Long> ids;
+
+    private Batch(String graph, List<Triple> triples, List<Long> ids) {
+      this.graph = graph;
+      this.triples = triples;
+      this.ids = ids;
+    }
+  }
+
+  private final File file;
+  private final Map<Long, Submission> pending = new LinkedHashMap<>();
+  private long nextId = 1;
+  private int acknowledged = 0;
+  private FileOutputStream fileOut;
+  private DataOutputStream log;
+  private boolean flushing = false;
+  private int sentCount = 0;
+  private int failureCount = 0;
+
+  /**
+   * Opens the outbox stored in the given file, replaying any submissions that have not been
+   * acknowledged.
+   *
+   * @param file the log file, which is created if it does not exist
+   * @throws IOException if the log cannot be read or opened for writing
+   */
+  public SubmissionOutbox(File file) throws IOException {
+    this.file = file;
+    if (file.exists() && file.length() > 0) {
+      replay();
+    }
+    rewrite();
+  }
+
+  /**
+   * Adds a submission to the end of the queue.
+   *
+   * @param graph the target graph, or the empty string for the default graph
+   * @param triples the triples to send
+   * @return the id of the submission
+   * @throws IOException if the submission could not be written to the log
+   */
+  public synchronized long enqueue(String graph, Collection<Triple> triples) throws IOException {
+    if (log == null) {
+      throw new IOException("Outbox is closed");
+    }
+    Submission submission = new Submission(nextId++, graph, new ArrayList<>(triples));
+    log.writeByte(RECORD_SUBMISSION);
+    log.writeLong(submission.id);
+    writeString(log, graph);
+    log.writeInt(submission.triples.size());
+    for (Triple t : submission.triples) {
+      writeTriple(log, t);
+    }
+    sync();
+    pending.put(submission.id, submission);
+    return submission.id;
+  }
+
+  /**
+   * Sends queued submissions until the queue is empty or a batch fails. Submissions are removed
+   * from the queue only once the batch containing them has been accepted, or rejected for good,
+   * in which case the sender is told and flushing goes on with the next batch. If another thread
+   * is already flushing, or the outbox is closed, this returns immediately.
+   *
+   * @param sender the sender used for each batch
+   * @param maxTriples the preferred maximum number of triples per batch; a single submission
+   *     larger than this is sent on its own
+   * @return the number of submissions sent, not counting rejected ones
+   * @throws IOException if a batch could not be sent or the log could not be updated
+   */
+  public int flush(Sender sender, int maxTriples) throws IOException {
+    synchronized (this) {
+      if (flushing) {
+        return 0;
+      }
+      flushing = true;
+    }
+    int sent = 0;
+    try {
+      Batch batch;
+      while ((batch = nextBatch(maxTriples)) != null) {
+        try {
+          sender.send(batch.graph, batch.triples);
+        } catch (RejectedException e) {
+          synchronized (this) {
+            failureCount++;
+          }
+          acknowledge(batch, false);
+          sender.rejected(batch.graph, batch.triples, e);
+          continue;
+        } catch (IOException e) {
+          synchronized (this) {
+            failureCount++;
+          }
+          throw e;
+        }
+        acknowledge(batch, true);
+        sent += batch.ids.size();
+      }
+      return sent;
+    } finally {
+      synchronized (this) {
+        flushing = false;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of submissions waiting to be sent.
+   */
+  public synchronized int size() {
+    return pending.size();
+  }
+
+  /**
+   * Returns the number of triples waiting to be sent, counting duplicates.
+   */
+  public synchronized int getPendingTriples() {
+    int count = 0;
+    for (Submission submission : pending.values()) {
+      count += submission.triples.size();
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of submissions sent since the outbox was opened.
+   */
+  public synchronized int getSentCount() {
+    return sentCount;
+  }
+
+  /**
+   * Returns the number of batches that failed to send or were rejected since the outbox was
+   * opened.
+   */
+  public synchronized int getFailureCount() {
+    return failureCount;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (log != null) {
+      log.close();
+      log = null;
+      fileOut = null;
+    }
+  }
+
+  /**
+   * Collects the oldest submission and any later ones for the same graph, up to maxTriples
+   * distinct triples.
+   */
+  private synchronized Batch nextBatch(int maxTriples) {
+    Iterator<Submission> it = pending.values().iterator();
+    if (log == null || !it.hasNext()) {
+      return null;
+    }
+    Submission first = it.next();
+    Set<Triple> triples = new LinkedHashSet<>(first.triples);
+    List<Long> ids = new ArrayList<>();
+    ids.add(first.id);
+    while (it.hasNext() && triples.size() < maxTriples) {
+      Submission next = it.next();
+      if (!next.graph.equals(first.graph)
+          || triples.size() + next.triples.size() > maxTriples) {
+        continue;
+      }
+      triples.addAll(next.triples);
+      ids.add(next.id);
+    }
+    return new Batch(first.graph, new ArrayList<>(triples), Collections.unmodifiableList(ids));
+  }
+
+  /**
+   * Removes the submissions in a batch that was sent or rejected from the queue.
+   */
+  private synchronized void acknowledge(Batch batch, boolean sent) throws IOException {
+    for (Long id : batch.ids) {
+      pending.remove(id);
+    }
+    if (sent) {
+      sentCount += batch.ids.size();
+    }
+    if (log == null) {
+      // The outbox was closed during the flush. The log still holds the submissions, which are
+      // sent again when it is next opened; inserting the same triples twice is harmless.
+      return;
+    }
+    acknowledged += batch.ids.size();
+    if (pending.isEmpty() || acknowledged >= COMPACT_THRESHOLD) {
+      rewrite();
+    } else {
+      for (Long id : batch.ids) {
+        log.writeByte(RECORD_ACK);
+        log.writeLong(id);
+      }
+      sync();
+    }
+  }
+
+  private void sync() throws IOException {
+    log.flush();
+    fileOut.getFD().sync();
+  }
+
+  private void replay() throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    try {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not an outbox: " + file);
+      }
+      while (true) {
+        byte type;
+        try {
+          type = in.readByte();
+        } catch (EOFException e) {
+          break;
+        }
+        try {
+          if (type == RECORD_SUBMISSION) {
+            long id = in.readLong();
+            String graph = readString(in);
+            int count = in.readInt();
+            List<Triple> triples = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+              triples.add(readTriple(in));
+            }
+            pending.put(id, new Submission(id, graph, triples));
+            nextId = Math.max(nextId, id + 1);
+          } else if (type == RECORD_ACK) {
+            pending.remove(in.readLong());
+          } else {
+            throw new IOException("Corrupt outbox record in " + file);
+          }
+        } catch (EOFException e) {
+          // The app stopped while a record was being written; drop the partial record.
+          break;
+        }
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Replaces the log with one holding only the pending submissions. The new log is synced and
+   * then renamed over the old one, which replaces it in a single step, so that the queue is not
+   * lost if the app stops part way through.
+   */
+  private void rewrite() throws IOException {
+    close();
+    File tmp = new File(file.getPath() + ".tmp");
+    FileOutputStream tmpOut = new FileOutputStream(tmp);
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(tmpOut));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      for (Submission submission : pending.values()) {
+        out.writeByte(RECORD_SUBMISSION);
+        out.writeLong(submission.id);
+        writeString(out, submission.graph);
+        out.writeInt(submission.triples.size());
+        for (Triple t : submission.triples) {
+          writeTriple(out, t);
+        }
+      }
+      out.flush();
+      tmpOut.getFD().sync();
+    } finally {
+      out.close();
+    }
+    if (!tmp.renameTo(file)) {
+      throw new IOException("Unable to replace outbox " + file);
+    }
+    fileOut = new FileOutputStream(file, true);
+    log = new DataOutputStream(new BufferedOutputStream(fileOut));
+    acknowledged = 0;
+  }
+
+  private static void writeTriple(DataOutputStream out, Triple t) throws IOException {
+    writeNode(out, t.getSubject());
+    writeNode(out, t.getPredicate());
+    writeNode(out, t.getObject());
+  }
+
+  private static Triple readTriple(DataInputStream in) throws IOException {
+    return Triple.create(readNode(in), readNode(in), readNode(in));
+  }
+
+  private static void writeNode(DataOutputStream out, Node node) throws IOException {
+    byte[] bytes = NodeDictionary.encode(node);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static Node readNode(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return NodeDictionary.decode(bytes);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(UTF8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, UTF8);
+  }
+}
@@ -0,0 +1,332 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A sorted, memory-mapped array of dictionary-encoded triples. Each record is three longs stored
+ * in the order given by the index's permutation (e.g. subject-predicate-object for an SPO index),
+ * so any triple pattern whose bound terms form a prefix of that order can be answered with a
+ * binary search followed by a sequential scan.
+ */
+public class TripleIndex {
+
+  /** Subject, predicate, object ordering. */
+  public static final int[] SPO = {0, 1, 2};
+
+  /** Predicate, object, subject ordering. */
+  public static final int[] POS = {1, 2, 0};
+
+  /** Object, subject, predicate ordering. */
+  public static final int[] OSP = {2, 0, 1};
+
+  /** Marker used in patterns for an unbound position. */
+  public static final long ANY = Long.MIN_VALUE;
+
+  private static final int RECORD_SIZE = 24;
+
+  /**
+   * A dictionary-encoded triple.
+   */
+  public static final class Key {
+    final long[] terms;
+
+    public Key(long s, long p, long o) {
+      terms = new long[] {s, p, o};
+    }
+
+    public long get(int position) {
+      return terms[position];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return terms[0] == other.terms[0] && terms[1] == other.terms[1]
+          && terms[2] == other.terms[2];
+    }
+
+    @Override
+    public int hashCode() {
+      long h = terms[0] * 31 * 31 + terms[1] * 31 + terms[2];
+      return (int) (h ^ (h >>> 32));
+    }
+  }
+
+  private final File file;
+  private final int[] order;
+  private final Comparator<Key> comparator;
+  private ByteBuffer records;
+  private int size;
+
+  /**
+   * Opens (or creates) an index file with the given term ordering.
+   *
+   * @param file the backing file
+   * @param order one of {@link #SPO}, {@link #POS} or {@link #OSP}
+   * @throws IOException if the file cannot be mapped
+   */
+  public TripleIndex(File file, final int[] order) throws IOException {
+    this.file = file;
+    this.order = order;
+    this.comparator = new Comparator<Key>() {
+      @Override
+      public int compare(Key a, Key b) {
+        for (int position : order) {
+          int c = compareIds(a.terms[position], b.terms[position]);
+          if (c != 0) {
+            return c;
+          }
+        }
+        return 0;
+      }
+    };
+    map();
+  }
+
+  /**
+   * Returns a comparator that sorts keys in this index's order, suitable for keeping pending
+   * additions in a sorted set that can be merged into the index.
+   */
+  public Comparator<Key> comparator() {
+    return comparator;
+  }
+
+  /**
+   * Returns the term ordering of this index.
+   */
+  public int[] order() {
+    return order;
+  }
+
+  /**
+   * Returns the number of triples stored in the index.
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Tests whether the index contains the given triple.
+   */
+  public boolean contains(Key key) {
+    ByteBuffer snapshot;
+    int count;
+    synchronized (this) {
+      snapshot = records;
+      count = size;
+    }
+    long[] prefix = permute(key);
+    int i = lowerBound(snapshot, count, prefix, 3);
+    return i < count && compareRecord(snapshot, i, prefix, 3) == 0;
+  }
+
+  /**
+   * Returns the number of leading positions of this index's order that are bound in the pattern.
+   *
+   * @param pattern a subject, predicate, object pattern using {@link #ANY} for unbound positions
+   */
+  public int prefixLength(long[] pattern) {
+    int length = 0;
+    while (length < 3 && pattern[order[length]] != ANY) {
+      length++;
+    }
+    return length;
+  }
+
+  /**
+   * Finds all triples matching a pattern. The returned iterator reads from a snapshot of the
+   * index, so it is not affected by later calls to {@link #rewrite(Set, Collection)}.
+   *
+   * @param pattern a subject, predicate, object pattern using {@link #ANY} for unbound positions
+   * @return an iterator over the matching keys, in this index's order
+   */
+  public Iterator<Key> find(final long[] pattern) {
+    final ByteBuffer snapshot;
+    final int count;
+    synchronized (this) {
+      snapshot = records;
+      count = size;
+    }
+    final long[] prefix = new long[3];
+    final int length = prefixLength(pattern);
+    for (int i = 0; i < length; i++) {
+      prefix[i] = pattern[order[i]];
+    }
+    final int start = lowerBound(snapshot, count, prefix, length);
+    return new Iterator<Key>() {
+      private int next = start;
+      private Key pending = advance();
+
+      private Key advance() {
+        while (next < count && compareRecord(snapshot, next, prefix, length) == 0) {
+          Key key = read(snapshot, next++);
+          if (matches(key, pattern)) {
+            return key;
+          }
+        }
+        return null;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return pending != null;
+      }
+
+      @Override
+      public Key next() {
+        if (pending == null) {
+          throw new NoSuchElementException();
+        }
+        Key result = pending;
+        pending = advance();
+        return result;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Rewrites the index by merging the existing records with a batch of changes.
+   *
+   * @param removed keys to drop from the index
+   * @param added keys to add to the index, sorted with {@link #comparator()}
+   * @throws IOException if the new index cannot be written
+   */
+  public synchronized void rewrite(Set<Key> removed, Collection<Key> added) throws IOException {
+    File tmp = new File(file.getPath() + ".tmp");
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(tmp), 64 * 1024));
+    try {
+      Iterator<Key> additions = added.iterator();
+      Key addition = additions.hasNext() ? additions.next() : null;
+      for (int i = 0; i < size; i++) {
+        Key key = read(records, i);
+        if (removed.contains(key)) {
+          continue;
+        }
+        while (addition != null && comparator.compare(addition, key) < 0) {
+          write(out, addition);
+          addition = additions.hasNext() ? additions.next() : null;
+        }
+        write(out, key);
+      }
+      while (addition != null) {
+        write(out, addition);
+        addition = additions.hasNext() ? additions.next() : null;
+      }
+    } finally {
+      out.close();
+    }
+    if (!tmp.renameTo(file)) {
+      throw new IOException("Unable to replace index " + file);
+    }
+    map();
+  }
+
+  /**
+   * Removes all triples from the index.
+   *
+   * @throws IOException if the file cannot be truncated
+   */
+  public synchronized void clear() throws IOException {
+    // Replace rather than truncate the file so that open iterators keep a valid mapping.
+    File tmp = new File(file.getPath() + ".tmp");
+    new FileOutputStream(tmp).close();
+    if (!tmp.renameTo(file)) {
+      throw new IOException("Unable to replace index " + file);
+    }
+    map();
+  }
+
+  private void map() throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      long length = raf.length() - raf.length() % RECORD_SIZE;
+      records = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+      size = (int) (length / RECORD_SIZE);
+    } finally {
+      raf.close();
+    }
+  }
+
+  private long[] permute(Key key) {
+    return new long[] {key.terms[order[0]], key.terms[order[1]], key.terms[order[2]]};
+  }
+
+  private Key read(ByteBuffer buffer, int index) {
+    int offset = index * RECORD_SIZE;
+    long[] terms = new long[3];
+    for (int i = 0; i < 3; i++) {
+      terms[order[i]] = buffer.getLong(offset + i * 8);
+    }
+    return new Key(terms[0], terms[1], terms[2]);
+  }
+
+  private void write(DataOutputStream out, Key key) throws IOException {
+    for (int position : order) {
+      out.writeLong(key.terms[position]);
+    }
+  }
+
+  private static int lowerBound(ByteBuffer buffer, int count, long[] prefix, int length) {
+    int lo = 0;
+    int hi = count;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (compareRecord(buffer, mid, prefix, length) < 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private static int compareRecord(ByteBuffer buffer, int index, long[] prefix, int length) {
+    int offset = index * RECORD_SIZE;
+    for (int i = 0; i < length; i++) {
+      int c = compareIds(buffer.getLong(offset + i * 8), prefix[i]);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
+
+  private static boolean matches(Key key, long[] pattern) {
+    for (int i = 0; i < 3; i++) {
+      if (pattern[i] != ANY && pattern[i] != key.terms[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int compareIds(long a, long b) {
+    return a < b ? -1 : (a == b ? 0 : 1);
+  }
+}
@@ -0,0 +1,329 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.query.Query;
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.query.QueryExecutionFactory;
+import com.hp.hpl.jena.query.QueryFactory;
+import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.query.ResultSetFactory;
+import com.hp.hpl.jena.query.ResultSetRewindable;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.sparql.engine.ResultSetStream;
+import com.hp.hpl.jena.sparql.engine.binding.Binding;
+import com.hp.hpl.jena.sparql.engine.iterator.QueryIterPlainWrapper;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates a SPARQL SELECT query continuously over a sliding window of a local stream of
+ * triples, in the manner of C-SPARQL's <code>[RANGE ... STEP ...]</code> windows.
+ *
+ * <p>The query is parsed once. Triples are added to the window graph as they arrive and removed
+ * from it as they expire, so the window is never rebuilt. Each slide evaluates the query over
+ * the window graph, unless the window is unchanged since the previous slide, and reports the
+ * solutions that appeared and disappeared since the previous evaluation.</p>
+ *
+ * <p>A window is either a time range, such as <code>30s</code>, or a triple count, such as
+ * <code>TRIPLES 100</code>. Time-based windows slide when {@link #slide(long)} is called, which
+ * the caller should do every {@link Window#getStep()} milliseconds. Count-based windows are due
+ * to slide once {@link Window#getStep()} triples have arrived; see {@link #isSlideDue()}.</p>
+ */
+public class WindowedQuery {
+
+  private static final Pattern DURATION =
+      Pattern.compile("(\\d+)\\s*(MS|S|SEC|M|MIN|H|D)?");
+  private static final Pattern TRIPLES = Pattern.compile("(?:TRIPLES\\s+)?(\\d+)");
+
+  /**
+   * The range and step of a window.
+   */
+  public static final class Window {
+    private final boolean countBased;
+    private final long range;
+    private final long step;
+
+    private Window(boolean countBased, long range, long step) {
+      if (range <= 0 || step <= 0) {
+        throw new IllegalArgumentException("Window range and step must be positive");
+      }
+      this.countBased = countBased;
+      this.range = range;
+      this.step = step;
+    }
+
+    /**
+     * Parses a window. A range of the form <code>TRIPLES n</code> keeps the last n triples and
+     * slides every step triples. Otherwise range and step are durations: a number followed by
+     * ms, s, m, h or d, where a number alone is in seconds.
+     *
+     * @param range the range of the window
+     * @param step how far the window moves at each slide
+     * @return the window
+     * @throws IllegalArgumentException if the range or step cannot be parsed
+     */
+    public static Window parse(String range, String step) {
+      String r = range.trim().toUpperCase(Locale.ROOT);
+      String s = step.trim().toUpperCase(Locale.ROOT);
+      if (r.startsWith("TRIPLES")) {
+        return new Window(true, parseCount(r), parseCount(s));
+      }
+      return new Window(false, parseDuration(r), parseDuration(s));
+    }
+
+    private static long parseCount(String text) {
+      Matcher m = TRIPLES.matcher(text);
+      if (!m.matches()) {
+        throw new IllegalArgumentException("Invalid triple count: " + text);
+      }
+      return Long.parseLong(m.group(1));
+    }
+
+    private static long parseDuration(String text) {
+      Matcher m = DURATION.matcher(text);
+      if (!m.matches()) {
+        throw new IllegalArgumentException("Invalid duration: " + text);
+      }
+      long value = Long.parseLong(m.group(1));
+      String unit = m.group(2) == null ? "S" : m.group(2);
+      switch (unit) {
+        case "MS": return value;
+        case "M": case "MIN": return value * 60000L;
+        case "H": return value * 3600000L;
+        case "D": return value * 86400000L;
+        default: return value * 1000L;
+      }
+    }
+
+    /**
+     * @return true if the range and step count triples, false if they are in milliseconds
+     */
+    public boolean isCountBased() {
+      return countBased;
+    }
+
+    public long getRange() {
+      return range;
+    }
+
+    public long getStep() {
+      return step;
+    }
+  }
+
+  /**
+   * The change in the query's solutions caused by one slide of the window.
+   */
+  public static final class Update {
+    private final List<String> vars;
+    private final List<Binding> added;
+    private final List<Binding> removed;
+    private final int windowSize;
+
+    private Update(List<String> vars, List<Binding> added, List<Binding> removed,
+        int windowSize) {
+      this.vars = vars;
+      this.added = added;
+      this.removed = removed;
+      this.windowSize = windowSize;
+    }
+
+    /**
+     * @return the solutions that were not in the previous evaluation
+     */
+    public ResultSetRewindable getAdded() {
+      return toResultSet(added);
+    }
+
+    /**
+     * @return the solutions of the previous evaluation that are no longer produced
+     */
+    public ResultSetRewindable getRemoved() {
+      return toResultSet(removed);
+    }
+
+    public int getAddedCount() {
+      return added.size();
+    }
+
+    public int getRemovedCount() {
+      return removed.size();
+    }
+
+    /**
+     * @return the number of triples in the window
+     */
+    public int getWindowSize() {
+      return windowSize;
+    }
+
+    private ResultSetRewindable toResultSet(List<Binding> bindings) {
+      Model model = ModelFactory.createDefaultModel();
+      return ResultSetFactory.makeRewindable(new ResultSetStream(vars, model,
+          new QueryIterPlainWrapper(bindings.iterator())));
+    }
+  }
+
+  private static final class Timestamped {
+    private final Triple triple;
+    private final long timestamp;
+
+    private Timestamped(Triple triple, long timestamp) {
+      this.triple = triple;
+      this.timestamp = timestamp;
+    }
+  }
+
+  private final Query query;
+  private final Window window;
+  private final Model windowModel = ModelFactory.createDefaultModel();
+  private final Deque<Timestamped> arrivals = new ArrayDeque<>();
+  private final Map<Triple, Integer> copies = new HashMap<>();
+  private Map<Binding, Integer> previous = Collections.emptyMap();
+  private boolean changed = false;
+  private long sinceSlide = 0;
+
+  /**
+   * Creates a windowed query.
+   *
+   * @param queryText the SELECT query
+   * @param window the window to evaluate it over
+   * @throws IllegalArgumentException if the query is not a SELECT query
+   * @throws com.hp.hpl.jena.query.QueryParseException if the query cannot be parsed
+   */
+  public WindowedQuery(String queryText, Window window) {
+    this.query = QueryFactory.create(queryText);
+    if (!query.isSelectType()) {
+      throw new IllegalArgumentException("Only SELECT queries can be evaluated continuously");
+    }
+    this.window = window;
+  }
+
+  public Window getWindow() {
+    return window;
+  }
+
+  /**
+   * Adds a triple to the stream.
+   *
+   * @param triple the triple
+   * @param timestamp the time the triple arrived, in milliseconds
+   */
+  public synchronized void add(Triple triple, long timestamp) {
+    arrivals.addLast(new Timestamped(triple, timestamp));
+    Integer count = copies.get(triple);
+    if (count == null) {
+      windowModel.getGraph().add(triple);
+      copies.put(triple, 1);
+    } else {
+      copies.put(triple, count + 1);
+    }
+    changed = true;
+    sinceSlide++;
+    if (window.countBased) {
+      expire(0);
+    }
+  }
+
+  /**
+   * @return true if a count-based window has received enough triples to slide
+   */
+  public synchronized boolean isSlideDue() {
+    return window.countBased && sinceSlide >= window.step;
+  }
+
+  /**
+   * @return the number of triples in the window
+   */
+  public synchronized int size() {
+    return arrivals.size();
+  }
+
+  /**
+   * Moves the window to end at the given time, then evaluates the query if the window changed.
+   *
+   * @param now the end of the window, in milliseconds; ignored for count-based windows
+   * @return the change in the solutions, or null if the window did not change
+   */
+  public synchronized Update slide(long now) {
+    if (!window.countBased) {
+      expire(now);
+    }
+    sinceSlide = 0;
+    if (!changed) {
+      return null;
+    }
+    changed = false;
+    Map<Binding, Integer> current = new HashMap<>();
+    List<String> vars;
+    QueryExecution execution = QueryExecutionFactory.create(query, windowModel);
+    try {
+      ResultSet results = execution.execSelect();
+      vars = results.getResultVars();
+      while (results.hasNext()) {
+        Binding binding = results.nextBinding();
+        Integer count = current.get(binding);
+        current.put(binding, count == null ? 1 : count + 1);
+      }
+    } finally {
+      execution.close();
+    }
+    List<Binding> added = difference(current, previous);
+    List<Binding> removed = difference(previous, current);
+    previous = current;
+    return new Update(vars, added, removed, arrivals.size());
+  }
+
+  /**
+   * Removes the triples that have left the window.
+   */
+  private void expire(long now) {
+    Graph graph = windowModel.getGraph();
+    while (!arrivals.isEmpty()) {
+      Timestamped oldest = arrivals.peekFirst();
+      boolean expired = window.countBased ? arrivals.size() > window.range
+          : oldest.timestamp <= now - window.range;
+      if (!expired) {
+        break;
+      }
+      arrivals.removeFirst();
+      int count = copies.get(oldest.triple);
+      if (count == 1) {
+        copies.remove(oldest.triple);
+        graph.delete(oldest.triple);
+      } else {
+        copies.put(oldest.triple, count - 1);
+      }
+      changed = true;
+    }
+  }
+
+  /**
+   * Returns the solutions in a that are not in b, counting duplicates.
+   */
+  private static List<Binding> difference(Map<Binding, Integer> a, Map<Binding, Integer> b) {
+    List<Binding> result = new ArrayList<>();
+    for (Map.Entry<Binding, Integer> entry : a.entrySet()) {
+      Integer other = b.get(entry.getKey());
+      for (int i = other == null ? 0 : other; i < entry.getValue(); i++) {
+        result.add(entry.getKey());
+      }
+    }
+    return result;
+  }
+}
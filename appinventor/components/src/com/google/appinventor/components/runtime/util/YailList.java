@@ -11,6 +11,7 @@ import gnu.lists.LList;
 import gnu.lists.Pair;
 import gnu.math.IntNum;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -21,6 +22,21 @@ import org.json.JSONException;
  * by the Kawa framework. YailList is the main list primitive used
  * by App Inventor components.
  *
+ * <p>The items are kept in a chain of Pairs, so that Kawa sees a YailList
+ * as an ordinary list. Alongside the chain, the list keeps an array of the
+ * Pairs holding its items, so that getting, setting and counting items and
+ * adding items at the end take constant time instead of a walk along the
+ * chain. The array is built when first needed and kept up to date by the
+ * methods of this class. Code that changes the structure of the chain in
+ * any other way must do so through {@link #setCdr}, which discards the
+ * array. Replacing the car of a Pair in the chain is always safe.</p>
+ *
+ * <p>Changing the cdr of a Pair inside the chain is not supported: the list
+ * only notices changes to the first Pair and to the end of the chain, and
+ * otherwise keeps returning the old items. Code that does so must then call
+ * {@code setCdr(getCdr())} on the list. The runtime only uses set-cdr! on
+ * the list itself, to replace all of its items.</p>
+ *
  */
 @SuppressWarnings("rawtypes")
 public class YailList extends Pair implements YailObject {
@@ -35,6 +51,12 @@ public class YailList extends Pair implements YailObject {
   // legitimate Yail data types.  See the definition of sanitization
   // in runtime.scm.
 
+  // The Pairs holding the items, in order, followed by unused slots. Null
+  // until first needed.
+  private transient Pair[] nodes;
+  // The number of items, if nodes is not null.
+  private transient int count;
+
   /**
    * Create an empty YailList.
    */
@@ -170,7 +192,35 @@ public class YailList extends Pair implements YailObject {
    */
   @Override
   public int size() {
-    return super.size() - 1;
+    index();
+    return count;
+  }
+
+  /**
+   * Return the element at the given position, where position 0 is the
+   * list header and position 1 is the first item.
+   */
+  @Override
+  public Object get(int index) {
+    if (index == 0) {
+      return car;
+    }
+    return node(index - 1).getCar();
+  }
+
+  /**
+   * Replace the contents of this YailList with the given chain of Pairs.
+   */
+  @Override
+  public void setCdr(Object cdr) {
+    nodes = null;
+    super.setCdr(cdr);
+  }
+
+  @Override
+  public void setCdrBackdoor(Object cdr) {
+    nodes = null;
+    super.setCdrBackdoor(cdr);
   }
 
   /**
@@ -198,6 +248,108 @@ public class YailList extends Pair implements YailObject {
    * Return the Object at the given index.
    */
   public Object getObject(int index) {
-    return get(index + 1);
+    return node(index).getCar();
+  }
+
+  /**
+   * Replace the Object at the given index.
+   */
+  public void setObject(int index, Object value) {
+    node(index).setCar(value);
+  }
+
+  /**
+   * Add an Object to the end of this YailList.
+   */
+  public void addObject(Object value) {
+    Pair added = new Pair(value, LList.Empty);
+    index();
+    if (count == 0) {
+      cdr = added;
+    } else {
+      nodes[count - 1].setCdr(added);
+    }
+    if (count == nodes.length) {
+      nodes = Arrays.copyOf(nodes, 2 * count);
+    }
+    nodes[count++] = added;
+  }
+
+  /**
+   * Add the items of another YailList to the end of this YailList. The
+   * items themselves are not copied.
+   */
+  public void addObjects(YailList other) {
+    int size = other.size();
+    for (int i = 0; i < size; i++) {
+      addObject(other.getObject(i));
+    }
+  }
+
+  /**
+   * Insert an Object at the given index, which may be the size of this
+   * YailList to add it at the end.
+   */
+  public void insertObject(int index, Object value) {
+    index();
+    if (index < 0 || index > count) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+    }
+    if (index == count) {
+      addObject(value);
+      return;
+    }
+    Pair inserted = new Pair(value, nodes[index]);
+    if (index == 0) {
+      cdr = inserted;
+    } else {
+      nodes[index - 1].setCdr(inserted);
+    }
+    if (count == nodes.length) {
+      nodes = Arrays.copyOf(nodes, 2 * count);
+    }
+    System.arraycopy(nodes, index, nodes, index + 1, count - index);
+    nodes[index] = inserted;
+    count++;
+  }
+
+  /**
+   * Remove the Object at the given index.
+   */
+  public void removeObject(int index) {
+    Pair removed = node(index);
+    if (index == 0) {
+      cdr = removed.getCdr();
+    } else {
+      nodes[index - 1].setCdr(removed.getCdr());
+    }
+    System.arraycopy(nodes, index + 1, nodes, index, count - index - 1);
+    nodes[--count] = null;
+  }
+
+  private Pair node(int index) {
+    index();
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+    }
+    return nodes[index];
+  }
+
+  /**
+   * Make sure that nodes holds the Pairs of the chain, building it again
+   * if the chain has changed where we can see it. Only the first Pair and
+   * the end of the chain are checked, so that this takes constant time.
+   */
+  private void index() {
+    if (nodes != null && (count == 0 ? cdr == LList.Empty
+        : nodes[0] == cdr && nodes[count - 1].getCdr() == LList.Empty)) {
+      return;
+    }
+    List<Pair> chain = new ArrayList<Pair>();
+    for (Object rest = cdr; rest instanceof Pair; rest = ((Pair) rest).getCdr()) {
+      chain.add((Pair) rest);
+    }
+    count = chain.size();
+    nodes = chain.toArray(new Pair[Math.max(count, 8)]);
   }
 }
@@ -0,0 +1,234 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.scripts;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Tool to generate a dispatch table for each component, which calls the component's methods and
+ * property getters and setters without reflection.
+ *
+ * <p>For a component {@code com.example.Button}, the generated class is
+ * {@code com.example.Button_DispatchTable}, an implementation of
+ * {@code MethodDispatchCache.DispatchTable}. It maps each method name and number of arguments to
+ * a method id, and calls a method by its id with a switch, unboxing the arguments to the
+ * parameter types. The generated sources are compiled along with the components.</p>
+ */
+public final class ComponentDispatchTableGenerator extends ComponentProcessor {
+  /**
+   * Suffix of the name of the dispatch table generated for a component class. This must match
+   * the name that {@code MethodDispatchCache} looks for.
+   */
+  static final String DISPATCH_TABLE_SUFFIX = "_DispatchTable";
+
+  private static final String DISPATCH_TABLE =
+      "com.google.appinventor.components.runtime.util.MethodDispatchCache.DispatchTable";
+  private static final String UNHANDLED =
+      "com.google.appinventor.components.runtime.util.MethodDispatchCache.UNHANDLED";
+  private static final String VOID = "gnu.mapping.Values.empty";
+
+  /**
+   * A component method, property getter or property setter that can be called by the table.
+   */
+  private static final class Entry {
+    private final String name;
+    private final List<String> parameterTypes;
+    private final boolean isVoid;
+
+    private Entry(String name, List<String> parameterTypes, boolean isVoid) {
+      this.name = name;
+      this.parameterTypes = parameterTypes;
+      this.isVoid = isVoid;
+    }
+  }
+
+  @Override
+  protected void outputResults() throws IOException {
+    for (ComponentInfo component : components.values()) {
+      if (!component.type.endsWith("." + component.name)) {
+        // Nested classes are not components, but there is no package to put the table in.
+        continue;
+      }
+      List<Entry> entries = collectEntries(component);
+      String tableName = component.type + DISPATCH_TABLE_SUFFIX;
+      JavaFileObject src = processingEnv.getFiler().createSourceFile(tableName);
+      Writer writer = src.openWriter();
+      try {
+        writer.write(generateTable(component, entries));
+        writer.flush();
+      } finally {
+        writer.close();
+      }
+      messager.printMessage(Diagnostic.Kind.NOTE, "Wrote file " + src.toUri());
+    }
+  }
+
+  private static List<Entry> collectEntries(ComponentInfo component) {
+    // Keyed by name and number of arguments, since that is how the runtime finds methods.
+    Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+    for (Property property : component.properties.values()) {
+      if (property.isReadable()) {
+        addEntry(entries, new Entry(property.name, new ArrayList<String>(), false));
+      }
+      if (property.isWritable() && property.getSetterType() != null) {
+        List<String> parameterTypes = new ArrayList<String>();
+        parameterTypes.add(property.getSetterType());
+        addEntry(entries, new Entry(property.name, parameterTypes, true));
+      }
+    }
+    for (Method method : component.methods.values()) {
+      List<String> parameterTypes = new ArrayList<String>();
+      for (Parameter parameter : method.parameters) {
+        parameterTypes.add(parameter.type);
+      }
+      addEntry(entries, new Entry(method.name, parameterTypes, method.getReturnType() == null));
+    }
+    return new ArrayList<Entry>(entries.values());
+  }
+
+  private static void addEntry(Map<String, Entry> entries, Entry entry) {
+    for (String type : entry.parameterTypes) {
+      if (!isSupportedType(type)) {
+        return;
+      }
+    }
+    String key = entry.name + "/" + entry.parameterTypes.size();
+    if (!entries.containsKey(key)) {
+      entries.put(key, entry);
+    }
+  }
+
+  private static boolean isSupportedType(String type) {
+    // Type variables and char parameters are left to the runtime's other ways of calling.
+    return isNumeric(type) || type.equals("boolean") || erasure(type).contains(".");
+  }
+
+  private static boolean isNumeric(String type) {
+    return type.equals("int") || type.equals("long") || type.equals("short")
+        || type.equals("byte") || type.equals("double") || type.equals("float");
+  }
+
+  private static String erasure(String type) {
+    int index = type.indexOf('<');
+    return index < 0 ? type : type.substring(0, index);
+  }
+
+  private static String generateTable(ComponentInfo component, List<Entry> entries) {
+    String packageName = component.type.substring(0, component.type.lastIndexOf('.'));
+    String tableName = component.name + DISPATCH_TABLE_SUFFIX;
+
+    StringBuilder sb = new StringBuilder();
+    sb.append("// Generated by ComponentDispatchTableGenerator. Do not edit.\n\n");
+    sb.append("package ").append(packageName).append(";\n\n");
+    sb.append("public final class ").append(tableName).append(" implements ")
+        .append(DISPATCH_TABLE).append(" {\n");
+
+    // Method ids, by name and then by number of arguments.
+    Map<String, List<Integer>> idsByName = new LinkedHashMap<String, List<Integer>>();
+    for (int id = 0; id < entries.size(); id++) {
+      String name = entries.get(id).name;
+      if (!idsByName.containsKey(name)) {
+        idsByName.put(name, new ArrayList<Integer>());
+      }
+      idsByName.get(name).add(id);
+    }
+    sb.append("  @Override\n");
+    sb.append("  public int methodId(String name, int arity) {\n");
+    sb.append("    switch (name) {\n");
+    for (Map.Entry<String, List<Integer>> byName : idsByName.entrySet()) {
+      sb.append("      case \"").append(byName.getKey()).append("\":\n");
+      sb.append("        switch (arity) {\n");
+      for (int id : byName.getValue()) {
+        sb.append("          case ").append(entries.get(id).parameterTypes.size())
+            .append(":\n");
+        sb.append("            return ").append(id).append(";\n");
+      }
+      sb.append("          default:\n");
+      sb.append("            return -1;\n");
+      sb.append("        }\n");
+    }
+    sb.append("      default:\n");
+    sb.append("        return -1;\n");
+    sb.append("    }\n");
+    sb.append("  }\n\n");
+
+    sb.append("  @Override\n");
+    sb.append("  @SuppressWarnings(\"unchecked\")\n");
+    sb.append("  public Object invoke(Object target, int methodId, Object[] args)");
+    sb.append(" throws Throwable {\n");
+    sb.append("    ").append(component.type).append(" component = (")
+        .append(component.type).append(") target;\n");
+    sb.append("    switch (methodId) {\n");
+    for (int id = 0; id < entries.size(); id++) {
+      sb.append("      case ").append(id).append(":\n");
+      generateCall(sb, entries.get(id));
+    }
+    sb.append("      default:\n");
+    sb.append("        return ").append(UNHANDLED).append(";\n");
+    sb.append("    }\n");
+    sb.append("  }\n");
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+  private static void generateCall(StringBuilder sb, Entry entry) {
+    // Check every argument before calling, so that calls that do not apply are left unchanged
+    // for the runtime to pass on to Kawa.
+    List<String> checks = new ArrayList<String>();
+    for (int i = 0; i < entry.parameterTypes.size(); i++) {
+      String type = entry.parameterTypes.get(i);
+      String arg = "args[" + i + "]";
+      if (isNumeric(type)) {
+        checks.add("!(" + arg + " instanceof Number)");
+      } else if (type.equals("boolean")) {
+        checks.add("!(" + arg + " instanceof Boolean)");
+      } else if (!type.equals("java.lang.String") && !type.equals("java.lang.Object")) {
+        checks.add(arg + " != null && !(" + arg + " instanceof " + erasure(type) + ")");
+      }
+    }
+    for (String check : checks) {
+      sb.append("        if (").append(check).append(") {\n");
+      sb.append("          return ").append(UNHANDLED).append(";\n");
+      sb.append("        }\n");
+    }
+
+    StringBuilder call = new StringBuilder("component.").append(entry.name).append("(");
+    for (int i = 0; i < entry.parameterTypes.size(); i++) {
+      String type = entry.parameterTypes.get(i);
+      String arg = "args[" + i + "]";
+      if (i > 0) {
+        call.append(", ");
+      }
+      if (isNumeric(type)) {
+        call.append("((Number) ").append(arg).append(").").append(type).append("Value()");
+      } else if (type.equals("boolean")) {
+        call.append("(Boolean) ").append(arg);
+      } else if (type.equals("java.lang.String")) {
+        // As Kawa does, pass the string form of whatever was given.
+        call.append(arg).append(" == null ? null : ").append(arg).append(".toString()");
+      } else if (type.equals("java.lang.Object")) {
+        call.append(arg);
+      } else {
+        call.append("(").append(erasure(type)).append(") ").append(arg);
+      }
+    }
+    call.append(")");
+
+    if (entry.isVoid) {
+      sb.append("        ").append(call).append(";\n");
+      sb.append("        return ").append(VOID).append(";\n");
+    } else {
+      sb.append("        return ").append(call).append(";\n");
+    }
+  }
+}
@@ -530,6 +530,7 @@ public abstract class ComponentProcessor extends AbstractProcessor {
     protected final String name;
     private PropertyCategory propertyCategory;
     private String type;
+    private String setterType;
     private boolean readable;
     private boolean writable;
     private String componentInfoName;
@@ -549,6 +550,7 @@ public abstract class ComponentProcessor extends AbstractProcessor {
       Property that = new Property(name, description, longDescription, propertyCategory,
           isUserVisible(), isDeprecated());
       that.type = type;
+      that.setterType = setterType;
       that.readable = readable;
       that.writable = writable;
       that.componentInfoName = componentInfoName;
@@ -591,6 +593,16 @@ public abstract class ComponentProcessor extends AbstractProcessor {
       return type;
     }
 
+    /**
+     * Returns the Java type of this property's setter parameter, which may differ from
+     * {@link #getType()} when the getter returns another type.
+     *
+     * @return the setter's parameter type, or null if the property is not writable
+     */
+    protected String getSetterType() {
+      return setterType;
+    }
+
     /**
      * Returns whether this property is readable (has a getter).
      *
@@ -1474,6 +1486,7 @@ public abstract class ComponentProcessor extends AbstractProcessor {
                                    propertyName);
       }
       typeMirror = parameters.get(0);
+      property.setterType = typeMirror.toString();
       for (VariableElement ve : ((ExecutableElement) element).getParameters()) {
         if (ve.getAnnotation(IsColor.class) != null) {
           property.color = true;
@@ -1805,6 +1818,9 @@ public abstract class ComponentProcessor extends AbstractProcessor {
           }
           priorProperty.readable = priorProperty.readable || newProperty.readable;
           priorProperty.writable = priorProperty.writable || newProperty.writable;
+          if (newProperty.writable) {
+            priorProperty.setterType = newProperty.setterType;
+          }
           priorProperty.userVisible = priorProperty.isUserVisible() && newProperty.isUserVisible();
           priorProperty.deprecated = priorProperty.isDeprecated() && newProperty.isDeprecated();
           priorProperty.componentInfoName = componentInfo.name;
@@ -0,0 +1,193 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests {@link EventDispatcher}.
+ */
+public class EventDispatcherTest {
+
+  /**
+   * Stands in for a form, which only runs a handler registered under the name of the component
+   * that raised the event.
+   */
+  private static class TestDelegate implements HandlesEventDispatching {
+    private final List<String> dispatched = new ArrayList<String>();
+    private final List<String> generic = new ArrayList<String>();
+
+    @Override
+    public boolean canDispatchEvent(Component component, String eventName) {
+      return true;
+    }
+
+    @Override
+    public boolean dispatchEvent(Component component, String componentName, String eventName,
+        Object[] args) {
+      if (!((TestComponent) component).name.equals(componentName)) {
+        return false;
+      }
+      synchronized (dispatched) {
+        dispatched.add(EventDispatcher.makeFullEventName(componentName, eventName));
+      }
+      return true;
+    }
+
+    @Override
+    public void dispatchErrorOccurredEvent(Component component, String functionName,
+        int errorCode, Object... args) {
+    }
+
+    @Override
+    public void dispatchGenericEvent(Component component, String eventName,
+        boolean notAlreadyHandled, Object[] args) {
+      if (notAlreadyHandled) {
+        synchronized (generic) {
+          generic.add(((TestComponent) component).name + "$" + eventName);
+        }
+      }
+    }
+  }
+
+  private static class TestComponent implements Component {
+    private final TestDelegate delegate;
+    private final String name;
+
+    TestComponent(TestDelegate delegate, String name) {
+      this.delegate = delegate;
+      this.name = name;
+    }
+
+    @Override
+    public HandlesEventDispatching getDispatchDelegate() {
+      return delegate;
+    }
+  }
+
+  private final TestDelegate delegate = new TestDelegate();
+
+  @After
+  public void tearDown() {
+    EventDispatcher.removeDispatchDelegate(delegate);
+  }
+
+  @Test
+  public void testDispatchesToRegisteredHandler() {
+    TestComponent clock1 = new TestComponent(delegate, "Clock1");
+    TestComponent clock2 = new TestComponent(delegate, "Clock2");
+    EventDispatcher.registerEventForDelegation(delegate, "Clock1", "Timer");
+    EventDispatcher.registerEventForDelegation(delegate, "Clock1", "Timer");
+    assertTrue(EventDispatcher.dispatchEvent(clock1, "Timer"));
+    assertFalse(EventDispatcher.dispatchEvent(clock2, "Timer"));
+    assertFalse(EventDispatcher.dispatchEvent(clock1, "Other"));
+    assertEquals(1, delegate.dispatched.size());
+    assertEquals("Clock1$Timer", delegate.dispatched.get(0));
+    assertEquals(2, delegate.generic.size());
+  }
+
+  @Test
+  public void testUnregister() {
+    TestComponent clock1 = new TestComponent(delegate, "Clock1");
+    EventDispatcher.registerEventForDelegation(delegate, "Clock1", "Timer");
+    EventDispatcher.registerEventForDelegation(delegate, "Clock2", "Timer");
+    EventDispatcher.unregisterEventForDelegation(delegate, "Clock1", "Timer");
+    assertFalse(EventDispatcher.dispatchEvent(clock1, "Timer"));
+    EventDispatcher.registerEventForDelegation(delegate, "Clock1", "Timer");
+    EventDispatcher.unregisterAllEventsForDelegation();
+    assertFalse(EventDispatcher.dispatchEvent(clock1, "Timer"));
+    assertTrue(delegate.dispatched.isEmpty());
+  }
+
+  @Test
+  public void testFullEventNamesAreReused() {
+    EventDispatcher.registerEventForDelegation(delegate, "Canvas1", "Dragged");
+    assertSame(EventDispatcher.makeFullEventName("Canvas1", "Dragged"),
+        EventDispatcher.makeFullEventName("Canvas1", "Dragged"));
+    assertEquals("Canvas9$Dragged", EventDispatcher.makeFullEventName("Canvas9", "Dragged"));
+  }
+
+  @Test
+  public void testFullEventNamesAreDropped() {
+    TestDelegate other = new TestDelegate();
+    EventDispatcher.registerEventForDelegation(delegate, "Canvas1", "Dragged");
+    EventDispatcher.registerEventForDelegation(other, "Canvas2", "Dragged");
+    String kept = EventDispatcher.makeFullEventName("Canvas2", "Dragged");
+    // Names of the delegate's components are dropped along with the delegate.
+    EventDispatcher.removeDispatchDelegate(delegate);
+    assertNotSame(EventDispatcher.makeFullEventName("Canvas1", "Dragged"),
+        EventDispatcher.makeFullEventName("Canvas1", "Dragged"));
+    assertSame(kept, EventDispatcher.makeFullEventName("Canvas2", "Dragged"));
+    EventDispatcher.unregisterAllEventsForDelegation();
+    assertNotSame(EventDispatcher.makeFullEventName("Canvas2", "Dragged"),
+        EventDispatcher.makeFullEventName("Canvas2", "Dragged"));
+    assertEquals("Canvas2$Dragged", EventDispatcher.makeFullEventName("Canvas2", "Dragged"));
+    EventDispatcher.removeDispatchDelegate(other);
+  }
+
+  @Test
+  public void testDispatchStats() {
+    TestComponent sensor = new TestComponent(delegate, "Sensor1");
+    EventDispatcher.registerEventForDelegation(delegate, "Sensor1", "Changed");
+    EventDispatcher.dispatchEvent(sensor, "Changed", 0);
+    EventDispatcher.setRecordDispatchStats(true);
+    try {
+      for (int i = 0; i < 3; i++) {
+        EventDispatcher.dispatchEvent(sensor, "Changed", i);
+      }
+    } finally {
+      EventDispatcher.setRecordDispatchStats(false);
+    }
+    List<EventDispatcher.DispatchStats> stats = EventDispatcher.getDispatchStats(delegate);
+    assertEquals(1, stats.size());
+    assertEquals("Changed", stats.get(0).getEventName());
+    assertEquals(3, stats.get(0).getDispatchCount());
+    assertTrue(stats.get(0).getMaxNanos() <= stats.get(0).getTotalNanos());
+    EventDispatcher.resetDispatchStats(delegate);
+    stats = EventDispatcher.getDispatchStats(delegate);
+    assertEquals(0, stats.get(0).getDispatchCount());
+    assertEquals(0, stats.get(0).getTotalNanos());
+  }
+
+  @Test
+  public void testRegisterWhileDispatching() throws InterruptedException {
+    final TestComponent sensor = new TestComponent(delegate, "Sensor1");
+    EventDispatcher.registerEventForDelegation(delegate, "Sensor1", "Changed");
+    final AtomicBoolean failed = new AtomicBoolean();
+    final AtomicBoolean done = new AtomicBoolean();
+    Thread dispatcher = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          while (!done.get()) {
+            if (!EventDispatcher.dispatchEvent(sensor, "Changed")) {
+              failed.set(true);
+            }
+          }
+        } catch (RuntimeException e) {
+          failed.set(true);
+        }
+      }
+    });
+    dispatcher.start();
+    for (int i = 0; i < 1000; i++) {
+      EventDispatcher.registerEventForDelegation(delegate, "Other" + i, "Changed");
+    }
+    done.set(true);
+    dispatcher.join();
+    assertFalse(failed.get());
+  }
+}
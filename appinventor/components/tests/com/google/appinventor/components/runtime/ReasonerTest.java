@@ -0,0 +1,253 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime;
+
+import static com.google.appinventor.components.runtime.shadows.ShadowEventDispatcher.assertEventFired;
+import static com.google.appinventor.components.runtime.shadows.ShadowEventDispatcher.assertEventNotFired;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.appinventor.components.runtime.shadows.ShadowAsynchUtil;
+import com.google.appinventor.components.runtime.shadows.ShadowEventDispatcher;
+import com.google.appinventor.components.runtime.util.YailDictionary;
+import com.google.appinventor.components.runtime.util.YailList;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link Reasoner} component.
+ */
+public class ReasonerTest extends RobolectricTestBase {
+
+  private static final String EX = "http://example.com/";
+
+  private static final String CHILDREN_QUERY =
+      "SELECT ?child ?parent WHERE { ?parent <" + EX + "child> ?child }";
+
+  private LinkedData linkedData;
+  private Reasoner reasoner;
+  private Model base;
+  private Property parent;
+
+  /**
+   * The pages received by QueryResultsReceived, as "page rows hasMore".
+   */
+  private final List<String> pages = new ArrayList<>();
+
+  /**
+   * The page after which the query delivering it is cancelled, or 0 to let queries finish.
+   */
+  private int cancelAfterPage = 0;
+
+  @Before
+  public void setUp() {
+    super.setUp();
+    linkedData = new LinkedData(getForm());
+    base = linkedData.getModel();
+    parent = base.createProperty(EX + "parent");
+    reasoner = new Reasoner(getForm()) {
+      @Override
+      public void QueryResultsReceived(int queryId, YailDictionary results, int page,
+          boolean hasMore) {
+        super.QueryResultsReceived(queryId, results, page, hasMore);
+        pages.add(page + " " + ((YailList) results.get("results")).size() + " " + hasMore);
+        if (page == cancelAfterPage) {
+          CancelQuery(queryId);
+        }
+      }
+    };
+    reasoner.Model(linkedData);
+    reasoner.RulesFromRuleset(
+        "[child: (?a <" + EX + "parent> ?b) -> (?b <" + EX + "child> ?a)]");
+  }
+
+  @Test
+  public void testIncrementalAddition() {
+    run(true);
+    base.add(person("alice"), parent, person("bob"));
+    propagate();
+    assertEventFired(reasoner, "InferencesUpdated", 1, 0);
+    assertEquals(1, countChildren());
+  }
+
+  @Test
+  public void testAdditionsAreBatched() {
+    run(true);
+    base.add(person("alice"), parent, person("bob"));
+    base.add(person("carol"), parent, person("bob"));
+    propagate();
+    assertEventFired(reasoner, "InferencesUpdated", 2, 0);
+    assertEquals(2, countChildren());
+  }
+
+  @Test
+  public void testIncrementalRemoval() {
+    base.add(person("alice"), parent, person("bob"));
+    base.add(person("carol"), parent, person("bob"));
+    run(true);
+    assertEquals(2, countChildren());
+    base.remove(person("alice"), parent, person("bob"));
+    propagate();
+    assertEventFired(reasoner, "InferencesUpdated", 0, 1);
+    assertEquals(1, countChildren());
+  }
+
+  @Test
+  public void testAddThenRemoveBeforePropagation() {
+    run(true);
+    base.add(person("alice"), parent, person("bob"));
+    base.remove(person("alice"), parent, person("bob"));
+    propagate();
+    assertEventFired(reasoner, "InferencesUpdated", 0, 0);
+    assertEquals(0, countChildren());
+  }
+
+  @Test
+  public void testNotIncremental() {
+    run(false);
+    base.add(person("alice"), parent, person("bob"));
+    propagate();
+    assertEventNotFired(reasoner, "InferencesUpdated");
+    assertEquals(0, countChildren());
+  }
+
+  @Test
+  public void testQueryWaitsForUpdates() throws InterruptedException {
+    base.add(person("alice"), parent, person("bob"));
+    run(true);
+    final int[] children = {-1};
+    Thread query = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        children[0] = countChildren();
+      }
+    });
+    synchronized (reasoner.model.getGraph()) {
+      query.start();
+      query.join(200);
+      assertTrue(query.isAlive());
+    }
+    query.join();
+    assertEquals(1, children[0]);
+  }
+
+  @Test
+  public void testQueryAsyncPages() {
+    addParents(5);
+    run(false);
+    reasoner.ResultPageSize(2);
+    reasoner.QueryAsync(CHILDREN_QUERY);
+    propagate();
+    assertEquals(asList("1 2 true", "2 2 true", "3 1 false"), pages);
+    assertEventNotFired(reasoner, "QueryCancelled");
+
+    // A last page that is full does not report more pages.
+    pages.clear();
+    reasoner.QueryLimit(4);
+    reasoner.QueryAsync(CHILDREN_QUERY);
+    propagate();
+    assertEquals(asList("1 2 true", "2 2 false"), pages);
+  }
+
+  @Test
+  public void testQueryAsyncSinglePage() {
+    addParents(5);
+    run(false);
+    reasoner.ResultPageSize(0);
+    reasoner.QueryAsync(CHILDREN_QUERY);
+    propagate();
+    assertEquals(Collections.singletonList("1 5 false"), pages);
+  }
+
+  @Test
+  public void testQueryAsyncLimit() {
+    addParents(5);
+    run(false);
+    reasoner.ResultPageSize(2);
+    reasoner.QueryLimit(3);
+    reasoner.QueryAsync(CHILDREN_QUERY);
+    propagate();
+    assertEquals(asList("1 2 true", "2 1 false"), pages);
+  }
+
+  @Test
+  public void testCancelQueryBetweenPages() {
+    addParents(5);
+    run(false);
+    reasoner.ResultPageSize(2);
+    cancelAfterPage = 1;
+    int queryId = reasoner.QueryAsync(CHILDREN_QUERY);
+    propagate();
+    assertEquals(Collections.singletonList("1 2 true"), pages);
+    assertEventFired(reasoner, "QueryCancelled", queryId, false);
+  }
+
+  @Test
+  public void testCancelQueryBeforeStart() {
+    addParents(5);
+    run(false);
+    int queryId = reasoner.QueryAsync(CHILDREN_QUERY);
+    reasoner.CancelQuery(queryId);
+    propagate();
+    assertEquals(Collections.emptyList(), pages);
+    assertEventFired(reasoner, "QueryCancelled", queryId, false);
+  }
+
+  @Test
+  public void testQueryAsyncTimeout() {
+    addParents(200);
+    run(false);
+    reasoner.QueryTimeout(100);
+    // A three-way cross product of the model, filtered on all three rows so that the filter
+    // cannot be evaluated early. It runs far longer than the timeout and matches nothing.
+    int queryId = reasoner.QueryAsync("SELECT * WHERE { ?a ?p ?b . ?c ?q ?d . ?e ?r ?f "
+        + "FILTER(concat(str(?b), str(?d), str(?f)) = \"none\") }");
+    propagate();
+    assertEquals(Collections.emptyList(), pages);
+    assertEventFired(reasoner, "QueryCancelled", queryId, true);
+  }
+
+  /**
+   * Adds statements that child0 to child(n - 1) each have the parent bob.
+   */
+  private void addParents(int n) {
+    for (int i = 0; i < n; i++) {
+      base.add(person("child" + i), parent, person("bob"));
+    }
+  }
+
+  private Resource person(String name) {
+    return base.createResource(EX + name);
+  }
+
+  /**
+   * Runs the reasoner and waits for it to finish.
+   */
+  private void run(boolean incremental) {
+    reasoner.Incremental(incremental);
+    reasoner.Run();
+    propagate();
+    assertEventFired(reasoner, "ReasoningComplete");
+    ShadowEventDispatcher.clearEvents();
+  }
+
+  private void propagate() {
+    ShadowAsynchUtil.runAllPendingRunnables();
+    runAllEvents();
+  }
+
+  private int countChildren() {
+    YailDictionary result = (YailDictionary) reasoner.Query(CHILDREN_QUERY);
+    return ((YailList) result.get("results")).size();
+  }
+}
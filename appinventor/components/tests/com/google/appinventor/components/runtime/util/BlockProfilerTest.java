@@ -0,0 +1,102 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import gnu.mapping.Symbol;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests {@link BlockProfiler}.
+ */
+public class BlockProfilerTest {
+
+  @After
+  public void tearDown() {
+    BlockProfiler.setEnabled(false);
+  }
+
+  private static JSONArray getBlocks() throws Exception {
+    return new JSONObject(BlockProfiler.getProfile(null)).getJSONArray("blocks");
+  }
+
+  private static void call(Object block, long nanos) {
+    long start = BlockProfiler.start();
+    long heap = BlockProfiler.heapUsed();
+    if (start != 0) {
+      start -= nanos;
+    }
+    BlockProfiler.stop(block, start, heap);
+  }
+
+  @Test
+  public void testRecordsNothingWhileOff() throws Exception {
+    assertEquals(0, BlockProfiler.start());
+    assertEquals(0, BlockProfiler.heapUsed());
+    call("p$idle", 1000);
+    BlockProfiler.setEnabled(true);
+    assertEquals(0, getBlocks().length());
+  }
+
+  @Test
+  public void testTotalsByBlock() throws Exception {
+    BlockProfiler.setEnabled(true);
+    call(Symbol.makeUninterned("p$slow"), 5000000);
+    call(Symbol.makeUninterned("p$slow"), 3000000);
+    call("any$Button$Click", 1000000);
+    long start = BlockProfiler.start();
+    BlockProfiler.stopEvent("Clock1", "Timer", start - 2000000, BlockProfiler.heapUsed());
+
+    JSONArray blocks = getBlocks();
+    assertEquals(3, blocks.length());
+    JSONObject slow = blocks.getJSONObject(0);
+    assertEquals("slow", slow.getString("name"));
+    assertEquals("procedure", slow.getString("kind"));
+    assertEquals(2, slow.getLong("calls"));
+    assertTrue(slow.getDouble("totalMs") >= 8);
+    assertTrue(slow.getDouble("maxMs") >= 5);
+    assertTrue(slow.getDouble("maxMs") < slow.getDouble("totalMs"));
+    assertEquals("Clock1$Timer", blocks.getJSONObject(1).getString("name"));
+    assertEquals("event", blocks.getJSONObject(1).getString("kind"));
+    assertEquals("Button$Click", blocks.getJSONObject(2).getString("name"));
+    assertEquals("genericEvent", blocks.getJSONObject(2).getString("kind"));
+  }
+
+  @Test
+  public void testFoldsFullBuffer() throws Exception {
+    BlockProfiler.setEnabled(true);
+    int calls = BlockProfiler.BUFFER_SIZE * 3 + 7;
+    for (int i = 0; i < calls; i++) {
+      call("p$p" + (i % 20), 10);
+    }
+    JSONArray blocks = getBlocks();
+    assertEquals(20, blocks.length());
+    long total = 0;
+    for (int i = 0; i < blocks.length(); i++) {
+      total += blocks.getJSONObject(i).getLong("calls");
+    }
+    assertEquals(calls, total);
+  }
+
+  @Test
+  public void testTurningOnClearsTotals() throws Exception {
+    BlockProfiler.setEnabled(true);
+    call("p$first", 10);
+    BlockProfiler.setEnabled(false);
+    // The totals are kept while the profiler is off.
+    JSONObject profile = new JSONObject(BlockProfiler.getProfile(null));
+    assertFalse(profile.getBoolean("enabled"));
+    assertEquals(1, profile.getJSONArray("blocks").length());
+    BlockProfiler.setEnabled(true);
+    assertEquals(0, getBlocks().length());
+  }
+}
@@ -0,0 +1,67 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import java.net.InetSocketAddress;
+import org.eclipse.californium.core.CoapClient;
+import org.eclipse.californium.core.CoapServer;
+import org.eclipse.californium.core.network.CoAPEndpoint;
+import org.eclipse.californium.core.network.config.NetworkConfig;
+
+/**
+ * Prints the time until the first block of a large resource is available, and until the whole
+ * resource has arrived, when it is streamed by {@link CoapBlockReader} and when the block-wise
+ * layer assembles it. This is not part of the test suite, since its results depend on the
+ * machine. Run it with the classpath of the component tests:
+ *
+ * <pre>java com.google.appinventor.components.runtime.util.CoapBlockReaderBenchmark</pre>
+ */
+public class CoapBlockReaderBenchmark {
+  private static final int ROUNDS = 20;
+
+  private CoapBlockReaderBenchmark() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    String patch = CoapBlockReaderTest.createPatch();
+    NetworkConfig config = NetworkConfig.createStandardWithoutFile();
+    CoapServer server = new CoapServer(config, 0);
+    server.add(new CoapBlockReaderTest.TextResource("patch", patch));
+    server.start();
+    String uri = "coap://localhost:" + server.getEndpoints().get(0).getAddress().getPort()
+        + "/patch";
+    CoAPEndpoint endpoint = new CoAPEndpoint(new InetSocketAddress(0), config);
+    endpoint.start();
+    try {
+      CoapBlockReader reader = new CoapBlockReader(endpoint, new CoapPipeline(endpoint, 4));
+      CoapClient client = new CoapClient(uri);
+      client.setEndpoint(endpoint);
+      client.useEarlyNegotiation(64);
+      long assembled = Long.MAX_VALUE;
+      long firstBlock = Long.MAX_VALUE;
+      long streamed = Long.MAX_VALUE;
+      for (int i = 0; i < ROUNDS; i++) {
+        long start = System.nanoTime();
+        client.get().getResponseText();
+        assembled = Math.min(assembled, System.nanoTime() - start);
+        CoapBlockReaderTest.Recorder recorder = new CoapBlockReaderTest.Recorder();
+        start = System.nanoTime();
+        reader.read(uri, -1, 64, recorder);
+        recorder.blocks();
+        streamed = Math.min(streamed, System.nanoTime() - start);
+        firstBlock = Math.min(firstBlock, recorder.firstBlockTime - start);
+      }
+      System.out.println(String.format("Reading %d bytes in 64-byte blocks (best of %d):",
+          patch.getBytes("UTF-8").length, ROUNDS));
+      System.out.println(String.format("  Assembled, whole resource   %6d us", assembled / 1000));
+      System.out.println(String.format("  Streamed, first block       %6d us", firstBlock / 1000));
+      System.out.println(String.format("  Streamed, whole resource    %6d us", streamed / 1000));
+    } finally {
+      endpoint.destroy();
+      server.destroy();
+    }
+  }
+}
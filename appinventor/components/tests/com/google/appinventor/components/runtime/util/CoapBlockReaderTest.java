@@ -0,0 +1,236 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.CoapServer;
+import org.eclipse.californium.core.coap.CoAP;
+import org.eclipse.californium.core.coap.EmptyMessage;
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.CoAPEndpoint;
+import org.eclipse.californium.core.network.config.NetworkConfig;
+import org.eclipse.californium.core.network.interceptors.MessageInterceptor;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link CoapBlockReader} against a local CoAP server.
+ */
+public class CoapBlockReaderTest {
+
+  private CoapServer server;
+  private CoAPEndpoint endpoint;
+  private CoapPipeline pipeline;
+  private CoapBlockReader reader;
+  private String base;
+  private String patch;
+  private final AtomicInteger version = new AtomicInteger();
+
+  /**
+   * Serves a fixed text, with an ETag.
+   */
+  static class TextResource extends CoapResource {
+    private final String text;
+
+    TextResource(String name, String text) {
+      super(name);
+      this.text = text;
+    }
+
+    @Override
+    public void handleGET(CoapExchange exchange) {
+      exchange.setETag(new byte[] { 1 });
+      exchange.respond(CoAP.ResponseCode.CONTENT, text, MediaTypeRegistry.APPLICATION_RDF_PATCH);
+    }
+  }
+
+  /**
+   * Gives every response sent by the server a new ETag, as if the resource changed between
+   * the requests for its blocks.
+   */
+  private class ChangingETags implements MessageInterceptor {
+    @Override
+    public void sendResponse(Response response) {
+      response.getOptions().clearETags().addETag(new byte[] { (byte) version.incrementAndGet() });
+    }
+
+    @Override
+    public void sendRequest(Request request) {
+    }
+
+    @Override
+    public void sendEmptyMessage(EmptyMessage message) {
+    }
+
+    @Override
+    public void receiveRequest(Request request) {
+    }
+
+    @Override
+    public void receiveResponse(Response response) {
+    }
+
+    @Override
+    public void receiveEmptyMessage(EmptyMessage message) {
+    }
+  }
+
+  static class Recorder implements CoapBlockReader.Listener {
+    private final BlockingQueue<Object[]> events = new LinkedBlockingQueue<>();
+    volatile long firstBlockTime;
+
+    @Override
+    public void onBlock(int num, String text, boolean more) {
+      if (num == 0) {
+        firstBlockTime = System.nanoTime();
+      }
+      events.add(new Object[] { num, text, more });
+    }
+
+    @Override
+    public void onFailure(String reason) {
+      events.add(new Object[] { reason });
+    }
+
+    private Object[] next() throws InterruptedException {
+      Object[] event = events.poll(10, TimeUnit.SECONDS);
+      assertNotNull(event);
+      return event;
+    }
+
+    /**
+     * Collects the blocks of a transfer, checking that they arrive in order.
+     */
+    List<String> blocks() throws InterruptedException {
+      List<String> blocks = new ArrayList<>();
+      while (true) {
+        Object[] event = next();
+        assertEquals(3, event.length);
+        assertEquals(blocks.size(), event[0]);
+        blocks.add((String) event[1]);
+        if (!(Boolean) event[2]) {
+          return blocks;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns an RDF Patch adding 200 triples.
+   */
+  static String createPatch() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      // The two-byte character makes some characters straddle block boundaries.
+      sb.append("A <http://example.com/s").append(i).append("> <http://example.com/caf\u00e9> \"")
+          .append(i).append("\" .\n");
+    }
+    return sb.toString();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    patch = createPatch();
+    NetworkConfig config = NetworkConfig.createStandardWithoutFile();
+    server = new CoapServer(config, 0);
+    server.add(new TextResource("patch", patch));
+    server.add(new TextResource("small", "hello"));
+    server.start();
+    base = "coap://localhost:" + server.getEndpoints().get(0).getAddress().getPort() + "/";
+    endpoint = new CoAPEndpoint(new InetSocketAddress(0), config);
+    endpoint.start();
+    pipeline = new CoapPipeline(endpoint, 4);
+    reader = new CoapBlockReader(endpoint, pipeline);
+  }
+
+  @After
+  public void tearDown() {
+    endpoint.destroy();
+    server.destroy();
+  }
+
+  @Test
+  public void testStreamsBlocks() throws Exception {
+    Recorder recorder = new Recorder();
+    reader.read(base + "patch", MediaTypeRegistry.APPLICATION_RDF_PATCH, 64, recorder);
+    List<String> blocks = recorder.blocks();
+    int bytes = patch.getBytes("UTF-8").length;
+    assertEquals((bytes + 63) / 64, blocks.size());
+    StringBuilder sb = new StringBuilder();
+    for (String block : blocks) {
+      // Each block is delivered on its own, not reassembled.
+      assertTrue(block.getBytes("UTF-8").length <= 65);
+      sb.append(block);
+    }
+    assertEquals(patch, sb.toString());
+    assertEquals(0, pipeline.getOutstanding());
+  }
+
+  @Test
+  public void testConcurrentTransfers() throws Exception {
+    Recorder first = new Recorder();
+    Recorder second = new Recorder();
+    reader.read(base + "patch", -1, 256, first);
+    reader.read(base + "patch", -1, 128, second);
+    assertEquals(patch, join(second.blocks()));
+    assertEquals(patch, join(first.blocks()));
+  }
+
+  @Test
+  public void testSingleBlock() throws Exception {
+    Recorder recorder = new Recorder();
+    reader.read(base + "small", -1, 1024, recorder);
+    Object[] event = recorder.next();
+    assertEquals(0, event[0]);
+    assertEquals("hello", event[1]);
+    assertFalse((Boolean) event[2]);
+  }
+
+  @Test
+  public void testMissingResource() throws Exception {
+    Recorder recorder = new Recorder();
+    reader.read(base + "missing", -1, 64, recorder);
+    assertEquals("4.04", recorder.next()[0]);
+  }
+
+  @Test
+  public void testChangedResourceFails() throws Exception {
+    Recorder recorder = new Recorder();
+    server.getEndpoints().get(0).addInterceptor(new ChangingETags());
+    reader.read(base + "patch", -1, 64, recorder);
+    assertEquals(0, recorder.next()[0]);
+    assertEquals("Resource changed during transfer", recorder.next()[0]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidBlockSize() {
+    reader.read(base + "patch", -1, 100, new Recorder());
+  }
+
+  static String join(List<String> blocks) {
+    StringBuilder sb = new StringBuilder();
+    for (String block : blocks) {
+      sb.append(block);
+    }
+    return sb.toString();
+  }
+}
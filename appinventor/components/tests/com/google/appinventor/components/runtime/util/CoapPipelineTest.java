@@ -0,0 +1,191 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.CoapServer;
+import org.eclipse.californium.core.coap.CoAP;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.CoAPEndpoint;
+import org.eclipse.californium.core.network.config.NetworkConfig;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link CoapPipeline} against a local CoAP server.
+ */
+public class CoapPipelineTest {
+
+  private CoapServer server;
+  private CoAPEndpoint endpoint;
+  private String base;
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicInteger maxActive = new AtomicInteger();
+  private volatile CountDownLatch release = new CountDownLatch(0);
+
+  /**
+   * Answers with its query after waiting for the given number of milliseconds, or until
+   * released, recording how many requests it is handling at once.
+   */
+  private class SlowResource extends CoapResource {
+    private SlowResource() {
+      super("slow");
+    }
+
+    @Override
+    public void handleGET(CoapExchange exchange) {
+      int now = active.incrementAndGet();
+      while (true) {
+        int max = maxActive.get();
+        if (now <= max || maxActive.compareAndSet(max, now)) {
+          break;
+        }
+      }
+      String query = exchange.getRequestOptions().getUriQueryString();
+      try {
+        if (query.startsWith("delay=")) {
+          Thread.sleep(Integer.parseInt(query.substring(6)));
+        }
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        // answer at once
+      }
+      active.decrementAndGet();
+      exchange.respond(CoAP.ResponseCode.CONTENT, query);
+    }
+  }
+
+  private static class Recorder implements CoapPipeline.Callback {
+    private final BlockingQueue<String> results = new LinkedBlockingQueue<>();
+
+    @Override
+    public void onResponse(Response response) {
+      results.add(response.getPayloadString());
+    }
+
+    @Override
+    public void onFailure(String reason) {
+      results.add("failed: " + reason);
+    }
+
+    private String next() throws InterruptedException {
+      String result = results.poll(10, TimeUnit.SECONDS);
+      assertNotNull(result);
+      return result;
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    NetworkConfig config = NetworkConfig.createStandardWithoutFile();
+    server = new CoapServer(config, 0);
+    server.setExecutor(Executors.newScheduledThreadPool(8));
+    server.add(new SlowResource());
+    server.start();
+    base = "coap://localhost:" + server.getEndpoints().get(0).getAddress().getPort() + "/";
+    endpoint = new CoAPEndpoint(new InetSocketAddress(0), config);
+    endpoint.start();
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    endpoint.destroy();
+    server.destroy();
+  }
+
+  private Request get(String query) {
+    Request request = Request.newGet();
+    request.setURI(base + "slow?" + query);
+    return request;
+  }
+
+  @Test
+  public void testLimitsOutstandingRequests() throws Exception {
+    release = new CountDownLatch(1);
+    CoapPipeline pipeline = new CoapPipeline(endpoint, 2);
+    Recorder recorder = new Recorder();
+    for (int i = 0; i < 6; i++) {
+      pipeline.send(get("n=" + i), recorder);
+    }
+    assertEquals(2, pipeline.getOutstanding());
+    assertEquals(4, pipeline.getQueued());
+    long deadline = System.currentTimeMillis() + 5000;
+    while (active.get() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    // Both requests reached the server before either was answered.
+    assertEquals(2, active.get());
+    release.countDown();
+    for (int i = 0; i < 6; i++) {
+      assertTrue(recorder.next().startsWith("n="));
+    }
+    assertEquals(2, maxActive.get());
+    assertEquals(0, pipeline.getOutstanding());
+    assertEquals(0, pipeline.getQueued());
+  }
+
+  @Test
+  public void testResponsesMayArriveOutOfOrder() throws Exception {
+    CoapPipeline pipeline = new CoapPipeline(endpoint, 4);
+    Recorder slow = new Recorder();
+    Recorder fast = new Recorder();
+    pipeline.send(get("delay=500"), slow);
+    pipeline.send(get("delay=0"), fast);
+    assertEquals("delay=0", fast.next());
+    assertEquals(1, pipeline.getOutstanding());
+    assertEquals("delay=500", slow.next());
+  }
+
+  @Test
+  public void testRaisingLimitSendsQueuedRequests() throws Exception {
+    release = new CountDownLatch(1);
+    CoapPipeline pipeline = new CoapPipeline(endpoint, 1);
+    Recorder recorder = new Recorder();
+    pipeline.send(get("n=0"), recorder);
+    pipeline.send(get("n=1"), recorder);
+    assertEquals(1, pipeline.getQueued());
+    pipeline.setMaxOutstanding(2);
+    assertEquals(0, pipeline.getQueued());
+    assertEquals(2, pipeline.getOutstanding());
+    release.countDown();
+    recorder.next();
+    recorder.next();
+  }
+
+  @Test
+  public void testCancelAll() throws Exception {
+    release = new CountDownLatch(1);
+    CoapPipeline pipeline = new CoapPipeline(endpoint, 1);
+    Recorder recorder = new Recorder();
+    pipeline.send(get("n=0"), recorder);
+    pipeline.send(get("n=1"), recorder);
+    pipeline.cancelAll();
+    assertEquals("failed: Canceled", recorder.next());
+    assertEquals("failed: Canceled", recorder.next());
+    assertEquals(0, pipeline.getOutstanding());
+    assertEquals(0, pipeline.getQueued());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLimitMustBePositive() {
+    new CoapPipeline(endpoint, 0);
+  }
+}
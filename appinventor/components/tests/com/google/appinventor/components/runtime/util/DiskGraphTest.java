@@ -0,0 +1,132 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.hp.hpl.jena.query.QueryExecutionFactory;
+import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.rdf.model.Resource;
+import java.io.File;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the disk-backed {@link DiskGraph}.
+ */
+public class DiskGraphTest {
+
+  private static final String NS = "http://example.com/";
+  private static final int SUBJECTS = 10000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File directory;
+  private DiskGraph graph;
+  private Model model;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = new File(folder.getRoot(), "store");
+    graph = new DiskGraph(directory);
+    model = ModelFactory.createModelForGraph(graph);
+  }
+
+  @After
+  public void tearDown() {
+    graph.close();
+  }
+
+  private void populate() {
+    Property label = model.createProperty(NS, "label");
+    Property count = model.createProperty(NS, "count");
+    for (int i = 0; i < SUBJECTS; i++) {
+      Resource subject = model.createResource(NS + "s" + i);
+      subject.addProperty(label, "item " + (i % 10), "en");
+      subject.addLiteral(count, (long) i);
+    }
+  }
+
+  private void reopen() throws Exception {
+    graph.close();
+    graph = new DiskGraph(directory);
+    model = ModelFactory.createModelForGraph(graph);
+  }
+
+  @Test
+  public void testStatementsSurviveReopen() throws Exception {
+    populate();
+    reopen();
+    assertEquals(2 * SUBJECTS, model.size());
+    assertTrue(model.contains(model.createResource(NS + "s42"), model.createProperty(NS, "count"),
+        model.createTypedLiteral(42L)));
+  }
+
+  @Test
+  public void testPatternsUseEachIndex() throws Exception {
+    populate();
+    Resource s7 = model.createResource(NS + "s7");
+    Property label = model.createProperty(NS, "label");
+    RDFNode item3 = model.createLiteral("item 3", "en");
+    assertEquals(2, model.listStatements(s7, null, (RDFNode) null).toList().size());
+    assertEquals(SUBJECTS, model.listStatements(null, label, (RDFNode) null).toList().size());
+    assertEquals(SUBJECTS / 10, model.listStatements(null, null, item3).toList().size());
+    assertEquals(SUBJECTS / 10, model.listStatements(null, label, item3).toList().size());
+    assertEquals(0, model.listStatements(s7, null, item3).toList().size());
+    assertEquals(0, model.listStatements(model.createResource(NS + "missing"), null,
+        (RDFNode) null).toList().size());
+  }
+
+  @Test
+  public void testRemove() throws Exception {
+    populate();
+    Resource s7 = model.createResource(NS + "s7");
+    model.removeAll(s7, null, null);
+    assertEquals(2 * SUBJECTS - 2, model.size());
+    assertFalse(model.listStatements(s7, null, (RDFNode) null).hasNext());
+    reopen();
+    assertEquals(2 * SUBJECTS - 2, model.size());
+    assertFalse(model.listStatements(s7, null, (RDFNode) null).hasNext());
+  }
+
+  @Test
+  public void testDuplicateAddsAreIgnored() throws Exception {
+    populate();
+    graph.sync();
+    populate();
+    assertEquals(2 * SUBJECTS, model.size());
+  }
+
+  @Test
+  public void testSparqlQuery() throws Exception {
+    populate();
+    ResultSet results = QueryExecutionFactory.create("SELECT ?s WHERE { ?s <" + NS + "label> "
+        + "\"item 3\"@en ; <" + NS + "count> \"13\"^^<http://www.w3.org/2001/XMLSchema#long> }",
+        model).execSelect();
+    assertTrue(results.hasNext());
+    assertEquals(NS + "s13", results.next().getResource("s").getURI());
+    assertFalse(results.hasNext());
+  }
+
+  @Test
+  public void testClear() throws Exception {
+    populate();
+    model.removeAll();
+    assertEquals(0, model.size());
+    reopen();
+    assertEquals(0, model.size());
+  }
+}
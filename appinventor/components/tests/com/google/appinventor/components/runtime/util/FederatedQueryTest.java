@@ -0,0 +1,201 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.query.QuerySolution;
+import com.hp.hpl.jena.query.ResultSetRewindable;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.sparql.core.Var;
+import com.hp.hpl.jena.sparql.engine.binding.Binding;
+import com.hp.hpl.jena.sparql.engine.binding.BindingFactory;
+import com.hp.hpl.jena.sparql.engine.binding.BindingMap;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link FederatedQuery} against two local endpoints and one that is too slow to answer.
+ */
+public class FederatedQueryTest {
+
+  private static final String NS = "http://example.com/";
+  private static final String NAMES = "{ \"head\": { \"vars\": [ \"s\", \"name\" ] }, "
+      + "\"results\": { \"bindings\": [ "
+      + row("s1", "name", "Ada") + ", " + row("s2", "name", "Grace") + ", "
+      + row("s3", "name", "Alan") + " ] } }";
+  private static final String AGES = "{ \"head\": { \"vars\": [ \"s\", \"age\" ] }, "
+      + "\"results\": { \"bindings\": [ "
+      + row("s1", "age", "36") + ", " + row("s3", "age", "41") + " ] } }";
+  private static final String QUERY = "SELECT * WHERE { ?s ?p ?o }";
+
+  private HttpServer server;
+  private String base;
+
+  private static String row(String subject, String var, String value) {
+    return "{ \"s\": { \"type\": \"uri\", \"value\": \"" + NS + subject + "\" }, \"" + var
+        + "\": { \"type\": \"literal\", \"value\": \"" + value + "\" } }";
+  }
+
+  private static HttpHandler respond(final String json, final long delay) {
+    return new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException e) {
+          // answer early
+        }
+        byte[] body = json.getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Type", "application/sparql-results+json");
+        exchange.sendResponseHeaders(200, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+      }
+    };
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/names", respond(NAMES, 0));
+    server.createContext("/ages", respond(AGES, 0));
+    server.createContext("/slow", respond(AGES, 3000));
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    base = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  private FederatedQuery createQuery(long timeout) {
+    return new FederatedQuery(new SparqlResultCache(SparqlResultCache.DEFAULT_MEMORY_BYTES), 0,
+        null, FederatedQuery.DEFAULT_PARALLELISM, timeout);
+  }
+
+  private static Map<String, String> rows(ResultSetRewindable results, String var) {
+    Map<String, String> rows = new HashMap<>();
+    while (results.hasNext()) {
+      QuerySolution solution = results.next();
+      rows.put(solution.getResource("s").getURI(),
+          solution.contains(var) ? solution.getLiteral(var).getLexicalForm() : null);
+    }
+    return rows;
+  }
+
+  @Test
+  public void testJoinOnSharedVariable() throws InterruptedException {
+    FederatedQuery.Result result = createQuery(5000).execute(Arrays.asList(
+        new FederatedQuery.Source(base + "names", QUERY),
+        new FederatedQuery.Source(base + "ages", QUERY)), true);
+    assertTrue(result.isComplete());
+    ResultSetRewindable results = result.getResultSet();
+    assertEquals(Arrays.asList("s", "name", "age"), results.getResultVars());
+    assertEquals(2, results.size());
+    Map<String, String> ages = rows(results, "age");
+    assertEquals("36", ages.get(NS + "s1"));
+    assertEquals("41", ages.get(NS + "s3"));
+  }
+
+  @Test
+  public void testUnionKeepsAllSolutions() throws InterruptedException {
+    FederatedQuery.Result result = createQuery(5000).execute(Arrays.asList(
+        new FederatedQuery.Source(base + "names", QUERY),
+        new FederatedQuery.Source(base + "ages", QUERY)), false);
+    assertEquals(5, result.getResultSet().size());
+    assertEquals(3, result.getOutcomes().get(0).getSolutions());
+    assertEquals(2, result.getOutcomes().get(1).getSolutions());
+  }
+
+  @Test
+  public void testSlowSourceIsLeftOut() throws InterruptedException {
+    long start = System.currentTimeMillis();
+    FederatedQuery.Result result = createQuery(1000).execute(Arrays.asList(
+        new FederatedQuery.Source(base + "names", QUERY),
+        new FederatedQuery.Source(base + "slow", QUERY)), true);
+    assertTrue(System.currentTimeMillis() - start < 2500);
+    assertFalse(result.isComplete());
+    assertTrue(result.hasAnswers());
+    List<FederatedQuery.Outcome> outcomes = result.getOutcomes();
+    assertEquals(FederatedQuery.Outcome.OK, outcomes.get(0).getStatus());
+    assertEquals(FederatedQuery.Outcome.TIMEOUT, outcomes.get(1).getStatus());
+    assertTrue(outcomes.get(1).getLatency() >= 1000);
+    // The join degrades to the solutions of the sources that answered.
+    assertEquals(3, result.getResultSet().size());
+  }
+
+  @Test
+  public void testSourcesRunConcurrently() throws InterruptedException {
+    server.createContext("/slow2", respond(NAMES, 800));
+    server.createContext("/slow3", respond(AGES, 800));
+    long start = System.currentTimeMillis();
+    FederatedQuery.Result result = createQuery(5000).execute(Arrays.asList(
+        new FederatedQuery.Source(base + "slow2", QUERY),
+        new FederatedQuery.Source(base + "slow3", QUERY)), true);
+    assertTrue(result.isComplete());
+    assertTrue(System.currentTimeMillis() - start < 1500);
+    assertTrue(result.getOutcomes().get(0).getLatency() >= 800);
+  }
+
+  @Test
+  public void testErrorsAndLocalModel() throws InterruptedException {
+    Model model = ModelFactory.createDefaultModel();
+    model.createResource(NS + "s2").addProperty(model.createProperty(NS + "age"), "52");
+    FederatedQuery query = new FederatedQuery(
+        new SparqlResultCache(SparqlResultCache.DEFAULT_MEMORY_BYTES), 0, model, 2, 5000);
+    FederatedQuery.Result result = query.execute(Arrays.asList(
+        new FederatedQuery.Source(base + "names", QUERY),
+        new FederatedQuery.Source("", "SELECT ?s ?age WHERE { ?s <" + NS + "age> ?age }"),
+        new FederatedQuery.Source(base + "missing", QUERY)), true);
+    assertEquals(FederatedQuery.Outcome.ERROR, result.getOutcomes().get(2).getStatus());
+    Map<String, String> ages = rows(result.getResultSet(), "age");
+    assertEquals(Collections.singletonMap(NS + "s2", "52"), ages);
+  }
+
+  @Test
+  public void testJoinWithUnboundVariables() {
+    Var s = Var.alloc("s");
+    Var o = Var.alloc("o");
+    Node a = Node.createURI(NS + "a");
+    Node b = Node.createURI(NS + "b");
+    BindingMap left1 = BindingFactory.create();
+    left1.add(s, a);
+    BindingMap left2 = BindingFactory.create();
+    left2.add(o, b);
+    BindingMap right = BindingFactory.create();
+    right.add(s, b);
+    right.add(o, b);
+    List<Binding> joined = FederatedQuery.join(Arrays.<Binding>asList(left1, left2),
+        Arrays.<Binding>asList(right), Arrays.asList(s, o));
+    // left1 conflicts on ?s; left2 leaves ?s unbound and so matches.
+    assertEquals(1, joined.size());
+    assertEquals(b, joined.get(0).get(s));
+    assertEquals(new ArrayList<Binding>(), FederatedQuery.join(
+        Arrays.<Binding>asList(left1), Arrays.<Binding>asList(right), Arrays.asList(s)));
+  }
+}
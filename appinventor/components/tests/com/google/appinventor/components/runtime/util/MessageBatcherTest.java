@@ -0,0 +1,152 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Tests {@link MessageBatcher}.
+ */
+public class MessageBatcherTest {
+
+  /**
+   * Records the batches it is given, optionally blocking each send until released.
+   */
+  private static class RecordingTransport implements MessageBatcher.Transport,
+      MessageBatcher.Listener {
+    private final BlockingQueue<List<String>> sent = new LinkedBlockingQueue<>();
+    private final BlockingQueue<List<String>> failed = new LinkedBlockingQueue<>();
+    private volatile CountDownLatch release = null;
+    private volatile boolean fail = false;
+
+    @Override
+    public MessageBatcher.Response send(List<String> batch) throws IOException {
+      if (release != null) {
+        try {
+          assertTrue(release.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+      }
+      if (fail) {
+        throw new IOException("unreachable");
+      }
+      return new MessageBatcher.Response(200, "text/plain", "ok " + batch.size());
+    }
+
+    @Override
+    public void onBatchSent(List<String> batch, MessageBatcher.Response response) {
+      assertEquals("ok " + batch.size(), response.getContent());
+      sent.add(batch);
+    }
+
+    @Override
+    public void onBatchFailed(List<String> batch, Exception e) {
+      failed.add(batch);
+    }
+
+    private List<String> nextSent() throws InterruptedException {
+      return sent.poll(5, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void testFullBatchIsSentImmediately() throws Exception {
+    RecordingTransport transport = new RecordingTransport();
+    MessageBatcher batcher = new MessageBatcher(transport, transport, 100, 3, 60000);
+    batcher.offer("a");
+    batcher.offer("b");
+    assertNull(transport.sent.poll(200, TimeUnit.MILLISECONDS));
+    batcher.offer("c");
+    assertEquals(Arrays.asList("a", "b", "c"), transport.nextSent());
+    batcher.shutdown();
+  }
+
+  @Test
+  public void testPartialBatchIsSentAfterInterval() throws Exception {
+    RecordingTransport transport = new RecordingTransport();
+    MessageBatcher batcher = new MessageBatcher(transport, transport, 100, 10, 100);
+    long start = System.currentTimeMillis();
+    batcher.offer("a");
+    batcher.offer("b");
+    assertEquals(Arrays.asList("a", "b"), transport.nextSent());
+    assertTrue(System.currentTimeMillis() - start >= 100);
+    batcher.shutdown();
+  }
+
+  @Test
+  public void testFlushSendsWithoutWaiting() throws Exception {
+    RecordingTransport transport = new RecordingTransport();
+    MessageBatcher batcher = new MessageBatcher(transport, transport, 100, 10, 60000);
+    batcher.offer("a");
+    batcher.flush();
+    assertEquals(Arrays.asList("a"), transport.nextSent());
+    batcher.shutdown();
+  }
+
+  @Test
+  public void testMessagesQueueWhileBatchIsInFlight() throws Exception {
+    RecordingTransport transport = new RecordingTransport();
+    transport.release = new CountDownLatch(1);
+    MessageBatcher batcher = new MessageBatcher(transport, transport, 3, 2, 60000);
+    batcher.offer("a");
+    batcher.offer("b");
+    // Wait for the first batch to be taken from the queue.
+    long deadline = System.currentTimeMillis() + 5000;
+    while (batcher.size() > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(batcher.offer("c"));
+    assertTrue(batcher.offer("d"));
+    assertTrue(batcher.offer("e"));
+    // The queue is full; the message is refused rather than blocking.
+    assertFalse(batcher.offer("f"));
+    transport.release.countDown();
+    List<String> all = new ArrayList<>();
+    all.addAll(transport.nextSent());
+    all.addAll(transport.nextSent());
+    batcher.shutdown();
+    all.addAll(transport.nextSent());
+    assertEquals(Arrays.asList("a", "b", "c", "d", "e"), all);
+  }
+
+  @Test
+  public void testFailedBatchIsReported() throws Exception {
+    RecordingTransport transport = new RecordingTransport();
+    transport.fail = true;
+    MessageBatcher batcher = new MessageBatcher(transport, transport, 100, 1, 60000);
+    batcher.offer("a");
+    assertNotNull(transport.failed.poll(5, TimeUnit.SECONDS));
+    transport.fail = false;
+    batcher.offer("b");
+    assertEquals(Arrays.asList("b"), transport.nextSent());
+    batcher.shutdown();
+  }
+
+  @Test
+  public void testShutdownSendsQueuedMessages() throws Exception {
+    RecordingTransport transport = new RecordingTransport();
+    MessageBatcher batcher = new MessageBatcher(transport, transport, 100, 10, 60000);
+    batcher.offer("a");
+    batcher.shutdown();
+    assertFalse(batcher.offer("b"));
+    assertEquals(Arrays.asList("a"), transport.nextSent());
+  }
+}
@@ -0,0 +1,172 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import gnu.expr.Language;
+import gnu.lists.FString;
+import gnu.lists.LList;
+import gnu.mapping.Values;
+import gnu.math.DFloNum;
+import gnu.math.IntNum;
+import kawa.standard.Scheme;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests {@link MethodDispatchCache}.
+ */
+public class MethodDispatchCacheTest {
+
+  public static class Target {
+    private int count;
+
+    public void Increment() {
+      count++;
+    }
+
+    public int Count() {
+      return count;
+    }
+
+    public int Count(int scale) {
+      return count * scale;
+    }
+
+    public String Join(String a, double b, boolean c) {
+      return a + b + c;
+    }
+
+    public String Pick(String a) {
+      return "string";
+    }
+
+    public String Pick(YailList a) {
+      return "list";
+    }
+
+    public void Fail() {
+      throw new IllegalStateException("failed");
+    }
+  }
+
+  public static class Tabled {
+    private int total;
+
+    public void Add(int n) {
+      total += n;
+    }
+
+    public int Total() {
+      return total;
+    }
+  }
+
+  /**
+   * Stands in for the table that the annotation processors generate for a component. It covers
+   * Add, but not Total, and records the calls that go through it.
+   */
+  public static class Tabled_DispatchTable implements MethodDispatchCache.DispatchTable {
+    static int calls;
+
+    @Override
+    public int methodId(String name, int arity) {
+      return name.equals("Add") && arity == 1 ? 0 : -1;
+    }
+
+    @Override
+    public Object invoke(Object target, int methodId, Object[] args) {
+      calls++;
+      if (!(args[0] instanceof Number)) {
+        return MethodDispatchCache.UNHANDLED;
+      }
+      ((Tabled) target).Add(((Number) args[0]).intValue());
+      return Values.empty;
+    }
+  }
+
+  @BeforeClass
+  public static void setUpKawa() {
+    // Calls passed on to Kawa need a current language, as they have in the YAIL runtime.
+    Language.setDefaults(Scheme.getInstance());
+  }
+
+  private static Object call(Object target, String name, Object... args) throws Throwable {
+    return MethodDispatchCache.invoke(target, name, LList.makeList(args, 0));
+  }
+
+  @Test
+  public void testCallsByArity() throws Throwable {
+    Target target = new Target();
+    assertSame(Values.empty, call(target, "Increment"));
+    call(target, "Increment");
+    assertEquals(2, call(target, "Count"));
+    assertEquals(6, call(target, "Count", IntNum.make(3)));
+  }
+
+  @Test
+  public void testConvertsArguments() throws Throwable {
+    assertEquals("ab2.5true",
+        call(new Target(), "Join", new FString("ab"), DFloNum.make(2.5), Boolean.TRUE));
+    // Kawa truncates numbers passed for int parameters.
+    assertEquals(0, call(new Target(), "Count", DFloNum.make(2.5)));
+  }
+
+  @Test
+  public void testOverloadsAreLeftToKawa() throws Throwable {
+    assertNull(MethodDispatchCache.lookup(Target.class, "Pick", 1));
+    assertNotNull(MethodDispatchCache.lookup(Target.class, "Count", 1));
+    assertEquals("list", call(new Target(), "Pick", YailList.makeEmptyList()));
+    assertEquals("string", call(new Target(), "Pick", "x"));
+  }
+
+  @Test
+  public void testUnconvertibleArgumentsAreLeftToKawa() throws Throwable {
+    try {
+      call(new Target(), "Count", "3");
+      fail();
+    } catch (RuntimeException e) {
+      // Kawa reports the wrong argument type.
+    }
+  }
+
+  @Test
+  public void testExceptionsAreUnwrapped() throws Throwable {
+    try {
+      call(new Target(), "Fail");
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("failed", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testUsesGeneratedDispatchTable() throws Throwable {
+    Tabled target = new Tabled();
+    int calls = Tabled_DispatchTable.calls;
+    assertSame(Values.empty, call(target, "Add", IntNum.make(2)));
+    assertSame(Values.empty, call(target, "Add", DFloNum.make(3.5)));
+    assertEquals(calls + 2, Tabled_DispatchTable.calls);
+    // Methods the table does not cover are found through reflection.
+    assertEquals(5, call(target, "Total"));
+    assertEquals(calls + 2, Tabled_DispatchTable.calls);
+  }
+
+  @Test
+  public void testArgumentsTheTableRejectsAreLeftToKawa() throws Throwable {
+    try {
+      call(new Tabled(), "Add", "3");
+      fail();
+    } catch (RuntimeException e) {
+      // Kawa reports the wrong argument type.
+    }
+  }
+}
@@ -0,0 +1,155 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.Statement;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link ModelChangelog}.
+ */
+public class ModelChangelogTest {
+
+  private static final String NS = "http://example.com/";
+  private static final String GRAPH = NS + "graph";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File file;
+  private Model model;
+  private Property label;
+
+  @Before
+  public void setUp() {
+    file = new File(folder.getRoot(), "changes.log");
+    model = ModelFactory.createDefaultModel();
+    label = model.createProperty(NS, "label");
+  }
+
+  private Statement statement(int i) {
+    return model.createStatement(model.createResource(NS + "s" + i), label, "item " + i);
+  }
+
+  @Test
+  public void testChangesSurviveReopen() throws IOException {
+    ModelChangelog changelog = new ModelChangelog(file);
+    changelog.attach(model);
+    model.add(statement(1)).add(statement(2));
+    changelog.markPublished(changelog.getDelta(), GRAPH);
+    Resource blank = model.createResource();
+    model.add(statement(3)).remove(statement(1)).add(blank, label, "blank");
+    changelog.close();
+
+    ModelChangelog reopened = new ModelChangelog(file);
+    ModelChangelog.Delta delta = reopened.getDelta();
+    assertTrue(reopened.isPublished(GRAPH));
+    assertEquals(2, delta.getAdded().size());
+    assertTrue(delta.getAdded().contains(statement(3).asTriple()));
+    assertTrue(delta.getAdded().contains(
+        model.createStatement(blank, label, "blank").asTriple()));
+    assertEquals(1, delta.getRemoved().size());
+    assertTrue(delta.getRemoved().contains(statement(1).asTriple()));
+    reopened.close();
+  }
+
+  @Test
+  public void testOppositeChangesCancel() throws IOException {
+    ModelChangelog changelog = new ModelChangelog(file);
+    changelog.attach(model);
+    model.add(statement(1));
+    model.remove(statement(1));
+    assertTrue(changelog.getDelta().isEmpty());
+    changelog.close();
+  }
+
+  @Test
+  public void testLaterChangesAreKept() throws IOException {
+    ModelChangelog changelog = new ModelChangelog(file);
+    changelog.attach(model);
+    assertFalse(changelog.isPublished(GRAPH));
+    model.add(statement(1));
+    ModelChangelog.Delta delta = changelog.getDelta();
+    model.add(statement(2));
+    changelog.markPublished(delta, GRAPH);
+    assertTrue(changelog.isPublished(GRAPH));
+    assertFalse(changelog.isPublished(NS + "other"));
+    assertEquals(1, changelog.getDelta().getAdded().size());
+    assertTrue(changelog.getDelta().getAdded().contains(statement(2).asTriple()));
+    changelog.close();
+  }
+
+  @Test
+  public void testClearRequiresFullPublish() throws IOException {
+    ModelChangelog changelog = new ModelChangelog(file);
+    changelog.attach(model);
+    model.add(statement(1));
+    changelog.markPublished(changelog.getDelta(), GRAPH);
+    model.removeAll();
+    assertTrue(changelog.getDelta().isCleared());
+    assertFalse(changelog.isPublished(GRAPH));
+    changelog.markPublished(changelog.getDelta(), GRAPH);
+    assertTrue(changelog.isPublished(GRAPH));
+    changelog.close();
+  }
+
+  @Test
+  public void testRedundantAddThenRemoveIsKept() throws IOException {
+    ModelChangelog changelog = new ModelChangelog(file);
+    changelog.attach(model);
+    model.add(statement(1));
+    changelog.markPublished(changelog.getDelta(), GRAPH);
+    model.add(statement(1));
+    model.remove(statement(1));
+    ModelChangelog.Delta delta = changelog.getDelta();
+    assertTrue(delta.getAdded().isEmpty());
+    assertEquals(1, delta.getRemoved().size());
+    assertTrue(delta.getRemoved().contains(statement(1).asTriple()));
+    changelog.close();
+  }
+
+  @Test
+  public void testRedundantRemoveThenAddIsKept() throws IOException {
+    ModelChangelog changelog = new ModelChangelog(file);
+    changelog.attach(model);
+    model.remove(statement(1));
+    model.add(statement(1));
+    ModelChangelog.Delta delta = changelog.getDelta();
+    assertTrue(delta.getRemoved().isEmpty());
+    assertEquals(1, delta.getAdded().size());
+    assertTrue(delta.getAdded().contains(statement(1).asTriple()));
+    changelog.close();
+  }
+
+  @Test
+  public void testPartlyRedundantBulkChangeIsSent() throws IOException {
+    ModelChangelog changelog = new ModelChangelog(file);
+    changelog.attach(model);
+    model.add(statement(1));
+    changelog.markPublished(changelog.getDelta(), GRAPH);
+    model.add(new Statement[] { statement(1), statement(2) });
+    model.remove(statement(2));
+    ModelChangelog.Delta delta = changelog.getDelta();
+    assertEquals(1, delta.getAdded().size());
+    assertTrue(delta.getAdded().contains(statement(1).asTriple()));
+    assertEquals(1, delta.getRemoved().size());
+    assertTrue(delta.getRemoved().contains(statement(2).asTriple()));
+    changelog.close();
+  }
+}
@@ -0,0 +1,79 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static com.google.appinventor.components.runtime.util.QueryTemplateTest.BY_NAME;
+import static com.google.appinventor.components.runtime.util.QueryTemplateTest.NS;
+import static com.google.appinventor.components.runtime.util.QueryTemplateTest.select;
+
+import com.hp.hpl.jena.query.QueryExecutionFactory;
+import com.hp.hpl.jena.query.QueryFactory;
+import com.hp.hpl.jena.rdf.model.Model;
+import java.util.Collections;
+
+/**
+ * Prints the time taken to run the same query with different values by building its text and
+ * parsing it each time, and by binding a parsed {@link QueryTemplate}. This is not part of the
+ * test suite, since its results depend on the machine. Run it with the classpath of the
+ * component tests:
+ *
+ * <pre>java com.google.appinventor.components.runtime.util.QueryTemplateBenchmark</pre>
+ */
+public class QueryTemplateBenchmark {
+  private static final int ROUNDS = 2000;
+
+  private final Model model = QueryTemplateTest.createModel();
+
+  private QueryTemplateBenchmark() {
+  }
+
+  public static void main(String[] args) {
+    new QueryTemplateBenchmark().repeatedQueries();
+  }
+
+  private void repeatedQueries() {
+    QueryTemplate template = new QueryTemplate(BY_NAME);
+    for (int i = 0; i < ROUNDS / 10; i++) {
+      runConcatenated(i);
+      runTemplate(template, i);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      runConcatenated(i);
+    }
+    long concatenatedTime = System.nanoTime() - start;
+    start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      runTemplate(template, i);
+    }
+    long templateTime = System.nanoTime() - start;
+    start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      QueryFactory.create(BY_NAME);
+    }
+    long parseTime = System.nanoTime() - start;
+    System.out.println(String.format("Running %d queries over %d triples:", ROUNDS,
+        model.size()));
+    System.out.println(String.format("  Concatenated and parsed %6d us/query",
+        concatenatedTime / ROUNDS / 1000));
+    System.out.println(String.format("  Template                %6d us/query",
+        templateTime / ROUNDS / 1000));
+    System.out.println(String.format("  (parsing alone          %6d us/query)",
+        parseTime / ROUNDS / 1000));
+  }
+
+  private int runConcatenated(int i) {
+    String text = "SELECT ?person ?age WHERE { ?person <" + NS + "name> \"Person " + (i % 50)
+        + "\" ; <" + NS + "age> ?age }";
+    return select(QueryExecutionFactory.create(QueryFactory.create(text), model), "person")
+        .size();
+  }
+
+  private int runTemplate(QueryTemplate template, int i) {
+    return select(template.createExecution(model,
+        Collections.singletonMap("name", "Person " + (i % 50))), "person").size();
+  }
+}
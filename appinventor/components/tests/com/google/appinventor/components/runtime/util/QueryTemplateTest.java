@@ -0,0 +1,154 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hp.hpl.jena.query.Query;
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.query.QueryExecutionFactory;
+import com.hp.hpl.jena.query.QueryFactory;
+import com.hp.hpl.jena.query.QuerySolution;
+import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.shared.PrefixMapping;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link QueryTemplate}.
+ */
+public class QueryTemplateTest {
+
+  static final String NS = "http://example.com/";
+  static final String BY_NAME = "SELECT ?person ?age WHERE { ?person <" + NS + "name> "
+      + "?name ; <" + NS + "age> ?age }";
+
+  private Model model;
+
+  @Before
+  public void setUp() {
+    model = createModel();
+  }
+
+  /**
+   * Creates a model of 50 people with their names and ages.
+   */
+  static Model createModel() {
+    Model model = ModelFactory.createDefaultModel();
+    Property name = model.createProperty(NS + "name");
+    Property age = model.createProperty(NS + "age");
+    for (int i = 0; i < 50; i++) {
+      Resource person = model.createResource(NS + "person" + i);
+      person.addProperty(name, "Person " + i);
+      person.addLiteral(age, (long) (20 + i));
+    }
+    return model;
+  }
+
+  static List<String> select(QueryExecution execution, String var) {
+    List<String> values = new ArrayList<>();
+    try {
+      ResultSet results = execution.execSelect();
+      while (results.hasNext()) {
+        values.add(results.next().get(var).toString());
+      }
+    } finally {
+      execution.close();
+    }
+    return values;
+  }
+
+  @Test
+  public void testLocalExecutionBindsValues() {
+    QueryTemplate template = new QueryTemplate(BY_NAME);
+    Map<String, Object> values = new HashMap<>();
+    values.put("name", "Person 3");
+    assertEquals(Collections.singletonList(NS + "person3"),
+        select(template.createExecution(model, values), "person"));
+    values.put("?name", "Person 7");
+    values.remove("name");
+    assertEquals(Collections.singletonList(NS + "person7"),
+        select(template.createExecution(model, values), "person"));
+    values.clear();
+    values.put("age", 42);
+    assertEquals(Collections.singletonList(NS + "person22"),
+        select(template.createExecution(model, values), "person"));
+  }
+
+  @Test
+  public void testValuesCannotChangeTheQuery() {
+    QueryTemplate template = new QueryTemplate(BY_NAME);
+    Map<String, Object> values = new HashMap<>();
+    values.put("name", "x\" } ; DROP ALL ; SELECT * { \"");
+    String text = template.toQueryString(values);
+    Query parsed = QueryFactory.create(text);
+    assertTrue(parsed.hasValues());
+    assertEquals("x\" } ; DROP ALL ; SELECT * { \"",
+        parsed.getValuesData().get(0).get(parsed.getValuesVariables().get(0))
+            .getLiteralLexicalForm());
+    assertTrue(select(QueryExecutionFactory.create(parsed, model), "person").isEmpty());
+    try {
+      template.toQueryString(Collections.singletonMap("name", "<http://x> } <y>"));
+      fail("Expected a URI with spaces to be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      template.toQueryString(Collections.singletonMap("name ) { }", "a"));
+      fail("Expected an invalid variable name to be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testQueryStringMatchesLocalExecution() {
+    QueryTemplate template = new QueryTemplate(BY_NAME);
+    Map<String, Object> values = new HashMap<>();
+    values.put("person", NS + "person5");
+    String text = template.toQueryString(values);
+    QuerySolution row = QueryExecutionFactory.create(QueryFactory.create(text), model)
+        .execSelect().next();
+    assertEquals(25, row.getLiteral("age").getInt());
+    assertEquals(template.getQuery().serialize(),
+        template.toQueryString(Collections.<String, Object>emptyMap()));
+  }
+
+  @Test
+  public void testPrefixes() {
+    PrefixMapping prefixes = PrefixMapping.Factory.create().setNsPrefix("ex", NS);
+    QueryTemplate template = new QueryTemplate("SELECT ?p WHERE { ?p ex:name ?name }", prefixes);
+    assertEquals(Collections.singletonList(NS + "person1"), select(template.createExecution(
+        model, Collections.singletonMap("name", "Person 1")), "p"));
+  }
+
+  @Test
+  public void testToNode() {
+    assertTrue(QueryTemplate.toNode(NS + "a").isURI());
+    assertTrue(QueryTemplate.toNode("<a:b>").isURI());
+    assertFalse(QueryTemplate.toNode("hello world").isURI());
+    assertEquals("3", QueryTemplate.toNode(3.0).getLiteralLexicalForm());
+    assertEquals("2.5", QueryTemplate.toNode(2.5).getLiteralLexicalForm());
+    assertEquals("true", QueryTemplate.toNode(true).getLiteralLexicalForm());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOnlySelectQueries() {
+    new QueryTemplate("ASK { ?s ?p ?o }");
+  }
+}
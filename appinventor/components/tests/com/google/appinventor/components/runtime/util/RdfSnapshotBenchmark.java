@@ -0,0 +1,84 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Prints the time taken to restore the same model from Turtle, N-Triples and an
+ * {@link RdfSnapshot}. This is not part of the test suite, since its results depend on the
+ * machine. Run it with the classpath of the component tests:
+ *
+ * <pre>java com.google.appinventor.components.runtime.util.RdfSnapshotBenchmark</pre>
+ */
+public class RdfSnapshotBenchmark {
+  private static final int ROUNDS = 5;
+
+  private RdfSnapshotBenchmark() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    Model model = RdfSnapshotTest.createModel();
+    File turtle = createTempFile(".ttl");
+    File ntriples = createTempFile(".nt");
+    File snapshot = createTempFile(RdfSnapshot.EXTENSION);
+    writeText(model, turtle, "TURTLE");
+    writeText(model, ntriples, "N-TRIPLE");
+    RdfSnapshot.write(model, snapshot);
+
+    long turtleTime = Long.MAX_VALUE;
+    long ntriplesTime = Long.MAX_VALUE;
+    long snapshotTime = Long.MAX_VALUE;
+    for (int i = 0; i < ROUNDS; i++) {
+      turtleTime = Math.min(turtleTime, timeText(turtle, "TURTLE"));
+      ntriplesTime = Math.min(ntriplesTime, timeText(ntriples, "N-TRIPLE"));
+      long start = System.nanoTime();
+      RdfSnapshot.read(snapshot, ModelFactory.createDefaultModel());
+      snapshotTime = Math.min(snapshotTime, System.nanoTime() - start);
+    }
+    System.out.println(String.format("Restoring %d triples (best of %d):", model.size(), ROUNDS));
+    System.out.println(String.format("  Turtle    %8d bytes %6d ms", turtle.length(),
+        turtleTime / 1000000));
+    System.out.println(String.format("  N-Triples %8d bytes %6d ms", ntriples.length(),
+        ntriplesTime / 1000000));
+    System.out.println(String.format("  Snapshot  %8d bytes %6d ms", snapshot.length(),
+        snapshotTime / 1000000));
+  }
+
+  private static File createTempFile(String suffix) throws IOException {
+    File file = File.createTempFile("bench", suffix);
+    file.deleteOnExit();
+    return file;
+  }
+
+  private static void writeText(Model model, File file, String lang) throws IOException {
+    OutputStream out = new FileOutputStream(file);
+    try {
+      model.write(out, lang);
+    } finally {
+      out.close();
+    }
+  }
+
+  private static long timeText(File file, String lang) throws IOException {
+    long start = System.nanoTime();
+    Model copy = ModelFactory.createDefaultModel();
+    InputStream in = new FileInputStream(file);
+    try {
+      copy.read(in, RdfSnapshotTest.NS, lang);
+    } finally {
+      in.close();
+    }
+    return System.nanoTime() - start;
+  }
+}
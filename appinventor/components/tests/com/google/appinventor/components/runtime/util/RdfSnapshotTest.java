@@ -0,0 +1,110 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the binary {@link RdfSnapshot} format.
+ */
+public class RdfSnapshotTest {
+
+  static final String NS = "http://example.com/";
+  private static final int SUBJECTS = 10000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  static Model createModel() {
+    Model model = ModelFactory.createDefaultModel();
+    model.setNsPrefix("ex", NS);
+    Property label = model.createProperty(NS, "label");
+    Property count = model.createProperty(NS, "count");
+    Property next = model.createProperty(NS, "next");
+    for (int i = 0; i < SUBJECTS; i++) {
+      Resource subject = model.createResource(NS + "s" + i);
+      subject.addProperty(label, "item " + i, "en");
+      subject.addLiteral(count, (long) i);
+      subject.addProperty(next, model.createResource(NS + "s" + (i + 1)));
+      subject.addProperty(model.createProperty(NS, "node"), model.createResource());
+      subject.addProperty(model.createProperty(NS, "note"), "plain \u00e9t\u00e9");
+    }
+    return model;
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    Model model = createModel();
+    File file = folder.newFile("model" + RdfSnapshot.EXTENSION);
+    assertEquals(model.size(), RdfSnapshot.write(model, file));
+    Model copy = ModelFactory.createDefaultModel();
+    assertEquals(model.size(), RdfSnapshot.read(file, copy));
+    assertTrue(copy.isIsomorphicWith(model));
+    assertEquals(NS, copy.getNsPrefixURI("ex"));
+  }
+
+  @Test
+  public void testReplacesExistingSnapshot() throws IOException {
+    File file = folder.newFile("replace" + RdfSnapshot.EXTENSION);
+    RdfSnapshot.write(createModel(), file);
+    Model model = ModelFactory.createDefaultModel();
+    model.createResource(NS + "only").addProperty(model.createProperty(NS, "label"), "only");
+    RdfSnapshot.write(model, file);
+    Model copy = ModelFactory.createDefaultModel();
+    assertEquals(1, RdfSnapshot.read(file, copy));
+    assertTrue(copy.isIsomorphicWith(model));
+    assertFalse(new File(file.getPath() + ".tmp").exists());
+  }
+
+  @Test
+  public void testReadFromStream() throws IOException {
+    Model model = createModel();
+    File file = folder.newFile("stream" + RdfSnapshot.EXTENSION);
+    RdfSnapshot.write(model, file);
+    Model copy = ModelFactory.createDefaultModel();
+    InputStream in = new FileInputStream(file);
+    try {
+      RdfSnapshot.read(in, copy);
+    } finally {
+      in.close();
+    }
+    assertTrue(copy.isIsomorphicWith(model));
+  }
+
+  @Test
+  public void testRejectsOtherFiles() throws IOException {
+    File file = folder.newFile("model.ttl");
+    OutputStream out = new FileOutputStream(file);
+    try {
+      createModel().write(out, "TURTLE");
+    } finally {
+      out.close();
+    }
+    try {
+      RdfSnapshot.read(file, ModelFactory.createDefaultModel());
+      fail("Expected a Turtle file to be rejected");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+}
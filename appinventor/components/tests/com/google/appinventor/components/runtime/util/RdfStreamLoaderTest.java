@@ -0,0 +1,98 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import org.apache.jena.riot.RDFLanguages;
+import org.junit.Test;
+
+/**
+ * Tests the batched {@link RdfStreamLoader}.
+ */
+public class RdfStreamLoaderTest {
+
+  private static final String NS = "http://example.com/";
+
+  private static byte[] ntriples(int count) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      sb.append("<").append(NS).append("s").append(i).append("> <").append(NS)
+          .append("p> \"").append(i).append("\" .\n");
+    }
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testLoadReportsProgressPerBatch() {
+    Model model = ModelFactory.createDefaultModel();
+    final List<long[]> progress = new ArrayList<>();
+    byte[] data = ntriples(250);
+    RdfStreamLoader loader = new RdfStreamLoader(model, 100,
+        new RdfStreamLoader.ProgressListener() {
+          @Override
+          public void onProgress(long triples, long bytes) {
+            progress.add(new long[] {triples, bytes});
+          }
+        });
+    assertEquals(250, loader.load(new ByteArrayInputStream(data), NS, RDFLanguages.NTRIPLES));
+    assertEquals(250, model.size());
+    assertEquals(3, progress.size());
+    assertEquals(100, progress.get(0)[0]);
+    assertEquals(200, progress.get(1)[0]);
+    assertEquals(250, progress.get(2)[0]);
+    assertEquals(data.length, progress.get(2)[1]);
+  }
+
+  @Test
+  public void testTurtlePrefixesAreKept() {
+    Model model = ModelFactory.createDefaultModel();
+    String turtle = "@prefix ex: <" + NS + "> .\nex:a ex:b ex:c .\n";
+    new RdfStreamLoader(model, 10, null).load(
+        new ByteArrayInputStream(turtle.getBytes(StandardCharsets.UTF_8)), NS,
+        RDFLanguages.TURTLE);
+    assertEquals(1, model.size());
+    assertEquals(NS, model.getNsPrefixURI("ex"));
+  }
+
+  @Test
+  public void testCancelStopsLoad() {
+    Model model = ModelFactory.createDefaultModel();
+    final RdfStreamLoader[] loader = new RdfStreamLoader[1];
+    loader[0] = new RdfStreamLoader(model, 100, new RdfStreamLoader.ProgressListener() {
+      @Override
+      public void onProgress(long triples, long bytes) {
+        loader[0].cancel();
+      }
+    });
+    try {
+      loader[0].load(new ByteArrayInputStream(ntriples(1000)), NS, RDFLanguages.NTRIPLES);
+      fail("Expected the load to be cancelled");
+    } catch (CancellationException e) {
+      // expected
+    }
+    assertTrue(loader[0].isCancelled());
+    assertEquals(100, model.size());
+  }
+
+  @Test
+  public void testGuessLang() {
+    assertEquals(RDFLanguages.TURTLE,
+        RdfStreamLoader.guessLang("text/turtle; charset=utf-8", "http://example.com/data"));
+    assertEquals(RDFLanguages.NTRIPLES, RdfStreamLoader.guessLang(null, "data.nt"));
+    assertEquals(RDFLanguages.RDFXML,
+        RdfStreamLoader.guessLang("application/octet-stream", "data"));
+  }
+}
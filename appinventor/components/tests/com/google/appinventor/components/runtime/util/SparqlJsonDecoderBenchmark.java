@@ -0,0 +1,83 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.query.QueryExecutionFactory;
+import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.query.ResultSetFactory;
+import com.hp.hpl.jena.query.ResultSetFormatter;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Prints the time taken to turn a large JSON result into rows with Jena's result set parser and
+ * with {@link SparqlJsonDecoder}. This is not part of the test suite, since its results depend
+ * on the machine. Run it with the classpath of the component tests:
+ *
+ * <pre>java com.google.appinventor.components.runtime.util.SparqlJsonDecoderBenchmark</pre>
+ */
+public class SparqlJsonDecoderBenchmark {
+  private static final String NS = "http://example.com/";
+  private static final int ROWS = 10000;
+  private static final int ROUNDS = 5;
+
+  private SparqlJsonDecoderBenchmark() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    byte[] body = createResult();
+    long jenaTime = Long.MAX_VALUE;
+    long decoderTime = Long.MAX_VALUE;
+    for (int i = 0; i < ROUNDS; i++) {
+      long start = System.nanoTime();
+      ResultSet results = ResultSetFactory.copyResults(
+          ResultSetFactory.fromJSON(new ByteArrayInputStream(body)));
+      while (results.hasNext()) {
+        results.next().getLiteral("a").getInt();
+      }
+      jenaTime = Math.min(jenaTime, System.nanoTime() - start);
+      start = System.nanoTime();
+      SparqlJsonDecoder.decode(new ByteArrayInputStream(body));
+      decoderTime = Math.min(decoderTime, System.nanoTime() - start);
+    }
+    System.out.println(String.format("Decoding %d rows, %d bytes (best of %d):", ROWS,
+        body.length, ROUNDS));
+    System.out.println(String.format("  Jena result set %6d ms", jenaTime / 1000000));
+    System.out.println(String.format("  Streaming       %6d ms", decoderTime / 1000000));
+  }
+
+  /**
+   * Returns a SPARQL JSON result with a name, an integer and a date in each row.
+   */
+  private static byte[] createResult() {
+    Model model = ModelFactory.createDefaultModel();
+    Property name = model.createProperty(NS + "name");
+    Property age = model.createProperty(NS + "age");
+    Property born = model.createProperty(NS + "born");
+    for (int i = 0; i < ROWS; i++) {
+      Resource person = model.createResource(NS + "person" + i);
+      person.addProperty(name, "Person " + i);
+      person.addProperty(age, Integer.toString(i % 90), XSDDatatype.XSDinteger);
+      person.addProperty(born, "2000-01-" + (10 + i % 18), XSDDatatype.XSDdate);
+    }
+    QueryExecution qe = QueryExecutionFactory.create("SELECT * WHERE { ?p <" + NS + "name> ?n ;"
+        + " <" + NS + "age> ?a ; <" + NS + "born> ?b }", model);
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ResultSetFormatter.outputAsJSON(out, qe.execSelect());
+      return out.toByteArray();
+    } finally {
+      qe.close();
+    }
+  }
+}
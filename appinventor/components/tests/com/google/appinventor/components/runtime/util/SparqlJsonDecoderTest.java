@@ -0,0 +1,106 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests {@link SparqlJsonDecoder}.
+ */
+public class SparqlJsonDecoderTest {
+
+  private static final String NS = "http://example.com/";
+  private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+  private static ByteArrayInputStream json(String text) throws IOException {
+    return new ByteArrayInputStream(text.getBytes("UTF-8"));
+  }
+
+  private static String literal(String value, String datatype) {
+    return "{ \"type\": \"literal\", \"value\": \"" + value + "\", \"datatype\": \"" + XSD
+        + datatype + "\" }";
+  }
+
+  @Test
+  public void testDecodesTypedValues() throws IOException {
+    String text = "{ \"head\": { \"vars\": [ \"s\", \"n\", \"d\", \"b\", \"t\", \"l\", \"x\" ] },"
+        + " \"results\": { \"bindings\": [ {"
+        + " \"s\": { \"type\": \"uri\", \"value\": \"" + NS + "a\" },"
+        + " \"n\": " + literal("42", "integer") + ","
+        + " \"d\": " + literal("2.5", "decimal") + ","
+        + " \"b\": " + literal("true", "boolean") + ","
+        + " \"t\": " + literal("2020-01-02T03:04:05Z", "dateTime") + ","
+        + " \"l\": { \"type\": \"literal\", \"value\": \"hi\", \"xml:lang\": \"en\" },"
+        + " \"x\": { \"type\": \"bnode\", \"value\": \"b0\" }"
+        + " }, { \"n\": " + literal("12345678901", "long") + " } ] } }";
+    List<YailDictionary> rows = SparqlJsonDecoder.decode(json(text));
+    assertEquals(2, rows.size());
+    YailDictionary row = rows.get(0);
+    assertEquals(NS + "a", row.get("s"));
+    assertEquals(42, row.get("n"));
+    assertEquals(2.5, row.get("d"));
+    assertEquals(Boolean.TRUE, row.get("b"));
+    assertEquals("2020-01-02T03:04:05Z", row.get("t"));
+    assertEquals("hi", row.get("l"));
+    assertEquals("b0", row.get("x"));
+    // xsd:long is not one of the integer types converted by RdfUtil.
+    assertEquals("12345678901", rows.get(1).get("n"));
+    assertFalse(rows.get(1).containsKey("s"));
+  }
+
+  @Test
+  public void testConvert() {
+    assertEquals(12345678901L, SparqlJsonDecoder.convert("12345678901", XSD + "integer"));
+    assertEquals(7, SparqlJsonDecoder.convert("+7", XSD + "int"));
+    assertEquals("seven", SparqlJsonDecoder.convert("seven", XSD + "int"));
+    assertEquals(Double.NEGATIVE_INFINITY, SparqlJsonDecoder.convert("-INF", XSD + "double"));
+    assertEquals(Boolean.FALSE, SparqlJsonDecoder.convert("0", XSD + "boolean"));
+    assertEquals("2020-01-02", SparqlJsonDecoder.convert("2020-01-02", XSD + "date"));
+  }
+
+  @Test
+  public void testPages() throws IOException {
+    final List<String> pages = new ArrayList<>();
+    String text = "{ \"results\": { \"bindings\": [ { \"a\": " + literal("1", "int") + " }, "
+        + "{ \"a\": " + literal("2", "int") + " }, { \"a\": " + literal("3", "int") + " } ] },"
+        + " \"head\": { \"vars\": [ \"a\" ] } }";
+    List<String> vars = SparqlJsonDecoder.decode(json(text), 2,
+        new SparqlJsonDecoder.PageListener() {
+          @Override
+          public void onPage(List<YailDictionary> rows, int page, boolean hasMore) {
+            pages.add(page + ":" + rows.size() + ":" + hasMore);
+          }
+        });
+    assertEquals(Arrays.asList("1:2:true", "2:1:false"), pages);
+    // The head may follow the results.
+    assertEquals(Arrays.asList("a"), vars);
+  }
+
+  @Test
+  public void testEmptyResult() throws IOException {
+    String text = "{ \"head\": { \"vars\": [ \"a\" ] }, \"results\": { \"bindings\": [ ] } }";
+    assertTrue(SparqlJsonDecoder.decode(json(text)).isEmpty());
+  }
+
+  @Test(expected = IOException.class)
+  public void testAskResultIsRejected() throws IOException {
+    SparqlJsonDecoder.decode(json("{ \"head\": { }, \"boolean\": true }"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testMalformedResultIsRejected() throws IOException {
+    SparqlJsonDecoder.decode(json("{ \"results\": { \"bindings\": [ { \"a\": 1 } ] } }"));
+  }
+}
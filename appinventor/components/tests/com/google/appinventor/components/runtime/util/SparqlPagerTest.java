@@ -0,0 +1,216 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.hp.hpl.jena.query.QuerySolution;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Tests {@link SparqlPager} against a local endpoint holding 25 items.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest="tests/AndroidManifest.xml")
+public class SparqlPagerTest {
+
+  private static final int ITEMS = 25;
+  private static final Pattern PAGE = Pattern.compile(
+      "FILTER=(\\w*)\" \\} LIMIT (\\d+) OFFSET (\\d+)");
+
+  private HttpServer server;
+  private String endpoint;
+  private final List<String> queries = Collections.synchronizedList(new ArrayList<String>());
+
+  private static final SparqlPager.QueryBuilder BUILDER = new SparqlPager.QueryBuilder() {
+    @Override
+    public String build(String filter, int limit, int offset) {
+      return "SELECT ?item WHERE { ?item ?p \"FILTER=" + filter + "\" } LIMIT " + limit
+          + " OFFSET " + offset;
+    }
+  };
+
+  private static final SparqlPager.RowMapper<String> MAPPER =
+      new SparqlPager.RowMapper<String>() {
+        @Override
+        public String map(QuerySolution solution) {
+          return solution.getLiteral("item").getLexicalForm();
+        }
+      };
+
+  /**
+   * Collects the pages delivered to it.
+   */
+  private static class PageListener implements SparqlPager.Listener<String> {
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private volatile List<String> items;
+    private volatile boolean hasMore;
+
+    @Override
+    public void onPage(String filter, int page, List<String> items, boolean hasMore) {
+      this.items = items;
+      this.hasMore = hasMore;
+      latch.countDown();
+    }
+
+    @Override
+    public void onError(String filter, int page, Exception error) {
+      latch.countDown();
+    }
+
+    private List<String> await() throws InterruptedException {
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      return items;
+    }
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/sparql", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery().substring(6),
+            "UTF-8");
+        queries.add(query);
+        Matcher m = PAGE.matcher(query);
+        assertTrue(m.find());
+        String filter = m.group(1);
+        int limit = Integer.parseInt(m.group(2));
+        int offset = Integer.parseInt(m.group(3));
+        StringBuilder json = new StringBuilder(
+            "{ \"head\": { \"vars\": [ \"item\" ] }, \"results\": { \"bindings\": [");
+        int matched = 0;
+        int sent = 0;
+        for (int i = 0; i < ITEMS && sent < limit; i++) {
+          String item = "item" + i;
+          if (!item.contains(filter) || matched++ < offset) {
+            continue;
+          }
+          json.append(sent++ == 0 ? "" : ",").append("{ \"item\": { \"type\": \"literal\", ")
+              .append("\"value\": \"").append(item).append("\" } }");
+        }
+        json.append("] } }");
+        byte[] body = json.toString().getBytes("UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+      }
+    });
+    server.start();
+    endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/sparql";
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  private SparqlPager<String> createPager() {
+    return createPager(60000);
+  }
+
+  private SparqlPager<String> createPager(long ttl) {
+    return new SparqlPager<String>(new SparqlResultCache(SparqlResultCache.DEFAULT_MEMORY_BYTES),
+        endpoint, BUILDER, MAPPER, 10, ttl);
+  }
+
+  private List<String> request(SparqlPager<String> pager, String filter, int page,
+      PageListener listener) throws InterruptedException {
+    pager.requestPage(filter, page, listener);
+    return listener.await();
+  }
+
+  private void awaitQueries(int count) throws InterruptedException {
+    for (int i = 0; i < 100 && queries.size() < count; i++) {
+      Thread.sleep(50);
+    }
+    assertEquals(count, queries.size());
+  }
+
+  @Test
+  public void testPagesCoverAllItems() throws InterruptedException {
+    SparqlPager<String> pager = createPager();
+    List<String> all = new ArrayList<>();
+    for (int page = 0; ; page++) {
+      PageListener listener = new PageListener();
+      all.addAll(request(pager, "", page, listener));
+      if (!listener.hasMore) {
+        assertEquals(2, page);
+        break;
+      }
+    }
+    assertEquals(ITEMS, all.size());
+    assertEquals("item0", all.get(0));
+    assertEquals("item24", all.get(ITEMS - 1));
+  }
+
+  @Test
+  public void testNextPageIsPrefetched() throws InterruptedException {
+    SparqlPager<String> pager = createPager();
+    request(pager, "", 0, new PageListener());
+    awaitQueries(2);
+    assertTrue(queries.get(1).contains("OFFSET 10"));
+    // The prefetched page and a repeated first page are served without new queries.
+    PageListener second = new PageListener();
+    assertEquals("item10", request(pager, "", 1, second).get(0));
+    request(pager, "", 0, new PageListener());
+    // Page 1 prefetches page 2; nothing else is queried.
+    awaitQueries(3);
+    Thread.sleep(200);
+    assertEquals(3, queries.size());
+  }
+
+  @Test
+  public void testFilterIsSentToEndpoint() throws InterruptedException {
+    SparqlPager<String> pager = createPager();
+    PageListener listener = new PageListener();
+    List<String> items = request(pager, "item2", 0, listener);
+    assertEquals(6, items.size());  // item2 and item20 to item24
+    assertFalse(listener.hasMore);
+    assertTrue(queries.get(0).contains("FILTER=item2\""));
+  }
+
+  @Test
+  public void testClearDiscardsPages() throws InterruptedException {
+    // With no TTL the result cache revalidates, so a discarded page is queried again.
+    SparqlPager<String> pager = createPager(0);
+    PageListener first = new PageListener();
+    pager.requestPage("item2", 0, first);
+    first.await();
+    awaitQueries(1);
+    pager.clear();
+    request(pager, "item2", 0, new PageListener());
+    assertEquals(2, queries.size());
+  }
+
+  @Test
+  public void testEscapeString() {
+    assertEquals("a\\\"b\\\\c\\n", SparqlPager.escapeString("a\"b\\c\n"));
+  }
+}
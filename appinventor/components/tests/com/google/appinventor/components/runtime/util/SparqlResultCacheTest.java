@@ -0,0 +1,176 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.hp.hpl.jena.query.ResultSetRewindable;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link SparqlResultCache} against a local HTTP server.
+ */
+public class SparqlResultCacheTest {
+
+  private static final String QUERY = "SELECT ?s WHERE { ?s ?p \"a  b\" }";
+  private static final String RESULTS = "{ \"head\": { \"vars\": [ \"s\" ] }, "
+      + "\"results\": { \"bindings\": [ "
+      + "{ \"s\": { \"type\": \"uri\", \"value\": \"http://example.com/s1\" } }, "
+      + "{ \"s\": { \"type\": \"uri\", \"value\": \"http://example.com/s2\" } } ] } }";
+  private static final String ETAG = "\"v1\"";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private HttpServer server;
+  private String endpoint;
+  private final AtomicInteger requests = new AtomicInteger(0);
+  private final AtomicInteger transfers = new AtomicInteger(0);
+  private volatile String etag = ETAG;
+  private volatile int status = 200;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/sparql", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (status != 200) {
+          exchange.sendResponseHeaders(status, -1);
+        } else if (etag != null
+            && etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+          exchange.sendResponseHeaders(304, -1);
+        } else {
+          transfers.incrementAndGet();
+          byte[] body = RESULTS.getBytes("UTF-8");
+          exchange.getResponseHeaders().set("Content-Type", "application/sparql-results+json");
+          if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+          }
+          exchange.sendResponseHeaders(200, body.length);
+          OutputStream out = exchange.getResponseBody();
+          out.write(body);
+          out.close();
+        }
+        exchange.close();
+      }
+    });
+    server.start();
+    endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/sparql";
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  private static int count(ResultSetRewindable results) {
+    int n = 0;
+    while (results.hasNext()) {
+      results.next();
+      n++;
+    }
+    return n;
+  }
+
+  @Test
+  public void testFreshEntryIsServedFromMemory() throws IOException {
+    SparqlResultCache cache = new SparqlResultCache(SparqlResultCache.DEFAULT_MEMORY_BYTES);
+    assertEquals(2, count(cache.select(endpoint, QUERY, 60000)));
+    assertEquals(2, count(cache.select(endpoint, "  SELECT ?s\nWHERE { ?s ?p \"a  b\" }\n",
+        60000)));
+    assertEquals(1, requests.get());
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  public void testStaleEntryIsRevalidated() throws IOException {
+    SparqlResultCache cache = new SparqlResultCache(SparqlResultCache.DEFAULT_MEMORY_BYTES);
+    cache.select(endpoint, QUERY, 0);
+    assertEquals(2, count(cache.select(endpoint, QUERY, 0)));
+    assertEquals(2, requests.get());
+    assertEquals(1, transfers.get());
+    assertEquals(1, cache.getRevalidations());
+    etag = "\"v2\"";
+    cache.select(endpoint, QUERY, 0);
+    assertEquals(2, transfers.get());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public void testDiskTierSurvivesNewInstance() throws IOException {
+    SparqlResultCache cache = new SparqlResultCache(SparqlResultCache.DEFAULT_MEMORY_BYTES);
+    cache.setDiskDirectory(folder.getRoot(), SparqlResultCache.DEFAULT_DISK_BYTES);
+    cache.select(endpoint, QUERY, 60000);
+    SparqlResultCache restarted = new SparqlResultCache(SparqlResultCache.DEFAULT_MEMORY_BYTES);
+    restarted.setDiskDirectory(folder.getRoot(), SparqlResultCache.DEFAULT_DISK_BYTES);
+    assertEquals(2, count(restarted.select(endpoint, QUERY, 60000)));
+    assertEquals(1, requests.get());
+    assertEquals(1, restarted.getHits());
+  }
+
+  @Test
+  public void testDiskEntryIsReplaced() throws IOException {
+    SparqlResultCache cache = new SparqlResultCache(SparqlResultCache.DEFAULT_MEMORY_BYTES);
+    cache.setDiskDirectory(folder.getRoot(), SparqlResultCache.DEFAULT_DISK_BYTES);
+    cache.select(endpoint, QUERY, 0);
+    // The revalidated entry is written again over the first one.
+    cache.select(endpoint, QUERY, 0);
+    assertEquals(1, cache.getRevalidations());
+    assertEquals(1, folder.getRoot().listFiles().length);
+    SparqlResultCache restarted = new SparqlResultCache(SparqlResultCache.DEFAULT_MEMORY_BYTES);
+    restarted.setDiskDirectory(folder.getRoot(), SparqlResultCache.DEFAULT_DISK_BYTES);
+    assertEquals(2, count(restarted.select(endpoint, QUERY, 60000)));
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void testMemoryTierIsBounded() throws IOException {
+    SparqlResultCache cache = new SparqlResultCache(RESULTS.length() + 1);
+    cache.select(endpoint, QUERY, 60000);
+    cache.select(endpoint, QUERY + " LIMIT 1", 60000);
+    cache.select(endpoint, QUERY, 60000);
+    assertEquals(3, requests.get());
+    assertEquals(3, cache.getMisses());
+  }
+
+  @Test
+  public void testErrorsAreNotCached() throws IOException {
+    SparqlResultCache cache = new SparqlResultCache(SparqlResultCache.DEFAULT_MEMORY_BYTES);
+    status = 500;
+    try {
+      cache.select(endpoint, QUERY, 60000);
+      fail("Expected the query to fail");
+    } catch (IOException e) {
+      // expected
+    }
+    status = 200;
+    assertEquals(2, count(cache.select(endpoint, QUERY, 60000)));
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void testNormalize() {
+    assertEquals("SELECT * WHERE { ?s ?p \"a  b\" }",
+        SparqlResultCache.normalize(" SELECT *\n  WHERE {\t?s ?p \"a  b\" } "));
+    assertEquals("SELECT * WHERE { ?s <http://example.com/#p> ?o }",
+        SparqlResultCache.normalize("# comment\nSELECT * WHERE { ?s <http://example.com/#p> ?o }"));
+  }
+}
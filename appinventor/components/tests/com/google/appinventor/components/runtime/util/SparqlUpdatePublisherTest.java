@@ -0,0 +1,241 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.update.UpdateAction;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Tests {@link SparqlUpdatePublisher} against a local HTTP server.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest="tests/AndroidManifest.xml")
+public class SparqlUpdatePublisherTest {
+
+  private static final String NS = "http://example.com/";
+
+  private HttpServer server;
+  private URI uri;
+  private final List<String> methods = Collections.synchronizedList(new ArrayList<String>());
+  private final List<String> bodies = Collections.synchronizedList(new ArrayList<String>());
+  private final AtomicInteger failures = new AtomicInteger(0);
+  private volatile int failureStatus = 503;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/update", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        String body = read(exchange.getRequestBody());
+        int status = 200;
+        if (failures.get() > 0) {
+          failures.decrementAndGet();
+          status = failureStatus;
+        } else {
+          methods.add(exchange.getRequestMethod());
+          bodies.add(body);
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+      }
+    });
+    server.start();
+    uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/update");
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  private static String read(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int n;
+    while ((n = in.read(buffer)) > 0) {
+      out.write(buffer, 0, n);
+    }
+    return out.toString("UTF-8");
+  }
+
+  private static Model createModel(int subjects) {
+    Model model = ModelFactory.createDefaultModel();
+    model.setNsPrefix("ex", NS);
+    Property label = model.createProperty(NS, "label");
+    Property part = model.createProperty(NS, "part");
+    for (int i = 0; i < subjects; i++) {
+      Resource subject = model.createResource(NS + "s" + i);
+      subject.addProperty(label, "item \"" + i + "\"", "en");
+      subject.addProperty(part, model.createResource().addLiteral(label, (long) i));
+    }
+    return model;
+  }
+
+  @Test
+  public void testBatchesReproduceModel() throws IOException {
+    Model model = createModel(100);
+    final List<Integer> progress = new ArrayList<>();
+    int sent = new SparqlUpdatePublisher(uri, SparqlUpdatePublisher.Dialect.SPARQL_UPDATE)
+        .setBatchSize(50)
+        .setProgressListener(new SparqlUpdatePublisher.ProgressListener() {
+          @Override
+          public void onProgress(int sent, int total) {
+            progress.add(sent);
+            assertEquals(300, total);
+          }
+        })
+        .publish(model, null);
+    assertEquals(300, sent);
+    assertTrue(bodies.size() > 1);
+    assertEquals(bodies.size(), progress.size());
+    assertEquals(300, (int) progress.get(progress.size() - 1));
+    Model copy = ModelFactory.createDefaultModel();
+    for (String body : bodies) {
+      assertTrue(body.contains("INSERT DATA"));
+      UpdateAction.parseExecute(body, copy);
+    }
+    assertTrue(copy.isIsomorphicWith(model));
+  }
+
+  @Test
+  public void testLargeSubjectIsSplit() throws IOException {
+    Model model = ModelFactory.createDefaultModel();
+    Property label = model.createProperty(NS, "label");
+    Resource subject = model.createResource(NS + "big");
+    for (int i = 0; i < 120; i++) {
+      subject.addProperty(label, "item " + i);
+    }
+    Resource blank = model.createResource();
+    for (int i = 0; i < 3; i++) {
+      blank.addProperty(label, "part " + i);
+    }
+    subject.addProperty(model.createProperty(NS, "part"), blank);
+    int sent = new SparqlUpdatePublisher(uri, SparqlUpdatePublisher.Dialect.SPARQL_UPDATE)
+        .setBatchSize(50)
+        .publish(model, null);
+    assertEquals(124, sent);
+    assertEquals(3, bodies.size());
+    Model copy = ModelFactory.createDefaultModel();
+    for (String body : bodies) {
+      Model batch = ModelFactory.createDefaultModel();
+      UpdateAction.parseExecute(body, batch);
+      assertTrue(batch.size() <= 50);
+      UpdateAction.parseExecute(body, copy);
+    }
+    assertTrue(copy.isIsomorphicWith(model));
+  }
+
+  @Test
+  public void testNamedGraph() throws IOException {
+    new SparqlUpdatePublisher(uri, SparqlUpdatePublisher.Dialect.SPARQL_UPDATE)
+        .publish(createModel(1), NS + "graph");
+    assertEquals(1, bodies.size());
+    assertTrue(bodies.get(0).contains("GRAPH <" + NS + "graph>"));
+  }
+
+  @Test
+  public void testVirtuosoFormEncoding() throws IOException {
+    new SparqlUpdatePublisher(uri, SparqlUpdatePublisher.Dialect.VIRTUOSO)
+        .publish(createModel(1), null);
+    assertEquals(1, bodies.size());
+    assertTrue(bodies.get(0).startsWith("query="));
+    String query = URLDecoder.decode(bodies.get(0).substring(6), "UTF-8");
+    assertTrue(query.contains("INSERT INTO GRAPH <#>"));
+  }
+
+  @Test
+  public void testGraphStorePutsThenPosts() throws IOException {
+    Model model = createModel(10);
+    new SparqlUpdatePublisher(uri, SparqlUpdatePublisher.Dialect.GRAPH_STORE)
+        .setBatchSize(10)
+        .publish(model, null);
+    assertEquals("PUT", methods.get(0));
+    for (int i = 1; i < methods.size(); i++) {
+      assertEquals("POST", methods.get(i));
+    }
+    Model copy = ModelFactory.createDefaultModel();
+    for (String body : bodies) {
+      copy.read(new StringReader(body), NS, "TURTLE");
+    }
+    assertTrue(copy.isIsomorphicWith(model));
+  }
+
+  @Test
+  public void testPublishChangesDeletesThenInserts() throws IOException {
+    Model model = createModel(2);
+    Model remote = ModelFactory.createDefaultModel().add(model);
+    Property label = model.createProperty(NS, "label");
+    Statement removed = model.getResource(NS + "s0").getProperty(label);
+    Statement added = model.createStatement(model.createResource(NS + "s9"), label, "new");
+    model.remove(removed).add(added);
+    int sent = new SparqlUpdatePublisher(uri, SparqlUpdatePublisher.Dialect.SPARQL_UPDATE)
+        .publishChanges(model, Collections.singletonList(added.asTriple()),
+            Collections.singletonList(removed.asTriple()), null);
+    assertEquals(2, sent);
+    assertEquals(2, bodies.size());
+    assertTrue(bodies.get(0).contains("DELETE DATA"));
+    assertTrue(bodies.get(1).contains("INSERT DATA"));
+    for (String body : bodies) {
+      UpdateAction.parseExecute(body, remote);
+    }
+    assertTrue(remote.isIsomorphicWith(model));
+  }
+
+  @Test
+  public void testServerErrorsAreRetried() throws IOException {
+    failures.set(2);
+    new SparqlUpdatePublisher(uri, SparqlUpdatePublisher.Dialect.SPARQL_UPDATE)
+        .setRetryDelay(1)
+        .publish(createModel(1), null);
+    assertEquals(1, bodies.size());
+  }
+
+  @Test
+  public void testClientErrorsAreNotRetried() {
+    failures.set(1);
+    failureStatus = 400;
+    try {
+      new SparqlUpdatePublisher(uri, SparqlUpdatePublisher.Dialect.SPARQL_UPDATE)
+          .setRetryDelay(1)
+          .publish(createModel(1), null);
+      fail("Expected the publish to fail");
+    } catch (IOException e) {
+      assertTrue(e instanceof SparqlUpdatePublisher.RejectedException);
+      assertTrue(e.getMessage().contains("400"));
+    }
+    assertEquals(0, failures.get());
+    assertEquals(0, bodies.size());
+  }
+}
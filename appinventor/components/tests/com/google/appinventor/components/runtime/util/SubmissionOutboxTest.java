@@ -0,0 +1,255 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link SubmissionOutbox}.
+ */
+public class SubmissionOutboxTest {
+
+  private static final String NS = "http://example.com/";
+  private static final Node LABEL = Node.createURI(NS + "label");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File file;
+
+  /**
+   * Records the batches it is given, failing while failures is positive and rejecting while
+   * rejections is positive.
+   */
+  private static class RecordingSender implements SubmissionOutbox.Sender {
+    private final List<String> graphs = new ArrayList<>();
+    private final List<List<Triple>> batches = new ArrayList<>();
+    private final List<List<Triple>> rejected = new ArrayList<>();
+    private int failures = 0;
+    private int rejections = 0;
+
+    @Override
+    public void send(String graph, List<Triple> triples) throws IOException {
+      if (failures > 0) {
+        failures--;
+        throw new IOException("offline");
+      }
+      if (rejections > 0) {
+        rejections--;
+        throw new SubmissionOutbox.RejectedException("HTTP 400 Bad Request");
+      }
+      graphs.add(graph);
+      batches.add(triples);
+    }
+
+    @Override
+    public void rejected(String graph, List<Triple> triples,
+        SubmissionOutbox.RejectedException reason) {
+      rejected.add(triples);
+    }
+  }
+
+  @Before
+  public void setUp() {
+    file = new File(folder.getRoot(), "outbox");
+  }
+
+  private static List<Triple> submission(int i) {
+    Node subject = Node.createURI(NS + "s" + i);
+    return Arrays.asList(
+        Triple.create(subject, LABEL, Node.createLiteral("item " + i)),
+        Triple.create(subject, LABEL, Node.createLiteral("shared")));
+  }
+
+  @Test
+  public void testSubmissionsSurviveReopen() throws IOException {
+    SubmissionOutbox outbox = new SubmissionOutbox(file);
+    outbox.enqueue("", submission(1));
+    outbox.enqueue("", submission(2));
+    outbox.close();
+
+    SubmissionOutbox reopened = new SubmissionOutbox(file);
+    assertEquals(2, reopened.size());
+    assertEquals(4, reopened.getPendingTriples());
+    RecordingSender sender = new RecordingSender();
+    assertEquals(2, reopened.flush(sender, 100));
+    assertEquals(0, reopened.size());
+    assertEquals(2, reopened.getSentCount());
+    reopened.close();
+    assertEquals(0, new SubmissionOutbox(file).size());
+  }
+
+  @Test
+  public void testSubmissionsAreCoalescedByGraph() throws IOException {
+    SubmissionOutbox outbox = new SubmissionOutbox(file);
+    outbox.enqueue(NS + "a", submission(1));
+    outbox.enqueue(NS + "b", submission(2));
+    outbox.enqueue(NS + "a", submission(3));
+    RecordingSender sender = new RecordingSender();
+    assertEquals(3, outbox.flush(sender, 100));
+    assertEquals(Arrays.asList(NS + "a", NS + "b"), sender.graphs);
+    // The "shared" statements are about different subjects, so nothing is deduplicated here.
+    assertEquals(4, sender.batches.get(0).size());
+    assertEquals(2, sender.batches.get(1).size());
+    outbox.close();
+  }
+
+  @Test
+  public void testDuplicateTriplesAreSentOnce() throws IOException {
+    SubmissionOutbox outbox = new SubmissionOutbox(file);
+    outbox.enqueue("", submission(1));
+    outbox.enqueue("", submission(1));
+    RecordingSender sender = new RecordingSender();
+    outbox.flush(sender, 100);
+    assertEquals(1, sender.batches.size());
+    assertEquals(2, sender.batches.get(0).size());
+    outbox.close();
+  }
+
+  @Test
+  public void testBatchesRespectMaximum() throws IOException {
+    SubmissionOutbox outbox = new SubmissionOutbox(file);
+    for (int i = 0; i < 5; i++) {
+      outbox.enqueue("", submission(i));
+    }
+    RecordingSender sender = new RecordingSender();
+    assertEquals(5, outbox.flush(sender, 4));
+    assertEquals(3, sender.batches.size());
+    for (List<Triple> batch : sender.batches) {
+      assertTrue(batch.size() <= 4);
+    }
+    outbox.close();
+  }
+
+  @Test
+  public void testFailedBatchStaysQueued() throws IOException {
+    SubmissionOutbox outbox = new SubmissionOutbox(file);
+    outbox.enqueue("", submission(1));
+    outbox.enqueue("", submission(2));
+    RecordingSender sender = new RecordingSender();
+    sender.failures = 1;
+    try {
+      outbox.flush(sender, 2);
+      fail("Expected the flush to fail");
+    } catch (IOException e) {
+      // expected
+    }
+    assertEquals(2, outbox.size());
+    assertEquals(1, outbox.getFailureCount());
+    assertEquals(2, outbox.flush(sender, 2));
+    assertEquals(0, outbox.size());
+    outbox.close();
+  }
+
+  @Test
+  public void testRejectedBatchIsDropped() throws IOException {
+    SubmissionOutbox outbox = new SubmissionOutbox(file);
+    outbox.enqueue("", submission(1));
+    outbox.enqueue("", submission(2));
+    RecordingSender sender = new RecordingSender();
+    sender.rejections = 1;
+    // The rejected batch does not hold up the one behind it.
+    assertEquals(1, outbox.flush(sender, 2));
+    assertEquals(Arrays.asList(submission(1)), sender.rejected);
+    assertEquals(Arrays.asList(submission(2)), sender.batches);
+    assertEquals(0, outbox.size());
+    assertEquals(1, outbox.getSentCount());
+    assertEquals(1, outbox.getFailureCount());
+    outbox.close();
+    assertEquals(0, new SubmissionOutbox(file).size());
+  }
+
+  @Test
+  public void testCloseDuringFlush() throws IOException {
+    final SubmissionOutbox outbox = new SubmissionOutbox(file);
+    outbox.enqueue("", submission(1));
+    outbox.enqueue("", submission(2));
+    RecordingSender sender = new RecordingSender() {
+      @Override
+      public void send(String graph, List<Triple> triples) throws IOException {
+        super.send(graph, triples);
+        outbox.close();
+      }
+    };
+    assertEquals(1, outbox.flush(sender, 2));
+    assertEquals(1, sender.batches.size());
+    // The outbox stays closed, and the acknowledgement is not written to the log.
+    try {
+      outbox.enqueue("", submission(3));
+      fail("Expected the outbox to be closed");
+    } catch (IOException e) {
+      // expected
+    }
+    SubmissionOutbox reopened = new SubmissionOutbox(file);
+    assertEquals(2, reopened.size());
+    reopened.close();
+  }
+
+  @Test
+  public void testAcknowledgementsSurviveReopen() throws IOException {
+    SubmissionOutbox outbox = new SubmissionOutbox(file);
+    outbox.enqueue("", submission(1));
+    outbox.enqueue("", submission(2));
+    try {
+      // The first batch holds only the first submission; the second batch fails.
+      outbox.flush(new SubmissionOutbox.Sender() {
+        private boolean sent = false;
+
+        @Override
+        public void send(String graph, List<Triple> triples) throws IOException {
+          if (sent) {
+            throw new IOException("offline");
+          }
+          sent = true;
+        }
+
+        @Override
+        public void rejected(String graph, List<Triple> triples,
+            SubmissionOutbox.RejectedException reason) {
+        }
+      }, 2);
+      fail("Expected the flush to fail");
+    } catch (IOException e) {
+      // expected
+    }
+    outbox.close();
+    SubmissionOutbox reopened = new SubmissionOutbox(file);
+    assertEquals(1, reopened.size());
+    reopened.close();
+  }
+
+  @Test
+  public void testPartialRecordIsDropped() throws IOException {
+    SubmissionOutbox outbox = new SubmissionOutbox(file);
+    outbox.enqueue("", submission(1));
+    outbox.enqueue("", submission(2));
+    outbox.close();
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.setLength(raf.length() - 3);
+    } finally {
+      raf.close();
+    }
+    SubmissionOutbox reopened = new SubmissionOutbox(file);
+    assertEquals(1, reopened.size());
+    reopened.close();
+  }
+}
@@ -0,0 +1,125 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.query.ResultSetRewindable;
+import org.junit.Test;
+
+/**
+ * Tests {@link WindowedQuery}.
+ */
+public class WindowedQueryTest {
+
+  private static final String NS = "http://example.com/";
+  private static final Node TEMPERATURE = Node.createURI(NS + "temperature");
+  private static final String HOT = "SELECT ?sensor ?t WHERE { ?sensor <" + NS + "temperature> ?t "
+      + "FILTER(?t > 30) }";
+
+  private static Triple reading(String sensor, int value) {
+    return Triple.create(Node.createURI(NS + sensor), TEMPERATURE,
+        Node.createLiteral(Integer.toString(value), null, XSDDatatype.XSDinteger));
+  }
+
+  private static int value(ResultSetRewindable results) {
+    return results.next().getLiteral("t").getInt();
+  }
+
+  @Test
+  public void testParseWindow() {
+    WindowedQuery.Window window = WindowedQuery.Window.parse("10s", "500ms");
+    assertFalse(window.isCountBased());
+    assertEquals(10000, window.getRange());
+    assertEquals(500, window.getStep());
+    assertEquals(120000, WindowedQuery.Window.parse("2m", "1").getRange());
+    window = WindowedQuery.Window.parse("TRIPLES 20", "5");
+    assertTrue(window.isCountBased());
+    assertEquals(20, window.getRange());
+    assertEquals(5, window.getStep());
+    try {
+      WindowedQuery.Window.parse("soon", "1s");
+      fail("Expected an invalid window to be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testTimeWindowReportsNewAndExpiredSolutions() {
+    WindowedQuery query = new WindowedQuery(HOT, WindowedQuery.Window.parse("10s", "5s"));
+    query.add(reading("a", 25), 1000);
+    query.add(reading("b", 35), 2000);
+    WindowedQuery.Update update = query.slide(5000);
+    assertEquals(1, update.getAddedCount());
+    assertEquals(35, value(update.getAdded()));
+    assertEquals(0, update.getRemovedCount());
+
+    query.add(reading("c", 40), 8000);
+    update = query.slide(10000);
+    // Only the new solution is reported; b is still in the window.
+    assertEquals(1, update.getAddedCount());
+    assertEquals(40, value(update.getAdded()));
+
+    update = query.slide(15000);
+    // a and b arrived at or before 5000 and have expired.
+    assertEquals(1, update.getWindowSize());
+    assertEquals(0, update.getAddedCount());
+    assertEquals(1, update.getRemovedCount());
+    assertEquals(35, value(update.getRemoved()));
+  }
+
+  @Test
+  public void testUnchangedWindowIsNotEvaluated() {
+    WindowedQuery query = new WindowedQuery(HOT, WindowedQuery.Window.parse("1m", "1s"));
+    assertNull(query.slide(1000));
+    query.add(reading("a", 50), 1500);
+    assertEquals(1, query.slide(2000).getAddedCount());
+    assertNull(query.slide(3000));
+  }
+
+  @Test
+  public void testDuplicateTriplesExpireIndependently() {
+    WindowedQuery query = new WindowedQuery(HOT, WindowedQuery.Window.parse("10s", "1s"));
+    query.add(reading("a", 50), 1000);
+    query.add(reading("a", 50), 6000);
+    assertEquals(1, query.slide(7000).getAddedCount());
+    // The first copy expires but the second keeps the solution alive.
+    WindowedQuery.Update update = query.slide(12000);
+    assertEquals(1, update.getWindowSize());
+    assertEquals(0, update.getRemovedCount());
+    assertEquals(1, query.slide(17000).getRemovedCount());
+  }
+
+  @Test
+  public void testCountWindow() {
+    WindowedQuery query = new WindowedQuery(HOT, WindowedQuery.Window.parse("TRIPLES 2", "2"));
+    query.add(reading("a", 31), 0);
+    assertFalse(query.isSlideDue());
+    query.add(reading("b", 32), 0);
+    assertTrue(query.isSlideDue());
+    assertEquals(2, query.slide(0).getAddedCount());
+    assertFalse(query.isSlideDue());
+    query.add(reading("c", 10), 0);
+    assertEquals(2, query.size());
+    query.add(reading("d", 33), 0);
+    WindowedQuery.Update update = query.slide(0);
+    assertEquals(1, update.getAddedCount());
+    assertEquals(2, update.getRemovedCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOnlySelectQueries() {
+    new WindowedQuery("ASK { ?s ?p ?o }", WindowedQuery.Window.parse("1s", "1s"));
+  }
+}
@@ -7,6 +7,8 @@
 package com.google.appinventor.components.runtime.util;
 
 import gnu.lists.FString;
+import gnu.lists.LList;
+import gnu.lists.Pair;
 import gnu.math.IntNum;
 
 import org.junit.Test;
@@ -235,4 +237,61 @@ public class YailListTest {
     assertEquals(Long.toString(Long.MAX_VALUE), strings[0]);
     assertEquals(Long.toString(Long.MAX_VALUE), strings[1]);
   }
+
+  @Test
+  public void testIndexedUpdates() {
+    YailList list = YailList.makeList(new Object[] {"b", "d"});
+    list.addObject("e");
+    list.insertObject(0, "a");
+    list.insertObject(2, "c");
+    list.setObject(4, "E");
+    assertEquals("(a b c d E)", list.toString());
+    list.removeObject(4);
+    list.removeObject(0);
+    list.removeObject(1);
+    assertEquals("(b d)", list.toString());
+    assertEquals(2, list.size());
+    list.addObjects(list);
+    assertEquals("(b d b d)", list.toString());
+    assertEquals(4, list.size());
+    try {
+      list.setObject(4, "x");
+      fail();
+    } catch (IndexOutOfBoundsException e) {
+      // this is the intended behavior
+    }
+  }
+
+  @Test
+  public void testPairViewStaysConsistent() {
+    YailList list = YailList.makeList(new Object[] {"a", "b"});
+    assertEquals("b", list.getObject(1));
+    // Changes made through the Pairs are seen by the indexed methods.
+    list.setCdr(Pair.make("x", LList.Empty));
+    assertEquals(1, list.size());
+    assertEquals("x", list.getObject(0));
+    ((Pair) list.getCdr()).setCar("y");
+    ((Pair) list.getCdr()).setCdr(Pair.make("z", LList.Empty));
+    assertEquals(2, list.size());
+    assertEquals("z", list.getObject(1));
+    // Changes made by the indexed methods are seen through the Pairs.
+    list.addObject("w");
+    list.removeObject(0);
+    assertEquals(3, LList.length(list));
+    assertEquals("z", ((Pair) list.getCdr()).getCar());
+    assertEquals(YailList.makeList(new Object[] {"z", "w"}), list);
+  }
+
+  @Test
+  public void testInteriorChangeNeedsSetCdr() {
+    YailList list = YailList.makeList(new Object[] {"a", "b", "c"});
+    assertEquals("c", list.getObject(2));
+    // Splicing out an interior Pair is only seen once the list is told through setCdr.
+    Pair first = (Pair) list.getCdr();
+    first.setCdr(((Pair) first.getCdr()).getCdr());
+    list.setCdr(list.getCdr());
+    assertEquals(2, list.size());
+    assertEquals("c", list.getObject(1));
+    assertEquals(YailList.makeList(new Object[] {"a", "c"}), list);
+  }
 }